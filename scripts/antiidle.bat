@@ -36,6 +36,10 @@ for %%i in ("%APP_HOME%") do set APP_HOME=%%~fi
 @rem Add default JVM options here. You can also use JAVA_OPTS and ANTIIDLE_OPTS to pass JVM options to this script.
 set DEFAULT_JVM_OPTS=
 
+@rem Use the bundled runtime image and its class data sharing archive when present
+if exist "%APP_HOME%\runtime\bin\java.exe" set JAVA_HOME=%APP_HOME%\runtime
+if exist "%APP_HOME%\runtime\bin\java.exe" if exist "%APP_HOME%\lib\antiidle.jsa" set DEFAULT_JVM_OPTS=%DEFAULT_JVM_OPTS% "-XX:SharedArchiveFile=%APP_HOME%\lib\antiidle.jsa" -Xshare:auto
+
 @rem Find java.exe
 if defined JAVA_HOME goto findJavaFromJavaHome
 
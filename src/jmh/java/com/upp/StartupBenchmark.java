@@ -0,0 +1,143 @@
+package com.upp;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures cold start of the application as reported by {@link StartupProbe}: the time from JVM start until
+ * the window is visible and until the first simulation tick, and the resident set size, heap in use and
+ * loaded class count at that point.
+ *
+ * <p>Each launch is a fresh process with its own empty home directory, stopped with SIGTERM once it wrote
+ * its timings if it does not exit by itself. Launches of the variants are interleaved so disk cache and CPU
+ * frequency effects spread evenly, and one unmeasured launch per variant warms the disk cache first. Cells
+ * show the median followed by the minimum in parentheses. Run it through {@code ./gradlew startupBenchmark},
+ * {@code ./gradlew nativeBenchmark} or {@code ./gradlew footprintBenchmark}, which build the variants first.
+ */
+public final class StartupBenchmark {
+    private static final String[] KEYS = {StartupProbe.FRAME_VISIBLE, StartupProbe.FIRST_TICK, StartupProbe.RSS,
+        StartupProbe.HEAP_USED, StartupProbe.LOADED_CLASSES};
+    private static final long LAUNCH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(90);
+    private static final long POLL_MILLIS = 10;
+
+    private StartupBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the report file, the number of measured launches per variant, and the variants, each
+     *             written as its name, the executable and its arguments separated by {@code |}
+     * @throws Exception if a launch fails
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: StartupBenchmark <report> <runs> <name|executable|arg...>...");
+            Runtime.getRuntime().exit(2);
+            return;
+        }
+        int runs = Integer.parseInt(args[1]);
+        List<Variant> variants = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            String[] parts = args[i].split("\\|");
+            variants.add(new Variant(parts[0], Arrays.asList(parts).subList(1, parts.length)));
+        }
+
+        Path work = Files.createTempDirectory("antiidle-startup");
+        for (Variant variant : variants) {
+            launch(variant, work);
+        }
+        for (int run = 0; run < runs; run++) {
+            for (Variant variant : variants) {
+                variant.record(launch(variant, work));
+            }
+        }
+
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT, "%-14s %6s", "Variant", "Runs"));
+        for (String key : KEYS) {
+            report.append(String.format(Locale.ROOT, " %20s", key));
+        }
+        report.append(System.lineSeparator());
+        for (Variant variant : variants) {
+            report.append(String.format(Locale.ROOT, "%-14s %6d", variant.name, runs));
+            for (int k = 0; k < KEYS.length; k++) {
+                int key = k;
+                long[] sorted = variant.values.stream()
+                    .mapToLong(launchValues -> launchValues[key]).sorted().toArray();
+                String cell = sorted.length == 0 || sorted[0] < 0 ? "n/a"
+                    : sorted[sorted.length / 2] + " (" + sorted[0] + ")";
+                report.append(String.format(Locale.ROOT, " %20s", cell));
+            }
+            report.append(System.lineSeparator());
+        }
+        new PrintStream(System.out, true, StandardCharsets.UTF_8).print(report);
+        Path reportFile = Paths.get(args[0]);
+        Path reportDir = reportFile.toAbsolutePath().getParent();
+        if (reportDir != null) {
+            Files.createDirectories(reportDir);
+        }
+        Files.writeString(reportFile, report, StandardCharsets.UTF_8);
+    }
+
+    private static long[] launch(Variant variant, Path work) throws IOException, InterruptedException {
+        Path home = Files.createTempDirectory(work, "home");
+        Path timings = home.resolve("startup.txt");
+        List<String> command = new ArrayList<>();
+        command.add(variant.command.get(0));
+        // System properties go right after the executable, which suits both java and native images
+        command.add("-Duser.home=" + home);
+        command.add("-D" + StartupProbe.PROPERTY + "=" + timings);
+        command.addAll(variant.command.subList(1, variant.command.size()));
+        Process process = new ProcessBuilder(command)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        long deadline = System.nanoTime() + LAUNCH_TIMEOUT_NANOS;
+        while (!Files.exists(timings) && process.isAlive()) {
+            if (System.nanoTime() - deadline >= 0) {
+                process.destroyForcibly();
+                throw new IOException(variant.name + " did not report its timings in time");
+            }
+            Thread.sleep(POLL_MILLIS);
+        }
+        if (process.isAlive()) {
+            process.destroy();
+        }
+        process.waitFor();
+        if (!Files.exists(timings)) {
+            throw new IOException(variant.name + " exited with code " + process.exitValue() + " before reporting");
+        }
+        long[] values = new long[KEYS.length];
+        for (int k = 0; k < KEYS.length; k++) {
+            values[k] = StartupProbe.readTiming(timings, KEYS[k]);
+        }
+        return values;
+    }
+
+    /**
+     * A way of launching the application and the values measured with it.
+     */
+    private static final class Variant {
+        private final String name;
+        private final List<String> command;
+        private final List<long[]> values = new ArrayList<>();
+
+        private Variant(String name, List<String> command) {
+            this.name = name;
+            this.command = command;
+        }
+
+        private void record(long[] launchValues) {
+            values.add(launchValues);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.upp.config;
+
+import com.upp.exception.AntiIdleException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks for reading, loading and saving configuration.
+ * Runs against a throwaway home directory so the user's own configuration is never touched.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConfigurationManagerBenchmark {
+
+    private Path tempHome;
+    private String originalHome;
+    private ConfigurationManager configManager;
+    private ConfigurationManager.AntiIdleConfig config;
+
+    /**
+     * Creates a configuration manager backed by a temporary home directory.
+     *
+     * @throws IOException if the temporary directory cannot be created
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        tempHome = Files.createTempDirectory("antiidle-jmh");
+        originalHome = System.getProperty("user.home");
+        System.setProperty("user.home", tempHome.toString());
+        configManager = new ConfigurationManager();
+        config = configManager.getConfig();
+    }
+
+    /**
+     * Closes the manager, restores the home directory and deletes the temporary files.
+     *
+     * @throws IOException if the temporary files cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        configManager.close();
+        System.setProperty("user.home", originalHome);
+        try (Stream<Path> paths = Files.walk(tempHome)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Reads the shared snapshot, as the simulation loop does on every cycle.
+     *
+     * @return the current snapshot
+     */
+    @Benchmark
+    public ConfigSnapshot getSnapshot() {
+        return configManager.getSnapshot();
+    }
+
+    /**
+     * Creates an editable copy of the configuration.
+     *
+     * @return the copied configuration
+     */
+    @Benchmark
+    public ConfigurationManager.AntiIdleConfig getConfig() {
+        return configManager.getConfig();
+    }
+
+    /**
+     * Re-reads and binds the configuration file.
+     *
+     * @return the reloaded snapshot
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ConfigSnapshot load() {
+        configManager.reloadConfiguration();
+        return configManager.getSnapshot();
+    }
+
+    /**
+     * Serializes and writes the configuration file.
+     *
+     * @return the saved snapshot
+     * @throws AntiIdleException.ConfigurationException if the configuration is invalid
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ConfigSnapshot save() throws AntiIdleException.ConfigurationException {
+        configManager.saveConfiguration(config);
+        return configManager.getSnapshot();
+    }
+}
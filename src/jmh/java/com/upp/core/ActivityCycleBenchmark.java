@@ -0,0 +1,104 @@
+package com.upp.core;
+
+import com.upp.config.ConfigurationManager;
+import com.upp.config.LogLevelUpdater;
+import com.upp.exception.AntiIdleException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks one full {@link ActivitySimulator#performActivity()} cycle against a stub input backend.
+ * Delays between injected events are set to zero so only the engine's own cost is measured. Run with the
+ * {@code gc} profiler, it reports the bytes allocated per cycle with debug logging off and on, and with
+ * the injection journal off and on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ActivityCycleBenchmark {
+
+    /** Level of the application's loggers. */
+    @Param({"INFO", "DEBUG"})
+    private String logLevel;
+
+    /** Whether injected events are appended to the journal. */
+    @Param({"false", "true"})
+    private boolean journal;
+
+    private Path configFile;
+    private Path journalDir;
+    private ConfigurationManager configManager;
+    private ActivitySimulator simulator;
+    private LogLevelUpdater logLevelUpdater;
+
+    /**
+     * Creates a simulator over a temporary configuration and a no-op backend.
+     *
+     * @throws IOException if the temporary configuration file cannot be created
+     * @throws AntiIdleException.ConfigurationException if the benchmark configuration is invalid
+     */
+    @Setup
+    public void setUp() throws IOException, AntiIdleException.ConfigurationException {
+        configFile = Files.createTempFile("antiidle-jmh", ".yml");
+        Files.delete(configFile);
+        configManager = new ConfigurationManager(configFile);
+        ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
+        config.getActivity().setKeyPressDurationMs(0);
+        config.getLogging().setLogLevel(logLevel);
+        journalDir = Files.createTempDirectory("antiidle-jmh-journal");
+        config.getJournal().setEnabled(journal);
+        config.getJournal().setDirectory(journalDir.toString());
+        configManager.updateConfig(config);
+        logLevelUpdater = LogLevelUpdater.install(configManager);
+        simulator = new ActivitySimulator(configManager, new NoOpInputBackend());
+        simulator.setMouseSettleDelayMs(0);
+    }
+
+    /**
+     * Closes the journal, stops the log level following the configuration and deletes the temporary
+     * configuration and journal.
+     *
+     * @throws IOException if a file cannot be deleted
+     * @throws AntiIdleException.ActivitySimulationException if the closing cycle fails
+     * @throws AntiIdleException.ConfigurationException if disabling the journal is rejected
+     */
+    @TearDown
+    public void tearDown() throws IOException, AntiIdleException.ActivitySimulationException,
+            AntiIdleException.ConfigurationException {
+        // The cycle after the journal is disabled closes it
+        ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
+        config.getJournal().setEnabled(false);
+        configManager.updateConfig(config);
+        simulator.performActivity();
+        logLevelUpdater.close();
+        configManager.close();
+        Files.deleteIfExists(configFile);
+        for (Path segment : InjectionJournal.listSegments(journalDir)) {
+            Files.delete(segment);
+        }
+        Files.delete(journalDir);
+    }
+
+    /**
+     * Runs one activity cycle: mouse nudge, key press and flush.
+     *
+     * @throws AntiIdleException.ActivitySimulationException if the cycle fails
+     */
+    @Benchmark
+    public void performActivity() throws AntiIdleException.ActivitySimulationException {
+        simulator.performActivity();
+    }
+}
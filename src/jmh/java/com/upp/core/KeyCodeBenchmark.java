@@ -0,0 +1,60 @@
+package com.upp.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for resolving the configured simulation key to key codes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KeyCodeBenchmark {
+
+    @Param({"SHIFT", "f15", "CTRL+F15"})
+    private String keyName;
+
+    private KeySequence resolved;
+
+    /**
+     * Resolves the key name once, as the simulator does when the configuration changes.
+     */
+    @Setup
+    public void setUp() {
+        resolved = KeySequence.parse(keyName);
+    }
+
+    /**
+     * Parses and resolves the key sequence, paid once per configuration change.
+     *
+     * @return the resolved sequence
+     */
+    @Benchmark
+    public KeySequence parseSequence() {
+        return KeySequence.parse(keyName);
+    }
+
+    /**
+     * Reads the resolved key codes, as done before every simulated key press.
+     *
+     * @return the sum of the resolved key codes
+     */
+    @Benchmark
+    public int readResolvedCodes() {
+        int sum = 0;
+        for (int step = 0; step < resolved.getStepCount(); step++) {
+            for (int i = resolved.getStepStart(step); i < resolved.getStepEnd(step); i++) {
+                sum += resolved.getKeyCode(i);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,102 @@
+package com.upp.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares rescheduling one of many pending activity timers in a {@link TimingWheel} and in a
+ * {@link ScheduledThreadPoolExecutor}. Each operation cancels the oldest timer and schedules a new
+ * one, keeping the number of pending timers constant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TimerSchedulingBenchmark {
+    /** Timers are due far enough out that none fires during a run. */
+    private static final long BASE_DELAY_NANOS = TimeUnit.HOURS.toNanos(1);
+    private static final long SPREAD_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final Runnable TASK = () -> { };
+
+    @Param({"1000", "10000", "100000"})
+    private int timers;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+    private TimingWheel wheel;
+    private long[] handles;
+    private ScheduledThreadPoolExecutor executor;
+    private ScheduledFuture<?>[] futures;
+    private int oldest;
+
+    /**
+     * Fills both schedulers with the pending timers.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        wheel = new TimingWheel(TimeUnit.MILLISECONDS.toNanos(1), System.nanoTime(), timers);
+        handles = new long[timers];
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        futures = new ScheduledFuture<?>[timers];
+        for (int i = 0; i < timers; i++) {
+            handles[i] = wheel.schedule(TASK, nextDelay(), 0);
+            futures[i] = executor.schedule(TASK, nextDelay(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Stops the executor's worker thread.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private long nextDelay() {
+        return BASE_DELAY_NANOS + random.nextLong(SPREAD_NANOS);
+    }
+
+    private int nextIndex() {
+        int index = oldest;
+        oldest = index + 1 == timers ? 0 : index + 1;
+        return index;
+    }
+
+    /**
+     * Reschedules a timer in the timing wheel.
+     *
+     * @return the new timer handle
+     */
+    @Benchmark
+    public long timingWheel() {
+        int index = nextIndex();
+        wheel.cancel(handles[index]);
+        handles[index] = wheel.schedule(TASK, nextDelay(), 0);
+        return handles[index];
+    }
+
+    /**
+     * Reschedules a timer in the executor.
+     *
+     * @return the new future
+     */
+    @Benchmark
+    public ScheduledFuture<?> scheduledExecutor() {
+        int index = nextIndex();
+        futures[index].cancel(false);
+        futures[index] = executor.schedule(TASK, nextDelay(), TimeUnit.NANOSECONDS);
+        return futures[index];
+    }
+}
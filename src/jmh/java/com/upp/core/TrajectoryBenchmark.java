@@ -0,0 +1,99 @@
+package com.upp.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks playing pointer trajectories against a recording backend, with the pauses between frames
+ * skipped so only the cost of computing and injecting a frame is measured. Run with the {@code gc}
+ * profiler, it shows that frames allocate nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TrajectoryBenchmark {
+    /** Duration of each way of the benchmarked movements. */
+    private static final int DURATION_MS = 300;
+    /** Frames of one movement out and back at {@link PointerTrajectory#FRAME_RATE}. */
+    private static final int FRAMES = 36;
+
+    /** Length of the path, in pixels; short paths are not shaken. */
+    @Param({"1", "100", "1000"})
+    private int distance;
+
+    private final int[] screen = {0, 0, 3840, 2160};
+    private PointerTrajectory trajectory;
+    private TrajectoryPlayer player;
+    private PatternInterpreter.Target target;
+
+    /**
+     * Resolves the path and creates a player over a recording backend.
+     */
+    @Setup
+    public void setUp() {
+        trajectory = PointerTrajectory.of(distance, DURATION_MS);
+        player = TrajectoryPlayer.seeded(1);
+        RecordingInputBackend backend = new RecordingInputBackend();
+        backend.setScreenSize(screen[2], screen[3]);
+        backend.setPointerPosition(1920, 1080);
+        target = new PatternInterpreter.Target() {
+            @Override
+            public long getPointerPosition() {
+                return backend.getPointerPosition();
+            }
+
+            @Override
+            public void mouseMove(int x, int y) {
+                backend.mouseMove(x, y);
+            }
+
+            @Override
+            public void mouseWheel(int ticks) {
+                backend.mouseWheel(ticks);
+            }
+
+            @Override
+            public void keyPress(int keyCode) {
+                backend.keyPress(keyCode);
+            }
+
+            @Override
+            public void keyRelease(int keyCode) {
+                backend.keyRelease(keyCode);
+            }
+
+            @Override
+            public void pause(int millis) {
+                // Skipped, the benchmark measures the frames themselves
+            }
+        };
+    }
+
+    /**
+     * Plays one movement out and back; the score is the cost of a single frame.
+     */
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void playFrame() {
+        player.play(trajectory, screen, target);
+    }
+
+    /**
+     * Looks the path up in the shared cache, as done when the mouse movement settings change.
+     *
+     * @return the cached path
+     */
+    @Benchmark
+    public PointerTrajectory lookUpTrajectory() {
+        return PointerTrajectory.of(distance, DURATION_MS);
+    }
+}
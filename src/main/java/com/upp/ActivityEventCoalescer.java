@@ -0,0 +1,168 @@
+package com.upp;
+
+import com.upp.config.ConfigSnapshot;
+import com.upp.core.ActivityListener;
+import com.upp.core.ActivitySimulator;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Hands the events of an {@link ActivitySimulator} to the event dispatch thread in batches.
+ *
+ * <p>Events are queued without locking from whichever thread reports them. The first event of a batch
+ * schedules one drain on the event dispatch thread, no sooner than a frame after the previous drain, and
+ * later events join the pending batch; a burst of events therefore costs at most one
+ * {@link SwingUtilities#invokeLater} per frame, however long the burst.
+ */
+final class ActivityEventCoalescer implements ActivityListener {
+    /** Shortest time between two drains, a frame at 60 Hz. */
+    static final long FRAME_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+    /** Most events folded into one batch, so a drain never runs unbounded. */
+    private static final int MAX_BATCH_EVENTS = 4096;
+
+    private final Consumer<Batch> sink;
+    private final Queue<Event> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Timer frameTimer;
+    // Written on the event dispatch thread, read by the thread that schedules the next drain
+    private volatile long lastDrainNanos = System.nanoTime() - FRAME_NANOS;
+
+    /**
+     * Creates a coalescer.
+     *
+     * @param sink receives each batch on the event dispatch thread
+     */
+    ActivityEventCoalescer(Consumer<Batch> sink) {
+        this.sink = sink;
+        this.frameTimer = new Timer(0, e -> drain());
+        frameTimer.setRepeats(false);
+    }
+
+    @Override
+    public void simulationStarted(ActivitySimulator simulator) {
+        offer(new Event(Kind.STARTED, null, null));
+    }
+
+    @Override
+    public void cycleCompleted(ActivitySimulator simulator) {
+        offer(new Event(Kind.CYCLE, null, null));
+    }
+
+    @Override
+    public void injectionFailed(ActivitySimulator simulator, Exception error) {
+        offer(new Event(Kind.FAILURE, error, null));
+    }
+
+    @Override
+    public void simulationStopped(ActivitySimulator simulator, Throwable cause) {
+        offer(new Event(Kind.STOPPED, cause, null));
+    }
+
+    @Override
+    public void configApplied(ActivitySimulator simulator, ConfigSnapshot snapshot) {
+        offer(new Event(Kind.CONFIG, null, snapshot));
+    }
+
+    private void offer(Event event) {
+        queue.offer(event);
+        schedule();
+    }
+
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true)) {
+            // A drain is pending and will pick the event up
+            return;
+        }
+        long waitNanos = lastDrainNanos + FRAME_NANOS - System.nanoTime();
+        if (waitNanos <= 0) {
+            SwingUtilities.invokeLater(this::drain);
+        } else {
+            // Only the thread that won the flag touches the timer, and it is idle until it fires
+            frameTimer.setInitialDelay((int) TimeUnit.NANOSECONDS.toMillis(waitNanos + 999_999));
+            frameTimer.restart();
+        }
+    }
+
+    private void drain() {
+        long drainNanos = System.nanoTime();
+        lastDrainNanos = drainNanos;
+        // Cleared before polling, so an event queued after the last poll schedules the next drain
+        scheduled.set(false);
+        int events = 0;
+        int cycles = 0;
+        int failures = 0;
+        Throwable lastFailure = null;
+        boolean lifecycleChanged = false;
+        Throwable stopCause = null;
+        ConfigSnapshot config = null;
+        for (Event event = queue.poll(); event != null; event = queue.poll()) {
+            events++;
+            switch (event.kind()) {
+                case STARTED -> {
+                    lifecycleChanged = true;
+                    stopCause = null;
+                }
+                case CYCLE -> cycles++;
+                case FAILURE -> {
+                    failures++;
+                    lastFailure = event.error();
+                }
+                case STOPPED -> {
+                    lifecycleChanged = true;
+                    stopCause = event.error();
+                }
+                case CONFIG -> {
+                    config = event.snapshot();
+                }
+                default -> throw new IllegalStateException("Unknown event " + event.kind());
+            }
+            if (events == MAX_BATCH_EVENTS) {
+                // Leave the rest to the next frame
+                schedule();
+                break;
+            }
+        }
+        if (events > 0) {
+            sink.accept(new Batch(events, cycles, failures, lastFailure, lifecycleChanged, stopCause, config,
+                drainNanos));
+        }
+    }
+
+    private enum Kind {
+        STARTED, CYCLE, FAILURE, STOPPED, CONFIG
+    }
+
+    /**
+     * An event waiting to be drained.
+     *
+     * @param kind what happened
+     * @param error the failure or the cause of the stop, if any
+     * @param snapshot the applied configuration, for configuration events
+     */
+    private record Event(Kind kind, Throwable error, ConfigSnapshot snapshot) {
+    }
+
+    /**
+     * The events reported since the previous batch, folded together.
+     *
+     * @param events the number of events
+     * @param cycles the number of completed cycles
+     * @param failures the number of reported failures
+     * @param lastFailure the latest failure, or null if there was none
+     * @param lifecycleChanged whether the simulation started or stopped
+     * @param stopCause the error that ended the simulation, if its latest start or stop was a stop caused by
+     *        an error; null otherwise
+     * @param config the latest applied configuration, or null if none was applied
+     * @param drainNanos the {@link System#nanoTime()} the drain that folded the batch started at, which
+     *        frame pacing is measured from
+     */
+    record Batch(int events, int cycles, int failures, Throwable lastFailure, boolean lifecycleChanged,
+                 Throwable stopCause, ConfigSnapshot config, long drainNanos) {
+    }
+}
@@ -0,0 +1,268 @@
+package com.upp;
+
+import com.upp.config.ActivityOverrides;
+import com.upp.config.ConfigurationManager;
+import com.upp.core.ActivitySimulator;
+import com.upp.core.InputBackend;
+import com.upp.core.NoOpInputBackend;
+import com.upp.core.RobotInputBackend;
+import com.upp.core.SessionManager;
+import com.upp.exception.AntiIdleException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Headless entry point running the activity simulation without a window.
+ *
+ * <p>The daemon runs the global activity settings of the configuration file, one extra simulator per entry of
+ * its {@code sessions} section, the file watcher and the metrics endpoint, until the process is terminated;
+ * SIGTERM and SIGINT stop the simulations and write pending configuration changes before the process exits.
+ * Command-line options override activity settings without changing the file, for example
+ * {@code --interval-seconds=60 --engine-mode=inhibit}.
+ * In the {@code inhibit} engine mode it needs no display; given one, it still simulates input when no idle
+ * inhibitor is available or the mode is switched to {@code input} at runtime. Nothing here touches Swing,
+ * so a daemon process never loads it. It is also the entry point of the native image built by
+ * {@code ./gradlew nativeCompile}. With the {@code antiidle.startupProbe} system property set it writes its
+ * startup timings once the first tick ran and keeps running.
+ */
+public final class AntiIdleDaemon {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AntiIdleDaemon.class);
+    private static final long STARTUP_PROBE_TIMEOUT_MILLIS = 60_000;
+    private static final String USAGE = String.join(System.lineSeparator(),
+        "Usage: AntiIdleDaemon [--config=FILE] [--SETTING=VALUE]...",
+        "  --config=FILE      configuration file instead of ~/.antiidle/antiidle-config.yml",
+        "  --SETTING=VALUE    overrides a key of the activity section, with - or _ between words,",
+        "                     e.g. --interval-seconds=60 --simulation-key=F15 --engine-mode=inhibit",
+        "  --help             shows this help");
+
+    private final ConfigurationManager configManager;
+    private final ActivitySimulator simulator;
+    private final SessionManager sessionManager;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private BackgroundServices backgroundServices;
+
+    /**
+     * Creates a daemon running the global activity settings and the configured sessions, which share the
+     * backend on the default display and get a {@link java.awt.Robot} backend on any other.
+     *
+     * @param configManager the configuration manager
+     * @param inputBackend the backend that receives simulated input
+     * @throws AntiIdleException.RobotInitializationException never, as the default display uses the given backend
+     */
+    AntiIdleDaemon(ConfigurationManager configManager, InputBackend inputBackend)
+            throws AntiIdleException.RobotInitializationException {
+        this(configManager, new SessionManager(configManager, inputBackend));
+    }
+
+    /**
+     * Creates a daemon running the global activity settings on the default display of the given manager, along
+     * with its sessions.
+     *
+     * @param configManager the configuration manager
+     * @param sessionManager the manager hosting the sessions of the {@code sessions} section
+     * @throws AntiIdleException.RobotInitializationException if the default display's backend cannot be created
+     */
+    AntiIdleDaemon(ConfigurationManager configManager, SessionManager sessionManager)
+            throws AntiIdleException.RobotInitializationException {
+        this.configManager = configManager;
+        this.sessionManager = sessionManager;
+        this.simulator = sessionManager.createDefaultSimulator();
+    }
+
+    /**
+     * Creates the input backend for the configured engine mode.
+     *
+     * @param activity the activity settings
+     * @return a {@link java.awt.Robot} backend whenever a display is available, so the inhibit engine mode can
+     *         fall back to input simulation; a backend injecting nothing for the inhibit mode without a display
+     * @throws AntiIdleException.RobotInitializationException if the Robot cannot be created, including when
+     *         the input engine mode runs without a display
+     */
+    static InputBackend createBackend(ConfigurationManager.ActivitySettings activity)
+            throws AntiIdleException.RobotInitializationException {
+        if (GraphicsEnvironment.isHeadless()
+                && ConfigurationManager.ActivitySettings.ENGINE_INHIBIT.equalsIgnoreCase(activity.getEngineMode())) {
+            return new NoOpInputBackend();
+        }
+        return new RobotInputBackend();
+    }
+
+    /**
+     * Starts the simulation, the configured sessions and the background services. Sessions are read from the
+     * configuration once, here.
+     *
+     * @throws AntiIdleException if the simulation or a session cannot be started
+     */
+    synchronized void start() throws AntiIdleException {
+        // Services first, so the configured log level is in effect for the first cycle
+        backgroundServices = BackgroundServices.start(configManager, this::getSimulators);
+        try {
+            simulator.startSimulation();
+            sessionManager.startAll();
+        } catch (AntiIdleException e) {
+            stopSimulators();
+            backgroundServices.close();
+            backgroundServices = null;
+            throw e;
+        }
+        LOGGER.info("AntiIdle daemon started with {} extra sessions", sessionManager.getSessions().size());
+    }
+
+    /**
+     * Stops the simulation and the background services and writes pending configuration changes.
+     */
+    synchronized void stop() {
+        if (stopped.getCount() == 0) {
+            return;
+        }
+        stopSimulators();
+        if (backgroundServices != null) {
+            backgroundServices.close();
+        }
+        configManager.close();
+        stopped.countDown();
+        LOGGER.info("AntiIdle daemon stopped");
+    }
+
+    private void stopSimulators() {
+        sessionManager.stopAll();
+        if (simulator.isRunning()) {
+            simulator.stopSimulation();
+        }
+    }
+
+    /**
+     * Waits until the daemon is stopped.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Gets the simulator.
+     *
+     * @return the simulator running the global activity settings
+     */
+    ActivitySimulator getSimulator() {
+        return simulator;
+    }
+
+    /**
+     * Gets every simulator the daemon runs.
+     *
+     * @return the simulator of the global activity settings followed by those of the started sessions
+     */
+    List<ActivitySimulator> getSimulators() {
+        List<ActivitySimulator> simulators = new ArrayList<>();
+        simulators.add(simulator);
+        simulators.addAll(sessionManager.getSessions().values());
+        return simulators;
+    }
+
+    /**
+     * Runs the daemon until the process is terminated.
+     *
+     * @param args the command-line options, see {@code --help}
+     */
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (AntiIdleException.ConfigurationException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            Runtime.getRuntime().exit(2);
+            return;
+        }
+        if (options.help()) {
+            System.err.println(USAGE);
+            return;
+        }
+        try {
+            ConfigurationManager configManager = options.configPath() == null
+                ? new ConfigurationManager() : new ConfigurationManager(options.configPath());
+            configManager.setActivityOverrides(options.overrides());
+            AntiIdleDaemon daemon = new AntiIdleDaemon(configManager,
+                createBackend(configManager.getSnapshot().getConfig().getActivity()));
+            Runtime.getRuntime().addShutdownHook(new Thread(daemon::stop, "AntiIdleDaemonShutdown"));
+            daemon.start();
+            StartupProbe probe = StartupProbe.fromSystemProperties();
+            if (probe != null) {
+                probe.awaitStartup(daemon.getSimulator(), false, STARTUP_PROBE_TIMEOUT_MILLIS);
+                probe.report();
+            }
+            daemon.awaitStop();
+        } catch (AntiIdleException e) {
+            LOGGER.error("Failed to start AntiIdle daemon", e);
+            Runtime.getRuntime().exit(1);
+        } catch (IOException e) {
+            LOGGER.error("Failed to write startup timings", e);
+            Runtime.getRuntime().exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Parsed command-line options.
+     *
+     * @param configPath the configuration file, or null for the default one
+     * @param overrides the activity settings to override
+     * @param help whether to show the usage instead of running
+     */
+    record Options(Path configPath, ActivityOverrides overrides, boolean help) {
+        private static final String CONFIG = "config";
+
+        /**
+         * Parses options given as {@code --name=value} or {@code --name value}.
+         *
+         * @param args the command-line arguments
+         * @return the options
+         * @throws AntiIdleException.ConfigurationException if an argument is malformed or names no setting
+         */
+        static Options parse(String[] args) throws AntiIdleException.ConfigurationException {
+            Path configPath = null;
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if ("--help".equals(arg) || "-h".equals(arg)) {
+                    return new Options(null, ActivityOverrides.NONE, true);
+                }
+                if (!arg.startsWith("--") || arg.length() == 2) {
+                    throw new AntiIdleException.ConfigurationException("Unexpected argument: " + arg, null);
+                }
+                int equals = arg.indexOf('=');
+                String name;
+                String value;
+                if (equals >= 0) {
+                    name = arg.substring(2, equals);
+                    value = arg.substring(equals + 1);
+                } else if (i + 1 < args.length) {
+                    name = arg.substring(2);
+                    value = args[++i];
+                } else {
+                    throw new AntiIdleException.ConfigurationException("Missing value for " + arg, null);
+                }
+                name = name.replace('-', '_');
+                if (CONFIG.equals(name)) {
+                    configPath = Paths.get(value);
+                } else {
+                    values.put(name, value);
+                }
+            }
+            return new Options(configPath, ActivityOverrides.of(values), false);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.upp;
 
+import com.upp.config.ConfigSnapshot;
 import com.upp.config.ConfigurationManager;
 import com.upp.core.ActivitySimulator;
 import com.upp.exception.AntiIdleException;
@@ -26,20 +27,30 @@ import java.awt.Insets;
 import java.awt.Point;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.util.List;
 
 /**
  * Main GUI application for AntiIdle.
  */
 public class AntiIdleGUI {
     private static final Logger LOGGER = LoggerFactory.getLogger(AntiIdleGUI.class);
+    private static final long STARTUP_PROBE_TIMEOUT_MILLIS = 60_000;
     
+    private final StartupProbe startupProbe = StartupProbe.fromSystemProperties();
     private ConfigurationManager configManager;
     private ActivitySimulator activitySimulator;
+    private BackgroundServices backgroundServices;
     private JFrame frame;
     private JButton startButton;
     private JButton stopButton;
     private JButton settingsButton;
     private JLabel statusLabel;
+    private JLabel intervalLabel;
+    private JLabel mouseMovementLabel;
+    private JLabel cyclesLabel;
+    // Error that ended the simulation, shown until it is started again
+    private Throwable stopCause;
 
     private boolean initialized = false;
     
@@ -56,6 +67,8 @@ public class AntiIdleGUI {
             activitySimulator = new ActivitySimulator(configManager);
             LOGGER.info("Activity simulator initialized");
             
+            backgroundServices = BackgroundServices.start(configManager, () -> List.of(activitySimulator));
+            
             setupGUI();
             setupEventHandlers();
             return true;
@@ -91,6 +104,33 @@ public class AntiIdleGUI {
             LOGGER.error("Failed to initialize application, exiting");
             Runtime.getRuntime().exit(1);
         }
+        // Also on a signal, so the window position saved on exit and other pending saves are written
+        Runtime.getRuntime().addShutdownHook(
+            Thread.ofPlatform().name("ConfigFlush").unstarted(app.configManager::close));
+        if (app.startupProbe != null) {
+            app.runStartupProbe();
+        }
+    }
+
+    /**
+     * Starts the simulation, waits for the window and the first tick, reports the startup timings and exits.
+     */
+    private void runStartupProbe() {
+        SwingUtilities.invokeLater(this::startIdlePrevention);
+        try {
+            if (!startupProbe.awaitStartup(activitySimulator, true, STARTUP_PROBE_TIMEOUT_MILLIS)) {
+                LOGGER.error("Startup probe timed out waiting for the window and the first tick");
+            }
+            startupProbe.report();
+        } catch (IOException e) {
+            LOGGER.error("Failed to write startup timings", e);
+            Runtime.getRuntime().exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Runtime.getRuntime().exit(1);
+        }
+        // Exit through the regular shutdown so a training run also loads the classes used on exit
+        SwingUtilities.invokeLater(this::shutdown);
     }
 
     private void setupGUI() {
@@ -116,6 +156,9 @@ public class AntiIdleGUI {
                 shutdown();
             }
         });
+        if (startupProbe != null) {
+            frame.addWindowListener(startupProbe.frameListener());
+        }
 
         // Create main panel
         JPanel mainPanel = new JPanel(new GridBagLayout());
@@ -175,6 +218,9 @@ public class AntiIdleGUI {
         footerLabel.setForeground(Color.GRAY);
         frame.add(footerLabel, BorderLayout.SOUTH);
 
+        // The label, buttons and counters follow the simulator's events rather than the button clicks
+        activitySimulator.addActivityListener(new ActivityEventCoalescer(this::applyActivityEvents));
+
         LOGGER.info("GUI setup completed successfully");
         frame.setVisible(true);
     }
@@ -186,22 +232,82 @@ public class AntiIdleGUI {
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(5, 10, 5, 10);
         
-        ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
-        ConfigurationManager.ActivitySettings activity = config.getActivity();
-        
         gbc.gridx = 0; gbc.gridy = 0; gbc.anchor = GridBagConstraints.WEST;
         panel.add(new JLabel("Interval:"), gbc);
         gbc.gridx = 1;
-        panel.add(new JLabel(activity.getIntervalSeconds() + " seconds"), gbc);
+        intervalLabel = new JLabel();
+        panel.add(intervalLabel, gbc);
         
         gbc.gridx = 0; gbc.gridy = 1;
         panel.add(new JLabel("Mouse Movement:"), gbc);
         gbc.gridx = 1;
-        panel.add(new JLabel(activity.isMouseMovementEnabled() ? "Enabled" : "Disabled"), gbc);
+        mouseMovementLabel = new JLabel();
+        panel.add(mouseMovementLabel, gbc);
+        
+        gbc.gridx = 0; gbc.gridy = 2;
+        panel.add(new JLabel("Cycles:"), gbc);
+        gbc.gridx = 1;
+        cyclesLabel = new JLabel();
+        panel.add(cyclesLabel, gbc);
         
+        showSettings(configManager.getSnapshot());
+        showCounters(activitySimulator.getStats());
         return panel;
     }
 
+    private void showSettings(ConfigSnapshot snapshot) {
+        ConfigurationManager.ActivitySettings activity = snapshot.getActivity(null);
+        intervalLabel.setText(activity.getIntervalSeconds() + " seconds");
+        mouseMovementLabel.setText(activity.isMouseMovementEnabled() ? "Enabled" : "Disabled");
+    }
+
+    private void showCounters(ActivitySimulator.ActivityStats stats) {
+        if (stats.getIdleTimeout().isKnown()) {
+            intervalLabel.setText(stats.getIntervalSeconds() + " seconds, adapted to "
+                + stats.getIdleTimeout().source());
+        }
+        cyclesLabel.setText(String.format("%d completed, %d skipped, %d failed",
+            stats.getCycles(), stats.getSkippedCycles(), stats.getFailures()));
+    }
+
+    /**
+     * Shows the state of the simulator after a batch of its events. Runs on the event dispatch thread, at
+     * most once per frame.
+     */
+    private void applyActivityEvents(ActivityEventCoalescer.Batch batch) {
+        if (batch.lifecycleChanged()) {
+            stopCause = batch.stopCause();
+        }
+        if (batch.config() != null) {
+            showSettings(batch.config());
+        } else if (batch.lifecycleChanged()) {
+            // Settings changed while stopped are not reported, so catch up on every start and stop
+            showSettings(configManager.getSnapshot());
+        }
+        if (batch.lastFailure() != null) {
+            cyclesLabel.setToolTipText("Last failure: " + batch.lastFailure().getMessage());
+        }
+        // Read the live state, so events arriving out of order cannot leave a stale status behind
+        ActivitySimulator.ActivityStats stats = activitySimulator.getStats();
+        showStatus(stats.isRunning());
+        showCounters(stats);
+    }
+
+    private void showStatus(boolean running) {
+        if (running) {
+            statusLabel.setText("▶ Idle prevention running");
+            statusLabel.setForeground(new Color(76, 175, 80));
+        } else if (stopCause != null) {
+            statusLabel.setText("⚠ Idle prevention failed: " + stopCause.getMessage());
+            statusLabel.setForeground(new Color(244, 67, 54));
+        } else {
+            statusLabel.setText("⏸ Idle prevention stopped");
+            statusLabel.setForeground(new Color(158, 158, 158));
+        }
+        startButton.setEnabled(!running);
+        stopButton.setEnabled(running);
+    }
+
     private JButton createStyledButton(String text, Color color) {
         JButton button = new JButton(text);
         button.setPreferredSize(new Dimension(160, 45));
@@ -231,12 +337,6 @@ public class AntiIdleGUI {
     private void startIdlePrevention() {
         try {
             activitySimulator.startSimulation();
-            statusLabel.setText("▶ Idle prevention running");
-            statusLabel.setForeground(new Color(76, 175, 80));
-            
-            startButton.setEnabled(false);
-            stopButton.setEnabled(true);
-            
             LOGGER.info("Idle prevention started successfully");
         } catch (AntiIdleException.ActivitySimulationException e) {
             LOGGER.error("Failed to start idle prevention", e);
@@ -250,12 +350,6 @@ public class AntiIdleGUI {
     private void stopIdlePrevention() {
         try {
             activitySimulator.stopSimulation();
-            statusLabel.setText("⏸ Idle prevention stopped");
-            statusLabel.setForeground(new Color(158, 158, 158));
-            
-            startButton.setEnabled(true);
-            stopButton.setEnabled(false);
-            
             LOGGER.info("Idle prevention stopped successfully");
         } catch (Exception e) {
             LOGGER.error("Error stopping idle prevention", e);
@@ -283,6 +377,10 @@ public class AntiIdleGUI {
                 activitySimulator.stopSimulation();
             }
             
+            if (backgroundServices != null) {
+                backgroundServices.close();
+            }
+            
             // Save window position
             saveWindowPosition();
             
@@ -0,0 +1,77 @@
+package com.upp;
+
+import com.upp.config.ConfigWatcher;
+import com.upp.config.ConfigurationManager;
+import com.upp.config.LogLevelUpdater;
+import com.upp.core.ActivitySimulator;
+import com.upp.metrics.MetricsServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Optional services running next to the simulators: the configuration file watcher, the log level
+ * following the configuration and the metrics endpoint. A service that fails to start is logged and
+ * skipped, so the application stays usable without it.
+ */
+final class BackgroundServices implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BackgroundServices.class);
+
+    private ConfigWatcher configWatcher;
+    private LogLevelUpdater logLevelUpdater;
+    private MetricsServer metricsServer;
+
+    private BackgroundServices() {
+    }
+
+    /**
+     * Starts the services enabled in the current configuration.
+     *
+     * @param configManager the configuration manager
+     * @param simulators supplies the simulators to report metrics for
+     * @return the running services
+     */
+    static BackgroundServices start(ConfigurationManager configManager,
+                                    Supplier<? extends Collection<ActivitySimulator>> simulators) {
+        BackgroundServices services = new BackgroundServices();
+        services.logLevelUpdater = LogLevelUpdater.install(configManager);
+        services.configWatcher = new ConfigWatcher(configManager);
+        try {
+            services.configWatcher.start();
+        } catch (IOException e) {
+            // Without the watcher, changes to the file still apply after a restart
+            LOGGER.warn("Failed to watch configuration file for changes", e);
+            services.configWatcher = null;
+        }
+
+        ConfigurationManager.MetricsSettings metrics = configManager.getSnapshot().getConfig().getMetrics();
+        if (metrics.isEnabled()) {
+            services.metricsServer = new MetricsServer(metrics, simulators);
+            try {
+                services.metricsServer.start();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to start metrics endpoint on {}:{}", metrics.getBindAddress(), metrics.getPort(),
+                    e);
+                services.metricsServer = null;
+            }
+        }
+        return services;
+    }
+
+    /**
+     * Stops all running services.
+     */
+    @Override
+    public void close() {
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
+        if (configWatcher != null) {
+            configWatcher.close();
+        }
+        logLevelUpdater.close();
+    }
+}
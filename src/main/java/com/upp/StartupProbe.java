@@ -0,0 +1,192 @@
+package com.upp;
+
+import com.upp.core.ActivitySimulator;
+
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.event.WindowListener;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long after the JVM started the window became visible and the first simulation tick ran.
+ *
+ * <p>Enabled by the {@code antiidle.startupProbe} system property, whose value names the file the timings
+ * are written to, or {@code -} for standard output. A probed GUI launch starts the simulation right away,
+ * waits for its first tick, writes the timings and exits, so it also serves as the training run of
+ * {@code ./gradlew appCdsArchive}; a probed daemon keeps running after writing them. Timings are written
+ * as {@code key=value} lines, along with the heap in use, the number of loaded classes and the resident set
+ * size at that point where the platform reports it.
+ */
+final class StartupProbe {
+    /** System property enabling the probe. */
+    static final String PROPERTY = "antiidle.startupProbe";
+
+    /** Time from JVM start until the window was first shown. */
+    static final String FRAME_VISIBLE = "frame_visible_ms";
+
+    /** Time from JVM start until the first simulation tick. */
+    static final String FIRST_TICK = "first_tick_ms";
+
+    /** Resident set size when the timings were written. */
+    static final String RSS = "rss_kb";
+
+    /** Heap in use when the timings were written. */
+    static final String HEAP_USED = "heap_used_kb";
+
+    /** Classes loaded when the timings were written. */
+    static final String LOADED_CLASSES = "loaded_classes";
+
+    private static final Path PROC_STATUS = Paths.get("/proc/self/status");
+
+    private static final long NOT_SEEN = -1;
+    private static final long POLL_MILLIS = 1;
+
+    private final String target;
+    private volatile long frameVisibleNanos = NOT_SEEN;
+    private volatile long firstTickNanos = NOT_SEEN;
+
+    /**
+     * Creates a probe.
+     *
+     * @param target the file to write the timings to, or {@code -} for standard output
+     */
+    StartupProbe(String target) {
+        this.target = target;
+    }
+
+    /**
+     * Creates the probe requested by the {@code antiidle.startupProbe} system property.
+     *
+     * @return the probe, or null if the property is not set
+     */
+    static StartupProbe fromSystemProperties() {
+        String target = System.getProperty(PROPERTY);
+        return target == null || target.isBlank() ? null : new StartupProbe(target.trim());
+    }
+
+    /**
+     * Creates a listener recording when the window it is added to is first shown.
+     *
+     * @return the window listener
+     */
+    WindowListener frameListener() {
+        return new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                frameVisible();
+            }
+        };
+    }
+
+    /**
+     * Records that the window became visible, unless it was recorded before.
+     */
+    void frameVisible() {
+        if (frameVisibleNanos == NOT_SEEN) {
+            frameVisibleNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Waits until the window is visible and the simulator ran its first tick, whether or not the cycle
+     * injected input.
+     *
+     * @param simulator the started simulator
+     * @param requireFrame whether to wait for the window as well
+     * @param timeoutMillis the maximum time to wait
+     * @return true if both were seen before the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean awaitStartup(ActivitySimulator simulator, boolean requireFrame, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (firstTickNanos == NOT_SEEN || requireFrame && frameVisibleNanos == NOT_SEEN) {
+            if (firstTickNanos == NOT_SEEN && hasTicked(simulator.getStats())) {
+                firstTickNanos = System.nanoTime();
+            } else if (System.nanoTime() - deadline >= 0) {
+                return false;
+            } else {
+                Thread.sleep(POLL_MILLIS);
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasTicked(ActivitySimulator.ActivityStats stats) {
+        return stats.getCycles() + stats.getSkippedCycles() + stats.getFailures() > 0;
+    }
+
+    /**
+     * Writes the timings recorded so far; timings not seen are written as -1.
+     *
+     * @throws IOException if the target file cannot be written
+     */
+    void report() throws IOException {
+        // Only convert to JVM-relative times now, so loading the management classes does not skew them
+        long startNanos = System.nanoTime()
+            - TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime());
+        String timings = FRAME_VISIBLE + "=" + sinceStart(frameVisibleNanos, startNanos) + System.lineSeparator()
+            + FIRST_TICK + "=" + sinceStart(firstTickNanos, startNanos) + System.lineSeparator()
+            + RSS + "=" + residentSetKilobytes() + System.lineSeparator()
+            + HEAP_USED + "=" + ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / 1024
+            + System.lineSeparator()
+            + LOADED_CLASSES + "=" + ManagementFactory.getClassLoadingMXBean().getLoadedClassCount()
+            + System.lineSeparator();
+        if ("-".equals(target)) {
+            PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+            out.print(timings);
+            out.flush();
+        } else {
+            // Readers poll for the file, so it must never be seen half written
+            Path file = Paths.get(target);
+            Path temp = Paths.get(target + ".tmp");
+            Files.writeString(temp, timings, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Reads the resident set size from {@code /proc}, which only Linux provides.
+     */
+    private static long residentSetKilobytes() {
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS, StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.substring("VmRSS:".length()).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not Linux, or an unexpected format
+        }
+        return NOT_SEEN;
+    }
+
+    private static long sinceStart(long nanos, long startNanos) {
+        return nanos == NOT_SEEN ? NOT_SEEN : TimeUnit.NANOSECONDS.toMillis(nanos - startNanos);
+    }
+
+    /**
+     * Reads a value from a file written by {@link #report()}.
+     *
+     * @param file the timings file
+     * @param key the value, such as {@link #FIRST_TICK}
+     * @return the value, or -1 if it is missing
+     * @throws IOException if the file cannot be read
+     */
+    static long readTiming(Path file, String key) throws IOException {
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.startsWith(key + "=")) {
+                return Long.parseLong(line.substring(key.length() + 1).trim());
+            }
+        }
+        return NOT_SEEN;
+    }
+}
@@ -0,0 +1,95 @@
+package com.upp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.upp.exception.AntiIdleException;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Activity settings given on the command line, applied on top of the configuration file.
+ *
+ * <p>Settings are named by their key in the {@code activity} section of the file, such as
+ * {@code interval_seconds}, and their values are converted the same way as values read from the file.
+ */
+public final class ActivityOverrides {
+    /** No overrides. */
+    public static final ActivityOverrides NONE = new ActivityOverrides(Collections.emptyMap());
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Map<String, String> values;
+
+    private ActivityOverrides(Map<String, String> values) {
+        this.values = values;
+    }
+
+    /**
+     * Creates overrides, checking that every key names an activity setting and every value converts to it.
+     *
+     * @param values the setting values by key, such as {@code interval_seconds} to {@code 60}
+     * @return the overrides
+     * @throws AntiIdleException.ConfigurationException if a key is unknown or a value does not convert
+     */
+    public static ActivityOverrides of(Map<String, String> values) throws AntiIdleException.ConfigurationException {
+        ActivityOverrides overrides = new ActivityOverrides(new LinkedHashMap<>(values));
+        try {
+            overrides.update(new ConfigurationManager.ActivitySettings());
+        } catch (UnrecognizedPropertyException e) {
+            throw new AntiIdleException.ConfigurationException("Unknown activity setting: " + e.getPropertyName(), e);
+        } catch (IOException e) {
+            throw new AntiIdleException.ConfigurationException("Invalid activity setting: " + e.getMessage(), e);
+        }
+        return overrides;
+    }
+
+    /**
+     * Applies the overrides to activity settings.
+     *
+     * @param activity the settings to modify
+     */
+    public void applyTo(ConfigurationManager.ActivitySettings activity) {
+        try {
+            update(activity);
+        } catch (IOException e) {
+            // Every value converted when the overrides were created
+            throw new IllegalStateException("Cannot apply activity overrides " + values, e);
+        }
+    }
+
+    private void update(ConfigurationManager.ActivitySettings activity) throws IOException {
+        if (values.isEmpty()) {
+            return;
+        }
+        ObjectNode node = MAPPER.createObjectNode();
+        values.forEach(node::put);
+        MAPPER.readerForUpdating(activity).readValue(node);
+    }
+
+    /**
+     * Checks whether there is nothing to override.
+     *
+     * @return true if no setting is overridden
+     */
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    /**
+     * Gets the overridden values.
+     *
+     * @return the unmodifiable setting values by key
+     */
+    public Map<String, String> getValues() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
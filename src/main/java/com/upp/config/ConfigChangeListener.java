@@ -0,0 +1,18 @@
+package com.upp.config;
+
+/**
+ * Listener notified when {@link ConfigurationManager} publishes a new configuration snapshot.
+ */
+@FunctionalInterface
+public interface ConfigChangeListener {
+
+    /**
+     * Called after a new snapshot has been published.
+     * Runs on the thread that changed the configuration, so implementations must not block.
+     * The changed fields are available from {@link ConfigSnapshot#getChanges()} of {@code current}.
+     *
+     * @param previous the snapshot that was replaced
+     * @param current the snapshot that is now current
+     */
+    void configChanged(ConfigSnapshot previous, ConfigSnapshot current);
+}
@@ -0,0 +1,105 @@
+package com.upp.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Field-level difference between two configuration objects.
+ *
+ * <p>Changed fields are named by their path in the YAML file, such as {@code activity.interval_seconds}
+ * or {@code sessions[1].display}. Objects are compared through their serialized form, so every field
+ * bound to the configuration file is covered without listing fields here.
+ */
+public final class ConfigDiff {
+    /** Difference with no changed fields. */
+    public static final ConfigDiff EMPTY = new ConfigDiff(Collections.emptySortedSet());
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final SortedSet<String> changedPaths;
+
+    private ConfigDiff(SortedSet<String> changedPaths) {
+        this.changedPaths = Collections.unmodifiableSortedSet(changedPaths);
+    }
+
+    /**
+     * Compares two configuration objects of the same type, such as two whole configurations or the
+     * activity settings of one session in two snapshots.
+     *
+     * @param previous the old object, or null
+     * @param current the new object, or null
+     * @return the changed fields, relative to the compared objects
+     */
+    public static ConfigDiff between(Object previous, Object current) {
+        if (previous == current) {
+            return EMPTY;
+        }
+        SortedSet<String> paths = new TreeSet<>();
+        compare("", MAPPER.valueToTree(previous), MAPPER.valueToTree(current), paths);
+        return paths.isEmpty() ? EMPTY : new ConfigDiff(paths);
+    }
+
+    private static void compare(String path, JsonNode previous, JsonNode current, Set<String> paths) {
+        if (Objects.equals(previous, current)) {
+            return;
+        }
+        if (previous != null && current != null && previous.isObject() && current.isObject()) {
+            Set<String> names = new TreeSet<>();
+            previous.fieldNames().forEachRemaining(names::add);
+            current.fieldNames().forEachRemaining(names::add);
+            for (String name : names) {
+                compare(path.isEmpty() ? name : path + "." + name, previous.get(name), current.get(name), paths);
+            }
+        } else if (previous != null && current != null && previous.isArray() && current.isArray()) {
+            for (int i = 0; i < Math.max(previous.size(), current.size()); i++) {
+                compare(path + "[" + i + "]", previous.get(i), current.get(i), paths);
+            }
+        } else {
+            paths.add(path);
+        }
+    }
+
+    /**
+     * Checks whether nothing changed.
+     *
+     * @return true if no field changed
+     */
+    public boolean isEmpty() {
+        return changedPaths.isEmpty();
+    }
+
+    /**
+     * Gets the paths of the changed fields.
+     *
+     * @return the sorted, unmodifiable set of changed field paths
+     */
+    public SortedSet<String> getChangedPaths() {
+        return changedPaths;
+    }
+
+    /**
+     * Checks whether a field, or any field nested in it, changed.
+     *
+     * @param path the field path, such as {@code activity} or {@code activity.simulation_key}
+     * @return true if the field or one of its nested fields changed
+     */
+    public boolean affects(String path) {
+        for (String changed : changedPaths) {
+            if (changed.equals(path) || changed.startsWith(path + ".") || changed.startsWith(path + "[")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return changedPaths.isEmpty() ? "no changes" : String.join(", ", changedPaths);
+    }
+}
@@ -0,0 +1,47 @@
+package com.upp.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import java.nio.file.Path;
+
+/**
+ * Flight Recorder event for a configuration file operation of {@link ConfigurationManager}.
+ *
+ * <p>Disabled by default; enable it with the bundled {@code antiidle.jfc} profile.
+ */
+@Name(ConfigOperationEvent.NAME)
+@Label("Configuration Operation")
+@Category("AntiIdle")
+@Description("Loading, saving or reloading the configuration file")
+@Enabled(false)
+@Threshold("0 ms")
+@StackTrace(false)
+final class ConfigOperationEvent extends Event {
+    static final String NAME = "com.upp.ConfigOperation";
+    static final String LOAD = "load";
+    static final String SAVE = "save";
+    static final String RELOAD = "reload";
+
+    @Label("Operation")
+    @Description("load, save or reload")
+    private String operation;
+
+    @Label("Path")
+    private String path;
+
+    @Label("Succeeded")
+    private boolean succeeded;
+
+    void set(String operation, Path configPath, boolean succeeded) {
+        this.operation = operation;
+        this.path = configPath.toString();
+        this.succeeded = succeeded;
+    }
+}
@@ -0,0 +1,240 @@
+package com.upp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Write-behind persistence of the configuration file.
+ *
+ * <p>Callers only hand over the configuration to save, so no thread that saves settings, including
+ * the Swing event dispatch thread, performs file I/O. Saves arriving within the coalescing delay are
+ * merged into a single write of the latest configuration. Writes whose serialized bytes match the
+ * file's current contents are skipped.
+ *
+ * <p>The file is replaced atomically: the configuration is written to a temporary file in the same
+ * directory, optionally forced to disk, and renamed over the old file. A crash therefore leaves either
+ * the old or the new file, never a truncated one.
+ */
+final class ConfigPersister {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigPersister.class);
+
+    /** Delay during which further saves are merged into the same write. */
+    static final long DEFAULT_COALESCE_MILLIS = 250;
+
+    private final Path configPath;
+    private final ObjectMapper objectMapper;
+    private final long coalesceMillis;
+    private final ScheduledThreadPoolExecutor executor;
+    private final AtomicReference<PendingWrite> pending = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicReference<byte[]> fileBytes = new AtomicReference<>();
+    private final AtomicLong writeCount = new AtomicLong();
+    private volatile boolean writing;
+
+    /**
+     * Creates a persister.
+     *
+     * @param configPath the configuration file
+     * @param objectMapper the mapper serializing the configuration
+     * @param coalesceMillis the delay during which further saves are merged into the same write
+     */
+    ConfigPersister(Path configPath, ObjectMapper objectMapper, long coalesceMillis) {
+        this.configPath = configPath;
+        this.objectMapper = objectMapper;
+        this.coalesceMillis = coalesceMillis;
+        this.executor = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "ConfigPersister");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Let the thread end while there is nothing to write
+        executor.setKeepAliveTime(1, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Records the bytes currently in the file, so saving the same configuration does not rewrite it.
+     *
+     * @param bytes the file contents
+     */
+    void seed(byte[] bytes) {
+        fileBytes.set(bytes.clone());
+    }
+
+    /**
+     * Schedules a configuration to be written, replacing any configuration still waiting to be written.
+     *
+     * @param config the configuration, which must not be modified afterwards
+     * @param fsync whether to force the file to disk before replacing the old one
+     */
+    void submit(ConfigurationManager.AntiIdleConfig config, boolean fsync) {
+        pending.set(new PendingWrite(config, fsync));
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.schedule(this::writePending, coalesceMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Closed during shutdown, write on the caller rather than lose the change
+                writePending();
+            }
+        }
+    }
+
+    /**
+     * Writes the waiting configuration now and waits for it to be written.
+     *
+     * @param timeoutMillis the maximum time to wait
+     * @return true if nothing is left to write
+     */
+    boolean flush(long timeoutMillis) {
+        try {
+            executor.submit(this::writePending).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return !isPending();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | RejectedExecutionException e) {
+            LOGGER.warn("Failed to flush configuration to {}", configPath, e);
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a write is waiting or in progress.
+     *
+     * @return true if the file is about to change
+     */
+    boolean isPending() {
+        return writing || pending.get() != null;
+    }
+
+    /**
+     * Checks whether the file holds exactly what was last written or loaded.
+     *
+     * @param bytes the file contents
+     * @return true if the contents match
+     */
+    boolean isCurrent(byte[] bytes) {
+        return Arrays.equals(fileBytes.get(), bytes);
+    }
+
+    /**
+     * Gets the number of times the file was written.
+     *
+     * @return the write count
+     */
+    long getWriteCount() {
+        return writeCount.get();
+    }
+
+    /**
+     * Flushes the waiting configuration and stops the writer thread.
+     *
+     * @param timeoutMillis the maximum time to wait for the flush
+     */
+    void close(long timeoutMillis) {
+        flush(timeoutMillis);
+        executor.shutdown();
+    }
+
+    private void writePending() {
+        scheduled.set(false);
+        writing = true;
+        try {
+            PendingWrite write = pending.getAndSet(null);
+            if (write != null) {
+                write(write);
+            }
+        } finally {
+            writing = false;
+        }
+    }
+
+    private void write(PendingWrite write) {
+        ConfigOperationEvent event = new ConfigOperationEvent();
+        event.begin();
+        boolean succeeded = false;
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(write.config());
+            if (Arrays.equals(bytes, fileBytes.get())) {
+                LOGGER.debug("Configuration unchanged, skipping write to {}", configPath);
+            } else {
+                replaceFile(bytes, write.fsync());
+                fileBytes.set(bytes);
+                writeCount.incrementAndGet();
+                LOGGER.info("Configuration saved to: {}", configPath);
+            }
+            succeeded = true;
+        } catch (IOException e) {
+            LOGGER.error("Error saving configuration", e);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.set(ConfigOperationEvent.SAVE, configPath, succeeded);
+                event.commit();
+            }
+        }
+    }
+
+    private void replaceFile(byte[] bytes, boolean fsync) throws IOException {
+        Path directory = configPath.toAbsolutePath().getParent();
+        if (directory == null) {
+            throw new IOException("Configuration file has no parent directory: " + configPath);
+        }
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "." + configPath.getFileName(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (fsync) {
+                    channel.force(true);
+                }
+            }
+            try {
+                Files.move(temp, configPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, configPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        if (fsync) {
+            forceDirectory(directory);
+        }
+    }
+
+    /**
+     * Forces the rename to disk. Not every platform can open a directory, which only costs durability.
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            LOGGER.debug("Cannot force directory {} to disk: {}", directory, e.getMessage());
+        }
+    }
+
+    private record PendingWrite(ConfigurationManager.AntiIdleConfig config, boolean fsync) {
+    }
+}
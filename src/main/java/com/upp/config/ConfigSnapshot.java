@@ -0,0 +1,104 @@
+package com.upp.config;
+
+import java.util.List;
+
+/**
+ * Immutable, versioned view of the application configuration.
+ * Published by {@link ConfigurationManager} and shared by all readers.
+ */
+public final class ConfigSnapshot {
+    private final long version;
+    private final ConfigurationManager.AntiIdleConfig config;
+    private final ConfigDiff changes;
+
+    /**
+     * Creates a snapshot from a frozen copy of the given configuration.
+     *
+     * @param version the snapshot version, increasing with every published change
+     * @param config the configuration to copy
+     */
+    public ConfigSnapshot(long version, ConfigurationManager.AntiIdleConfig config) {
+        this(version, config, ConfigDiff.EMPTY);
+    }
+
+    /**
+     * Creates a snapshot that replaces another one.
+     *
+     * @param version the snapshot version, increasing with every published change
+     * @param config the configuration to copy
+     * @param changes the fields that differ from the replaced snapshot
+     */
+    ConfigSnapshot(long version, ConfigurationManager.AntiIdleConfig config, ConfigDiff changes) {
+        this.version = version;
+        this.config = config.copy();
+        this.config.freeze();
+        this.changes = changes;
+    }
+
+    /**
+     * Gets the snapshot version.
+     *
+     * @return the version, starting at 1 for the configuration loaded at startup
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the fields that changed relative to the snapshot this one replaced.
+     *
+     * @return the changed fields, empty for the first snapshot
+     */
+    public ConfigDiff getChanges() {
+        return changes;
+    }
+
+    /**
+     * Gets the read-only configuration held by this snapshot.
+     * Setters on the returned object throw {@link UnsupportedOperationException}.
+     *
+     * @return the frozen configuration
+     */
+    public ConfigurationManager.AntiIdleConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Gets the read-only activity settings held by this snapshot.
+     *
+     * @return the frozen activity settings
+     */
+    public ConfigurationManager.ActivitySettings getActivity() {
+        return config.getActivity();
+    }
+
+    /**
+     * Gets the read-only activity settings of a session.
+     *
+     * @param sessionId the session ID, or null for the global settings
+     * @return the session's activity profile, or the global activity settings if it has none
+     */
+    public ConfigurationManager.ActivitySettings getActivity(String sessionId) {
+        ConfigurationManager.SessionSettings session = getSession(sessionId);
+        return session != null && session.getActivity() != null ? session.getActivity() : config.getActivity();
+    }
+
+    /**
+     * Gets the read-only settings of a session.
+     *
+     * @param sessionId the session ID
+     * @return the session settings, or null if no session has that ID
+     */
+    public ConfigurationManager.SessionSettings getSession(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        List<ConfigurationManager.SessionSettings> sessions = config.getSessions();
+        for (int i = 0; i < sessions.size(); i++) {
+            if (sessionId.equals(sessions.get(i).getId())) {
+                return sessions.get(i);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,161 @@
+package com.upp.config;
+
+import com.upp.exception.AntiIdleException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads the configuration when its file changes on disk.
+ *
+ * <p>A background thread watches the directory holding the configuration file. Editors often save
+ * in bursts of several writes, renames and deletes, so changes are debounced: the file is reloaded
+ * through {@link ConfigurationManager#reloadIfChanged()} once no further event has arrived for the
+ * debounce period. Parsing and listener notification run on the watcher thread, and a new snapshot
+ * is only published if the file's contents differ from the current configuration.
+ */
+public class ConfigWatcher implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigWatcher.class);
+
+    /** Quiet period after the last file event before the file is reloaded. */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 300;
+
+    private static final long NOT_PENDING = -1;
+
+    private final ConfigurationManager configManager;
+    private final long debounceNanos;
+    private WatchService watchService;
+    private Thread watchThread;
+
+    /**
+     * Creates a watcher with the default debounce period.
+     *
+     * @param configManager the configuration manager whose file is watched
+     */
+    public ConfigWatcher(ConfigurationManager configManager) {
+        this(configManager, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * Creates a watcher.
+     *
+     * @param configManager the configuration manager whose file is watched
+     * @param debounceMillis the quiet period after the last file event before the file is reloaded
+     */
+    public ConfigWatcher(ConfigurationManager configManager, long debounceMillis) {
+        this.configManager = configManager;
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, debounceMillis));
+    }
+
+    /**
+     * Starts watching the configuration file.
+     *
+     * @throws IOException if the configuration directory cannot be watched
+     */
+    public synchronized void start() throws IOException {
+        if (watchThread != null) {
+            LOGGER.warn("Configuration watcher is already running");
+            return;
+        }
+        Path directory = configManager.getConfigPath().toAbsolutePath().getParent();
+        if (directory == null) {
+            throw new IOException("Configuration file has no parent directory: " + configManager.getConfigPath());
+        }
+        Files.createDirectories(directory);
+        WatchService service = directory.getFileSystem().newWatchService();
+        try {
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | RuntimeException e) {
+            service.close();
+            throw e;
+        }
+        watchService = service;
+        watchThread = new Thread(() -> watch(service), "ConfigWatcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        LOGGER.info("Watching {} for configuration changes", configManager.getConfigPath());
+    }
+
+    /**
+     * Stops watching and waits for the watcher thread to end.
+     */
+    @Override
+    public synchronized void close() {
+        if (watchThread == null) {
+            return;
+        }
+        try {
+            watchService.close();
+            watchThread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (IOException e) {
+            LOGGER.warn("Failed to close configuration watch service", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        watchService = null;
+        watchThread = null;
+    }
+
+    private void watch(WatchService service) {
+        Path fileName = configManager.getConfigPath().getFileName();
+        long reloadAt = NOT_PENDING;
+        try {
+            while (true) {
+                WatchKey key;
+                if (reloadAt == NOT_PENDING) {
+                    key = service.take();
+                } else {
+                    key = service.poll(Math.max(0, reloadAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+                }
+                if (key != null) {
+                    if (concernsFile(key, fileName)) {
+                        reloadAt = System.nanoTime() + debounceNanos;
+                    }
+                    key.reset();
+                } else {
+                    reloadAt = NOT_PENDING;
+                    reload();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            LOGGER.debug("Configuration watcher stopped");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean concernsFile(WatchKey key, Path fileName) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            // An overflow means events were lost, so the file may have changed
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                relevant = true;
+            }
+        }
+        return relevant;
+    }
+
+    private void reload() {
+        if (!Files.exists(configManager.getConfigPath())) {
+            // Deleted, or in the middle of a save by rename; wait for the file to reappear
+            return;
+        }
+        try {
+            configManager.reloadIfChanged();
+        } catch (AntiIdleException.ConfigurationException e) {
+            LOGGER.warn("Ignoring configuration file change: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to reload configuration", e);
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.upp.config;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.upp.core.ActivityPattern;
+import com.upp.core.KeySequence;
+import com.upp.exception.AntiIdleException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,30 +13,59 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Configuration manager for AntiIdle application.
  * Handles loading and saving of application settings.
+ *
+ * <p>The current configuration is held as an immutable {@link ConfigSnapshot} published through a
+ * volatile field. Readers on hot paths use {@link #getSnapshot()}, which never allocates; writers
+ * are serialized and swap in a new snapshot atomically.
+ *
+ * <p>Saves are written in the background, so the owner closes the manager before exiting to write
+ * changes that are still pending.
  */
-public class ConfigurationManager {
+public class ConfigurationManager implements AutoCloseable {
     private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationManager.class);
     private static final String CONFIG_FILE_NAME = "antiidle-config.yml";
     private static final String DEFAULT_CONFIG_RESOURCE = "/default-config.yml";
+    private static final String CORRUPT_SUFFIX = ".corrupt";
+    /** Maximum time to wait for pending writes when flushing. */
+    private static final long FLUSH_TIMEOUT_MILLIS = 5000;
     
     private final ObjectMapper objectMapper;
     private final Path configPath;
-    private AntiIdleConfig config;
+    private final ConfigPersister persister;
+    private final List<ConfigChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile ConfigSnapshot snapshot;
+    private volatile ActivityOverrides activityOverrides = ActivityOverrides.NONE;
     
     public ConfigurationManager() {
+        this(getConfigFilePath());
+    }
+    
+    /**
+     * Creates a configuration manager backed by the given file instead of the user's home directory.
+     * 
+     * @param configPath the configuration file to load and save
+     */
+    public ConfigurationManager(Path configPath) {
         this.objectMapper = new ObjectMapper(new YAMLFactory());
-        this.configPath = getConfigFilePath();
-        this.config = loadConfiguration();
+        this.configPath = configPath;
+        this.persister = new ConfigPersister(configPath, objectMapper, ConfigPersister.DEFAULT_COALESCE_MILLIS);
+        publish(loadConfiguration());
     }
     
     /**
      * Gets the configuration file path in the user's home directory.
      */
-    private Path getConfigFilePath() {
+    private static Path getConfigFilePath() {
         String userHome = System.getProperty("user.home");
         return Paths.get(userHome, ".antiidle", CONFIG_FILE_NAME);
     }
@@ -42,94 +74,379 @@ public class ConfigurationManager {
      * Loads configuration from file or creates default configuration.
      */
     private AntiIdleConfig loadConfiguration() {
+        ConfigOperationEvent event = new ConfigOperationEvent();
+        event.begin();
+        boolean succeeded = false;
         try {
             if (Files.exists(configPath)) {
                 LOGGER.info("Loading configuration from: {}", configPath);
-                return objectMapper.readValue(configPath.toFile(), AntiIdleConfig.class);
+                byte[] bytes = Files.readAllBytes(configPath);
+                AntiIdleConfig config = objectMapper.readValue(bytes, AntiIdleConfig.class);
+                validate(config);
+                persister.seed(bytes);
+                succeeded = true;
+                return config;
             } else {
                 LOGGER.info("Configuration file not found, creating default configuration");
+                succeeded = true;
                 return createDefaultConfiguration();
             }
         } catch (IOException e) {
             LOGGER.error("Error loading configuration, using defaults", e);
+            moveAsideCorruptFile();
+            return createDefaultConfiguration();
+        } catch (AntiIdleException.ConfigurationException e) {
+            LOGGER.error("{}, using defaults", e.getMessage());
+            moveAsideCorruptFile();
             return createDefaultConfiguration();
+        } finally {
+            commit(event, ConfigOperationEvent.LOAD, succeeded);
+        }
+    }
+    
+    /**
+     * Keeps an unreadable or invalid configuration file for the user to inspect instead of overwriting it
+     * with defaults.
+     */
+    private void moveAsideCorruptFile() {
+        Path corrupt = configPath.resolveSibling(configPath.getFileName() + CORRUPT_SUFFIX);
+        try {
+            Files.move(configPath, corrupt, StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.error("Unusable configuration file moved to: {}", corrupt);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to move unreadable configuration file to {}", corrupt, e);
         }
     }
     
     /**
-     * Creates and saves default configuration.
+     * Creates and writes default configuration.
      */
     private AntiIdleConfig createDefaultConfiguration() {
         AntiIdleConfig defaultConfig = new AntiIdleConfig();
-        saveConfiguration(defaultConfig);
+        // Written before the first snapshot exists, so the file is there once the constructor returns
+        persister.submit(defaultConfig.copy(), defaultConfig.getSystem().isFsyncConfig());
+        persister.flush(FLUSH_TIMEOUT_MILLIS);
         return defaultConfig;
     }
     
     /**
-     * Saves configuration to file.
-     * 
-     * @param config the configuration to save
+     * Schedules a published snapshot to be written to the file.
      */
-    public void saveConfiguration(AntiIdleConfig config) {
-        try {
-            // Create directory if it doesn't exist
-            Path parentDir = configPath.getParent();
-            if (parentDir != null) {
-                Files.createDirectories(parentDir);
+    private void persist(ConfigSnapshot published) {
+        AntiIdleConfig config = published.getConfig();
+        persister.submit(config, config.getSystem().isFsyncConfig());
+    }
+    
+    private void commit(ConfigOperationEvent event, String operation, boolean succeeded) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.set(operation, configPath, succeeded);
+            event.commit();
+        }
+    }
+    
+    /**
+     * Publishes a frozen copy of the given configuration as the next snapshot version.
+     */
+    private synchronized ConfigSnapshot publish(AntiIdleConfig newConfig) {
+        ConfigSnapshot current = snapshot;
+        ConfigDiff changes = current == null ? ConfigDiff.EMPTY : ConfigDiff.between(current.getConfig(), newConfig);
+        return publish(newConfig, changes);
+    }
+    
+    private synchronized ConfigSnapshot publish(AntiIdleConfig newConfig, ConfigDiff changes) {
+        ConfigSnapshot current = snapshot;
+        long version = current == null ? 1 : current.getVersion() + 1;
+        ConfigSnapshot next = new ConfigSnapshot(version, newConfig, changes);
+        snapshot = next;
+        if (current != null) {
+            notifyListeners(current, next);
+        }
+        return next;
+    }
+    
+    private void notifyListeners(ConfigSnapshot previous, ConfigSnapshot current) {
+        for (ConfigChangeListener listener : listeners) {
+            try {
+                listener.configChanged(previous, current);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Configuration change listener failed", e);
             }
-            
-            objectMapper.writeValue(configPath.toFile(), config);
-            this.config = config;
-            LOGGER.info("Configuration saved to: {}", configPath);
-        } catch (IOException e) {
-            LOGGER.error("Error saving configuration", e);
         }
     }
     
+    /**
+     * Registers a listener that is notified whenever a new snapshot is published.
+     * 
+     * @param listener the listener to add
+     */
+    public void addChangeListener(ConfigChangeListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Removes a previously registered change listener.
+     * 
+     * @param listener the listener to remove
+     */
+    public void removeChangeListener(ConfigChangeListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Makes a configuration the current one and saves it to file.
+     * 
+     * <p>The file is written in the background, so this never blocks on file I/O. Saves in quick
+     * succession are merged into a single write; use {@link #flush()} to wait for it.
+     * 
+     * @param config the configuration to save
+     * @throws AntiIdleException.ConfigurationException if the configuration is invalid, which keeps the
+     *         current one
+     */
+    public synchronized void saveConfiguration(AntiIdleConfig config) throws AntiIdleException.ConfigurationException {
+        validate(config);
+        persist(publish(config));
+    }
+    
+    /**
+     * Gets the current configuration snapshot.
+     * 
+     * <p>The snapshot is immutable and shared, so this call does not allocate. Use it on hot
+     * paths that only read settings.
+     * 
+     * @return the current configuration snapshot
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
+    
     /**
      * Gets current configuration.
      * 
-     * @return a copy of the current configuration
+     * @return an editable copy of the current configuration
      */
     public AntiIdleConfig getConfig() {
-        // Return a defensive copy to prevent external modification
+        return snapshot.getConfig().copy();
+    }
+    
+    /**
+     * Updates configuration with new values and saves it to file in the background.
+     * 
+     * @param newConfig the new configuration to apply
+     * @throws AntiIdleException.ConfigurationException if the configuration is invalid, which keeps the
+     *         current one
+     */
+    public synchronized void updateConfig(AntiIdleConfig newConfig) throws AntiIdleException.ConfigurationException {
+        validate(newConfig);
+        persist(publish(newConfig));
+    }
+    
+    /**
+     * Waits until saved configurations have been written to file.
+     * 
+     * @return true if nothing is left to write
+     */
+    public boolean flush() {
+        return persister.flush(FLUSH_TIMEOUT_MILLIS);
+    }
+    
+    /**
+     * Writes pending changes and stops the background writer. Later saves are written on the caller.
+     */
+    @Override
+    public void close() {
+        persister.close(FLUSH_TIMEOUT_MILLIS);
+    }
+    
+    /**
+     * Reloads configuration from file, after writing any pending changes to it.
+     */
+    public synchronized void reloadConfiguration() {
+        ConfigOperationEvent event = new ConfigOperationEvent();
+        event.begin();
+        flush();
+        AntiIdleConfig loaded = loadConfiguration();
+        activityOverrides.applyTo(loaded.getActivity());
+        publish(loaded);
+        commit(event, ConfigOperationEvent.RELOAD, true);
+    }
+    
+    /**
+     * Applies activity settings on top of the configuration file, now and whenever the file is reloaded.
+     * 
+     * <p>The overrides only change the published snapshots, not the file. A configuration saved afterwards
+     * is written as given, so saving an edited copy of the current configuration writes them too.
+     * 
+     * @param overrides the settings to apply to the global activity settings
+     * @throws AntiIdleException.ConfigurationException if the overridden configuration is invalid
+     */
+    public synchronized void setActivityOverrides(ActivityOverrides overrides)
+            throws AntiIdleException.ConfigurationException {
+        AntiIdleConfig config = snapshot.getConfig().copy();
+        overrides.applyTo(config.getActivity());
+        validate(config);
+        activityOverrides = overrides;
+        if (!overrides.isEmpty()) {
+            LOGGER.info("Activity settings overridden: {}", overrides);
+        }
+        publish(config);
+    }
+    
+    /**
+     * Re-reads the configuration file and publishes it only if it differs from the current configuration.
+     * 
+     * <p>The file is read and parsed on the calling thread before the current snapshot is locked.
+     * Unlike {@link #reloadConfiguration()}, a file that cannot be read, parsed or validated leaves the
+     * current configuration in place instead of falling back to defaults, since it may be caught in the
+     * middle of being saved by an editor.
+     * 
+     * @return the published changes, or {@link ConfigDiff#EMPTY} if the file matches the current
+     *         configuration
+     * @throws AntiIdleException.ConfigurationException if the file cannot be read, parsed or validated
+     */
+    public ConfigDiff reloadIfChanged() throws AntiIdleException.ConfigurationException {
+        ConfigOperationEvent event = new ConfigOperationEvent();
+        event.begin();
+        boolean succeeded = false;
         try {
-            String json = objectMapper.writeValueAsString(config);
-            return objectMapper.readValue(json, AntiIdleConfig.class);
-        } catch (IOException e) {
-            LOGGER.warn("Failed to create defensive copy, returning original", e);
-            return config;
+            AntiIdleConfig loaded;
+            try {
+                byte[] bytes = Files.readAllBytes(configPath);
+                if (persister.isPending() || persister.isCurrent(bytes)) {
+                    // Our own write, or one that is about to replace the file
+                    succeeded = true;
+                    return ConfigDiff.EMPTY;
+                }
+                loaded = objectMapper.readValue(bytes, AntiIdleConfig.class);
+                activityOverrides.applyTo(loaded.getActivity());
+            } catch (IOException e) {
+                throw new AntiIdleException.ConfigurationException("Cannot read configuration file " + configPath, e);
+            }
+            validate(loaded);
+            ConfigDiff changes;
+            synchronized (this) {
+                changes = ConfigDiff.between(snapshot.getConfig(), loaded);
+                if (!changes.isEmpty()) {
+                    publish(loaded, changes);
+                }
+            }
+            succeeded = true;
+            if (!changes.isEmpty()) {
+                LOGGER.info("Configuration reloaded from {}, changed: {}", configPath, changes);
+            }
+            return changes;
+        } finally {
+            commit(event, ConfigOperationEvent.RELOAD, succeeded);
         }
     }
     
     /**
-     * Updates configuration with new values.
+     * Checks that a configuration only holds values the application can run with.
      * 
-     * @param newConfig the new configuration to apply
+     * @param config the configuration to check
+     * @throws AntiIdleException.ConfigurationException describing the first invalid value
      */
-    public void updateConfig(AntiIdleConfig newConfig) {
-        // Create a defensive copy before storing
+    public static void validate(AntiIdleConfig config) throws AntiIdleException.ConfigurationException {
+        validate(config.getActivity(), "activity");
+        List<SessionSettings> sessions = config.getSessions() == null ? List.of() : config.getSessions();
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < sessions.size(); i++) {
+            SessionSettings session = sessions.get(i);
+            String id = session.getId();
+            check(id != null && !id.isBlank(), "sessions[" + i + "].id must not be empty");
+            check(ids.add(id), "sessions[" + i + "].id is not unique: " + id);
+            if (session.getActivity() != null) {
+                validate(session.getActivity(), "sessions[" + i + "].activity");
+            }
+        }
+        MetricsSettings metrics = config.getMetrics();
+        check(metrics.getPort() >= 0 && metrics.getPort() <= 65535,
+            "metrics.port is out of range: " + metrics.getPort());
+        check(metrics.getPath() != null && metrics.getPath().startsWith("/"), "metrics.path must start with /");
+        check(config.getJournal().getSegmentSizeMb() > 0, "journal.segment_size_mb must be positive");
+        check(LogLevelUpdater.isLevel(config.getLogging().getLogLevel()),
+            "logging.log_level is unknown: " + config.getLogging().getLogLevel());
+    }
+    
+    private static void validate(ActivitySettings activity, String section)
+            throws AntiIdleException.ConfigurationException {
+        check(activity.getIntervalSeconds() > 0, section + ".interval_seconds must be positive");
+        check(ActivitySettings.INTERVAL_FIXED.equalsIgnoreCase(activity.getIntervalMode())
+                || ActivitySettings.INTERVAL_ADAPTIVE.equalsIgnoreCase(activity.getIntervalMode()),
+            section + ".interval_mode is unknown: " + activity.getIntervalMode());
+        check(activity.getAdaptiveMarginSeconds() >= 0, section + ".adaptive_margin_seconds must not be negative");
+        check(activity.getMouseMovementDistance() >= 0, section + ".mouse_movement_distance must not be negative");
+        check(ActivitySettings.MOUSE_STYLE_NUDGE.equalsIgnoreCase(activity.getMouseMovementStyle())
+                || ActivitySettings.MOUSE_STYLE_TRAJECTORY.equalsIgnoreCase(activity.getMouseMovementStyle()),
+            section + ".mouse_movement_style is unknown: " + activity.getMouseMovementStyle());
+        check(activity.getMouseMovementDurationMs() >= 0
+                && activity.getMouseMovementDurationMs() <= ActivitySettings.MAX_MOUSE_MOVEMENT_DURATION_MS,
+            section + ".mouse_movement_duration_ms must be between 0 and "
+                + ActivitySettings.MAX_MOUSE_MOVEMENT_DURATION_MS);
+        check(activity.getKeyPressDurationMs() >= 0, section + ".key_press_duration_ms must not be negative");
         try {
-            String json = objectMapper.writeValueAsString(newConfig);
-            this.config = objectMapper.readValue(json, AntiIdleConfig.class);
-            saveConfiguration(this.config);
-        } catch (IOException e) {
-            LOGGER.error("Failed to update configuration", e);
-            throw new RuntimeException("Configuration update failed", e);
+            KeySequence.parse(activity.getSimulationKey());
+        } catch (IllegalArgumentException e) {
+            throw new AntiIdleException.ConfigurationException(
+                "Invalid configuration: " + section + ".simulation_key is invalid: " + e.getMessage(), e);
+        }
+        String pattern = activity.getPattern();
+        if (pattern != null && !pattern.isBlank()) {
+            try {
+                ActivityPattern.compile(pattern);
+            } catch (IllegalArgumentException e) {
+                throw new AntiIdleException.ConfigurationException(
+                    "Invalid configuration: " + section + ".pattern is invalid: " + e.getMessage(), e);
+            }
+        }
+        check(ActivitySettings.SCHEDULING_FIXED_DELAY.equalsIgnoreCase(activity.getSchedulingMode())
+                || ActivitySettings.SCHEDULING_FIXED_RATE.equalsIgnoreCase(activity.getSchedulingMode()),
+            section + ".scheduling_mode is unknown: " + activity.getSchedulingMode());
+        check(ActivitySettings.ENGINE_INPUT.equalsIgnoreCase(activity.getEngineMode())
+                || ActivitySettings.ENGINE_INHIBIT.equalsIgnoreCase(activity.getEngineMode()),
+            section + ".engine_mode is unknown: " + activity.getEngineMode());
+    }
+    
+    private static void check(boolean valid, String message) throws AntiIdleException.ConfigurationException {
+        if (!valid) {
+            throw new AntiIdleException.ConfigurationException("Invalid configuration: " + message, null);
         }
     }
     
     /**
-     * Reloads configuration from file.
+     * Gets the configuration file this manager loads and saves.
+     * 
+     * @return the configuration file path
+     */
+    public Path getConfigPath() {
+        return configPath;
+    }
+    
+    /**
+     * Base class for settings that can be frozen once they are part of a {@link ConfigSnapshot}.
      */
-    public void reloadConfiguration() {
-        this.config = loadConfiguration();
+    abstract static class FreezableSettings {
+        private boolean frozen;
+        
+        void freeze() {
+            frozen = true;
+        }
+        
+        /**
+         * Rejects modification of settings that belong to a published snapshot.
+         */
+        protected void checkMutable() {
+            if (frozen) {
+                throw new UnsupportedOperationException(
+                    "Configuration snapshot is read-only, use getConfig() for an editable copy");
+            }
+        }
     }
     
     /**
      * Configuration data class.
      */
-    public static class AntiIdleConfig {
+    public static class AntiIdleConfig extends FreezableSettings {
         @JsonProperty("activity")
         private ActivitySettings activity = new ActivitySettings();
         
@@ -142,12 +459,59 @@ public class ConfigurationManager {
         @JsonProperty("logging")
         private LoggingSettings logging = new LoggingSettings();
         
+        @JsonProperty("metrics")
+        private MetricsSettings metrics = new MetricsSettings();
+        
+        @JsonProperty("journal")
+        private JournalSettings journal = new JournalSettings();
+        
+        @JsonProperty("sessions")
+        private List<SessionSettings> sessions = new ArrayList<>();
+        
+        /**
+         * Creates a deep, editable copy of this configuration.
+         * 
+         * @return a new configuration with the same values
+         */
+        public AntiIdleConfig copy() {
+            AntiIdleConfig copy = new AntiIdleConfig();
+            copy.activity = activity.copy();
+            copy.gui = gui.copy();
+            copy.system = system.copy();
+            copy.logging = logging.copy();
+            copy.metrics = metrics.copy();
+            copy.journal = journal.copy();
+            copy.sessions = new ArrayList<>();
+            if (sessions != null) {
+                for (SessionSettings session : sessions) {
+                    copy.sessions.add(session.copy());
+                }
+            }
+            return copy;
+        }
+        
+        @Override
+        void freeze() {
+            super.freeze();
+            activity.freeze();
+            gui.freeze();
+            system.freeze();
+            logging.freeze();
+            metrics.freeze();
+            journal.freeze();
+            for (SessionSettings session : sessions) {
+                session.freeze();
+            }
+            sessions = List.copyOf(sessions);
+        }
+        
         // Getters and setters
         public ActivitySettings getActivity() {
             return activity;
         }
         
         public void setActivity(ActivitySettings activity) {
+            checkMutable();
             this.activity = activity;
         }
         
@@ -156,6 +520,7 @@ public class ConfigurationManager {
         }
         
         public void setGui(GuiSettings gui) {
+            checkMutable();
             this.gui = gui;
         }
         
@@ -164,6 +529,7 @@ public class ConfigurationManager {
         }
         
         public void setSystem(SystemSettings system) {
+            checkMutable();
             this.system = system;
         }
         
@@ -172,23 +538,155 @@ public class ConfigurationManager {
         }
         
         public void setLogging(LoggingSettings logging) {
+            checkMutable();
             this.logging = logging;
         }
+        
+        public MetricsSettings getMetrics() {
+            return metrics;
+        }
+        
+        public void setMetrics(MetricsSettings metrics) {
+            checkMutable();
+            this.metrics = metrics;
+        }
+        
+        public JournalSettings getJournal() {
+            return journal;
+        }
+        
+        public void setJournal(JournalSettings journal) {
+            checkMutable();
+            this.journal = journal;
+        }
+        
+        public List<SessionSettings> getSessions() {
+            return sessions;
+        }
+        
+        public void setSessions(List<SessionSettings> sessions) {
+            checkMutable();
+            this.sessions = sessions;
+        }
+    }
+    
+    /**
+     * Settings of one simulation session driven by {@code SessionManager}.
+     */
+    public static class SessionSettings extends FreezableSettings {
+        @JsonProperty("id")
+        private String id;
+        
+        @JsonProperty("display")
+        private String display;
+        
+        @JsonProperty("activity")
+        private ActivitySettings activity;
+        
+        /**
+         * Creates an editable copy of these settings.
+         * 
+         * @return a new instance with the same values
+         */
+        public SessionSettings copy() {
+            SessionSettings copy = new SessionSettings();
+            copy.id = id;
+            copy.display = display;
+            copy.activity = activity == null ? null : activity.copy();
+            return copy;
+        }
+        
+        @Override
+        void freeze() {
+            super.freeze();
+            if (activity != null) {
+                activity.freeze();
+            }
+        }
+        
+        // Getters and setters
+        public String getId() {
+            return id;
+        }
+        
+        public void setId(String id) {
+            checkMutable();
+            this.id = id;
+        }
+        
+        /**
+         * Gets the screen the session drives, as a {@code GraphicsDevice} ID string.
+         * 
+         * @return the device ID, or null for the default screen
+         */
+        public String getDisplay() {
+            return display;
+        }
+        
+        public void setDisplay(String display) {
+            checkMutable();
+            this.display = display;
+        }
+        
+        /**
+         * Gets the activity profile of the session.
+         * 
+         * @return the session's activity settings, or null to use the global activity settings
+         */
+        public ActivitySettings getActivity() {
+            return activity;
+        }
+        
+        public void setActivity(ActivitySettings activity) {
+            checkMutable();
+            this.activity = activity;
+        }
     }
     
     /**
      * Activity simulation settings.
      */
-    public static class ActivitySettings {
+    public static class ActivitySettings extends FreezableSettings {
+        /** Scheduling mode that waits a full interval after each cycle ends. */
+        public static final String SCHEDULING_FIXED_DELAY = "fixed_delay";
+        /** Scheduling mode that starts cycles on a fixed grid of monotonic deadlines. */
+        public static final String SCHEDULING_FIXED_RATE = "fixed_rate";
+        /** Engine mode that injects mouse and keyboard events. */
+        public static final String ENGINE_INPUT = "input";
+        /** Engine mode that holds an idle inhibitor lock instead of injecting events. */
+        public static final String ENGINE_INHIBIT = "inhibit";
+        /** Mouse movement that jumps the pointer away and straight back. */
+        public static final String MOUSE_STYLE_NUDGE = "nudge";
+        /** Mouse movement that glides the pointer along a curved path and back, frame by frame. */
+        public static final String MOUSE_STYLE_TRAJECTORY = "trajectory";
+        /** Longest time a trajectory may take each way. */
+        public static final int MAX_MOUSE_MOVEMENT_DURATION_MS = 5000;
+        /** Interval mode that always waits {@code interval_seconds}. */
+        public static final String INTERVAL_FIXED = "fixed";
+        /** Interval mode that waits just under the idle timeout the system is configured with. */
+        public static final String INTERVAL_ADAPTIVE = "adaptive";
+        
         @JsonProperty("interval_seconds")
         private int intervalSeconds = 30;
         
+        @JsonProperty("interval_mode")
+        private String intervalMode = INTERVAL_FIXED;
+        
+        @JsonProperty("adaptive_margin_seconds")
+        private int adaptiveMarginSeconds = 30;
+        
         @JsonProperty("mouse_movement_enabled")
         private boolean mouseMovementEnabled = true;
         
         @JsonProperty("mouse_movement_distance")
         private int mouseMovementDistance = 1;
         
+        @JsonProperty("mouse_movement_style")
+        private String mouseMovementStyle = MOUSE_STYLE_NUDGE;
+        
+        @JsonProperty("mouse_movement_duration_ms")
+        private int mouseMovementDurationMs = 300;
+        
         @JsonProperty("keyboard_simulation_enabled")
         private boolean keyboardSimulationEnabled = true;
         
@@ -198,20 +696,90 @@ public class ConfigurationManager {
         @JsonProperty("key_press_duration_ms")
         private int keyPressDurationMs = 100;
         
+        @JsonProperty("pattern")
+        private String pattern = "";
+        
+        @JsonProperty("scheduling_mode")
+        private String schedulingMode = SCHEDULING_FIXED_DELAY;
+        
+        @JsonProperty("engine_mode")
+        private String engineMode = ENGINE_INPUT;
+        
+        @JsonProperty("skip_when_user_active")
+        private boolean skipWhenUserActive = true;
+        
+        @JsonProperty("idle_source")
+        private String idleSource = "auto";
+        
+        /**
+         * Creates an editable copy of these settings.
+         * 
+         * @return a new instance with the same values
+         */
+        public ActivitySettings copy() {
+            ActivitySettings copy = new ActivitySettings();
+            copy.intervalSeconds = intervalSeconds;
+            copy.intervalMode = intervalMode;
+            copy.adaptiveMarginSeconds = adaptiveMarginSeconds;
+            copy.mouseMovementEnabled = mouseMovementEnabled;
+            copy.mouseMovementDistance = mouseMovementDistance;
+            copy.mouseMovementStyle = mouseMovementStyle;
+            copy.mouseMovementDurationMs = mouseMovementDurationMs;
+            copy.keyboardSimulationEnabled = keyboardSimulationEnabled;
+            copy.simulationKey = simulationKey;
+            copy.keyPressDurationMs = keyPressDurationMs;
+            copy.pattern = pattern;
+            copy.schedulingMode = schedulingMode;
+            copy.engineMode = engineMode;
+            copy.skipWhenUserActive = skipWhenUserActive;
+            copy.idleSource = idleSource;
+            return copy;
+        }
+        
         // Getters and setters
         public int getIntervalSeconds() {
             return intervalSeconds;
         }
         
         public void setIntervalSeconds(int intervalSeconds) {
+            checkMutable();
             this.intervalSeconds = intervalSeconds;
         }
         
+        /**
+         * Gets how the interval between cycles is chosen.
+         * 
+         * @return {@link #INTERVAL_FIXED} or {@link #INTERVAL_ADAPTIVE}
+         */
+        public String getIntervalMode() {
+            return intervalMode;
+        }
+        
+        public void setIntervalMode(String intervalMode) {
+            checkMutable();
+            this.intervalMode = intervalMode;
+        }
+        
+        /**
+         * Gets how long before the system's idle timeout adaptive cycles run.
+         * 
+         * @return the margin in seconds
+         */
+        public int getAdaptiveMarginSeconds() {
+            return adaptiveMarginSeconds;
+        }
+        
+        public void setAdaptiveMarginSeconds(int adaptiveMarginSeconds) {
+            checkMutable();
+            this.adaptiveMarginSeconds = adaptiveMarginSeconds;
+        }
+        
         public boolean isMouseMovementEnabled() {
             return mouseMovementEnabled;
         }
         
         public void setMouseMovementEnabled(boolean mouseMovementEnabled) {
+            checkMutable();
             this.mouseMovementEnabled = mouseMovementEnabled;
         }
         
@@ -220,14 +788,40 @@ public class ConfigurationManager {
         }
         
         public void setMouseMovementDistance(int mouseMovementDistance) {
+            checkMutable();
             this.mouseMovementDistance = mouseMovementDistance;
         }
         
+        public String getMouseMovementStyle() {
+            return mouseMovementStyle;
+        }
+        
+        public void setMouseMovementStyle(String mouseMovementStyle) {
+            checkMutable();
+            this.mouseMovementStyle = mouseMovementStyle;
+        }
+        
+        /**
+         * Gets how long a trajectory takes each way, when the mouse movement style is
+         * {@link #MOUSE_STYLE_TRAJECTORY}.
+         * 
+         * @return the duration in milliseconds
+         */
+        public int getMouseMovementDurationMs() {
+            return mouseMovementDurationMs;
+        }
+        
+        public void setMouseMovementDurationMs(int mouseMovementDurationMs) {
+            checkMutable();
+            this.mouseMovementDurationMs = mouseMovementDurationMs;
+        }
+        
         public boolean isKeyboardSimulationEnabled() {
             return keyboardSimulationEnabled;
         }
         
         public void setKeyboardSimulationEnabled(boolean keyboardSimulationEnabled) {
+            checkMutable();
             this.keyboardSimulationEnabled = keyboardSimulationEnabled;
         }
         
@@ -236,6 +830,7 @@ public class ConfigurationManager {
         }
         
         public void setSimulationKey(String simulationKey) {
+            checkMutable();
             this.simulationKey = simulationKey;
         }
         
@@ -244,14 +839,65 @@ public class ConfigurationManager {
         }
         
         public void setKeyPressDurationMs(int keyPressDurationMs) {
+            checkMutable();
             this.keyPressDurationMs = keyPressDurationMs;
         }
+        
+        public String getSchedulingMode() {
+            return schedulingMode;
+        }
+        
+        public void setSchedulingMode(String schedulingMode) {
+            checkMutable();
+            this.schedulingMode = schedulingMode;
+        }
+        
+        public String getEngineMode() {
+            return engineMode;
+        }
+        
+        public void setEngineMode(String engineMode) {
+            checkMutable();
+            this.engineMode = engineMode;
+        }
+        
+        public boolean isSkipWhenUserActive() {
+            return skipWhenUserActive;
+        }
+        
+        public void setSkipWhenUserActive(boolean skipWhenUserActive) {
+            checkMutable();
+            this.skipWhenUserActive = skipWhenUserActive;
+        }
+        
+        public String getIdleSource() {
+            return idleSource;
+        }
+        
+        public void setIdleSource(String idleSource) {
+            checkMutable();
+            this.idleSource = idleSource;
+        }
+        
+        /**
+         * Gets the activity pattern run by each cycle instead of the mouse and key settings.
+         * 
+         * @return the pattern text, or an empty string to use the mouse and key settings
+         */
+        public String getPattern() {
+            return pattern;
+        }
+        
+        public void setPattern(String pattern) {
+            checkMutable();
+            this.pattern = pattern;
+        }
     }
     
     /**
      * GUI settings.
      */
-    public static class GuiSettings {
+    public static class GuiSettings extends FreezableSettings {
         @JsonProperty("start_minimized")
         private boolean startMinimized = false;
         
@@ -270,12 +916,29 @@ public class ConfigurationManager {
         @JsonProperty("window_position_y")
         private int windowPositionY = -1;
         
+        /**
+         * Creates an editable copy of these settings.
+         * 
+         * @return a new instance with the same values
+         */
+        public GuiSettings copy() {
+            GuiSettings copy = new GuiSettings();
+            copy.startMinimized = startMinimized;
+            copy.minimizeToTray = minimizeToTray;
+            copy.showNotifications = showNotifications;
+            copy.darkMode = darkMode;
+            copy.windowPositionX = windowPositionX;
+            copy.windowPositionY = windowPositionY;
+            return copy;
+        }
+        
         // Getters and setters
         public boolean isStartMinimized() {
             return startMinimized;
         }
         
         public void setStartMinimized(boolean startMinimized) {
+            checkMutable();
             this.startMinimized = startMinimized;
         }
         
@@ -284,6 +947,7 @@ public class ConfigurationManager {
         }
         
         public void setMinimizeToTray(boolean minimizeToTray) {
+            checkMutable();
             this.minimizeToTray = minimizeToTray;
         }
         
@@ -292,6 +956,7 @@ public class ConfigurationManager {
         }
         
         public void setShowNotifications(boolean showNotifications) {
+            checkMutable();
             this.showNotifications = showNotifications;
         }
         
@@ -300,6 +965,7 @@ public class ConfigurationManager {
         }
         
         public void setDarkMode(boolean darkMode) {
+            checkMutable();
             this.darkMode = darkMode;
         }
         
@@ -308,6 +974,7 @@ public class ConfigurationManager {
         }
         
         public void setWindowPositionX(int windowPositionX) {
+            checkMutable();
             this.windowPositionX = windowPositionX;
         }
         
@@ -316,6 +983,7 @@ public class ConfigurationManager {
         }
         
         public void setWindowPositionY(int windowPositionY) {
+            checkMutable();
             this.windowPositionY = windowPositionY;
         }
     }
@@ -323,7 +991,7 @@ public class ConfigurationManager {
     /**
      * System settings.
      */
-    public static class SystemSettings {
+    public static class SystemSettings extends FreezableSettings {
         @JsonProperty("auto_start")
         private boolean autoStart = false;
         
@@ -333,12 +1001,30 @@ public class ConfigurationManager {
         @JsonProperty("check_for_updates")
         private boolean checkForUpdates = true;
         
+        @JsonProperty("fsync_config")
+        private boolean fsyncConfig = true;
+        
+        /**
+         * Creates an editable copy of these settings.
+         * 
+         * @return a new instance with the same values
+         */
+        public SystemSettings copy() {
+            SystemSettings copy = new SystemSettings();
+            copy.autoStart = autoStart;
+            copy.startOnBoot = startOnBoot;
+            copy.checkForUpdates = checkForUpdates;
+            copy.fsyncConfig = fsyncConfig;
+            return copy;
+        }
+        
         // Getters and setters
         public boolean isAutoStart() {
             return autoStart;
         }
         
         public void setAutoStart(boolean autoStart) {
+            checkMutable();
             this.autoStart = autoStart;
         }
         
@@ -347,6 +1033,7 @@ public class ConfigurationManager {
         }
         
         public void setStartOnBoot(boolean startOnBoot) {
+            checkMutable();
             this.startOnBoot = startOnBoot;
         }
         
@@ -355,14 +1042,29 @@ public class ConfigurationManager {
         }
         
         public void setCheckForUpdates(boolean checkForUpdates) {
+            checkMutable();
             this.checkForUpdates = checkForUpdates;
         }
+        
+        /**
+         * Checks whether the configuration file is forced to disk before it replaces the old one.
+         * 
+         * @return true to survive power loss at the cost of a slower write
+         */
+        public boolean isFsyncConfig() {
+            return fsyncConfig;
+        }
+        
+        public void setFsyncConfig(boolean fsyncConfig) {
+            checkMutable();
+            this.fsyncConfig = fsyncConfig;
+        }
     }
     
     /**
      * Logging settings.
      */
-    public static class LoggingSettings {
+    public static class LoggingSettings extends FreezableSettings {
         @JsonProperty("log_level")
         private String logLevel = "INFO";
         
@@ -375,12 +1077,27 @@ public class ConfigurationManager {
         @JsonProperty("keep_log_files")
         private int keepLogFiles = 5;
         
+        /**
+         * Creates an editable copy of these settings.
+         * 
+         * @return a new instance with the same values
+         */
+        public LoggingSettings copy() {
+            LoggingSettings copy = new LoggingSettings();
+            copy.logLevel = logLevel;
+            copy.logToFile = logToFile;
+            copy.maxLogFileSizeMb = maxLogFileSizeMb;
+            copy.keepLogFiles = keepLogFiles;
+            return copy;
+        }
+        
         // Getters and setters
         public String getLogLevel() {
             return logLevel;
         }
         
         public void setLogLevel(String logLevel) {
+            checkMutable();
             this.logLevel = logLevel;
         }
         
@@ -389,6 +1106,7 @@ public class ConfigurationManager {
         }
         
         public void setLogToFile(boolean logToFile) {
+            checkMutable();
             this.logToFile = logToFile;
         }
         
@@ -397,6 +1115,7 @@ public class ConfigurationManager {
         }
         
         public void setMaxLogFileSizeMb(int maxLogFileSizeMb) {
+            checkMutable();
             this.maxLogFileSizeMb = maxLogFileSizeMb;
         }
         
@@ -405,7 +1124,131 @@ public class ConfigurationManager {
         }
         
         public void setKeepLogFiles(int keepLogFiles) {
+            checkMutable();
             this.keepLogFiles = keepLogFiles;
         }
     }
+    
+    /**
+     * Settings of the embedded metrics endpoint.
+     */
+    public static class MetricsSettings extends FreezableSettings {
+        @JsonProperty("enabled")
+        private boolean enabled = false;
+        
+        @JsonProperty("bind_address")
+        private String bindAddress = "127.0.0.1";
+        
+        @JsonProperty("port")
+        private int port = 9464;
+        
+        @JsonProperty("path")
+        private String path = "/metrics";
+        
+        /**
+         * Creates an editable copy of these settings.
+         * 
+         * @return a new instance with the same values
+         */
+        public MetricsSettings copy() {
+            MetricsSettings copy = new MetricsSettings();
+            copy.enabled = enabled;
+            copy.bindAddress = bindAddress;
+            copy.port = port;
+            copy.path = path;
+            return copy;
+        }
+        
+        // Getters and setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            checkMutable();
+            this.enabled = enabled;
+        }
+        
+        public String getBindAddress() {
+            return bindAddress;
+        }
+        
+        public void setBindAddress(String bindAddress) {
+            checkMutable();
+            this.bindAddress = bindAddress;
+        }
+        
+        public int getPort() {
+            return port;
+        }
+        
+        public void setPort(int port) {
+            checkMutable();
+            this.port = port;
+        }
+        
+        public String getPath() {
+            return path;
+        }
+        
+        public void setPath(String path) {
+            checkMutable();
+            this.path = path;
+        }
+    }
+    
+    /**
+     * Settings of the binary journal of injected input events.
+     */
+    public static class JournalSettings extends FreezableSettings {
+        @JsonProperty("enabled")
+        private boolean enabled = false;
+        
+        @JsonProperty("directory")
+        private String directory = "";
+        
+        @JsonProperty("segment_size_mb")
+        private int segmentSizeMb = 8;
+        
+        /**
+         * Creates an editable copy of these settings.
+         * 
+         * @return a new instance with the same values
+         */
+        public JournalSettings copy() {
+            JournalSettings copy = new JournalSettings();
+            copy.enabled = enabled;
+            copy.directory = directory;
+            copy.segmentSizeMb = segmentSizeMb;
+            return copy;
+        }
+        
+        // Getters and setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            checkMutable();
+            this.enabled = enabled;
+        }
+        
+        public String getDirectory() {
+            return directory;
+        }
+        
+        public void setDirectory(String directory) {
+            checkMutable();
+            this.directory = directory;
+        }
+        
+        public int getSegmentSizeMb() {
+            return segmentSizeMb;
+        }
+        
+        public void setSegmentSizeMb(int segmentSizeMb) {
+            checkMutable();
+            this.segmentSizeMb = segmentSizeMb;
+        }
+    }
 }
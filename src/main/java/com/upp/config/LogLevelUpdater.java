@@ -0,0 +1,73 @@
+package com.upp.config;
+
+import ch.qos.logback.classic.Level;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sets the level of the application's loggers from {@code logging.log_level} and keeps it in step with
+ * configuration changes.
+ *
+ * <p>The level applies to the {@code com.upp} logger, so libraries keep the level of {@code logback.xml}.
+ * It has no effect when SLF4J is bound to a backend other than Logback.
+ */
+public final class LogLevelUpdater implements ConfigChangeListener, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogLevelUpdater.class);
+
+    /** Name of the logger whose level follows the configuration. */
+    public static final String LOGGER_NAME = "com.upp";
+
+    private final ConfigurationManager configManager;
+
+    private LogLevelUpdater(ConfigurationManager configManager) {
+        this.configManager = configManager;
+    }
+
+    /**
+     * Applies the configured level and follows later changes to it.
+     *
+     * @param configManager the configuration manager
+     * @return the updater, to be closed when the level should no longer follow the configuration
+     */
+    public static LogLevelUpdater install(ConfigurationManager configManager) {
+        LogLevelUpdater updater = new LogLevelUpdater(configManager);
+        configManager.addChangeListener(updater);
+        apply(configManager.getSnapshot().getConfig().getLogging().getLogLevel());
+        return updater;
+    }
+
+    @Override
+    public void configChanged(ConfigSnapshot previous, ConfigSnapshot current) {
+        if (current.getChanges().affects("logging.log_level")) {
+            apply(current.getConfig().getLogging().getLogLevel());
+        }
+    }
+
+    /**
+     * Stops following configuration changes; the current level stays in effect.
+     */
+    @Override
+    public void close() {
+        configManager.removeChangeListener(this);
+    }
+
+    /**
+     * Checks whether a level name is one Logback understands.
+     *
+     * @param name the level name, such as {@code DEBUG}
+     * @return true if the name is a level, in any case
+     */
+    static boolean isLevel(String name) {
+        return name != null && Level.toLevel(name, null) != null;
+    }
+
+    private static void apply(String name) {
+        if (LoggerFactory.getLogger(LOGGER_NAME) instanceof ch.qos.logback.classic.Logger logger) {
+            Level level = Level.toLevel(name, Level.INFO);
+            if (!level.equals(logger.getLevel())) {
+                logger.setLevel(level);
+                LOGGER.info("Log level set to {}", level);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.upp.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for one activity cycle performed by {@link ActivitySimulator}.
+ *
+ * <p>Disabled by default; enable it with the bundled {@code antiidle.jfc} profile.
+ */
+@Name(ActivityCycleEvent.NAME)
+@Label("Activity Cycle")
+@Category("AntiIdle")
+@Description("An activity cycle injecting input to keep the session active")
+@Enabled(false)
+@Threshold("10 ms")
+@StackTrace(false)
+final class ActivityCycleEvent extends Event {
+    static final String NAME = "com.upp.ActivityCycle";
+    private static final EventType TYPE = EventType.getEventType(ActivityCycleEvent.class);
+
+    @Label("Session")
+    @Description("Session ID, or null for the global simulator")
+    private String session;
+
+    @Label("Mouse Movement")
+    private boolean mouseMovement;
+
+    @Label("Keys")
+    @Description("Key sequence pressed during the cycle, or null if keyboard simulation is disabled")
+    private String keys;
+
+    @Label("Pattern")
+    @Description("Activity pattern run during the cycle, or null if the mouse and key settings were used")
+    private String pattern;
+
+    /**
+     * Creates and begins an event for a cycle if the event is being recorded. The event is kept until the
+     * cycle completes, possibly on another thread, so escape analysis cannot remove it; checking first keeps
+     * cycles from allocating while no recording asks for it.
+     *
+     * @return the begun event, or null if the event is disabled
+     */
+    static ActivityCycleEvent beginIfEnabled() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        ActivityCycleEvent event = new ActivityCycleEvent();
+        event.begin();
+        return event;
+    }
+
+    void set(String session, boolean mouseMovement, String keys, String pattern) {
+        this.session = session;
+        this.mouseMovement = mouseMovement;
+        this.keys = keys;
+        this.pattern = pattern;
+    }
+}
@@ -0,0 +1,57 @@
+package com.upp.core;
+
+import com.upp.config.ConfigSnapshot;
+
+/**
+ * Listener notified of the lifecycle and progress of an {@link ActivitySimulator}.
+ *
+ * <p>Except for {@link #configApplied}, notifications run on the simulation thread, so implementations
+ * must not block; hand the work to another thread instead. All methods do nothing by default.
+ */
+public interface ActivityListener {
+
+    /**
+     * Called when the simulation thread has started and is about to run its first cycle.
+     *
+     * @param simulator the simulator
+     */
+    default void simulationStarted(ActivitySimulator simulator) {
+    }
+
+    /**
+     * Called after each tick of the simulation, whether it injected input, held the idle inhibitor lock
+     * or was skipped because the user was active.
+     *
+     * @param simulator the simulator
+     */
+    default void cycleCompleted(ActivitySimulator simulator) {
+    }
+
+    /**
+     * Called when injecting input or running a cycle failed. The simulation keeps running.
+     *
+     * @param simulator the simulator
+     * @param error the failure
+     */
+    default void injectionFailed(ActivitySimulator simulator, Exception error) {
+    }
+
+    /**
+     * Called when the simulation thread has ended, whether it was stopped or died.
+     *
+     * @param simulator the simulator
+     * @param cause the error that ended the simulation, or null if it was stopped
+     */
+    default void simulationStopped(ActivitySimulator simulator, Throwable cause) {
+    }
+
+    /**
+     * Called when a configuration change to this simulator's activity settings takes effect. Runs on the
+     * thread that changed the configuration.
+     *
+     * @param simulator the simulator
+     * @param snapshot the snapshot now in effect
+     */
+    default void configApplied(ActivitySimulator simulator, ConfigSnapshot snapshot) {
+    }
+}
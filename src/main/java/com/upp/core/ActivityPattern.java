@@ -0,0 +1,428 @@
+package com.upp.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An activity pattern compiled from its text into a flat array of opcodes, run by
+ * {@link PatternInterpreter}.
+ *
+ * <p>A pattern is a list of steps separated by semicolons. Numbers may be ranges {@code lo..hi}, from
+ * which a value is drawn each time the step runs:
+ *
+ * <pre>
+ * move DX DY               move the pointer relative to where it is
+ * back                     move the pointer back to where it was when the run started
+ * scroll TICKS             rotate the mouse wheel; negative ticks scroll up
+ * key KEYS [HOLD]          press each chord of a key sequence such as CTRL+F15 or SHIFT,F15 for HOLD
+ *                          milliseconds, 100 by default, and release it
+ * wait MILLIS              pause
+ * repeat N { ... }         run the enclosed steps N times
+ * oneof { ... | ... }      run one of the alternatives, picked at random
+ * alternate { ... | ... }  run the alternatives in turn, one each time the step is reached
+ * </pre>
+ *
+ * <p>For example {@code move -3..3 1..2; wait 150..300; back; alternate { key SHIFT | scroll 1; scroll -1 }}.
+ * Names and limits are checked when the pattern is compiled, so running it does no parsing, lookups or
+ * allocation.
+ */
+public final class ActivityPattern {
+    /** Longest pause of a single {@code wait} or key hold. */
+    public static final int MAX_WAIT_MILLIS = 60_000;
+    /** Largest count of a {@code repeat}. */
+    public static final int MAX_REPEAT = 100;
+    /** Deepest nesting of blocks. */
+    public static final int MAX_DEPTH = 8;
+    /** Longest time a run may take when every range draws its maximum. */
+    public static final long MAX_DURATION_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    /** Largest pointer offset of a {@code move}. */
+    public static final int MAX_OFFSET = 10_000;
+    /** Most wheel ticks of a {@code scroll}. */
+    public static final int MAX_SCROLL = 100;
+    /** Most opcodes and operands a compiled pattern may hold. */
+    public static final int MAX_CODE_LENGTH = 4096;
+
+    static final int DEFAULT_HOLD_MILLIS = 100;
+
+    // Opcodes, followed by their operands; ranges are a low and a high bound and targets are code offsets.
+    // Actions come first, opcodes from REPEAT on only change the control flow.
+    /** {@code dxLow dxHigh dyLow dyHigh}. */
+    static final int MOVE = 1;
+    /** No operands. */
+    static final int BACK = 2;
+    /** {@code ticksLow ticksHigh}. */
+    static final int SCROLL = 3;
+    /** {@code count keyCode...}, pressed in order. */
+    static final int PRESS = 4;
+    /** {@code count keyCode...}, released in order. */
+    static final int RELEASE = 5;
+    /** {@code millisLow millisHigh}. */
+    static final int WAIT = 6;
+    /** {@code countLow countHigh exit}: pushes the count, or jumps to exit if it is 0. */
+    static final int REPEAT = 7;
+    /** {@code body}: counts down the innermost repeat and jumps back to its body until it reaches 0. */
+    static final int LOOP = 8;
+    /** {@code count target...}: jumps to a random target. */
+    static final int ONE_OF = 9;
+    /** {@code slot count target...}: jumps to the target after the one taken last time. */
+    static final int ALTERNATE = 10;
+    /** {@code target}. */
+    static final int JUMP = 11;
+
+    private static final Pattern RANGE = Pattern.compile("(-?\\d{1,9})(?:\\.\\.(-?\\d{1,9}))?");
+
+    private final String text;
+    private final int[] code;
+    private final int repeatDepth;
+    private final int alternations;
+    private final long maxDurationMillis;
+
+    private ActivityPattern(String text, int[] code, int repeatDepth, int alternations, long maxDurationMillis) {
+        this.text = text;
+        this.code = code;
+        this.repeatDepth = repeatDepth;
+        this.alternations = alternations;
+        this.maxDurationMillis = maxDurationMillis;
+    }
+
+    /**
+     * Compiles a pattern.
+     *
+     * @param text the pattern text
+     * @return the compiled pattern
+     * @throws IllegalArgumentException if the text is empty or invalid, names an unknown key or exceeds a
+     *         limit
+     */
+    public static ActivityPattern compile(String text) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Activity pattern is empty");
+        }
+        Compiler compiler = new Compiler(text.trim());
+        long duration = compiler.sequence();
+        if (compiler.hasNext()) {
+            throw compiler.error("Unexpected '" + compiler.peek() + "'");
+        }
+        return new ActivityPattern(text.trim(), Arrays.copyOf(compiler.code, compiler.length),
+            compiler.maxRepeatDepth, compiler.alternations, duration);
+    }
+
+    int[] code() {
+        return code;
+    }
+
+    /**
+     * Gets the deepest nesting of {@code repeat} steps, the number of loop counters a run needs.
+     */
+    int getRepeatDepth() {
+        return repeatDepth;
+    }
+
+    /**
+     * Gets the number of {@code alternate} steps, each of which remembers its last branch.
+     */
+    int getAlternations() {
+        return alternations;
+    }
+
+    /**
+     * Gets the longest time a run can take, counting waits and key holds at their maximum.
+     *
+     * @return the duration in milliseconds, not counting the time spent injecting events
+     */
+    public long getMaxDurationMillis() {
+        return maxDurationMillis;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    /**
+     * Recursive-descent compiler from pattern text to opcodes.
+     */
+    private static final class Compiler {
+        private final String text;
+        private final List<String> tokens;
+        private int position;
+        private int[] code = new int[64];
+        private int length;
+        private int depth;
+        private int repeatDepth;
+        private int maxRepeatDepth;
+        private int alternations;
+
+        Compiler(String text) {
+            this.text = text;
+            this.tokens = tokenize(text);
+        }
+
+        private static List<String> tokenize(String text) {
+            List<String> tokens = new ArrayList<>();
+            StringBuilder token = new StringBuilder();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c) || "{}|;".indexOf(c) >= 0) {
+                    if (!token.isEmpty()) {
+                        tokens.add(token.toString());
+                        token.setLength(0);
+                    }
+                    if (!Character.isWhitespace(c)) {
+                        tokens.add(String.valueOf(c));
+                    }
+                } else {
+                    token.append(c);
+                }
+            }
+            if (!token.isEmpty()) {
+                tokens.add(token.toString());
+            }
+            return tokens;
+        }
+
+        boolean hasNext() {
+            return position < tokens.size();
+        }
+
+        String peek() {
+            return tokens.get(position);
+        }
+
+        private String next(String expected) {
+            if (!hasNext()) {
+                throw error("Expected " + expected + " at the end");
+            }
+            return tokens.get(position++);
+        }
+
+        private void expect(String token) {
+            String actual = next("'" + token + "'");
+            if (!actual.equals(token)) {
+                throw error("Expected '" + token + "' but found '" + actual + "'");
+            }
+        }
+
+        private boolean atBlockEnd() {
+            return !hasNext() || "}".equals(peek()) || "|".equals(peek());
+        }
+
+        /**
+         * Compiles steps up to the end of the text or of the enclosing block.
+         *
+         * @return the longest time the steps can take
+         */
+        long sequence() {
+            long duration = 0;
+            while (!atBlockEnd()) {
+                if (";".equals(peek())) {
+                    position++;
+                    continue;
+                }
+                duration = addDuration(duration, step());
+                if (!atBlockEnd()) {
+                    expect(";");
+                }
+            }
+            return duration;
+        }
+
+        private long step() {
+            String keyword = next("a step").toLowerCase(Locale.ROOT);
+            switch (keyword) {
+                case "move" -> {
+                    int[] dx = range("move", -MAX_OFFSET, MAX_OFFSET);
+                    int[] dy = range("move", -MAX_OFFSET, MAX_OFFSET);
+                    emit(MOVE, dx[0], dx[1], dy[0], dy[1]);
+                    return 0;
+                }
+                case "back" -> {
+                    emit(BACK);
+                    return 0;
+                }
+                case "scroll" -> {
+                    int[] ticks = range("scroll", -MAX_SCROLL, MAX_SCROLL);
+                    emit(SCROLL, ticks[0], ticks[1]);
+                    return 0;
+                }
+                case "key" -> {
+                    return key();
+                }
+                case "wait" -> {
+                    int[] millis = range("wait", 0, MAX_WAIT_MILLIS);
+                    emit(WAIT, millis[0], millis[1]);
+                    return millis[1];
+                }
+                case "repeat" -> {
+                    return repeat();
+                }
+                case "oneof" -> {
+                    return branches(false);
+                }
+                case "alternate" -> {
+                    return branches(true);
+                }
+                default -> throw error("Unknown step '" + keyword + "'");
+            }
+        }
+
+        private long key() {
+            String name = next("keys");
+            KeySequence keys;
+            try {
+                keys = KeySequence.parse(name);
+            } catch (IllegalArgumentException e) {
+                throw error(e.getMessage());
+            }
+            int[] hold = {DEFAULT_HOLD_MILLIS, DEFAULT_HOLD_MILLIS};
+            if (hasNext() && RANGE.matcher(peek()).matches()) {
+                hold = range("key", 0, MAX_WAIT_MILLIS);
+            }
+            for (int step = 0; step < keys.getStepCount(); step++) {
+                int start = keys.getStepStart(step);
+                int end = keys.getStepEnd(step);
+                emit(PRESS, end - start);
+                for (int i = start; i < end; i++) {
+                    emit(keys.getKeyCode(i));
+                }
+                emit(WAIT, hold[0], hold[1]);
+                // Release in reverse order so modifiers are let go last
+                emit(RELEASE, end - start);
+                for (int i = end - 1; i >= start; i--) {
+                    emit(keys.getKeyCode(i));
+                }
+            }
+            return (long) keys.getStepCount() * hold[1];
+        }
+
+        private long repeat() {
+            int[] count = range("repeat", 0, MAX_REPEAT);
+            expect("{");
+            enterBlock();
+            int header = length;
+            emit(REPEAT, count[0], count[1], 0);
+            repeatDepth++;
+            maxRepeatDepth = Math.max(maxRepeatDepth, repeatDepth);
+            int body = length;
+            long duration = sequence();
+            repeatDepth--;
+            expect("}");
+            emit(LOOP, body);
+            code[header + 3] = length;
+            depth--;
+            return checkDuration(duration * count[1]);
+        }
+
+        private long branches(boolean alternate) {
+            expect("{");
+            enterBlock();
+            int count = countBranches();
+            if (alternate) {
+                emit(ALTERNATE, alternations++, count);
+            } else {
+                emit(ONE_OF, count);
+            }
+            // Branch targets, filled in as each branch is compiled
+            int targets = length;
+            length += count;
+            ensureCapacity();
+            int[] exits = new int[count];
+            long duration = 0;
+            for (int branch = 0; branch < count; branch++) {
+                if (branch > 0) {
+                    expect("|");
+                }
+                code[targets + branch] = length;
+                duration = Math.max(duration, sequence());
+                emit(JUMP, 0);
+                exits[branch] = length - 1;
+            }
+            expect("}");
+            for (int exit : exits) {
+                code[exit] = length;
+            }
+            depth--;
+            return duration;
+        }
+
+        /**
+         * Counts the alternatives of the block that starts at the current token.
+         */
+        private int countBranches() {
+            int count = 1;
+            int nesting = 0;
+            for (int i = position; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                if ("{".equals(token)) {
+                    nesting++;
+                } else if ("}".equals(token)) {
+                    if (nesting == 0) {
+                        return count;
+                    }
+                    nesting--;
+                } else if ("|".equals(token) && nesting == 0) {
+                    count++;
+                }
+            }
+            throw error("Expected '}' at the end");
+        }
+
+        private void enterBlock() {
+            if (++depth > MAX_DEPTH) {
+                throw error("Blocks are nested more than " + MAX_DEPTH + " deep");
+            }
+        }
+
+        private int[] range(String step, int min, int max) {
+            String token = next("a number after '" + step + "'");
+            Matcher matcher = RANGE.matcher(token);
+            if (!matcher.matches()) {
+                throw error("Expected a number or range after '" + step + "' but found '" + token + "'");
+            }
+            int low = Integer.parseInt(matcher.group(1));
+            int high = matcher.group(2) == null ? low : Integer.parseInt(matcher.group(2));
+            if (low > high) {
+                throw error("Range " + token + " of '" + step + "' is empty");
+            }
+            if (low < min || high > max) {
+                throw error("Range " + token + " of '" + step + "' is outside " + min + ".." + max);
+            }
+            return new int[] {low, high};
+        }
+
+        private long addDuration(long duration, long step) {
+            return checkDuration(duration + step);
+        }
+
+        private long checkDuration(long duration) {
+            if (duration > MAX_DURATION_MILLIS) {
+                throw error("Pattern can take longer than " + MAX_DURATION_MILLIS + " ms");
+            }
+            return duration;
+        }
+
+        private void emit(int... values) {
+            for (int value : values) {
+                code[length++] = value;
+                ensureCapacity();
+            }
+        }
+
+        private void ensureCapacity() {
+            if (length > MAX_CODE_LENGTH) {
+                throw error("Pattern is too long");
+            }
+            if (length >= code.length) {
+                code = Arrays.copyOf(code, Math.max(2 * code.length, length + 1));
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " in activity pattern '" + text + "'");
+        }
+    }
+}
@@ -1,17 +1,34 @@
 package com.upp.core;
 
+import com.upp.config.ConfigChangeListener;
+import com.upp.config.ConfigDiff;
+import com.upp.config.ConfigSnapshot;
 import com.upp.config.ConfigurationManager;
 import com.upp.exception.AntiIdleException;
+import com.upp.idle.IdleInhibitor;
+import com.upp.idle.IdleInhibitors;
+import com.upp.idle.IdleTimeSource;
+import com.upp.idle.IdleTimeSources;
+import com.upp.idle.IdleTimeout;
+import com.upp.idle.IdleTimeoutDetector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.awt.AWTException;
-import java.awt.MouseInfo;
-import java.awt.Point;
-import java.awt.Robot;
-import java.awt.event.KeyEvent;
-import java.lang.reflect.Field;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * Core activity simulation engine for AntiIdle.
@@ -19,27 +36,177 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public class ActivitySimulator {
     private static final Logger LOGGER = LoggerFactory.getLogger(ActivitySimulator.class);
+    private static final int DEFAULT_MOUSE_SETTLE_DELAY_MS = 250;
+    /** Slack for input the idle source attributes to the end of our own cycle. */
+    private static final long IDLE_TOLERANCE_MS = 500;
+    private static final String INHIBIT_REASON = "Preventing idle";
+    private static final String JOURNAL_DIRECTORY = "journal";
+    /**
+     * How long a detected idle timeout is trusted before the system settings are read again. Adaptive waits
+     * wake this often, so a timeout lowered meanwhile is seen within this long.
+     */
+    private static final long DEFAULT_IDLE_TIMEOUT_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(30);
     
-    private final Robot robot;
+    private final InputBackend inputBackend;
     private final ConfigurationManager configManager;
+    private final String sessionId;
+    private final ThreadFactory threadFactory;
+    private final Semaphore displayCycles;
     private final AtomicBoolean running = new AtomicBoolean(false);
-    private Thread simulationThread;
+    private final ReentrantLock waitLock = new ReentrantLock();
+    private final Condition wakeUp = waitLock.newCondition();
+    private final ConfigChangeListener configListener = this::onConfigChanged;
+    private final List<ActivityListener> listeners = new CopyOnWriteArrayList<>();
+    private final LatencyHistogram lateness = new LatencyHistogram();
+    private final TickTracker tickTracker = new TickTracker();
+    private final LongAdder cycles = new LongAdder();
+    private final LongAdder mouseMoves = new LongAdder();
+    private final LongAdder keyPresses = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder skippedCycles = new LongAdder();
+    private final LatencyHistogram injectionLatency = new LatencyHistogram();
+    private final LatencyHistogram cycleDuration = new LatencyHistogram();
+    private volatile long startTimeMillis;
+    private volatile Thread simulationThread;
+    private ObjectName mbeanName;
+    private volatile ResolvedKeys resolvedKeys = new ResolvedKeys(null, KeySequence.DEFAULT);
+    private volatile ResolvedPattern resolvedPattern = new ResolvedPattern("", null);
+    private final InjectionTarget injectionTarget = new InjectionTarget();
+    private final InjectionSequence injection = new InjectionSequence(InjectionScheduler.shared(), injectionTarget);
+    private volatile Error injectionCrash;
+    // Set when the cycle's last step ran on the injection scheduler, which hands completing it back
+    private volatile boolean completionPending;
+    private PatternInterpreter patternInterpreter = PatternInterpreter.create();
+    private TrajectoryPlayer trajectoryPlayer = TrajectoryPlayer.create();
+    private int mouseSettleDelayMs = DEFAULT_MOUSE_SETTLE_DELAY_MS;
+    private IdleTimeSource idleSourceOverride;
+    private IdleInhibitor inhibitorOverride;
+    private IdleTimeoutDetector idleTimeoutDetector;
+    private long idleTimeoutRefreshNanos = DEFAULT_IDLE_TIMEOUT_REFRESH_NANOS;
+    private volatile IdleTimeout idleTimeout = IdleTimeout.UNKNOWN;
+    // Set when the interval mode changes, so the simulation thread reads the timeout again
+    private volatile boolean idleTimeoutStale = true;
+    // Owned by the simulation thread
+    private long idleTimeoutCheckedNanos;
+    private IdleTimeSource idleSource;
+    private String idleSourceName;
+    private IdleInhibitor inhibitor;
+    private boolean inhibiting;
+    private final int[] screenBounds = new int[4];
+    private PointerTrajectory trajectory;
+    private int trajectoryDurationMs;
+    private boolean injected;
+    private long lastInjectionNanos;
+    private ConfigurationManager.JournalSettings journalSettings;
+    private InjectionJournal journal;
+    // Owned by the thread that started the cycle in progress, which also completes it
+    private Thread cycleThread;
+    private boolean holdingDisplay;
+    private long cycleStart;
+    private ActivityCycleEvent cycleEvent;
+    private boolean cycleMouse;
+    private KeySequence cycleKeys;
+    private ActivityPattern cyclePattern;
     
     /**
      * Creates a new ActivitySimulator with the given configuration manager.
+     * Input is injected through {@link java.awt.Robot}.
      * 
      * @param configManager the configuration manager to use
      * @throws AntiIdleException.RobotInitializationException if Robot initialization fails
      */
     public ActivitySimulator(ConfigurationManager configManager) throws AntiIdleException.RobotInitializationException {
+        this(configManager, new RobotInputBackend());
+        LOGGER.info("Robot initialized successfully");
+    }
+    
+    /**
+     * Creates a new ActivitySimulator that injects input through the given backend.
+     * 
+     * @param configManager the configuration manager to use
+     * @param inputBackend the backend that receives simulated input
+     */
+    public ActivitySimulator(ConfigurationManager configManager, InputBackend inputBackend) {
+        this(configManager, inputBackend, null, ActivitySimulator::newSimulationThread);
+    }
+    
+    /**
+     * Creates a new ActivitySimulator for one session of a {@link SessionManager}.
+     * 
+     * @param configManager the configuration manager to use
+     * @param inputBackend the backend that receives simulated input
+     * @param sessionId the session whose activity profile to use, or null for the global settings
+     * @param threadFactory the factory that creates the simulation thread
+     */
+    public ActivitySimulator(ConfigurationManager configManager, InputBackend inputBackend,
+                             String sessionId, ThreadFactory threadFactory) {
+        this(configManager, inputBackend, sessionId, threadFactory, null);
+    }
+    
+    /**
+     * Creates a new ActivitySimulator for a session sharing its input backend with other sessions.
+     * 
+     * @param configManager the configuration manager to use
+     * @param inputBackend the backend that receives simulated input
+     * @param sessionId the session whose activity profile to use, or null for the global settings
+     * @param threadFactory the factory that creates the simulation thread
+     * @param displayCycles the single permit every simulator on the backend holds from the start of a cycle
+     *        until it completes, so their input never interleaves; null if the backend is not shared
+     */
+    ActivitySimulator(ConfigurationManager configManager, InputBackend inputBackend,
+                      String sessionId, ThreadFactory threadFactory, Semaphore displayCycles) {
         this.configManager = configManager;
-        try {
-            this.robot = new Robot();
-            robot.setAutoWaitForIdle(false);
-            LOGGER.info("Robot initialized successfully");
-        } catch (AWTException e) {
-            throw new AntiIdleException.RobotInitializationException(
-                "Failed to initialize Robot for input simulation", e);
+        this.inputBackend = inputBackend;
+        this.sessionId = sessionId;
+        this.threadFactory = threadFactory;
+        this.displayCycles = displayCycles;
+        resolveKeySequence(configManager.getSnapshot());
+        resolvePattern(configManager.getSnapshot());
+    }
+    
+    /**
+     * Creates the platform thread of a simulator outside any session.
+     */
+    static Thread newSimulationThread(Runnable task) {
+        Thread thread = new Thread(task, "ActivitySimulator");
+        thread.setDaemon(true);
+        return thread;
+    }
+    
+    /**
+     * Gets the session this simulator belongs to.
+     * 
+     * @return the session ID, or null for the global simulator
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+    
+    /**
+     * Registers a listener notified of the simulation's lifecycle and progress.
+     * 
+     * @param listener the listener to add
+     */
+    public void addActivityListener(ActivityListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Removes a previously registered activity listener.
+     * 
+     * @param listener the listener to remove
+     */
+    public void removeActivityListener(ActivityListener listener) {
+        listeners.remove(listener);
+    }
+    
+    private void notifyListeners(Consumer<ActivityListener> notification) {
+        for (ActivityListener listener : listeners) {
+            try {
+                notification.accept(listener);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Activity listener failed", e);
+            }
         }
     }
     
@@ -53,8 +220,11 @@ public class ActivitySimulator {
         }
         
         running.set(true);
-        simulationThread = new Thread(this::runSimulation, "ActivitySimulator");
-        simulationThread.setDaemon(true);
+        injectionCrash = null;
+        startTimeMillis = System.currentTimeMillis();
+        configManager.addChangeListener(configListener);
+        mbeanName = ActivityStatsMBean.register(this);
+        simulationThread = threadFactory.newThread(this::runSimulation);
         simulationThread.start();
         
         LOGGER.info("Activity simulation started");
@@ -70,8 +240,13 @@ public class ActivitySimulator {
         }
         
         running.set(false);
+        configManager.removeChangeListener(configListener);
+        ActivityStatsMBean.unregister(mbeanName);
+        mbeanName = null;
+        signalWakeUp();
         
         if (simulationThread != null) {
+            // Also cut short any pause between injected events
             simulationThread.interrupt();
             try {
                 simulationThread.join(2000); // Wait up to 2 seconds
@@ -95,145 +270,961 @@ public class ActivitySimulator {
     
     /**
      * Main simulation loop.
+     * In fixed-delay mode each wait starts when the cycle ends; in fixed-rate mode deadlines advance by
+     * exactly one interval, so the time spent injecting input does not make the schedule drift.
      */
     private void runSimulation() {
         LOGGER.info("Starting activity simulation loop");
+        notifyListeners(listener -> listener.simulationStarted(this));
         
-        while (running.get() && !Thread.currentThread().isInterrupted()) {
-            try {
-                performActivity();
-                waitForNextInterval();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                LOGGER.info("Simulation thread interrupted, stopping");
-                break;
-            } catch (Exception e) {
-                LOGGER.error("Error during activity simulation", e);
-                // Continue running despite errors
+        Throwable cause = null;
+        try {
+            long deadline = System.nanoTime();
+            while (running.get() && !Thread.currentThread().isInterrupted()) {
+                try {
+                    refreshIdleTimeout(configManager.getSnapshot().getActivity(sessionId));
+                    deadline = onTick(deadline);
+                    if (!runCycle()) {
+                        notifyListeners(listener -> listener.cycleCompleted(this));
+                    }
+                    long anchor = isFixedRate() ? deadline : System.nanoTime();
+                    deadline = waitForNextInterval(anchor);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    LOGGER.info("Simulation thread interrupted, stopping");
+                    break;
+                } catch (Exception e) {
+                    failures.increment();
+                    LOGGER.error("Error during activity simulation", e);
+                    notifyListeners(listener -> listener.injectionFailed(this, e));
+                    // Continue running despite errors
+                }
+            }
+            Error crash = injectionCrash;
+            if (crash != null) {
+                // A step timed on the injection scheduler died and interrupted the loop to end it here
+                throw crash;
             }
+        } catch (Error e) {
+            cause = e;
+            LOGGER.error("Activity simulation died", e);
+            throw e;
+        } finally {
+            // Runs however the loop ends, so listeners never see a simulation that silently stopped
+            running.set(false);
+            // Lets go of a key held or the pointer moved away by the cycle in progress
+            finishCycle();
+            closeIdleSource();
+            releaseInhibitor();
+            closeJournal();
+            journalSettings = null;
+            LOGGER.info("Activity simulation loop ended");
+            Throwable stopCause = cause;
+            notifyListeners(listener -> listener.simulationStopped(this, stopCause));
         }
-        
-        running.set(false);
-        LOGGER.info("Activity simulation loop ended");
     }
     
     /**
      * Performs a single activity cycle.
+     * Patterns and pointer trajectories run to the end on the calling thread. The mouse nudge and key presses
+     * only start here: moving the pointer back and releasing keys are timed on the shared injection scheduler.
+     * The cycle completes on the calling thread, right away if its last step ran there and otherwise when the
+     * thread next waits for an interval or calls {@link #finishCycle()}. With a shared backend, the cycle
+     * first waits for the cycle of another session on it to complete.
      */
-    private void performActivity() throws AntiIdleException.ActivitySimulationException {
-        ConfigurationManager.ActivitySettings settings = configManager.getConfig().getActivity();
+    void performActivity() throws AntiIdleException.ActivitySimulationException {
+        finishCycle();
+        acquireDisplay();
+        cycleThread = Thread.currentThread();
+        ConfigSnapshot snapshot = configManager.getSnapshot();
+        ConfigurationManager.ActivitySettings settings = snapshot.getActivity(sessionId);
+        cycleEvent = ActivityCycleEvent.beginIfEnabled();
+        cycleStart = System.nanoTime();
+        resolveJournal(snapshot.getConfig().getJournal());
         
         try {
-            if (settings.isMouseMovementEnabled()) {
-                simulateMouseMovement(settings);
+            ActivityPattern pattern = resolvePattern(snapshot);
+            cyclePattern = pattern;
+            cycleMouse = pattern == null && settings.isMouseMovementEnabled();
+            cycleKeys = null;
+            if (pattern != null) {
+                runPattern(pattern);
+                injection.start(false, 0, 0, null, 0);
+                return;
+            }
+            boolean nudge = cycleMouse && !isTrajectory(settings);
+            if (cycleMouse && !nudge) {
+                glide(settings);
             }
-            
             if (settings.isKeyboardSimulationEnabled()) {
-                simulateKeyPress(settings);
+                cycleKeys = resolveKeySequence(snapshot);
             }
-            
-            LOGGER.debug("Activity simulation cycle completed");
+            injection.start(nudge, settings.getMouseMovementDistance(), mouseSettleDelayMs,
+                cycleKeys, settings.getKeyPressDurationMs());
         } catch (Exception e) {
+            // No sequence runs that would complete the cycle and let go of the display
+            releaseDisplay();
             throw new AntiIdleException.ActivitySimulationException("Failed to perform activity simulation", e);
         }
     }
     
+    private void acquireDisplay() {
+        if (displayCycles != null) {
+            // Uninterruptible, as the cycle holding the display completes within its hold and settle times
+            displayCycles.acquireUninterruptibly();
+            holdingDisplay = true;
+        }
+    }
+    
+    private void releaseDisplay() {
+        if (holdingDisplay) {
+            holdingDisplay = false;
+            displayCycles.release();
+        }
+    }
+    
+    /**
+     * Completes the cycle in progress on the calling thread, running the steps it has pending right away.
+     * Must be called by the thread that started the cycle.
+     */
+    void finishCycle() {
+        injection.finish();
+        completePendingCycle();
+    }
+    
+    /**
+     * Completes a cycle whose last step ran on the injection scheduler.
+     */
+    private void completePendingCycle() {
+        if (completionPending) {
+            completionPending = false;
+            completeCycle();
+        }
+    }
+    
     /**
-     * Simulates mouse movement.
+     * Hands a cycle whose last step ran on the injection scheduler back to the thread that started it, which
+     * flushes it there instead of holding up the steps of other sessions.
      */
-    private void simulateMouseMovement(ConfigurationManager.ActivitySettings settings) {
+    private void handOffCompletion() {
+        waitLock.lock();
         try {
-            Point currentPos = MouseInfo.getPointerInfo().getLocation();
-            int distance = settings.getMouseMovementDistance();
-            
-            // Move mouse slightly
-            robot.mouseMove(currentPos.x + distance, currentPos.y);
-            robot.delay(250);
-            
-            // Move back to original position
-            robot.mouseMove(currentPos.x, currentPos.y);
-            robot.delay(250);
-            
-            LOGGER.debug("Mouse movement simulated at position ({}, {})", currentPos.x, currentPos.y);
+            completionPending = true;
+            wakeUp.signalAll();
+        } finally {
+            waitLock.unlock();
+        }
+    }
+    
+    /**
+     * Flushes the injected input and records the cycle, once its last step has run.
+     */
+    private void completeCycle() {
+        try {
+            InputInjectionEvent flushEvent = new InputInjectionEvent();
+            flushEvent.begin();
+            long flushStart = System.nanoTime();
+            inputBackend.flush();
+            lastInjectionNanos = injected(flushEvent, flushStart, InputInjectionEvent.FLUSH, (byte) 0, 0, 0, 0);
+            if (journal != null) {
+                commitJournal();
+            }
+            cycleDuration.record(lastInjectionNanos - cycleStart);
+            cycles.increment();
+            injected = true;
+            ActivityCycleEvent event = cycleEvent;
+            if (event != null) {
+                cycleEvent = null;
+                event.end();
+                if (event.shouldCommit()) {
+                    event.set(sessionId, cycleMouse, cycleKeys == null ? null : cycleKeys.toString(),
+                        cyclePattern == null ? null : cyclePattern.toString());
+                    event.commit();
+                }
+            }
+            LOGGER.debug("Activity simulation cycle completed");
         } catch (Exception e) {
-            LOGGER.warn("Failed to simulate mouse movement", e);
+            injectionFailed("complete the activity cycle", e);
+        } finally {
+            releaseDisplay();
         }
+        notifyListeners(listener -> listener.cycleCompleted(this));
+    }
+    
+    private void injectionFailed(String step, Exception e) {
+        failures.increment();
+        LOGGER.warn("Failed to {}", step, e);
+        notifyListeners(listener -> listener.injectionFailed(this, e));
+    }
+    
+    private static boolean isTrajectory(ConfigurationManager.ActivitySettings settings) {
+        return ConfigurationManager.ActivitySettings.MOUSE_STYLE_TRAJECTORY.equalsIgnoreCase(
+            settings.getMouseMovementStyle());
     }
     
     /**
-     * Simulates key press.
+     * Glides the pointer away and back along a precomputed path, kept on the screen.
      */
-    private void simulateKeyPress(ConfigurationManager.ActivitySettings settings) {
+    private void glide(ConfigurationManager.ActivitySettings settings) {
         try {
-            int keyCode = getKeyCode(settings.getSimulationKey());
-            int duration = settings.getKeyPressDurationMs();
-            
-            robot.keyPress(keyCode);
-            robot.delay(duration);
-            robot.keyRelease(keyCode);
-            
-            LOGGER.debug("Key press simulated: {} (duration: {}ms)", settings.getSimulationKey(), duration);
+            inputBackend.getScreenBounds(screenBounds);
+            trajectoryPlayer.play(resolveTrajectory(settings.getMouseMovementDistance(),
+                settings.getMouseMovementDurationMs()), screenBounds, injectionTarget);
         } catch (Exception e) {
-            LOGGER.warn("Failed to simulate key press", e);
+            injectionFailed("simulate mouse movement", e);
         }
     }
     
     /**
-     * Gets the key code for a key name.
+     * Runs an activity pattern in place of the mouse and key settings.
      */
-    private int getKeyCode(String keyName) {
+    private void runPattern(ActivityPattern pattern) {
         try {
-            Field field = KeyEvent.class.getField("VK_" + keyName.toUpperCase());
-            return field.getInt(null);
+            patternInterpreter.run(pattern, injectionTarget);
         } catch (Exception e) {
-            LOGGER.warn("Unknown key name: {}, using SHIFT", keyName);
-            return KeyEvent.VK_SHIFT;
+            injectionFailed("run activity pattern", e);
         }
     }
     
+    private void mouseMove(int x, int y) {
+        InputInjectionEvent event = new InputInjectionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        inputBackend.mouseMove(x, y);
+        injected(event, start, InputInjectionEvent.MOUSE_MOVE, InjectionJournal.MOUSE_MOVE, 0, x, y);
+        mouseMoves.increment();
+    }
+    
+    private void mouseWheel(int ticks) {
+        InputInjectionEvent event = new InputInjectionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        inputBackend.mouseWheel(ticks);
+        injected(event, start, InputInjectionEvent.MOUSE_WHEEL, InjectionJournal.MOUSE_WHEEL, 0, ticks, 0);
+    }
+    
+    private void keyPress(int keyCode) {
+        InputInjectionEvent event = new InputInjectionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        inputBackend.keyPress(keyCode);
+        injected(event, start, InputInjectionEvent.KEY_PRESS, InjectionJournal.KEY_PRESS, keyCode, 0, 0);
+        keyPresses.increment();
+    }
+    
+    private void keyRelease(int keyCode) {
+        InputInjectionEvent event = new InputInjectionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        inputBackend.keyRelease(keyCode);
+        injected(event, start, InputInjectionEvent.KEY_RELEASE, InjectionJournal.KEY_RELEASE, keyCode, 0, 0);
+    }
+    
     /**
-     * Waits for the next simulation interval.
+     * Records the latency of a backend call, commits its event if it is being recorded and stages it in the
+     * journal if one is open.
+     * 
+     * @param journalType the journal event type, or 0 for calls the journal does not record
+     * @return the time the call returned
      */
-    private void waitForNextInterval() throws InterruptedException {
-        int intervalSeconds = configManager.getConfig().getActivity().getIntervalSeconds();
+    private long injected(InputInjectionEvent event, long start, String action, byte journalType,
+                          int keyCode, int x, int y) {
+        long end = System.nanoTime();
+        event.end();
+        injectionLatency.record(end - start);
+        if (event.shouldCommit()) {
+            event.set(sessionId, action, keyCode, x, y);
+            event.commit();
+        }
+        if (journal != null && journalType != 0) {
+            // Only staged here, keeping the inlined injection path small enough for escape analysis to
+            // remove the event objects; the cycle writes the entries after the flush
+            journal.add(journalType, start, end - start, keyCode, x, y);
+        }
+        return end;
+    }
+    
+    private void commitJournal() {
+        try {
+            journal.commit();
+        } catch (IOException e) {
+            // Keep simulating; the journal is opened again when its settings change
+            LOGGER.warn("Failed to write injection journal, stopped recording", e);
+            closeJournal();
+        }
+    }
+    
+    /**
+     * Opens, keeps or closes the journal to match its settings. Settings are compared by identity first,
+     * since snapshots share them until the configuration changes.
+     */
+    private void resolveJournal(ConfigurationManager.JournalSettings settings) {
+        if (settings == journalSettings) {
+            return;
+        }
+        ConfigurationManager.JournalSettings previous = journalSettings;
+        journalSettings = settings;
+        if (previous != null && previous.isEnabled() == settings.isEnabled()
+                && Objects.equals(previous.getDirectory(), settings.getDirectory())
+                && previous.getSegmentSizeMb() == settings.getSegmentSizeMb()) {
+            return;
+        }
+        closeJournal();
+        if (!settings.isEnabled()) {
+            return;
+        }
+        Path directory = settings.getDirectory() == null || settings.getDirectory().isBlank()
+            ? configManager.getConfigPath().toAbsolutePath().resolveSibling(JOURNAL_DIRECTORY)
+            : Paths.get(settings.getDirectory());
+        try {
+            journal = InjectionJournal.open(directory, sessionId, settings.getSegmentSizeMb() * 1024L * 1024L);
+            LOGGER.info("Recording injected events to {}", directory);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to open injection journal in {}", directory, e);
+        }
+    }
+    
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to close injection journal", e);
+        }
+        journal = null;
+    }
+    
+    /**
+     * Sleeps between injected events, keeping the interrupt status like {@code Robot.delay} does.
+     */
+    private static void pause(int millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Overrides how long the mouse nudge leaves the pointer away, for tests and benchmarks.
+     */
+    void setMouseSettleDelayMs(int mouseSettleDelayMs) {
+        this.mouseSettleDelayMs = mouseSettleDelayMs;
+    }
+    
+    /**
+     * Seeds the values activity patterns draw from ranges and the shape of pointer trajectories, for tests.
+     * Must be called before the simulation starts.
+     */
+    void setRandomSeed(long seed) {
+        patternInterpreter = PatternInterpreter.seeded(seed);
+        trajectoryPlayer = TrajectoryPlayer.seeded(seed);
+    }
+    
+    /**
+     * Overrides the configured idle source, for tests. Must be called before the simulation starts.
+     */
+    void setIdleTimeSource(IdleTimeSource idleSource) {
+        this.idleSourceOverride = idleSource;
+    }
+    
+    /**
+     * Overrides the idle inhibitor, for tests. Must be called before the simulation starts.
+     */
+    void setIdleInhibitor(IdleInhibitor inhibitor) {
+        this.inhibitorOverride = inhibitor;
+    }
+    
+    /**
+     * Overrides where adaptive intervals read the system's idle timeout from, for tests. Must be called
+     * before the simulation starts.
+     */
+    void setIdleTimeoutDetector(IdleTimeoutDetector detector) {
+        this.idleTimeoutDetector = detector;
+    }
+    
+    /**
+     * Overrides how often adaptive intervals read the system's idle timeout again, for tests. Must be called
+     * before the simulation starts.
+     */
+    void setIdleTimeoutRefreshMillis(long millis) {
+        this.idleTimeoutRefreshNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+    
+    /**
+     * Runs one tick of the simulation.
+     * 
+     * @return true if the tick started injecting input, whose cycle tells listeners when it completes
+     */
+    private boolean runCycle() throws AntiIdleException.ActivitySimulationException {
+        // Completes a cycle still holding a key, so skipped cycles see when it really ended
+        finishCycle();
+        ConfigurationManager.ActivitySettings settings = configManager.getSnapshot().getActivity(sessionId);
+        if (ConfigurationManager.ActivitySettings.ENGINE_INHIBIT.equalsIgnoreCase(settings.getEngineMode())) {
+            if (renewInhibitor()) {
+                return false;
+            }
+        } else {
+            releaseInhibitor();
+        }
         
-        // Sleep in 1-second chunks to allow for interruption
-        for (int i = 0; i < intervalSeconds; i++) {
-            if (Thread.currentThread().isInterrupted()) {
-                throw new InterruptedException();
+        if (isUserActive(settings)) {
+            skippedCycles.increment();
+            LOGGER.debug("User input since the last cycle, skipping activity simulation");
+            return false;
+        }
+        performActivity();
+        return true;
+    }
+    
+    /**
+     * Takes or re-asserts the idle inhibitor lock.
+     * 
+     * @return true if the lock is held; false to fall back to injecting input
+     */
+    private boolean renewInhibitor() {
+        if (inhibitor == null) {
+            inhibitor = inhibitorOverride != null ? inhibitorOverride : IdleInhibitors.create();
+        }
+        boolean held = inhibitor.renew(INHIBIT_REASON);
+        if (held != inhibiting) {
+            inhibiting = held;
+            if (held) {
+                LOGGER.info("Idle inhibitor lock taken through {}", inhibitor.getName());
+            } else if (inputBackend.isInjecting()) {
+                LOGGER.warn("No idle inhibitor available, falling back to input simulation");
+            } else {
+                LOGGER.error("No idle inhibitor available and no display to simulate input on, "
+                    + "nothing keeps the system awake");
+            }
+        }
+        return held;
+    }
+    
+    private void releaseInhibitor() {
+        if (inhibitor != null) {
+            inhibitor.close();
+            inhibitor = null;
+            if (inhibiting) {
+                inhibiting = false;
+                LOGGER.info("Idle inhibitor lock released");
             }
-            Thread.sleep(1000);
         }
     }
     
     /**
-     * Gets current activity statistics.
+     * Checks whether the user produced input since the previous cycle, or within the interval if
+     * nothing was injected yet. Input from our own cycle is excluded by comparing against its end.
+     */
+    private boolean isUserActive(ConfigurationManager.ActivitySettings settings) {
+        if (!settings.isSkipWhenUserActive()) {
+            return false;
+        }
+        long idleMillis = resolveIdleSource(settings).getIdleMillis();
+        if (idleMillis == IdleTimeSource.UNKNOWN) {
+            return false;
+        }
+        long windowMillis = TimeUnit.SECONDS.toMillis(Math.max(1, intervalSeconds(settings)));
+        if (injected) {
+            long sinceInjectionMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastInjectionNanos);
+            windowMillis = Math.min(windowMillis, sinceInjectionMillis);
+        }
+        return idleMillis + IDLE_TOLERANCE_MS < windowMillis;
+    }
+    
+    private IdleTimeSource resolveIdleSource(ConfigurationManager.ActivitySettings settings) {
+        if (idleSourceOverride != null) {
+            return idleSourceOverride;
+        }
+        String name = settings.getIdleSource();
+        if (idleSource == null || !String.valueOf(name).equalsIgnoreCase(idleSourceName)) {
+            closeIdleSource();
+            idleSource = IdleTimeSources.create(name, inputBackend::getPointerPosition);
+            idleSourceName = String.valueOf(name);
+        }
+        return idleSource;
+    }
+    
+    private void closeIdleSource() {
+        if (idleSource != null) {
+            idleSource.close();
+            idleSource = null;
+            idleSourceName = null;
+        }
+    }
+    
+    /**
+     * Gets the key sequence for a configuration snapshot.
+     * The sequence is parsed only when the key name differs from the last one resolved, so steady-state
+     * cycles do not parse it again. Key names are validated when the configuration is loaded or saved.
+     */
+    private KeySequence resolveKeySequence(ConfigSnapshot snapshot) {
+        String keyName = snapshot.getActivity(sessionId).getSimulationKey();
+        ResolvedKeys resolved = resolvedKeys;
+        if (!Objects.equals(keyName, resolved.name())) {
+            KeySequence keys;
+            try {
+                keys = KeySequence.parse(keyName);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("Invalid simulation key '{}', using SHIFT: {}", keyName, e.getMessage());
+                keys = KeySequence.DEFAULT;
+            }
+            resolved = new ResolvedKeys(keyName, keys);
+            resolvedKeys = resolved;
+        }
+        return resolved.keys();
+    }
+    
+    /**
+     * Gets the compiled activity pattern for a configuration snapshot.
+     * The pattern is compiled only when its text changes. Patterns are validated when the configuration is
+     * loaded or saved; one that still fails to compile falls back to the mouse and key settings.
      * 
-     * @return activity statistics containing current state
+     * @return the pattern, or null if none is configured or it is invalid
+     */
+    private ActivityPattern resolvePattern(ConfigSnapshot snapshot) {
+        String text = snapshot.getActivity(sessionId).getPattern();
+        String source = text == null ? "" : text.trim();
+        ResolvedPattern resolved = resolvedPattern;
+        if (!source.equals(resolved.text())) {
+            ActivityPattern pattern = null;
+            if (!source.isEmpty()) {
+                try {
+                    pattern = ActivityPattern.compile(source);
+                } catch (IllegalArgumentException e) {
+                    LOGGER.warn("Invalid activity pattern, using the mouse and key settings: {}", e.getMessage());
+                }
+            }
+            resolved = new ResolvedPattern(source, pattern);
+            resolvedPattern = resolved;
+        }
+        return resolved.pattern();
+    }
+    
+    /**
+     * Gets the pointer path for the mouse movement settings, from the shared cache only when they change.
+     */
+    private PointerTrajectory resolveTrajectory(int distance, int durationMs) {
+        if (trajectory == null || trajectory.getDistance() != distance || trajectoryDurationMs != durationMs) {
+            trajectory = PointerTrajectory.of(distance, durationMs);
+            trajectoryDurationMs = durationMs;
+        }
+        return trajectory;
+    }
+    
+    /**
+     * Waits for the next simulation interval.
+     * Parks until the absolute deadline {@code cycleEndNanos + interval}, so a whole interval costs a
+     * single wakeup. Stopping the simulation or changing the interval wakes the thread early, and
+     * the deadline is then recomputed from the current configuration. A cycle whose last step ran on the
+     * injection scheduler wakes it too, and is completed here. Adaptive intervals wake at least every
+     * refresh period to read the idle timeout again, so a timeout lowered during the wait moves the
+     * deadline forward.
+     */
+    private long waitForNextInterval(long anchorNanos) throws InterruptedException {
+        long deadline = anchorNanos + intervalNanos();
+        while (running.get()) {
+            // Outside the lock, so a slow flush or helper command never holds up threads signalling a wakeup
+            completePendingCycle();
+            refreshIdleTimeout(configManager.getSnapshot().getActivity(sessionId));
+            waitLock.lock();
+            try {
+                // Woken early, the interval may have changed, so the deadline is recomputed on every pass
+                ConfigurationManager.ActivitySettings settings = configManager.getSnapshot().getActivity(sessionId);
+                deadline = anchorNanos + TimeUnit.SECONDS.toNanos(intervalSeconds(settings));
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                boolean adaptive = isAdaptive(settings);
+                if (adaptive && idleTimeoutStale) {
+                    // Switched to adaptive since the refresh above, so read the timeout before waiting
+                    continue;
+                }
+                long waitNanos = adaptive ? Math.min(remaining, idleTimeoutRefreshNanos) : remaining;
+                if (!completionPending && wakeUp.awaitNanos(waitNanos) <= 0 && waitNanos == remaining) {
+                    break;
+                }
+            } finally {
+                waitLock.unlock();
+            }
+        }
+        return deadline;
+    }
+    
+    private long intervalNanos() {
+        return TimeUnit.SECONDS.toNanos(intervalSeconds(configManager.getSnapshot().getActivity(sessionId)));
+    }
+    
+    /**
+     * Gets the interval between cycles. Adaptive intervals end the margin before the system's idle timeout,
+     * but never take less than half of it; without a known timeout the configured interval is used.
+     */
+    private int intervalSeconds(ConfigurationManager.ActivitySettings settings) {
+        IdleTimeout timeout = adaptiveIdleTimeout(settings);
+        if (!timeout.isKnown()) {
+            return settings.getIntervalSeconds();
+        }
+        long timeoutSeconds = TimeUnit.MILLISECONDS.toSeconds(timeout.millis());
+        long seconds = Math.max(timeoutSeconds - settings.getAdaptiveMarginSeconds(), timeoutSeconds / 2);
+        return Math.clamp(seconds, 1, Integer.MAX_VALUE);
+    }
+    
+    private IdleTimeout adaptiveIdleTimeout(ConfigurationManager.ActivitySettings settings) {
+        return isAdaptive(settings) ? idleTimeout : IdleTimeout.UNKNOWN;
+    }
+    
+    private static boolean isAdaptive(ConfigurationManager.ActivitySettings settings) {
+        return ConfigurationManager.ActivitySettings.INTERVAL_ADAPTIVE.equalsIgnoreCase(settings.getIntervalMode());
+    }
+    
+    /**
+     * Reads the system's idle timeout for adaptive intervals, when the interval mode changed or the last
+     * reading is older than the refresh period. Runs helper commands, so it is only called on the simulation
+     * thread. Does nothing for fixed intervals.
+     */
+    private void refreshIdleTimeout(ConfigurationManager.ActivitySettings settings) {
+        if (!isAdaptive(settings)) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (!idleTimeoutStale && now - idleTimeoutCheckedNanos < idleTimeoutRefreshNanos) {
+            return;
+        }
+        // Cleared first, so a change while the settings are read has them read once more
+        idleTimeoutStale = false;
+        if (idleTimeoutDetector == null) {
+            idleTimeoutDetector = IdleTimeoutDetector.create();
+        }
+        IdleTimeout detected = idleTimeoutDetector.detect();
+        idleTimeoutCheckedNanos = now;
+        if (!detected.equals(idleTimeout)) {
+            idleTimeout = detected;
+            if (detected.isKnown()) {
+                LOGGER.info("Idle timeout of {} s set by {}, running cycles every {} s",
+                    TimeUnit.MILLISECONDS.toSeconds(detected.millis()), detected.source(),
+                    intervalSeconds(settings));
+            } else {
+                LOGGER.info("No idle timeout found, running cycles every {} s", settings.getIntervalSeconds());
+            }
+        }
+    }
+    
+    private boolean isFixedRate() {
+        return ConfigurationManager.ActivitySettings.SCHEDULING_FIXED_RATE.equalsIgnoreCase(
+            configManager.getSnapshot().getActivity(sessionId).getSchedulingMode());
+    }
+    
+    /**
+     * Records the lateness of a tick, skipping missed fixed-rate ticks and restarting the schedule
+     * after a system suspend.
+     *
+     * @return the deadline the tick belongs to
+     */
+    private long onTick(long deadline) {
+        long suspendsBefore = tickTracker.getSuspends();
+        long now = System.nanoTime();
+        long adjusted = tickTracker.onTick(deadline, intervalNanos(), isFixedRate(), now, System.currentTimeMillis());
+        if (tickTracker.getSuspends() != suspendsBefore) {
+            LOGGER.info("System suspend detected, restarting the simulation schedule");
+        }
+        lateness.record(now - adjusted);
+        return adjusted;
+    }
+    
+    private void signalWakeUp() {
+        waitLock.lock();
+        try {
+            wakeUp.signalAll();
+        } finally {
+            waitLock.unlock();
+        }
+    }
+    
+    private void onConfigChanged(ConfigSnapshot previous, ConfigSnapshot current) {
+        ConfigDiff changes = ConfigDiff.between(previous.getActivity(sessionId), current.getActivity(sessionId));
+        if (changes.isEmpty()) {
+            return;
+        }
+        LOGGER.debug("Activity settings changed: {}", changes);
+        if (changes.affects("simulation_key")) {
+            // Parse on the publishing thread so the next cycle can inject the new keys right away
+            resolveKeySequence(current);
+        }
+        if (changes.affects("pattern")) {
+            // Compiled on the publishing thread too, keeping the compiler off the simulation thread
+            resolvePattern(current);
+        }
+        String engineMode = current.getActivity(sessionId).getEngineMode();
+        if (changes.affects("engine_mode") && !inputBackend.isInjecting()
+                && !ConfigurationManager.ActivitySettings.ENGINE_INHIBIT.equalsIgnoreCase(engineMode)) {
+            // The backend was chosen at startup without a display, so the switch cannot take effect
+            LOGGER.error("Engine mode {} needs a display to simulate input on, nothing keeps the system awake",
+                engineMode);
+        }
+        if (changes.affects("interval_mode")) {
+            // Read again by the simulation thread, which the wakeup below sends back through its wait;
+            // reading it here would run helper commands on the publishing thread
+            idleTimeoutStale = true;
+        }
+        if (changes.affects("interval_seconds") || changes.affects("interval_mode")
+                || changes.affects("adaptive_margin_seconds")) {
+            // The waiting loop recomputes its deadline from the new interval
+            signalWakeUp();
+        }
+        notifyListeners(listener -> listener.configApplied(this, current));
+    }
+    
+    /**
+     * Gets a snapshot of the simulation statistics.
+     * 
+     * @return the current statistics
      */
     public ActivityStats getStats() {
-        // This could be expanded to track more detailed statistics
-        return new ActivityStats(running.get());
+        return new ActivityStats(this);
+    }
+    
+    /**
+     * Key sequence parsed from a simulation key name.
+     * 
+     * @param name the configured key name
+     * @param keys the parsed sequence, or the default if the name is invalid
+     */
+    private record ResolvedKeys(String name, KeySequence keys) {
+    }
+    
+    /**
+     * Activity pattern compiled from its text.
+     * 
+     * @param text the configured pattern text, trimmed
+     * @param pattern the compiled pattern, or null if the text is empty or invalid
+     */
+    private record ResolvedPattern(String text, ActivityPattern pattern) {
+    }
+    
+    /**
+     * Injects the actions of activity patterns, pointer trajectories and injection sequences through the same
+     * instrumented calls, and completes the cycle when its sequence ends.
+     */
+    private final class InjectionTarget implements InjectionSequence.Target {
+        @Override
+        public long getPointerPosition() {
+            return inputBackend.getPointerPosition();
+        }
+        
+        @Override
+        public void mouseMove(int x, int y) {
+            ActivitySimulator.this.mouseMove(x, y);
+        }
+        
+        @Override
+        public void mouseWheel(int ticks) {
+            ActivitySimulator.this.mouseWheel(ticks);
+        }
+        
+        @Override
+        public void keyPress(int keyCode) {
+            ActivitySimulator.this.keyPress(keyCode);
+        }
+        
+        @Override
+        public void keyRelease(int keyCode) {
+            ActivitySimulator.this.keyRelease(keyCode);
+        }
+        
+        @Override
+        public void pause(int millis) {
+            ActivitySimulator.pause(millis);
+        }
+        
+        @Override
+        public void completed() {
+            if (Thread.currentThread() == cycleThread) {
+                completeCycle();
+            } else {
+                handOffCompletion();
+            }
+        }
+        
+        @Override
+        public void failed(String step, Exception error) {
+            injectionFailed("simulate " + step, error);
+        }
+        
+        @Override
+        public void crashed(Error error) {
+            injectionCrash = error;
+            Thread thread = simulationThread;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
     }
     
     /**
-     * Activity statistics data class.
+     * Immutable snapshot of a simulator's counters and histograms.
      */
     public static class ActivityStats {
         private final boolean running;
         private final long startTime;
+        private final long cycles;
+        private final long mouseMoves;
+        private final long keyPresses;
+        private final long failures;
+        private final long skippedCycles;
+        private final long missedTicks;
+        private final long suspends;
+        private final int intervalSeconds;
+        private final IdleTimeout idleTimeout;
+        private final LatencyHistogram.Snapshot lateness;
+        private final LatencyHistogram.Snapshot injectionLatency;
+        private final LatencyHistogram.Snapshot cycleDuration;
         
+        /**
+         * Creates statistics for a simulator that has not recorded anything.
+         * 
+         * @param running whether the simulation is running
+         */
         public ActivityStats(boolean running) {
             this.running = running;
-            this.startTime = System.currentTimeMillis();
+            this.startTime = 0;
+            this.cycles = 0;
+            this.mouseMoves = 0;
+            this.keyPresses = 0;
+            this.failures = 0;
+            this.skippedCycles = 0;
+            this.missedTicks = 0;
+            this.suspends = 0;
+            this.intervalSeconds = 0;
+            this.idleTimeout = IdleTimeout.UNKNOWN;
+            this.lateness = LatencyHistogram.Snapshot.EMPTY;
+            this.injectionLatency = LatencyHistogram.Snapshot.EMPTY;
+            this.cycleDuration = LatencyHistogram.Snapshot.EMPTY;
+        }
+        
+        private ActivityStats(ActivitySimulator simulator) {
+            this.running = simulator.running.get();
+            this.startTime = simulator.startTimeMillis;
+            this.cycles = simulator.cycles.sum();
+            this.mouseMoves = simulator.mouseMoves.sum();
+            this.keyPresses = simulator.keyPresses.sum();
+            this.failures = simulator.failures.sum();
+            this.skippedCycles = simulator.skippedCycles.sum();
+            this.missedTicks = simulator.tickTracker.getMissedTicks();
+            this.suspends = simulator.tickTracker.getSuspends();
+            ConfigurationManager.ActivitySettings settings =
+                simulator.configManager.getSnapshot().getActivity(simulator.sessionId);
+            this.intervalSeconds = simulator.intervalSeconds(settings);
+            this.idleTimeout = simulator.adaptiveIdleTimeout(settings);
+            this.lateness = simulator.lateness.snapshot();
+            this.injectionLatency = simulator.injectionLatency.snapshot();
+            this.cycleDuration = simulator.cycleDuration.snapshot();
         }
         
         public boolean isRunning() {
             return running;
         }
         
+        /**
+         * Gets the time the simulation was last started.
+         * 
+         * @return the start time in epoch milliseconds, or 0 if it was never started
+         */
         public long getStartTime() {
             return startTime;
         }
+        
+        public long getCycles() {
+            return cycles;
+        }
+        
+        public long getMouseMoves() {
+            return mouseMoves;
+        }
+        
+        public long getKeyPresses() {
+            return keyPresses;
+        }
+        
+        /**
+         * Gets the number of failed cycles and simulation steps.
+         * 
+         * @return the failure count
+         */
+        public long getFailures() {
+            return failures;
+        }
+        
+        /**
+         * Gets the number of cycles skipped because the user was active.
+         * 
+         * @return the skipped cycle count
+         */
+        public long getSkippedCycles() {
+            return skippedCycles;
+        }
+        
+        /**
+         * Gets the number of fixed-rate ticks skipped instead of being caught up.
+         * 
+         * @return the missed tick count
+         */
+        public long getMissedTicks() {
+            return missedTicks;
+        }
+        
+        public long getSuspends() {
+            return suspends;
+        }
+        
+        /**
+         * Gets the interval between cycles the simulator currently waits.
+         * 
+         * @return the interval in seconds, or 0 if no statistics were recorded
+         */
+        public int getIntervalSeconds() {
+            return intervalSeconds;
+        }
+        
+        /**
+         * Gets the system idle timeout the interval adapts to.
+         * 
+         * @return the timeout, or {@link IdleTimeout#UNKNOWN} if the configured interval is used
+         */
+        public IdleTimeout getIdleTimeout() {
+            return idleTimeout;
+        }
+        
+        /**
+         * Gets how late each tick started relative to its deadline.
+         * 
+         * @return the lateness histogram
+         */
+        public LatencyHistogram.Snapshot getLateness() {
+            return lateness;
+        }
+        
+        /**
+         * Gets the time spent in each call into the input backend.
+         * 
+         * @return the injection latency histogram
+         */
+        public LatencyHistogram.Snapshot getInjectionLatency() {
+            return injectionLatency;
+        }
+        
+        /**
+         * Gets the duration of each completed cycle, including pauses between events.
+         * 
+         * @return the cycle duration histogram
+         */
+        public LatencyHistogram.Snapshot getCycleDuration() {
+            return cycleDuration;
+        }
     }
 }
@@ -0,0 +1,46 @@
+package com.upp.core;
+
+/**
+ * JMX view of an {@link ActivitySimulator}'s statistics.
+ *
+ * <p>Registered with the platform MBean server as {@code com.upp:type=ActivitySimulator,session=<id>}
+ * while the simulation runs, where the global simulator uses the session {@code default}. Durations are
+ * in nanoseconds.
+ */
+public interface ActivitySimulatorMXBean {
+    boolean isRunning();
+
+    long getStartTime();
+
+    long getCycles();
+
+    long getMouseMoves();
+
+    long getKeyPresses();
+
+    long getFailures();
+
+    long getSkippedCycles();
+
+    long getMissedTicks();
+
+    long getSuspends();
+
+    int getIntervalSeconds();
+
+    String getIdleTimeoutSource();
+
+    long getLatenessP99Nanos();
+
+    long getInjectionLatencyMeanNanos();
+
+    long getInjectionLatencyP99Nanos();
+
+    long getInjectionLatencyMaxNanos();
+
+    long getCycleDurationMeanNanos();
+
+    long getCycleDurationP99Nanos();
+
+    long getCycleDurationMaxNanos();
+}
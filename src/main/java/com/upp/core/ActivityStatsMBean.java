@@ -0,0 +1,165 @@
+package com.upp.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Publishes a simulator's statistics on the platform MBean server.
+ */
+final class ActivityStatsMBean implements ActivitySimulatorMXBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ActivityStatsMBean.class);
+    private static final String DEFAULT_SESSION = "default";
+
+    private final ActivitySimulator simulator;
+
+    private ActivityStatsMBean(ActivitySimulator simulator) {
+        this.simulator = simulator;
+    }
+
+    /**
+     * Registers a simulator's MBean.
+     *
+     * @param simulator the simulator
+     * @return the registered name, or null if another simulator already holds it or registration failed
+     */
+    static ObjectName register(ActivitySimulator simulator) {
+        try {
+            ObjectName name = objectName(simulator.getSessionId());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new ActivityStatsMBean(simulator), name);
+            return name;
+        } catch (InstanceAlreadyExistsException e) {
+            LOGGER.debug("Activity simulator MBean already registered: {}", e.getMessage());
+        } catch (JMException e) {
+            LOGGER.warn("Failed to register activity simulator MBean", e);
+        }
+        return null;
+    }
+
+    /**
+     * Unregisters an MBean registered by {@link #register(ActivitySimulator)}.
+     *
+     * @param name the registered name, or null to do nothing
+     */
+    static void unregister(ObjectName name) {
+        if (name == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(name);
+        } catch (InstanceNotFoundException e) {
+            LOGGER.debug("Activity simulator MBean already unregistered: {}", name);
+        } catch (JMException e) {
+            LOGGER.warn("Failed to unregister activity simulator MBean", e);
+        }
+    }
+
+    /**
+     * Builds the MBean name of a session.
+     *
+     * @param sessionId the session ID, or null for the global simulator
+     * @return the object name
+     */
+    static ObjectName objectName(String sessionId) throws MalformedObjectNameException {
+        String session = sessionId == null ? DEFAULT_SESSION : ObjectName.quote(sessionId);
+        return new ObjectName("com.upp:type=ActivitySimulator,session=" + session);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return simulator.isRunning();
+    }
+
+    @Override
+    public long getStartTime() {
+        return simulator.getStats().getStartTime();
+    }
+
+    @Override
+    public long getCycles() {
+        return simulator.getStats().getCycles();
+    }
+
+    @Override
+    public long getMouseMoves() {
+        return simulator.getStats().getMouseMoves();
+    }
+
+    @Override
+    public long getKeyPresses() {
+        return simulator.getStats().getKeyPresses();
+    }
+
+    @Override
+    public long getFailures() {
+        return simulator.getStats().getFailures();
+    }
+
+    @Override
+    public long getSkippedCycles() {
+        return simulator.getStats().getSkippedCycles();
+    }
+
+    @Override
+    public long getMissedTicks() {
+        return simulator.getStats().getMissedTicks();
+    }
+
+    @Override
+    public long getSuspends() {
+        return simulator.getStats().getSuspends();
+    }
+
+    @Override
+    public int getIntervalSeconds() {
+        return simulator.getStats().getIntervalSeconds();
+    }
+
+    @Override
+    public String getIdleTimeoutSource() {
+        return simulator.getStats().getIdleTimeout().source();
+    }
+
+    @Override
+    public long getLatenessP99Nanos() {
+        return simulator.getStats().getLateness().getPercentile(99);
+    }
+
+    @Override
+    public long getInjectionLatencyMeanNanos() {
+        return Math.round(simulator.getStats().getInjectionLatency().getMean());
+    }
+
+    @Override
+    public long getInjectionLatencyP99Nanos() {
+        return simulator.getStats().getInjectionLatency().getPercentile(99);
+    }
+
+    @Override
+    public long getInjectionLatencyMaxNanos() {
+        return simulator.getStats().getInjectionLatency().getMax();
+    }
+
+    @Override
+    public long getCycleDurationMeanNanos() {
+        return Math.round(simulator.getStats().getCycleDuration().getMean());
+    }
+
+    @Override
+    public long getCycleDurationP99Nanos() {
+        return simulator.getStats().getCycleDuration().getPercentile(99);
+    }
+
+    @Override
+    public long getCycleDurationMaxNanos() {
+        return simulator.getStats().getCycleDuration().getMax();
+    }
+}
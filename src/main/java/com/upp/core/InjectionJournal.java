@@ -0,0 +1,328 @@
+package com.upp.core;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Append-only binary journal of the input events a simulator injected, kept to show when a machine was
+ * kept awake.
+ *
+ * <p>The journal is a directory of segment files named {@code injections-<start>-<session>.aij}, where
+ * {@code start} is the wall-clock time of the segment's creation in milliseconds since the epoch, padded so
+ * names sort by time. A segment is created at its full size and memory-mapped; it holds a header followed
+ * by fixed-width big-endian entries, and unused space reads as zeros:
+ *
+ * <pre>
+ * header (64 bytes): int magic "AIJ1", short version, short entry size, zeros
+ * entry (64 bytes):
+ *    0  long  monotonic time of the backend call, System.nanoTime()
+ *    8  long  wall-clock time, milliseconds since the epoch
+ *   16  long  backend latency in nanoseconds
+ *   24  int   key code of key events, 0 otherwise
+ *   28  int   x of mouse moves, ticks of wheel events, 0 otherwise
+ *   32  int   y of mouse moves, 0 otherwise
+ *   36  byte  event type, 0 marks the end of the entries
+ *   37  byte  length of the session ID, 0 for the global simulator
+ *   40  24    session ID in UTF-8, truncated to fit
+ * </pre>
+ *
+ * <p>The event type is written last, so a reader never takes a half-written entry for a complete one.
+ * Entries are staged with {@link #add} and written into the mapped segment by {@link #commit()}, both
+ * without allocating; when a segment is full the next one is created. Staging keeps the code on the
+ * injection path to a few array stores, so the JIT still inlines it whole. Each simulator writes its own
+ * segments. Timed steps stage their entries on the injection scheduler's thread, while the thread that
+ * started the cycle commits them once the cycle is handed back to it. The hand-off orders these calls, so a
+ * journal is not thread-safe and needs no locking. Read segments with {@link InjectionJournalReader}.
+ */
+public final class InjectionJournal implements AutoCloseable {
+    /** A mouse move. */
+    public static final byte MOUSE_MOVE = 1;
+    /** A key press. */
+    public static final byte KEY_PRESS = 2;
+    /** A key release. */
+    public static final byte KEY_RELEASE = 3;
+    /** A mouse wheel rotation. */
+    public static final byte MOUSE_WHEEL = 4;
+
+    /** Size of the segment header. */
+    public static final int HEADER_SIZE = 64;
+    /** Size of an entry. */
+    public static final int ENTRY_SIZE = 64;
+
+    static final int MAGIC = 0x41494A31;
+    static final short VERSION = 1;
+    static final int MONOTONIC_OFFSET = 0;
+    static final int WALL_OFFSET = 8;
+    static final int LATENCY_OFFSET = 16;
+    static final int KEY_CODE_OFFSET = 24;
+    static final int X_OFFSET = 28;
+    static final int Y_OFFSET = 32;
+    static final int TYPE_OFFSET = 36;
+    static final int SESSION_LENGTH_OFFSET = 37;
+    static final int SESSION_OFFSET = 40;
+    static final int MAX_SESSION_BYTES = ENTRY_SIZE - SESSION_OFFSET;
+
+    private static final String PREFIX = "injections-";
+    private static final String SUFFIX = ".aij";
+    private static final String GLOBAL_SESSION = "global";
+    private static final int INITIAL_STAGED = 16;
+
+    private final Path directory;
+    private final String fileSession;
+    private final byte[] session;
+    private final long segmentBytes;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int position;
+    // Staged entries: monotonic time and latency, then type, key code, x and y
+    private long[] stagedTimes = new long[2 * INITIAL_STAGED];
+    private int[] stagedValues = new int[4 * INITIAL_STAGED];
+    private int staged;
+
+    private InjectionJournal(Path directory, String sessionId, long segmentBytes) {
+        this.directory = directory;
+        this.fileSession = sessionId == null ? GLOBAL_SESSION : sessionId.replaceAll("[^A-Za-z0-9_.-]", "_");
+        this.session = sessionBytes(sessionId);
+        // Whole entries only, and room for at least one
+        this.segmentBytes = HEADER_SIZE + Math.max(1, (segmentBytes - HEADER_SIZE) / ENTRY_SIZE) * ENTRY_SIZE;
+    }
+
+    /**
+     * Opens a journal, starting a new segment.
+     *
+     * @param directory the journal directory, created if missing
+     * @param sessionId the session whose injections are recorded, or null for the global simulator
+     * @param segmentBytes the size of each segment; rounded down to whole entries
+     * @return the journal
+     * @throws IOException if the directory or the first segment cannot be created
+     */
+    public static InjectionJournal open(Path directory, String sessionId, long segmentBytes) throws IOException {
+        Files.createDirectories(directory);
+        InjectionJournal journal = new InjectionJournal(directory, sessionId, segmentBytes);
+        journal.roll();
+        return journal;
+    }
+
+    private static byte[] sessionBytes(String sessionId) {
+        if (sessionId == null) {
+            return new byte[0];
+        }
+        byte[] bytes = sessionId.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_SESSION_BYTES) {
+            return bytes;
+        }
+        // Cut at a character boundary so the stored prefix stays valid UTF-8
+        int length = MAX_SESSION_BYTES;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        byte[] truncated = new byte[length];
+        System.arraycopy(bytes, 0, truncated, 0, length);
+        return truncated;
+    }
+
+    /**
+     * Records an injected event right away.
+     *
+     * @param type the event type: {@link #MOUSE_MOVE}, {@link #MOUSE_WHEEL}, {@link #KEY_PRESS} or
+     *        {@link #KEY_RELEASE}
+     * @param monotonicNanos the {@link System#nanoTime()} at which the backend call started
+     * @param latencyNanos the duration of the backend call
+     * @param keyCode the key code of key events, 0 otherwise
+     * @param x the x coordinate of mouse moves, the ticks of wheel events, 0 otherwise
+     * @param y the y coordinate of mouse moves, 0 otherwise
+     * @throws IOException if the segment is full and the next one cannot be created
+     */
+    public void append(byte type, long monotonicNanos, long latencyNanos, int keyCode, int x, int y)
+            throws IOException {
+        add(type, monotonicNanos, latencyNanos, keyCode, x, y);
+        commit();
+    }
+
+    /**
+     * Stages an injected event to be written by the next {@link #commit()}.
+     *
+     * @param type the event type: {@link #MOUSE_MOVE}, {@link #MOUSE_WHEEL}, {@link #KEY_PRESS} or
+     *        {@link #KEY_RELEASE}
+     * @param monotonicNanos the {@link System#nanoTime()} at which the backend call started
+     * @param latencyNanos the duration of the backend call
+     * @param keyCode the key code of key events, 0 otherwise
+     * @param x the x coordinate of mouse moves, the ticks of wheel events, 0 otherwise
+     * @param y the y coordinate of mouse moves, 0 otherwise
+     */
+    public void add(byte type, long monotonicNanos, long latencyNanos, int keyCode, int x, int y) {
+        if (staged == stagedTimes.length / 2) {
+            grow();
+        }
+        stagedTimes[2 * staged] = monotonicNanos;
+        stagedTimes[2 * staged + 1] = latencyNanos;
+        stagedValues[4 * staged] = type;
+        stagedValues[4 * staged + 1] = keyCode;
+        stagedValues[4 * staged + 2] = x;
+        stagedValues[4 * staged + 3] = y;
+        staged++;
+    }
+
+    private void grow() {
+        stagedTimes = Arrays.copyOf(stagedTimes, 2 * stagedTimes.length);
+        stagedValues = Arrays.copyOf(stagedValues, 2 * stagedValues.length);
+    }
+
+    /**
+     * Writes the staged events. Their wall-clock times are derived from their monotonic times.
+     *
+     * @throws IOException if the journal is closed, or a segment is full and the next one cannot be created
+     */
+    public void commit() throws IOException {
+        if (staged == 0) {
+            return;
+        }
+        if (channel == null) {
+            staged = 0;
+            throw new IOException("Injection journal is closed");
+        }
+        long nowNanos = System.nanoTime();
+        long nowMillis = System.currentTimeMillis();
+        try {
+            for (int i = 0; i < staged; i++) {
+                long monotonic = stagedTimes[2 * i];
+                write((byte) stagedValues[4 * i], monotonic, nowMillis - (nowNanos - monotonic) / 1_000_000,
+                    stagedTimes[2 * i + 1], stagedValues[4 * i + 1], stagedValues[4 * i + 2],
+                    stagedValues[4 * i + 3]);
+            }
+        } finally {
+            staged = 0;
+        }
+    }
+
+    private void write(byte type, long monotonicNanos, long wallMillis, long latencyNanos, int keyCode, int x, int y)
+            throws IOException {
+        if (position + ENTRY_SIZE > segmentBytes) {
+            roll();
+        }
+        MappedByteBuffer buffer = segment;
+        int entry = position;
+        buffer.putLong(entry + MONOTONIC_OFFSET, monotonicNanos);
+        buffer.putLong(entry + WALL_OFFSET, wallMillis);
+        buffer.putLong(entry + LATENCY_OFFSET, latencyNanos);
+        buffer.putInt(entry + KEY_CODE_OFFSET, keyCode);
+        buffer.putInt(entry + X_OFFSET, x);
+        buffer.putInt(entry + Y_OFFSET, y);
+        buffer.put(entry + SESSION_LENGTH_OFFSET, (byte) session.length);
+        buffer.put(entry + SESSION_OFFSET, session);
+        buffer.put(entry + TYPE_OFFSET, type);
+        position = entry + ENTRY_SIZE;
+    }
+
+    /**
+     * Closes the current segment and creates the next one.
+     */
+    private void roll() throws IOException {
+        closeSegment();
+        long start = System.currentTimeMillis();
+        FileChannel next = null;
+        while (next == null) {
+            try {
+                next = FileChannel.open(directory.resolve(segmentName(start, fileSession)),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (FileAlreadyExistsException e) {
+                // Another segment of this session started in the same millisecond
+                start++;
+            }
+        }
+        channel = next;
+        // Mapping beyond the end grows the file, which stays sparse until written
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        segment.putInt(0, MAGIC);
+        segment.putShort(4, VERSION);
+        segment.putShort(6, (short) ENTRY_SIZE);
+        position = HEADER_SIZE;
+    }
+
+    private void closeSegment() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        try {
+            segment.force();
+        } finally {
+            // The mapping stays valid until it is garbage collected; it is not touched again
+            channel.close();
+            channel = null;
+            segment = null;
+        }
+    }
+
+    /**
+     * Writes the current segment to disk and closes it; events still staged are dropped. Further appends
+     * fail.
+     *
+     * @throws IOException if the segment cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+    }
+
+    static String segmentName(long startMillis, String session) {
+        return String.format(Locale.ROOT, "%s%019d-%s%s", PREFIX, startMillis, session, SUFFIX);
+    }
+
+    /**
+     * Lists the segments in a journal directory.
+     *
+     * @param directory the journal directory
+     * @return the segment files ordered by start time
+     * @throws IOException if the directory cannot be listed
+     */
+    public static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(InjectionJournal::isSegment).forEach(segments::add);
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    /**
+     * Checks whether a file is named like a journal segment.
+     *
+     * @param file the file
+     * @return true if the name has the segment prefix and extension
+     */
+    public static boolean isSegment(Path file) {
+        Path name = file.getFileName();
+        return name != null && name.toString().startsWith(PREFIX) && name.toString().endsWith(SUFFIX);
+    }
+
+    /**
+     * Gets the time a segment was created from its name.
+     *
+     * @param segment the segment file
+     * @return the wall-clock start in milliseconds since the epoch, or -1 if the name does not hold one
+     */
+    public static long segmentStartMillis(Path segment) {
+        Path name = segment.getFileName();
+        if (name == null || !isSegment(segment)) {
+            return -1;
+        }
+        String text = name.toString();
+        int end = text.indexOf('-', PREFIX.length());
+        try {
+            return Long.parseLong(text.substring(PREFIX.length(), end < 0 ? text.length() : end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
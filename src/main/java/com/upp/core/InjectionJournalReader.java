@@ -0,0 +1,173 @@
+package com.upp.core;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the entries of one {@link InjectionJournal} segment in the order they were written.
+ *
+ * <p>The segment is memory-mapped read-only, and the reader is a cursor: {@link #next()} moves to the
+ * next entry, whose fields the getters return. Segments still being written can be read; entries appended
+ * after the reader reached the end are not seen.
+ */
+public final class InjectionJournalReader implements AutoCloseable {
+    private final FileChannel channel;
+    private final MappedByteBuffer segment;
+    private final int limit;
+    private int entry = -1;
+
+    private InjectionJournalReader(FileChannel channel, MappedByteBuffer segment) {
+        this.channel = channel;
+        this.segment = segment;
+        this.limit = segment.capacity();
+    }
+
+    /**
+     * Opens a segment.
+     *
+     * @param segment the segment file
+     * @return the reader, positioned before the first entry
+     * @throws IOException if the file cannot be read or is not a journal segment of a known version
+     */
+    public static InjectionJournalReader open(Path segment) throws IOException {
+        FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < InjectionJournal.HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not an injection journal segment: " + segment);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != InjectionJournal.MAGIC) {
+                throw new IOException("Not an injection journal segment: " + segment);
+            }
+            if (buffer.getShort(4) != InjectionJournal.VERSION
+                    || buffer.getShort(6) != InjectionJournal.ENTRY_SIZE) {
+                throw new IOException("Unsupported injection journal version " + buffer.getShort(4) + ": " + segment);
+            }
+            return new InjectionJournalReader(channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Moves to the next entry.
+     *
+     * @return true if there is one; false at the end of the entries written so far
+     */
+    public boolean next() {
+        int candidate = entry < 0 ? InjectionJournal.HEADER_SIZE : entry + InjectionJournal.ENTRY_SIZE;
+        if (candidate + InjectionJournal.ENTRY_SIZE > limit
+                || segment.get(candidate + InjectionJournal.TYPE_OFFSET) == 0) {
+            return false;
+        }
+        entry = candidate;
+        return true;
+    }
+
+    /**
+     * Gets the event type of the current entry.
+     *
+     * @return {@link InjectionJournal#MOUSE_MOVE}, {@link InjectionJournal#MOUSE_WHEEL},
+     *         {@link InjectionJournal#KEY_PRESS} or {@link InjectionJournal#KEY_RELEASE}
+     */
+    public byte getType() {
+        return segment.get(entry + InjectionJournal.TYPE_OFFSET);
+    }
+
+    /**
+     * Gets the name of the event type of the current entry.
+     *
+     * @return {@code mouseMove}, {@code mouseWheel}, {@code keyPress}, {@code keyRelease}, or
+     *         {@code unknown} for types written by a newer version
+     */
+    public String getTypeName() {
+        return switch (getType()) {
+            case InjectionJournal.MOUSE_MOVE -> "mouseMove";
+            case InjectionJournal.MOUSE_WHEEL -> "mouseWheel";
+            case InjectionJournal.KEY_PRESS -> "keyPress";
+            case InjectionJournal.KEY_RELEASE -> "keyRelease";
+            default -> "unknown";
+        };
+    }
+
+    /**
+     * Gets the monotonic time of the current entry.
+     *
+     * @return the {@link System#nanoTime()} of the writing process when the backend call started
+     */
+    public long getMonotonicNanos() {
+        return segment.getLong(entry + InjectionJournal.MONOTONIC_OFFSET);
+    }
+
+    /**
+     * Gets the wall-clock time of the current entry.
+     *
+     * @return milliseconds since the epoch
+     */
+    public long getWallMillis() {
+        return segment.getLong(entry + InjectionJournal.WALL_OFFSET);
+    }
+
+    /**
+     * Gets the backend latency of the current entry.
+     *
+     * @return the duration of the backend call in nanoseconds
+     */
+    public long getLatencyNanos() {
+        return segment.getLong(entry + InjectionJournal.LATENCY_OFFSET);
+    }
+
+    /**
+     * Gets the key code of the current entry.
+     *
+     * @return the key code of key events, 0 otherwise
+     */
+    public int getKeyCode() {
+        return segment.getInt(entry + InjectionJournal.KEY_CODE_OFFSET);
+    }
+
+    /**
+     * Gets the x coordinate of the current entry.
+     *
+     * @return the x coordinate of mouse moves, the ticks of wheel events, 0 otherwise
+     */
+    public int getX() {
+        return segment.getInt(entry + InjectionJournal.X_OFFSET);
+    }
+
+    /**
+     * Gets the y coordinate of the current entry.
+     *
+     * @return the y coordinate of mouse moves, 0 otherwise
+     */
+    public int getY() {
+        return segment.getInt(entry + InjectionJournal.Y_OFFSET);
+    }
+
+    /**
+     * Gets the session of the current entry.
+     *
+     * @return the session ID, truncated to 24 bytes of UTF-8, or null for the global simulator
+     */
+    public String getSession() {
+        int length = Math.min(segment.get(entry + InjectionJournal.SESSION_LENGTH_OFFSET) & 0xFF,
+            InjectionJournal.MAX_SESSION_BYTES);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        segment.get(entry + InjectionJournal.SESSION_OFFSET, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
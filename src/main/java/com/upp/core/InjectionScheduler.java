@@ -0,0 +1,79 @@
+package com.upp.core;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the timed follow-up steps of injections, such as releasing a key after its hold time, for every
+ * simulator in the JVM on one thread.
+ *
+ * <p>Steps are one-shot timers on a {@link TimingWheel} with a millisecond tick. The driver thread sleeps
+ * until the wheel next needs advancing and not at all while no step is pending, so any number of sessions
+ * interleave their injections on it without holding a thread each through their holds and settle delays.
+ * Steps run on the driver thread and must not block.
+ */
+final class InjectionScheduler {
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final TimingWheel wheel = new TimingWheel(TICK_NANOS);
+    private final Thread driver;
+
+    private InjectionScheduler(ThreadFactory threadFactory) {
+        driver = threadFactory.newThread(this::drive);
+        driver.start();
+    }
+
+    /**
+     * Gets the scheduler shared by every simulator, starting its thread on first use.
+     *
+     * @return the shared scheduler
+     */
+    static InjectionScheduler shared() {
+        return Shared.INSTANCE;
+    }
+
+    /**
+     * Runs a step once a deadline has passed.
+     *
+     * @param step the step to run on the scheduler's thread
+     * @param deadlineNanos the {@link System#nanoTime()} to run it at; the step may run up to a tick later
+     * @return the handle that cancels the step
+     */
+    long scheduleAt(Runnable step, long deadlineNanos) {
+        long handle = wheel.schedule(step, deadlineNanos - System.nanoTime());
+        // The driver may be sleeping past the new deadline, or for good if the wheel was empty
+        LockSupport.unpark(driver);
+        return handle;
+    }
+
+    /**
+     * Cancels a pending step.
+     *
+     * @param handle the handle returned when the step was scheduled
+     * @return true if the step was pending and will not run
+     */
+    boolean cancel(long handle) {
+        return wheel.cancel(handle);
+    }
+
+    private void drive() {
+        while (true) {
+            wheel.advance(System.nanoTime());
+            long next = wheel.nextDeadlineNanos();
+            if (next == Long.MAX_VALUE) {
+                LockSupport.park(this);
+            } else {
+                LockSupport.parkNanos(this, next - System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * Holds the shared scheduler, created when first asked for.
+     */
+    private static final class Shared {
+        private static final InjectionScheduler INSTANCE =
+            new InjectionScheduler(Thread.ofPlatform().name("antiidle-injection").daemon().factory());
+    }
+}
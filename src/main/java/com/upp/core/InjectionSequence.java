@@ -0,0 +1,238 @@
+package com.upp.core;
+
+/**
+ * The steps of one activity cycle's mouse nudge and key presses, run as a state machine instead of a
+ * sleeping thread.
+ *
+ * <p>{@link #start} moves the pointer away and presses the first chord right away, then leaves the move
+ * back and the release to timers on an {@link InjectionScheduler}; each release presses the next chord.
+ * Once nothing is pending the target is told the cycle is complete, on whichever thread ran the last step.
+ * {@link #finish()} cuts the sequence short, so stopping or starting the next cycle never leaves the pointer
+ * away or a key held down.
+ *
+ * <p>Steps that are due immediately run on the calling thread, so a cycle without holds or settle delays
+ * completes before {@link #start} returns. A step that fails is reported and skipped; an {@link Error} in a
+ * timed step is handed to {@link Target#crashed(Error)} rather than killing the shared scheduler thread.
+ */
+final class InjectionSequence {
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final InjectionScheduler scheduler;
+    private final Target target;
+    private final Runnable moveBackStep = this::onMoveBackDue;
+    private final Runnable releaseStep = this::onReleaseDue;
+
+    private boolean active;
+    private int originX;
+    private int originY;
+    private boolean moveBackPending;
+    private long moveBackDue;
+    private long moveBackHandle = TimingWheel.INVALID_HANDLE;
+    private KeySequence keys;
+    private int keyStep;
+    private long holdNanos;
+    private boolean releasePending;
+    private long releaseDue;
+    private long releaseHandle = TimingWheel.INVALID_HANDLE;
+
+    /**
+     * Creates an idle sequence.
+     *
+     * @param scheduler the scheduler that runs the timed steps
+     * @param target the target that receives the steps
+     */
+    InjectionSequence(InjectionScheduler scheduler, Target target) {
+        this.scheduler = scheduler;
+        this.target = target;
+    }
+
+    /**
+     * Starts a cycle, finishing the previous one first if it is still running.
+     *
+     * @param nudge whether to move the pointer away and back
+     * @param distance how far to move the pointer to the right, in pixels
+     * @param settleMillis how long to leave the pointer away
+     * @param keys the chords to press one after another, or null for none
+     * @param holdMillis how long to hold each chord down
+     */
+    synchronized void start(boolean nudge, int distance, int settleMillis, KeySequence keys, int holdMillis) {
+        finish();
+        active = true;
+        if (nudge) {
+            moveAway(distance, settleMillis);
+        }
+        if (keys != null) {
+            this.keys = keys;
+            keyStep = 0;
+            holdNanos = holdMillis * NANOS_PER_MILLI;
+            pressKeys();
+        }
+        completeIfDone();
+    }
+
+    /**
+     * Runs the pending steps right away and completes the cycle. Chords not pressed yet are skipped.
+     */
+    synchronized void finish() {
+        if (!active) {
+            return;
+        }
+        if (moveBackPending) {
+            scheduler.cancel(moveBackHandle);
+            moveBackPending = false;
+            moveBack();
+        }
+        if (releasePending) {
+            scheduler.cancel(releaseHandle);
+            releasePending = false;
+            releaseKeys();
+        }
+        keys = null;
+        completeIfDone();
+    }
+
+    /**
+     * Checks whether the current cycle still has steps pending.
+     *
+     * @return true if a cycle was started and has not completed
+     */
+    synchronized boolean isActive() {
+        return active;
+    }
+
+    private void moveAway(int distance, int settleMillis) {
+        try {
+            long position = target.getPointerPosition();
+            originX = InputBackend.positionX(position);
+            originY = InputBackend.positionY(position);
+            target.mouseMove(originX + distance, originY);
+        } catch (Exception e) {
+            target.failed("mouse movement", e);
+            return;
+        }
+        if (settleMillis <= 0) {
+            moveBack();
+        } else {
+            moveBackPending = true;
+            moveBackDue = System.nanoTime() + settleMillis * NANOS_PER_MILLI;
+            moveBackHandle = scheduler.scheduleAt(moveBackStep, moveBackDue);
+        }
+    }
+
+    private void moveBack() {
+        try {
+            target.mouseMove(originX, originY);
+        } catch (Exception e) {
+            target.failed("mouse movement", e);
+        }
+    }
+
+    /**
+     * Presses the chords from the current one, until one has to be held or all were pressed.
+     */
+    private void pressKeys() {
+        try {
+            while (keyStep < keys.getStepCount()) {
+                for (int i = keys.getStepStart(keyStep); i < keys.getStepEnd(keyStep); i++) {
+                    target.keyPress(keys.getKeyCode(i));
+                }
+                if (holdNanos > 0) {
+                    releasePending = true;
+                    releaseDue = System.nanoTime() + holdNanos;
+                    releaseHandle = scheduler.scheduleAt(releaseStep, releaseDue);
+                    return;
+                }
+                releaseChord();
+            }
+        } catch (Exception e) {
+            target.failed("key press", e);
+        }
+        keys = null;
+    }
+
+    private void releaseKeys() {
+        try {
+            releaseChord();
+        } catch (Exception e) {
+            // The remaining chords are skipped rather than pressed over a key that may still be down
+            keys = null;
+            target.failed("key press", e);
+        }
+    }
+
+    private void releaseChord() {
+        // Release in reverse order so modifiers are let go last
+        for (int i = keys.getStepEnd(keyStep) - 1; i >= keys.getStepStart(keyStep); i--) {
+            target.keyRelease(keys.getKeyCode(i));
+        }
+        keyStep++;
+    }
+
+    private void completeIfDone() {
+        if (active && !moveBackPending && !releasePending) {
+            // Idle before calling out, so a completion that throws leaves nothing to finish
+            active = false;
+            target.completed();
+        }
+    }
+
+    private void onMoveBackDue() {
+        try {
+            synchronized (this) {
+                // A step that expired while finish() ran no longer belongs to the current cycle
+                if (!moveBackPending || System.nanoTime() - moveBackDue < 0) {
+                    return;
+                }
+                moveBackPending = false;
+                moveBack();
+                completeIfDone();
+            }
+        } catch (Error e) {
+            target.crashed(e);
+        }
+    }
+
+    private void onReleaseDue() {
+        try {
+            synchronized (this) {
+                if (!releasePending || System.nanoTime() - releaseDue < 0) {
+                    return;
+                }
+                releasePending = false;
+                releaseKeys();
+                if (keys != null) {
+                    pressKeys();
+                }
+                completeIfDone();
+            }
+        } catch (Error e) {
+            target.crashed(e);
+        }
+    }
+
+    /**
+     * Receives the steps of a sequence, and learns how its cycles end.
+     */
+    interface Target extends PatternInterpreter.Target {
+        /**
+         * Called once every step of the cycle ran or was skipped, with the sequence's lock held. When the last
+         * step was timed this runs on the scheduler thread, so it must not block.
+         */
+        void completed();
+
+        /**
+         * Called when a step failed; the sequence goes on with the next one.
+         *
+         * @param step what was being injected
+         * @param error the failure
+         */
+        void failed(String step, Exception error);
+
+        /**
+         * Called on the scheduler thread when a timed step threw an error.
+         *
+         * @param error the error
+         */
+        void crashed(Error error);
+    }
+}
@@ -0,0 +1,104 @@
+package com.upp.core;
+
+/**
+ * Source and sink of input events used by {@link ActivitySimulator}.
+ *
+ * <p>Implementations decide how events reach the system: through {@link java.awt.Robot}, nowhere at
+ * all, or into memory for tests and benchmarks. Pointer positions are packed into a single
+ * {@code long} so querying them does not allocate.
+ *
+ * <p>Implementations need not be safe for concurrent writers. A simulator's thread and the injection
+ * scheduler take turns within a cycle, and simulators sharing a backend through a {@link SessionManager}
+ * take turns cycle by cycle, so events reach a backend from one thread at a time.
+ */
+public interface InputBackend {
+
+    /**
+     * Gets the current pointer position.
+     *
+     * @return the position packed with {@link #packPosition(int, int)}
+     */
+    long getPointerPosition();
+
+    /**
+     * Gets the bounds of the screen the pointer is on.
+     *
+     * @param bounds receives the x and y coordinates of the screen's top left corner, its width and its
+     *        height, in that order
+     */
+    void getScreenBounds(int[] bounds);
+
+    /**
+     * Moves the pointer to the given screen coordinates.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     */
+    void mouseMove(int x, int y);
+
+    /**
+     * Rotates the mouse wheel.
+     *
+     * @param ticks the number of notches; negative values scroll up or away from the user
+     */
+    void mouseWheel(int ticks);
+
+    /**
+     * Presses a key.
+     *
+     * @param keyCode the {@link java.awt.event.KeyEvent} virtual key code
+     */
+    void keyPress(int keyCode);
+
+    /**
+     * Releases a key.
+     *
+     * @param keyCode the {@link java.awt.event.KeyEvent} virtual key code
+     */
+    void keyRelease(int keyCode);
+
+    /**
+     * Makes sure all events sent so far are delivered to the system.
+     */
+    void flush();
+
+    /**
+     * Tells whether events reach the system at all.
+     *
+     * @return false if every event is discarded, so simulated input cannot keep the system awake
+     */
+    default boolean isInjecting() {
+        return true;
+    }
+
+    /**
+     * Packs screen coordinates into a single value.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the packed position
+     */
+    static long packPosition(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the x coordinate of a packed position.
+     *
+     * @param position the packed position
+     * @return the x coordinate
+     */
+    static int positionX(long position) {
+        return (int) (position >> 32);
+    }
+
+    /**
+     * Gets the y coordinate of a packed position.
+     *
+     * @param position the packed position
+     * @return the y coordinate
+     */
+    static int positionY(long position) {
+        return (int) position;
+    }
+}
@@ -0,0 +1,19 @@
+package com.upp.core;
+
+import com.upp.exception.AntiIdleException;
+
+/**
+ * Creates the input backend for a display.
+ */
+@FunctionalInterface
+public interface InputBackendFactory {
+
+    /**
+     * Creates a backend that injects input into the given display.
+     *
+     * @param display the display ID, or null for the default display
+     * @return the new backend
+     * @throws AntiIdleException.RobotInitializationException if the backend cannot be created
+     */
+    InputBackend create(String display) throws AntiIdleException.RobotInitializationException;
+}
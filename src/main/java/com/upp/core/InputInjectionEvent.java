@@ -0,0 +1,58 @@
+package com.upp.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for one input backend call. The event duration is the call's latency.
+ *
+ * <p>Disabled by default; enable it with the bundled {@code antiidle.jfc} profile.
+ */
+@Name(InputInjectionEvent.NAME)
+@Label("Input Injection")
+@Category("AntiIdle")
+@Description("A mouse or keyboard event injected through the input backend")
+@Enabled(false)
+@Threshold("1 ms")
+@StackTrace(false)
+final class InputInjectionEvent extends Event {
+    static final String NAME = "com.upp.InputInjection";
+    static final String MOUSE_MOVE = "mouseMove";
+    static final String MOUSE_WHEEL = "mouseWheel";
+    static final String KEY_PRESS = "keyPress";
+    static final String KEY_RELEASE = "keyRelease";
+    static final String FLUSH = "flush";
+
+    @Label("Session")
+    @Description("Session ID, or null for the global simulator")
+    private String session;
+
+    @Label("Action")
+    @Description("Backend call: mouseMove, mouseWheel, keyPress, keyRelease or flush")
+    private String action;
+
+    @Label("Key Code")
+    @Description("Key code of key events, 0 otherwise")
+    private int keyCode;
+
+    @Label("X")
+    @Description("X coordinate of mouse moves, ticks of wheel events, 0 otherwise")
+    private int x;
+
+    @Label("Y")
+    private int y;
+
+    void set(String session, String action, int keyCode, int x, int y) {
+        this.session = session;
+        this.action = action;
+        this.keyCode = keyCode;
+        this.x = x;
+        this.y = y;
+    }
+}
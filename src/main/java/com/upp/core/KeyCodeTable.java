@@ -0,0 +1,59 @@
+package com.upp.core;
+
+import java.awt.event.KeyEvent;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lookup table from key names to {@link KeyEvent} virtual key codes.
+ * Built once from the {@code VK_} constants so resolving a name never needs reflection again.
+ */
+public final class KeyCodeTable {
+    private static final String PREFIX = "VK_";
+    private static final Map<String, Integer> CODES = buildTable();
+
+    private KeyCodeTable() {
+    }
+
+    /**
+     * Looks up the key code for a key name, ignoring case and an optional {@code VK_} prefix.
+     *
+     * @param keyName the key name, e.g. {@code SHIFT}, {@code f15} or {@code CTRL}
+     * @return the key code, or {@link KeyEvent#VK_UNDEFINED} if the name is unknown
+     */
+    public static int lookup(String keyName) {
+        String name = keyName.trim().toUpperCase(Locale.ROOT);
+        if (name.startsWith(PREFIX)) {
+            name = name.substring(PREFIX.length());
+        }
+        Integer code = CODES.get(name);
+        return code != null ? code : KeyEvent.VK_UNDEFINED;
+    }
+
+    private static Map<String, Integer> buildTable() {
+        Map<String, Integer> codes = new HashMap<>();
+        for (Field field : KeyEvent.class.getFields()) {
+            int modifiers = field.getModifiers();
+            if (field.getName().startsWith(PREFIX) && field.getType() == int.class
+                    && Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers)) {
+                try {
+                    codes.put(field.getName().substring(PREFIX.length()), field.getInt(null));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Cannot read " + field.getName(), e);
+                }
+            }
+        }
+        codes.remove("UNDEFINED");
+
+        // Common names that differ from the KeyEvent constants
+        codes.put("CTRL", KeyEvent.VK_CONTROL);
+        codes.put("ESC", KeyEvent.VK_ESCAPE);
+        codes.put("RETURN", KeyEvent.VK_ENTER);
+        codes.put("CMD", KeyEvent.VK_META);
+        codes.put("SUPER", KeyEvent.VK_WINDOWS);
+        return Map.copyOf(codes);
+    }
+}
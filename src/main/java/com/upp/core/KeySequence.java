@@ -0,0 +1,114 @@
+package com.upp.core;
+
+import java.awt.event.KeyEvent;
+import java.util.Arrays;
+
+/**
+ * A short sequence of key chords resolved to key codes.
+ *
+ * <p>Chords join keys with {@code +} and steps are separated by spaces or commas, e.g.
+ * {@code CTRL+F15} or {@code SHIFT, CTRL+ALT}. Codes are stored in flat primitive arrays so
+ * pressing a resolved sequence does no lookups or allocation.
+ */
+public final class KeySequence {
+    /** Maximum number of chords in a sequence. */
+    public static final int MAX_STEPS = 8;
+    /** Maximum number of keys in a single chord. */
+    public static final int MAX_CHORD_KEYS = 4;
+
+    /** The sequence used when nothing else is configured: a single SHIFT press. */
+    public static final KeySequence DEFAULT = new KeySequence("SHIFT",
+        new int[] {KeyEvent.VK_SHIFT}, new int[] {1});
+
+    private final String text;
+    private final int[] codes;
+    private final int[] stepEnds;
+
+    private KeySequence(String text, int[] codes, int[] stepEnds) {
+        this.text = text;
+        this.codes = codes;
+        this.stepEnds = stepEnds;
+    }
+
+    /**
+     * Parses and resolves a key sequence.
+     *
+     * @param text the sequence text, e.g. {@code CTRL+F15}
+     * @return the resolved sequence
+     * @throws IllegalArgumentException if the text is empty, too long or names an unknown key
+     */
+    public static KeySequence parse(String text) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Key sequence is empty");
+        }
+        String[] steps = text.trim().split("[\\s,]+");
+        if (steps.length > MAX_STEPS) {
+            throw new IllegalArgumentException(
+                "Key sequence has " + steps.length + " steps, at most " + MAX_STEPS + " are allowed");
+        }
+
+        int[] codes = new int[steps.length * MAX_CHORD_KEYS];
+        int[] stepEnds = new int[steps.length];
+        int count = 0;
+        for (int i = 0; i < steps.length; i++) {
+            String[] keys = steps[i].split("\\+", -1);
+            if (keys.length > MAX_CHORD_KEYS) {
+                throw new IllegalArgumentException(
+                    "Key chord '" + steps[i] + "' has more than " + MAX_CHORD_KEYS + " keys");
+            }
+            for (String key : keys) {
+                int code = key.isBlank() ? KeyEvent.VK_UNDEFINED : KeyCodeTable.lookup(key);
+                if (code == KeyEvent.VK_UNDEFINED) {
+                    throw new IllegalArgumentException("Unknown key name '" + key + "' in '" + text + "'");
+                }
+                codes[count++] = code;
+            }
+            stepEnds[i] = count;
+        }
+        return new KeySequence(text.trim(), Arrays.copyOf(codes, count), stepEnds);
+    }
+
+    /**
+     * Gets the number of chords in the sequence.
+     *
+     * @return the number of steps
+     */
+    public int getStepCount() {
+        return stepEnds.length;
+    }
+
+    /**
+     * Gets the index of the first key of a step.
+     *
+     * @param step the step index
+     * @return the start index, inclusive
+     */
+    public int getStepStart(int step) {
+        return step == 0 ? 0 : stepEnds[step - 1];
+    }
+
+    /**
+     * Gets the index after the last key of a step.
+     *
+     * @param step the step index
+     * @return the end index, exclusive
+     */
+    public int getStepEnd(int step) {
+        return stepEnds[step];
+    }
+
+    /**
+     * Gets a resolved key code.
+     *
+     * @param index the key index, between a step's start and end
+     * @return the key code
+     */
+    public int getKeyCode(int index) {
+        return codes[index];
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,163 @@
+package com.upp.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size histogram of durations in nanoseconds.
+ *
+ * <p>Bucket {@code i} counts values in {@code [2^i, 2^(i+1))} nanoseconds, with bucket 0 also holding
+ * zero and negative values and the last bucket holding everything above its lower bound. Recording
+ * only updates atomic counters, so it never allocates and may be called from any thread.
+ */
+public final class LatencyHistogram {
+    /** Number of buckets; the last one starts at 2^47 ns, roughly 39 hours. */
+    public static final int BUCKET_COUNT = 48;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketIndex(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Takes a snapshot of the recorded values.
+     *
+     * @return an immutable copy of the current counts
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return new Snapshot(counts, count.get(), sum.get(), max.get());
+    }
+
+    /**
+     * Discards all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    static int bucketIndex(long nanos) {
+        if (nanos <= 1) {
+            return 0;
+        }
+        return Math.min(BUCKET_COUNT - 1, 63 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    /**
+     * Gets the exclusive upper bound of a bucket.
+     *
+     * @param bucket the bucket index
+     * @return the upper bound in nanoseconds, or {@link Long#MAX_VALUE} for the last bucket
+     */
+    public static long bucketUpperBound(int bucket) {
+        return bucket >= BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << (bucket + 1);
+    }
+
+    /**
+     * Immutable copy of a histogram's counts.
+     */
+    public static final class Snapshot {
+        /** A snapshot with no recorded values. */
+        public static final Snapshot EMPTY = new Snapshot(new long[BUCKET_COUNT], 0, 0, 0);
+
+        private final long[] buckets;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] buckets, long count, long sum, long max) {
+            this.buckets = buckets;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Gets the number of recorded values.
+         *
+         * @return the count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the sum of all recorded values.
+         *
+         * @return the sum in nanoseconds
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * Gets the largest recorded value.
+         *
+         * @return the maximum in nanoseconds, or 0 if nothing was recorded
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Gets the mean of the recorded values.
+         *
+         * @return the mean in nanoseconds, or 0 if nothing was recorded
+         */
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Gets the number of values recorded in a bucket.
+         *
+         * @param bucket the bucket index, below {@link #BUCKET_COUNT}
+         * @return the bucket count
+         */
+        public long getBucketCount(int bucket) {
+            return buckets[bucket];
+        }
+
+        /**
+         * Estimates a percentile as the upper bound of the bucket that contains it.
+         *
+         * @param percentile the percentile, between 0 and 100
+         * @return the estimate in nanoseconds, capped at the recorded maximum
+         */
+        public long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(count * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += buckets[i];
+                if (seen >= Math.max(1, rank)) {
+                    return Math.min(max, bucketUpperBound(i) - 1);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.upp.core;
+
+/**
+ * Input backend that discards every event.
+ * Useful for running the scheduling engine without a display or any side effects.
+ */
+public final class NoOpInputBackend implements InputBackend {
+
+    @Override
+    public long getPointerPosition() {
+        return InputBackend.packPosition(0, 0);
+    }
+
+    @Override
+    public void getScreenBounds(int[] bounds) {
+        // As large as coordinates allow, so nothing is ever kept in bounds
+        bounds[0] = 0;
+        bounds[1] = 0;
+        bounds[2] = Integer.MAX_VALUE;
+        bounds[3] = Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void mouseMove(int x, int y) {
+        // Intentionally empty
+    }
+
+    @Override
+    public void mouseWheel(int ticks) {
+        // Intentionally empty
+    }
+
+    @Override
+    public void keyPress(int keyCode) {
+        // Intentionally empty
+    }
+
+    @Override
+    public void keyRelease(int keyCode) {
+        // Intentionally empty
+    }
+
+    @Override
+    public void flush() {
+        // Intentionally empty
+    }
+
+    @Override
+    public boolean isInjecting() {
+        return false;
+    }
+}
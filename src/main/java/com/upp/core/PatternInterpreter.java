@@ -0,0 +1,234 @@
+package com.upp.core;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Runs compiled {@link ActivityPattern}s against a {@link Target}.
+ *
+ * <p>Ranges are drawn from a {@link SplittableRandom}, so a seeded interpreter makes the same moves, waits
+ * and choices on every run. The interpreter remembers the branch each {@code alternate} took last, for as
+ * long as it runs the same pattern. Its loop counters and alternation state are sized when a pattern is
+ * first run, so running steps allocates nothing. An interpreter is not thread-safe; each simulator runs
+ * its patterns on its simulation thread.
+ */
+final class PatternInterpreter {
+    /**
+     * Receives the actions of a pattern.
+     */
+    interface Target {
+
+        /**
+         * Gets the current pointer position.
+         *
+         * @return the position packed with {@link InputBackend#packPosition(int, int)}
+         */
+        long getPointerPosition();
+
+        /**
+         * Moves the pointer to the given screen coordinates.
+         *
+         * @param x the x coordinate
+         * @param y the y coordinate
+         */
+        void mouseMove(int x, int y);
+
+        /**
+         * Rotates the mouse wheel.
+         *
+         * @param ticks the number of notches
+         */
+        void mouseWheel(int ticks);
+
+        /**
+         * Presses a key.
+         *
+         * @param keyCode the key code
+         */
+        void keyPress(int keyCode);
+
+        /**
+         * Releases a key.
+         *
+         * @param keyCode the key code
+         */
+        void keyRelease(int keyCode);
+
+        /**
+         * Pauses between steps. An interrupted pause must return early and keep the interrupt status.
+         *
+         * @param millis the pause in milliseconds
+         */
+        void pause(int millis);
+    }
+
+    private final SplittableRandom random;
+    private final int[] held = new int[KeySequence.MAX_CHORD_KEYS];
+    private int heldCount;
+    private ActivityPattern pattern;
+    private int[] counters = new int[0];
+    private int[] alternations = new int[0];
+    // State of the current run
+    private long origin;
+    private int x;
+    private int y;
+    private int depth;
+
+    private PatternInterpreter(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Creates an interpreter whose runs differ from those of every other interpreter.
+     *
+     * @return the interpreter
+     */
+    static PatternInterpreter create() {
+        return new PatternInterpreter(new SplittableRandom());
+    }
+
+    /**
+     * Creates an interpreter that draws the same values on every run of a pattern with the same seed.
+     *
+     * @param seed the seed of the values drawn from ranges and of random choices
+     * @return the interpreter
+     */
+    static PatternInterpreter seeded(long seed) {
+        return new PatternInterpreter(new SplittableRandom(seed));
+    }
+
+    /**
+     * Runs a pattern from its first step to its last. The run ends early when the thread is interrupted;
+     * keys pressed by an unfinished step are then released, as they are when the target fails.
+     *
+     * @param pattern the pattern to run
+     * @param target receives the actions
+     */
+    void run(ActivityPattern pattern, Target target) {
+        if (pattern != this.pattern) {
+            prepare(pattern);
+        }
+        int[] code = pattern.code();
+        origin = target.getPointerPosition();
+        x = InputBackend.positionX(origin);
+        y = InputBackend.positionY(origin);
+        depth = 0;
+        int pc = 0;
+        try {
+            while (pc < code.length && !Thread.currentThread().isInterrupted()) {
+                pc = code[pc] >= ActivityPattern.REPEAT ? jump(code, pc) : act(code, pc, target);
+            }
+        } finally {
+            // Let go of keys an interrupted or failed step left pressed
+            while (heldCount > 0) {
+                heldCount--;
+                target.keyRelease(held[heldCount]);
+            }
+        }
+    }
+
+    /**
+     * Performs the action at an offset.
+     *
+     * @return the offset of the next opcode
+     */
+    private int act(int[] code, int pc, Target target) {
+        switch (code[pc]) {
+            case ActivityPattern.MOVE -> {
+                x += draw(code[pc + 1], code[pc + 2]);
+                y += draw(code[pc + 3], code[pc + 4]);
+                target.mouseMove(x, y);
+                return pc + 5;
+            }
+            case ActivityPattern.BACK -> {
+                x = InputBackend.positionX(origin);
+                y = InputBackend.positionY(origin);
+                target.mouseMove(x, y);
+                return pc + 1;
+            }
+            case ActivityPattern.SCROLL -> {
+                target.mouseWheel(draw(code[pc + 1], code[pc + 2]));
+                return pc + 3;
+            }
+            case ActivityPattern.PRESS -> {
+                int count = code[pc + 1];
+                for (int i = 0; i < count; i++) {
+                    target.keyPress(code[pc + 2 + i]);
+                    held[heldCount] = code[pc + 2 + i];
+                    heldCount++;
+                }
+                return pc + 2 + count;
+            }
+            case ActivityPattern.RELEASE -> {
+                int count = code[pc + 1];
+                for (int i = 0; i < count; i++) {
+                    // Released in the reverse order of the presses, so the held keys unwind
+                    heldCount--;
+                    target.keyRelease(code[pc + 2 + i]);
+                }
+                return pc + 2 + count;
+            }
+            case ActivityPattern.WAIT -> {
+                target.pause(draw(code[pc + 1], code[pc + 2]));
+                return pc + 3;
+            }
+            default -> throw new IllegalStateException("Unknown opcode " + code[pc] + " at " + pc);
+        }
+    }
+
+    /**
+     * Follows the control flow opcode at an offset.
+     *
+     * @return the offset of the next opcode
+     */
+    private int jump(int[] code, int pc) {
+        switch (code[pc]) {
+            case ActivityPattern.REPEAT -> {
+                int count = draw(code[pc + 1], code[pc + 2]);
+                if (count == 0) {
+                    return code[pc + 3];
+                }
+                counters[depth] = count;
+                depth++;
+                return pc + 4;
+            }
+            case ActivityPattern.LOOP -> {
+                counters[depth - 1]--;
+                if (counters[depth - 1] > 0) {
+                    return code[pc + 1];
+                }
+                depth--;
+                return pc + 2;
+            }
+            case ActivityPattern.ONE_OF -> {
+                return code[pc + 2 + random.nextInt(code[pc + 1])];
+            }
+            case ActivityPattern.ALTERNATE -> {
+                int slot = code[pc + 1];
+                int branch = alternations[slot];
+                alternations[slot] = (branch + 1) % code[pc + 2];
+                return code[pc + 3 + branch];
+            }
+            case ActivityPattern.JUMP -> {
+                return code[pc + 1];
+            }
+            default -> throw new IllegalStateException("Unknown opcode " + code[pc] + " at " + pc);
+        }
+    }
+
+    private void prepare(ActivityPattern next) {
+        if (counters.length < next.getRepeatDepth()) {
+            counters = new int[next.getRepeatDepth()];
+        }
+        if (alternations.length < next.getAlternations()) {
+            alternations = new int[next.getAlternations()];
+        }
+        // A new pattern starts every alternation at its first branch
+        Arrays.fill(alternations, 0);
+        pattern = next;
+    }
+
+    private int draw(int low, int high) {
+        return low == high ? low : random.nextInt(low, high + 1);
+    }
+}
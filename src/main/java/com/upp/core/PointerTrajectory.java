@@ -0,0 +1,130 @@
+package com.upp.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A precomputed pointer path of a given length, sampled at {@link #FRAME_RATE} frames per second and
+ * played by {@link TrajectoryPlayer}.
+ *
+ * <p>The path is a cubic Bezier curve that bows sideways by a fifth of its length, walked along a
+ * minimum-jerk profile: the pointer speeds up smoothly, is fastest halfway and slows down to rest, as a
+ * hand does. Offsets from the start are tabulated once per length and frame count, along the positive x
+ * axis and bowing towards positive y; the player mirrors them to fit the screen. Tables are shared by
+ * every simulator through a small cache, so playing a path only reads integers.
+ */
+final class PointerTrajectory {
+    /** Frames played per second. */
+    static final int FRAME_RATE = 60;
+    /** Time between two frames. */
+    static final long FRAME_NANOS = TimeUnit.SECONDS.toNanos(1) / FRAME_RATE;
+    /** Sideways bow of the path, relative to its length. */
+    private static final double BOW = 0.2;
+    /** Most tables kept; the cache starts over when it is full, as only a changed configuration adds one. */
+    private static final int MAX_CACHED = 64;
+    private static final Map<Long, PointerTrajectory> CACHE = new ConcurrentHashMap<>();
+
+    private final int distance;
+    private final int[] xs;
+    private final int[] ys;
+    private final int bow;
+
+    private PointerTrajectory(int distance, int[] xs, int[] ys, int bow) {
+        this.distance = distance;
+        this.xs = xs;
+        this.ys = ys;
+        this.bow = bow;
+    }
+
+    /**
+     * Gets the path of a movement, computing it on first use.
+     *
+     * @param distance the distance between the start and the end of the path, in pixels
+     * @param durationMillis how long the movement takes; rounded to whole frames, at least one
+     * @return the shared path
+     * @throws IllegalArgumentException if the distance or the duration is negative
+     */
+    static PointerTrajectory of(int distance, int durationMillis) {
+        if (distance < 0 || durationMillis < 0) {
+            throw new IllegalArgumentException(
+                "Distance and duration must not be negative: " + distance + ", " + durationMillis);
+        }
+        int frames = (int) Math.max(1, Math.round(durationMillis * (double) FRAME_RATE / 1000));
+        long key = InputBackend.packPosition(distance, frames);
+        PointerTrajectory trajectory = CACHE.get(key);
+        if (trajectory == null) {
+            if (CACHE.size() >= MAX_CACHED) {
+                CACHE.clear();
+            }
+            trajectory = CACHE.computeIfAbsent(key, k -> compute(distance, frames));
+        }
+        return trajectory;
+    }
+
+    private static PointerTrajectory compute(int distance, int frames) {
+        int[] xs = new int[frames + 1];
+        int[] ys = new int[frames + 1];
+        double height = distance * BOW;
+        for (int frame = 1; frame < frames; frame++) {
+            double t = (double) frame / frames;
+            // Minimum-jerk progress along the curve
+            double s = t * t * t * (10 - 15 * t + 6 * t * t);
+            double u = 1 - s;
+            // Control points at a third and two thirds of the length, both raised by the full height: x
+            // advances in step with s and y rises to three quarters of the height halfway
+            xs[frame] = (int) Math.round(distance * s);
+            ys[frame] = (int) Math.round(height * 3 * u * s);
+        }
+        // The last frame lands exactly, whatever the rounding did on the way
+        xs[frames] = distance;
+        return new PointerTrajectory(distance, xs, ys, (int) Math.round(height * 0.75));
+    }
+
+    /**
+     * Gets the distance between the start and the end of the path.
+     *
+     * @return the distance in pixels
+     */
+    int getDistance() {
+        return distance;
+    }
+
+    /**
+     * Gets the number of frames the movement takes.
+     *
+     * @return the number of frames, at least one
+     */
+    int getFrames() {
+        return xs.length - 1;
+    }
+
+    /**
+     * Gets the largest sideways offset of the path.
+     *
+     * @return the offset in pixels
+     */
+    int getBow() {
+        return bow;
+    }
+
+    /**
+     * Gets the offset along the path after a number of frames.
+     *
+     * @param frame the frame, from 0 at the start to {@link #getFrames()} at the end
+     * @return the offset in pixels
+     */
+    int getX(int frame) {
+        return xs[frame];
+    }
+
+    /**
+     * Gets the sideways offset after a number of frames.
+     *
+     * @param frame the frame, from 0 at the start to {@link #getFrames()} at the end
+     * @return the offset in pixels, never negative
+     */
+    int getY(int frame) {
+        return ys[frame];
+    }
+}
@@ -0,0 +1,219 @@
+package com.upp.core;
+
+/**
+ * Input backend that records events into preallocated ring buffers instead of injecting them.
+ *
+ * <p>Recording an event only writes primitives into arrays sized at construction, so it never
+ * allocates. When the buffer is full the oldest events are overwritten. Writers are serialized, so tests
+ * may record from several threads at once; readers see every event up to the count they last read.
+ */
+public final class RecordingInputBackend implements InputBackend {
+    /** Event type of {@link #mouseMove(int, int)}; arguments are the x and y coordinates. */
+    public static final int MOUSE_MOVE = 1;
+    /** Event type of {@link #keyPress(int)}; the first argument is the key code. */
+    public static final int KEY_PRESS = 2;
+    /** Event type of {@link #keyRelease(int)}; the first argument is the key code. */
+    public static final int KEY_RELEASE = 3;
+    /** Event type of {@link #flush()}. */
+    public static final int FLUSH = 4;
+    /** Event type of {@link #mouseWheel(int)}; the first argument is the number of ticks. */
+    public static final int MOUSE_WHEEL = 5;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final int mask;
+    private final long[] timestamps;
+    private final int[] types;
+    private final int[] firstArgs;
+    private final int[] secondArgs;
+    private volatile long count;
+    private volatile long pointerPosition;
+    private volatile long screenSize = InputBackend.packPosition(1920, 1080);
+
+    /**
+     * Creates a backend that keeps the last 1024 events.
+     */
+    public RecordingInputBackend() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a backend that keeps the given number of most recent events.
+     *
+     * @param capacity the buffer capacity, rounded up to a power of two
+     */
+    public RecordingInputBackend(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.timestamps = new long[size];
+        this.types = new int[size];
+        this.firstArgs = new int[size];
+        this.secondArgs = new int[size];
+    }
+
+    @Override
+    public long getPointerPosition() {
+        return pointerPosition;
+    }
+
+    /**
+     * Moves the pointer without recording an event, e.g. to simulate the real user.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     */
+    public void setPointerPosition(int x, int y) {
+        pointerPosition = InputBackend.packPosition(x, y);
+    }
+
+    /**
+     * Sets the size of the screen reported by {@link #getScreenBounds(int[])}, 1920 by 1080 unless set.
+     *
+     * @param width the screen width
+     * @param height the screen height
+     */
+    public void setScreenSize(int width, int height) {
+        screenSize = InputBackend.packPosition(width, height);
+    }
+
+    @Override
+    public void getScreenBounds(int[] bounds) {
+        long size = screenSize;
+        bounds[0] = 0;
+        bounds[1] = 0;
+        bounds[2] = InputBackend.positionX(size);
+        bounds[3] = InputBackend.positionY(size);
+    }
+
+    @Override
+    public void mouseMove(int x, int y) {
+        pointerPosition = InputBackend.packPosition(x, y);
+        record(MOUSE_MOVE, x, y);
+    }
+
+    @Override
+    public void mouseWheel(int ticks) {
+        record(MOUSE_WHEEL, ticks, 0);
+    }
+
+    @Override
+    public void keyPress(int keyCode) {
+        record(KEY_PRESS, keyCode, 0);
+    }
+
+    @Override
+    public void keyRelease(int keyCode) {
+        record(KEY_RELEASE, keyCode, 0);
+    }
+
+    @Override
+    public void flush() {
+        record(FLUSH, 0, 0);
+    }
+
+    private synchronized void record(int type, int firstArg, int secondArg) {
+        long sequence = count;
+        int slot = (int) sequence & mask;
+        timestamps[slot] = System.nanoTime();
+        types[slot] = type;
+        firstArgs[slot] = firstArg;
+        secondArgs[slot] = secondArg;
+        count = sequence + 1;
+    }
+
+    /**
+     * Gets the total number of events recorded, including overwritten ones.
+     *
+     * @return the number of events recorded since creation or the last {@link #clear()}
+     */
+    public long getEventCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of events still held in the buffer.
+     *
+     * @return the number of retained events
+     */
+    public int size() {
+        return (int) Math.min(count, mask + 1L);
+    }
+
+    /**
+     * Gets the type of a retained event.
+     *
+     * @param index the event index, 0 being the oldest retained event
+     * @return the event type, e.g. {@link #KEY_PRESS}
+     */
+    public int getType(int index) {
+        return types[slot(index)];
+    }
+
+    /**
+     * Gets the first argument of a retained event.
+     *
+     * @param index the event index, 0 being the oldest retained event
+     * @return the x coordinate, key code or wheel ticks
+     */
+    public int getFirstArg(int index) {
+        return firstArgs[slot(index)];
+    }
+
+    /**
+     * Gets the second argument of a retained event.
+     *
+     * @param index the event index, 0 being the oldest retained event
+     * @return the y coordinate, or 0 for key and wheel events
+     */
+    public int getSecondArg(int index) {
+        return secondArgs[slot(index)];
+    }
+
+    /**
+     * Gets the {@link System#nanoTime()} timestamp of a retained event.
+     *
+     * @param index the event index, 0 being the oldest retained event
+     * @return the time the event was recorded
+     */
+    public long getTimestamp(int index) {
+        return timestamps[slot(index)];
+    }
+
+    /**
+     * Counts retained events of a given type.
+     *
+     * @param type the event type
+     * @return the number of retained events with that type
+     */
+    public int countEvents(int type) {
+        int matches = 0;
+        for (int i = 0, n = size(); i < n; i++) {
+            if (getType(i) == type) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Discards all recorded events.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    private int slot(int index) {
+        long total = count;
+        int size = (int) Math.min(total, mask + 1L);
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Event index " + index + " out of range 0.." + size);
+        }
+        return (int) (total - size + index) & mask;
+    }
+}
@@ -0,0 +1,113 @@
+package com.upp.core;
+
+import com.upp.exception.AntiIdleException;
+
+import java.awt.AWTException;
+import java.awt.GraphicsDevice;
+import java.awt.MouseInfo;
+import java.awt.Point;
+import java.awt.PointerInfo;
+import java.awt.Rectangle;
+import java.awt.Robot;
+import java.awt.Toolkit;
+
+/**
+ * Input backend that injects events through {@link java.awt.Robot}.
+ *
+ * <p>A backend for a specific screen device reads the pointer and the screen bounds from that device, in its
+ * coordinate system, so sessions on separate screens never steer each other's pointer.
+ */
+public final class RobotInputBackend implements InputBackend {
+    private final Robot robot;
+    private final GraphicsDevice device;
+
+    /**
+     * Creates a backend for the default screen device.
+     *
+     * @throws AntiIdleException.RobotInitializationException if the Robot cannot be created
+     */
+    public RobotInputBackend() throws AntiIdleException.RobotInitializationException {
+        this(null);
+    }
+
+    /**
+     * Creates a backend for a specific screen device.
+     *
+     * @param device the screen device, or null for the default device
+     * @throws AntiIdleException.RobotInitializationException if the Robot cannot be created
+     */
+    public RobotInputBackend(GraphicsDevice device) throws AntiIdleException.RobotInitializationException {
+        try {
+            this.robot = device == null ? new Robot() : new Robot(device);
+            robot.setAutoWaitForIdle(false);
+            this.device = device;
+        } catch (AWTException | SecurityException | IllegalArgumentException e) {
+            throw new AntiIdleException.RobotInitializationException(
+                "Failed to initialize Robot for input simulation", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>With a specific screen device and the pointer on another one, this is the device's center.
+     */
+    @Override
+    public long getPointerPosition() {
+        PointerInfo pointerInfo = pointerInfo();
+        if (device != null && !device.equals(pointerInfo.getDevice())) {
+            Rectangle screen = device.getDefaultConfiguration().getBounds();
+            return InputBackend.packPosition((int) screen.getCenterX(), (int) screen.getCenterY());
+        }
+        Point location = pointerInfo.getLocation();
+        return InputBackend.packPosition(location.x, location.y);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>With a specific screen device, these are the bounds of that device wherever the pointer is.
+     */
+    @Override
+    public void getScreenBounds(int[] bounds) {
+        GraphicsDevice screenDevice = device != null ? device : pointerInfo().getDevice();
+        Rectangle screen = screenDevice.getDefaultConfiguration().getBounds();
+        bounds[0] = screen.x;
+        bounds[1] = screen.y;
+        bounds[2] = screen.width;
+        bounds[3] = screen.height;
+    }
+
+    @Override
+    public void mouseMove(int x, int y) {
+        robot.mouseMove(x, y);
+    }
+
+    @Override
+    public void mouseWheel(int ticks) {
+        robot.mouseWheel(ticks);
+    }
+
+    @Override
+    public void keyPress(int keyCode) {
+        robot.keyPress(keyCode);
+    }
+
+    @Override
+    public void keyRelease(int keyCode) {
+        robot.keyRelease(keyCode);
+    }
+
+    @Override
+    public void flush() {
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    private static PointerInfo pointerInfo() {
+        PointerInfo pointerInfo = MouseInfo.getPointerInfo();
+        if (pointerInfo == null) {
+            throw new IllegalStateException("Pointer position is not available");
+        }
+        return pointerInfo;
+    }
+}
@@ -0,0 +1,189 @@
+package com.upp.core;
+
+import com.upp.config.ConfigSnapshot;
+import com.upp.config.ConfigurationManager;
+import com.upp.exception.AntiIdleException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Hosts several activity simulators in one JVM, one per configured session.
+ *
+ * <p>Each session has its own activity profile from the {@code sessions} configuration section and
+ * drives one display. Simulators run on virtual threads, so all sessions share the JVM's small pool
+ * of carrier threads instead of holding a platform thread each. Input backends are created once per
+ * display and shared by every session on that display, whose cycles take turns: a session waits for the
+ * cycle of another one on its display to complete, so nudges never interleave and each backend sees one
+ * writer at a time.
+ */
+public class SessionManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionManager.class);
+    private static final String DEFAULT_DISPLAY = "";
+
+    private final ConfigurationManager configManager;
+    private final InputBackendFactory backendFactory;
+    private final ThreadFactory threadFactory = Thread.ofVirtual().name("antiidle-session-", 0).factory();
+    private final Map<String, InputBackend> backends = new HashMap<>();
+    private final Map<String, Semaphore> displayCycles = new HashMap<>();
+    private final Map<String, ActivitySimulator> sessions = new LinkedHashMap<>();
+
+    /**
+     * Creates a session manager that injects input through {@link java.awt.Robot}.
+     *
+     * @param configManager the configuration manager holding the session profiles
+     */
+    public SessionManager(ConfigurationManager configManager) {
+        this(configManager, SessionManager::createRobotBackend);
+    }
+
+    /**
+     * Creates a session manager that shares a backend with the host for sessions on the default display, and
+     * injects input through {@link java.awt.Robot} on any other display.
+     *
+     * @param configManager the configuration manager holding the session profiles
+     * @param defaultBackend the backend for sessions without a display
+     */
+    public SessionManager(ConfigurationManager configManager, InputBackend defaultBackend) {
+        this(configManager, display -> display == null || display.isBlank()
+            ? defaultBackend : createRobotBackend(display));
+    }
+
+    /**
+     * Creates a session manager with a custom backend factory.
+     *
+     * @param configManager the configuration manager holding the session profiles
+     * @param backendFactory the factory that creates one backend per display
+     */
+    public SessionManager(ConfigurationManager configManager, InputBackendFactory backendFactory) {
+        this.configManager = configManager;
+        this.backendFactory = backendFactory;
+    }
+
+    /**
+     * Starts every session in the configuration that is not already running.
+     *
+     * @throws AntiIdleException if a session cannot be started
+     */
+    public synchronized void startAll() throws AntiIdleException {
+        for (ConfigurationManager.SessionSettings session : configManager.getSnapshot().getConfig().getSessions()) {
+            startSession(session.getId());
+        }
+    }
+
+    /**
+     * Starts a configured session.
+     *
+     * @param sessionId the session ID
+     * @return the simulator driving the session
+     * @throws AntiIdleException if the session cannot be started
+     * @throws IllegalArgumentException if no session has the given ID
+     */
+    public synchronized ActivitySimulator startSession(String sessionId) throws AntiIdleException {
+        ActivitySimulator simulator = sessions.get(sessionId);
+        if (simulator == null) {
+            ConfigSnapshot snapshot = configManager.getSnapshot();
+            ConfigurationManager.SessionSettings settings = snapshot.getSession(sessionId);
+            if (settings == null) {
+                throw new IllegalArgumentException("No session configured with ID: " + sessionId);
+            }
+            simulator = createSimulator(sessionId, settings.getDisplay(), threadFactory);
+            sessions.put(sessionId, simulator);
+        }
+        if (!simulator.isRunning()) {
+            simulator.startSimulation();
+            LOGGER.info("Session {} started", sessionId);
+        }
+        return simulator;
+    }
+
+    /**
+     * Stops a session if it is running.
+     *
+     * @param sessionId the session ID
+     */
+    public synchronized void stopSession(String sessionId) {
+        ActivitySimulator simulator = sessions.remove(sessionId);
+        if (simulator != null && simulator.isRunning()) {
+            simulator.stopSimulation();
+            LOGGER.info("Session {} stopped", sessionId);
+        }
+    }
+
+    /**
+     * Stops all running sessions.
+     */
+    public synchronized void stopAll() {
+        for (String sessionId : sessions.keySet().toArray(new String[0])) {
+            stopSession(sessionId);
+        }
+    }
+
+    /**
+     * Gets the simulators of all started sessions.
+     *
+     * @return an unmodifiable map from session ID to simulator, in start order
+     */
+    public synchronized Map<String, ActivitySimulator> getSessions() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(sessions));
+    }
+
+    /**
+     * Gets the number of distinct input backends created so far.
+     *
+     * @return the number of cached backends
+     */
+    public synchronized int getBackendCount() {
+        return backends.size();
+    }
+
+    /**
+     * Creates the simulator of the global activity settings, which takes turns on the default display with
+     * the sessions on it. It runs on a platform thread and is started and stopped by the caller.
+     *
+     * @return the simulator
+     * @throws AntiIdleException.RobotInitializationException if the default display's backend cannot be created
+     */
+    public synchronized ActivitySimulator createDefaultSimulator()
+            throws AntiIdleException.RobotInitializationException {
+        return createSimulator(null, null, ActivitySimulator::newSimulationThread);
+    }
+
+    private ActivitySimulator createSimulator(String sessionId, String display, ThreadFactory factory)
+            throws AntiIdleException.RobotInitializationException {
+        String key = display == null ? DEFAULT_DISPLAY : display;
+        InputBackend backend = backends.get(key);
+        if (backend == null) {
+            backend = backendFactory.create(display);
+            backends.put(key, backend);
+            displayCycles.put(key, new Semaphore(1));
+        }
+        return new ActivitySimulator(configManager, backend, sessionId, factory, displayCycles.get(key));
+    }
+
+    /**
+     * Creates a Robot backend for the screen device with the given ID string.
+     */
+    private static InputBackend createRobotBackend(String display)
+            throws AntiIdleException.RobotInitializationException {
+        if (display == null || display.isBlank()) {
+            return new RobotInputBackend();
+        }
+        if (!GraphicsEnvironment.isHeadless()) {
+            for (GraphicsDevice device : GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices()) {
+                if (display.equals(device.getIDstring())) {
+                    return new RobotInputBackend(device);
+                }
+            }
+        }
+        throw new AntiIdleException.RobotInitializationException("No screen device with ID: " + display, null);
+    }
+}
@@ -0,0 +1,75 @@
+package com.upp.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks simulation ticks to skip missed ticks and detect system suspends.
+ *
+ * <p>A suspend shows up as wall-clock time advancing further than the monotonic clock between two
+ * ticks, since {@link System#nanoTime()} does not advance while the system sleeps on most
+ * platforms. Where it does advance, the missed ticks are skipped all the same.
+ */
+final class TickTracker {
+    /** Wall-clock time that must be unaccounted for before a gap counts as a suspend. */
+    static final long SUSPEND_THRESHOLD_MILLIS = 5000;
+
+    private final AtomicLong missedTicks = new AtomicLong();
+    private final AtomicLong suspends = new AtomicLong();
+    private boolean started;
+    private long lastTickNanos;
+    private long lastTickWallMillis;
+
+    /**
+     * Records a tick and returns the deadline it belongs to.
+     *
+     * @param deadline the deadline the tick was scheduled for
+     * @param intervalNanos the current interval
+     * @param fixedRate whether missed fixed-rate ticks should be skipped
+     * @param nowNanos the current {@link System#nanoTime()}
+     * @param wallMillis the current {@link System#currentTimeMillis()}
+     * @return the deadline to measure lateness against and schedule the next tick from
+     */
+    long onTick(long deadline, long intervalNanos, boolean fixedRate, long nowNanos, long wallMillis) {
+        long adjusted = deadline;
+        if (started) {
+            long unaccountedMillis = (wallMillis - lastTickWallMillis)
+                - TimeUnit.NANOSECONDS.toMillis(nowNanos - lastTickNanos);
+            if (unaccountedMillis > SUSPEND_THRESHOLD_MILLIS) {
+                // The schedule is meaningless after a suspend, restart it from now
+                suspends.incrementAndGet();
+                if (fixedRate && intervalNanos > 0) {
+                    missedTicks.addAndGet(TimeUnit.MILLISECONDS.toNanos(unaccountedMillis) / intervalNanos);
+                }
+                adjusted = nowNanos;
+            }
+        }
+        if (fixedRate && intervalNanos > 0 && nowNanos - adjusted >= intervalNanos) {
+            long missed = (nowNanos - adjusted) / intervalNanos;
+            missedTicks.addAndGet(missed);
+            adjusted += missed * intervalNanos;
+        }
+        started = true;
+        lastTickNanos = nowNanos;
+        lastTickWallMillis = wallMillis;
+        return adjusted;
+    }
+
+    /**
+     * Gets the number of fixed-rate ticks skipped instead of being caught up.
+     *
+     * @return the missed tick count
+     */
+    long getMissedTicks() {
+        return missedTicks.get();
+    }
+
+    /**
+     * Gets the number of detected system suspends.
+     *
+     * @return the suspend count
+     */
+    long getSuspends() {
+        return suspends.get();
+    }
+}
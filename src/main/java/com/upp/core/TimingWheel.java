@@ -0,0 +1,328 @@
+package com.upp.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hashed hierarchical timing wheel for large numbers of one-shot timers.
+ *
+ * <p>Time is divided into ticks of a fixed length. Level 0 has one slot per tick for the next 64 ticks,
+ * and every further level covers 64 times the span of the level below; timers are moved down a level
+ * when the wheel reaches their slot. Scheduling and cancelling link or unlink a timer in a slot's
+ * doubly linked list, so both are O(1) regardless of how many timers are pending.
+ *
+ * <p>Timer state lives in parallel primitive arrays indexed by slot, with freed slots kept on a free
+ * list. Arrays only grow when more timers are pending than ever before, so steady-state scheduling
+ * does not allocate. Timers are identified by a handle that combines the slot index with a generation
+ * counter, so a stale handle never cancels a timer that reused its slot.
+ *
+ * <p>Scheduling and cancelling are thread-safe. {@link #advance(long)} must be called by one thread
+ * at a time; it runs expired tasks on that thread without holding the wheel's lock.
+ */
+public final class TimingWheel {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimingWheel.class);
+
+    /** Handle value that never identifies a timer. */
+    public static final long INVALID_HANDLE = -1L;
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 6;
+    /** Number of ticks covered by all levels; later deadlines wait in the top level. */
+    private static final long MAX_SPAN_TICKS = 1L << (WHEEL_BITS * LEVELS);
+    private static final int NONE = -1;
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final int[] heads = new int[LEVELS * WHEEL_SIZE];
+
+    private long[] deadlines;
+    private int[] next;
+    private int[] prev;
+    private int[] buckets;
+    private int[] generations;
+    private Runnable[] tasks;
+    private int freeHead;
+    private int size;
+    private long currentTick;
+
+    private Runnable[] expired = new Runnable[DEFAULT_CAPACITY];
+
+    /**
+     * Creates a wheel starting now with room for 64 timers before it grows.
+     *
+     * @param tickNanos the tick length, which is the timer resolution
+     */
+    public TimingWheel(long tickNanos) {
+        this(tickNanos, System.nanoTime(), DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a wheel.
+     *
+     * @param tickNanos the tick length, which is the timer resolution
+     * @param startNanos the {@link System#nanoTime()} of tick 0
+     * @param initialCapacity the number of timers to preallocate slots for
+     */
+    public TimingWheel(long tickNanos, long startNanos, int initialCapacity) {
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("Tick length must be positive: " + tickNanos);
+        }
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + initialCapacity);
+        }
+        this.tickNanos = tickNanos;
+        this.startNanos = startNanos;
+        Arrays.fill(heads, NONE);
+        this.deadlines = new long[0];
+        this.next = new int[0];
+        this.prev = new int[0];
+        this.buckets = new int[0];
+        this.generations = new int[0];
+        this.tasks = new Runnable[0];
+        this.freeHead = NONE;
+        grow(initialCapacity);
+    }
+
+    /**
+     * Schedules a task.
+     *
+     * @param task the task to run once the delay has passed
+     * @param delayNanos the delay from the current time
+     * @return the timer handle
+     */
+    public long schedule(Runnable task, long delayNanos) {
+        return schedule(task, delayNanos, 0);
+    }
+
+    /**
+     * Schedules a task with a random extra delay.
+     *
+     * @param task the task to run once the delay has passed
+     * @param delayNanos the delay from the current time
+     * @param jitterNanos the upper bound of the random delay added, or 0 for none
+     * @return the timer handle
+     */
+    public long schedule(Runnable task, long delayNanos, long jitterNanos) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task must not be null");
+        }
+        long delay = Math.max(0, delayNanos);
+        if (jitterNanos > 0) {
+            delay += ThreadLocalRandom.current().nextLong(jitterNanos + 1);
+        }
+        return scheduleAt(task, System.nanoTime() + delay);
+    }
+
+    /**
+     * Schedules a task at an absolute time.
+     *
+     * @param task the task to run
+     * @param deadlineNanos the {@link System#nanoTime()} to run it at, rounded up to the next tick
+     * @return the timer handle
+     */
+    public synchronized long scheduleAt(Runnable task, long deadlineNanos) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task must not be null");
+        }
+        if (freeHead == NONE) {
+            grow(tasks.length * 2);
+        }
+        long elapsed = deadlineNanos - startNanos;
+        long deadlineTick = elapsed <= 0 ? 0 : (elapsed + tickNanos - 1) / tickNanos;
+        if (size == 0) {
+            // Nothing can expire while the wheel is empty, so catch up with the clock without walking the
+            // ticks an idle driver did not advance through, but never past the tick before this deadline
+            long nowTick = (System.nanoTime() - startNanos) / tickNanos;
+            currentTick = Math.max(currentTick, Math.min(nowTick, deadlineTick - 1));
+        }
+        int timer = freeHead;
+        freeHead = next[timer];
+        deadlines[timer] = deadlineTick;
+        tasks[timer] = task;
+        size++;
+        link(timer, currentTick + 1);
+        return ((long) generations[timer] << 32) | timer;
+    }
+
+    /**
+     * Cancels a pending timer.
+     *
+     * @param handle the handle returned when the timer was scheduled
+     * @return true if the timer was pending and will not run
+     */
+    public synchronized boolean cancel(long handle) {
+        int timer = (int) handle;
+        if (timer < 0 || timer >= tasks.length || generations[timer] != (int) (handle >>> 32)
+                || buckets[timer] == NONE) {
+            return false;
+        }
+        unlink(timer);
+        release(timer);
+        return true;
+    }
+
+    /**
+     * Advances the wheel and runs every task whose deadline has passed.
+     *
+     * @param nowNanos the current {@link System#nanoTime()}
+     * @return the number of tasks run
+     */
+    public int advance(long nowNanos) {
+        int count;
+        Runnable[] batch;
+        synchronized (this) {
+            count = collectExpired((nowNanos - startNanos) / tickNanos);
+            batch = expired;
+        }
+        for (int i = 0; i < count; i++) {
+            Runnable task = batch[i];
+            batch[i] = null;
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("Timer task failed", e);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets when the wheel next needs advancing, so a driver can sleep until then instead of every tick.
+     * Timers more than 64 ticks away wait in higher levels and only come closer when the wheel passes a
+     * multiple of 64 ticks, so the time returned may come before any timer is due.
+     *
+     * @return the {@link System#nanoTime()} to advance to next, or {@link Long#MAX_VALUE} if no timer is
+     *         pending
+     */
+    public synchronized long nextDeadlineNanos() {
+        if (size == 0) {
+            return Long.MAX_VALUE;
+        }
+        long tick = currentTick + 1;
+        // One of any 64 consecutive ticks is a multiple of 64, so this ends within a turn of level 0
+        while (heads[(int) tick & WHEEL_MASK] == NONE && (tick & WHEEL_MASK) != 0) {
+            tick++;
+        }
+        return startNanos + tick * tickNanos;
+    }
+
+    /**
+     * Gets the number of pending timers.
+     *
+     * @return the timer count
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets the tick length.
+     *
+     * @return the timer resolution in nanoseconds
+     */
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    private int collectExpired(long targetTick) {
+        int count = 0;
+        if (size == 0 && targetTick > currentTick) {
+            currentTick = targetTick;
+            return 0;
+        }
+        while (currentTick < targetTick) {
+            long tick = ++currentTick;
+            for (int level = 1; level < LEVELS && (tick & ((1L << (WHEEL_BITS * level)) - 1)) == 0; level++) {
+                cascade(level, (int) (tick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+            }
+            int bucket = (int) tick & WHEEL_MASK;
+            int timer = heads[bucket];
+            heads[bucket] = NONE;
+            while (timer != NONE) {
+                int following = next[timer];
+                buckets[timer] = NONE;
+                if (count == expired.length) {
+                    expired = Arrays.copyOf(expired, count * 2);
+                }
+                expired[count++] = tasks[timer];
+                release(timer);
+                timer = following;
+            }
+        }
+        return count;
+    }
+
+    /** Re-inserts every timer of a higher-level slot relative to the current tick. */
+    private void cascade(int level, int slot) {
+        int bucket = level * WHEEL_SIZE + slot;
+        int timer = heads[bucket];
+        heads[bucket] = NONE;
+        while (timer != NONE) {
+            int following = next[timer];
+            // Cascading happens before the current tick's slot is expired, so it may still take timers
+            link(timer, currentTick);
+            timer = following;
+        }
+    }
+
+    private void link(int timer, long earliestTick) {
+        long due = Math.max(deadlines[timer], earliestTick);
+        long delta = Math.min(due - currentTick, MAX_SPAN_TICKS - 1);
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        int bucket = level * WHEEL_SIZE + ((int) ((currentTick + delta) >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        int head = heads[bucket];
+        next[timer] = head;
+        prev[timer] = NONE;
+        if (head != NONE) {
+            prev[head] = timer;
+        }
+        heads[bucket] = timer;
+        buckets[timer] = bucket;
+    }
+
+    private void unlink(int timer) {
+        int before = prev[timer];
+        int after = next[timer];
+        if (before == NONE) {
+            heads[buckets[timer]] = after;
+        } else {
+            next[before] = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        }
+        buckets[timer] = NONE;
+    }
+
+    private void release(int timer) {
+        tasks[timer] = null;
+        generations[timer]++;
+        next[timer] = freeHead;
+        freeHead = timer;
+        size--;
+    }
+
+    private void grow(int capacity) {
+        int oldCapacity = tasks.length;
+        deadlines = Arrays.copyOf(deadlines, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        buckets = Arrays.copyOf(buckets, capacity);
+        generations = Arrays.copyOf(generations, capacity);
+        tasks = Arrays.copyOf(tasks, capacity);
+        for (int i = capacity - 1; i >= oldCapacity; i--) {
+            buckets[i] = NONE;
+            next[i] = freeHead;
+            freeHead = i;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.upp.core;
+
+import java.util.SplittableRandom;
+
+/**
+ * Plays {@link PointerTrajectory}s: moves the pointer out along the path and back along its mirror image,
+ * one frame every {@link PointerTrajectory#FRAME_NANOS}.
+ *
+ * <p>The path heads right unless that leaves the screen and the left has more room, and bows up or down at
+ * random. Frames between the ends are shaken by a pixel, and every frame is kept on the screen. Frames are
+ * paced against absolute deadlines, so time spent injecting does not add up into a slower movement.
+ * Playing a movement allocates nothing. A player is not thread-safe; each simulator plays its movements on
+ * its simulation thread.
+ */
+final class TrajectoryPlayer {
+    /** Largest shake of a frame between the ends, in pixels. */
+    private static final int JITTER = 1;
+    /** Shortest path that is shaken, so short nudges still land where they aim. */
+    private static final int MIN_JITTER_DISTANCE = 8;
+
+    private final SplittableRandom random;
+    // State of the current movement
+    private int originX;
+    private int originY;
+    private int minX;
+    private int minY;
+    private int maxX;
+    private int maxY;
+
+    private TrajectoryPlayer(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Creates a player whose movements differ from those of every other player.
+     *
+     * @return the player
+     */
+    static TrajectoryPlayer create() {
+        return new TrajectoryPlayer(new SplittableRandom());
+    }
+
+    /**
+     * Creates a player that makes the same movements on every run with the same seed.
+     *
+     * @param seed the seed of the directions and the shake
+     * @return the player
+     */
+    static TrajectoryPlayer seeded(long seed) {
+        return new TrajectoryPlayer(new SplittableRandom(seed));
+    }
+
+    /**
+     * Moves the pointer along a path and back to where it was. The movement ends early when the thread is
+     * interrupted, and the pointer is then put straight back.
+     *
+     * @param trajectory the path
+     * @param screen the bounds of the screen, as filled in by {@link InputBackend#getScreenBounds(int[])}
+     * @param target receives the moves and the pauses between frames
+     */
+    void play(PointerTrajectory trajectory, int[] screen, PatternInterpreter.Target target) {
+        long origin = target.getPointerPosition();
+        originX = InputBackend.positionX(origin);
+        originY = InputBackend.positionY(origin);
+        minX = screen[0];
+        minY = screen[1];
+        maxX = (int) Math.max(minX, Math.min(Integer.MAX_VALUE, (long) screen[0] + screen[2] - 1));
+        maxY = (int) Math.max(minY, Math.min(Integer.MAX_VALUE, (long) screen[1] + screen[3] - 1));
+        int distance = trajectory.getDistance();
+        int directionX = (long) originX + distance <= maxX || maxX - originX >= originX - minX ? 1 : -1;
+        int directionY = random.nextBoolean() ? 1 : -1;
+        boolean jitter = distance >= MIN_JITTER_DISTANCE;
+        int frames = trajectory.getFrames();
+        int steps = 2 * frames;
+        long deadline = System.nanoTime();
+        int step = 1;
+        for (; step <= steps && !Thread.currentThread().isInterrupted(); step++) {
+            // Out to the far end, then back through the same frames on the other side
+            boolean out = step <= frames;
+            int frame = out ? step : steps - step;
+            long x = originX + (long) directionX * trajectory.getX(frame);
+            long y = originY + (long) (out ? directionY : -directionY) * trajectory.getY(frame);
+            if (jitter && frame != 0 && frame != frames) {
+                x += random.nextInt(-JITTER, JITTER + 1);
+                y += random.nextInt(-JITTER, JITTER + 1);
+            }
+            target.mouseMove(Math.clamp(x, minX, maxX), Math.clamp(y, minY, maxY));
+            if (step < steps) {
+                deadline += PointerTrajectory.FRAME_NANOS;
+                pauseUntil(deadline, target);
+            }
+        }
+        if (step <= steps) {
+            // Interrupted on the way
+            target.mouseMove(Math.clamp(originX, minX, maxX), Math.clamp(originY, minY, maxY));
+        }
+    }
+
+    private static void pauseUntil(long deadline, PatternInterpreter.Target target) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining > 0) {
+            target.pause((int) ((remaining + 500_000) / 1_000_000));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.upp.diagnostics;
+
+import com.upp.core.InjectionJournal;
+import com.upp.core.InjectionJournalReader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports the entries of injection journal segments as CSV, one row per injected event.
+ *
+ * <p>Segments are read in the order they were started. Rows within a segment are in the order the events
+ * were injected; when several sessions were recorded at once, their segments follow each other rather
+ * than interleaving. Run it as
+ * {@code java -cp antiidle.jar com.upp.diagnostics.JournalExporter [--from=TIME] [--to=TIME]
+ * [--output=FILE] <directory or segment>...}, with times as ISO-8601 instants or local dates.
+ */
+public final class JournalExporter {
+    /** The CSV header row. */
+    public static final String HEADER = "wall_time,monotonic_ns,session,event,key_code,x,y,latency_ns";
+
+    private static final String USAGE =
+        "Usage: JournalExporter [--from=TIME] [--to=TIME] [--output=FILE] <directory|segment>...";
+
+    private final long fromMillis;
+    private final long toMillis;
+    // The events of a cycle mostly share a millisecond, so its formatted time is reused
+    private long lastWallMillis = Long.MIN_VALUE;
+    private String lastWallTime;
+
+    /**
+     * Creates an exporter for a time range.
+     *
+     * @param fromMillis the first wall-clock time to export, in milliseconds since the epoch
+     * @param toMillis the wall-clock time to stop before, in milliseconds since the epoch
+     */
+    public JournalExporter(long fromMillis, long toMillis) {
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+    }
+
+    /**
+     * Collects the segments to export.
+     *
+     * @param paths journal directories and segment files
+     * @return the segments ordered by start time
+     * @throws IOException if a directory cannot be listed
+     */
+    public static List<Path> segments(List<Path> paths) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                segments.addAll(InjectionJournal.listSegments(path));
+            } else {
+                segments.add(path);
+            }
+        }
+        segments.sort((a, b) -> Long.compare(InjectionJournal.segmentStartMillis(a),
+            InjectionJournal.segmentStartMillis(b)));
+        return segments;
+    }
+
+    /**
+     * Writes the entries of segments within the time range, preceded by the header row.
+     *
+     * @param segments the segments, ordered by start time
+     * @param out the writer to write to
+     * @return the number of rows written, not counting the header
+     * @throws IOException if a segment cannot be read or the output cannot be written
+     */
+    public long export(List<Path> segments, Writer out) throws IOException {
+        out.write(HEADER);
+        out.write('\n');
+        long rows = 0;
+        for (Path segment : segments) {
+            // A segment started at or after the end of the range holds nothing to export
+            long start = InjectionJournal.segmentStartMillis(segment);
+            if (start >= toMillis) {
+                continue;
+            }
+            try (InjectionJournalReader reader = InjectionJournalReader.open(segment)) {
+                while (reader.next()) {
+                    long wall = reader.getWallMillis();
+                    if (wall >= fromMillis && wall < toMillis) {
+                        writeRow(reader, out);
+                        rows++;
+                    }
+                }
+            }
+        }
+        out.flush();
+        return rows;
+    }
+
+    private void writeRow(InjectionJournalReader reader, Writer out) throws IOException {
+        String session = reader.getSession();
+        long wall = reader.getWallMillis();
+        if (wall != lastWallMillis || lastWallTime == null) {
+            lastWallMillis = wall;
+            lastWallTime = Instant.ofEpochMilli(wall).toString();
+        }
+        out.write(lastWallTime);
+        out.write(',');
+        out.write(Long.toString(reader.getMonotonicNanos()));
+        out.write(',');
+        out.write(session == null ? "" : quote(session));
+        out.write(',');
+        out.write(reader.getTypeName());
+        out.write(',');
+        out.write(Integer.toString(reader.getKeyCode()));
+        out.write(',');
+        out.write(Integer.toString(reader.getX()));
+        out.write(',');
+        out.write(Integer.toString(reader.getY()));
+        out.write(',');
+        out.write(Long.toString(reader.getLatencyNanos()));
+        out.write('\n');
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Parses a time given as an ISO-8601 instant, such as {@code 2026-10-01T00:00:00Z}, or a local date,
+     * such as {@code 2026-10-01}, which stands for its start in the system time zone.
+     *
+     * @param text the time
+     * @return milliseconds since the epoch
+     * @throws DateTimeParseException if the text is neither
+     */
+    static long parseTime(String text) {
+        if (text.indexOf('T') < 0) {
+            return LocalDate.parse(text).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        return Instant.parse(text).toEpochMilli();
+    }
+
+    /**
+     * Exports journal segments as CSV to standard output or a file.
+     *
+     * @param args the options and the journal directories or segment files
+     */
+    public static void main(String[] args) {
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        Path output = null;
+        List<Path> paths = new ArrayList<>();
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--from=")) {
+                    from = parseTime(arg.substring("--from=".length()));
+                } else if (arg.startsWith("--to=")) {
+                    to = parseTime(arg.substring("--to=".length()));
+                } else if (arg.startsWith("--output=")) {
+                    output = Paths.get(arg.substring("--output=".length()));
+                } else if (arg.startsWith("--")) {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                } else {
+                    paths.add(Paths.get(arg));
+                }
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.err.println(e.getMessage());
+            paths.clear();
+        }
+        if (paths.isEmpty()) {
+            System.err.println(USAGE);
+            Runtime.getRuntime().exit(2);
+            return;
+        }
+
+        long started = System.nanoTime();
+        try {
+            List<Path> segments = segments(paths);
+            long rows;
+            try (Writer out = new BufferedWriter(output == null
+                    ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                    : Files.newBufferedWriter(output, StandardCharsets.UTF_8), 1 << 16)) {
+                rows = new JournalExporter(from, to).export(segments, out);
+            }
+            System.err.printf("Exported %d events from %d segments in %d ms%n", rows, segments.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (IOException e) {
+            System.err.println("Failed to export injection journal: " + e.getMessage());
+            Runtime.getRuntime().exit(1);
+        }
+    }
+}
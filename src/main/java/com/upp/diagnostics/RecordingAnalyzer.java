@@ -0,0 +1,155 @@
+package com.upp.diagnostics;
+
+import com.upp.core.LatencyHistogram;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summarizes the AntiIdle events of a Flight Recorder recording.
+ *
+ * <p>Events are grouped by type, with input injections further split by backend call and
+ * configuration operations by operation, and reported with their count and duration distribution.
+ * Run it as {@code java -cp antiidle.jar com.upp.diagnostics.RecordingAnalyzer recording.jfr}.
+ */
+public final class RecordingAnalyzer {
+    /** Prefix of the names of all AntiIdle event types. */
+    public static final String EVENT_PREFIX = "com.upp.";
+
+    private static final String HEADER_FORMAT = "%-36s %8s %8s %10s %10s %10s %10s%n";
+    private static final String ROW_FORMAT = "%-36s %8d %8d %10.3f %10.3f %10.3f %10.3f%n";
+
+    private final Map<String, Summary> summaries = new TreeMap<>();
+
+    /**
+     * Reads the AntiIdle events of a recording file.
+     *
+     * @param recording the recording file
+     * @return the analyzer holding the summaries
+     * @throws IOException if the file cannot be read or is not a recording
+     */
+    public static RecordingAnalyzer analyze(Path recording) throws IOException {
+        RecordingAnalyzer analyzer = new RecordingAnalyzer();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                analyzer.accept(file.readEvent());
+            }
+        }
+        return analyzer;
+    }
+
+    /**
+     * Adds an event to the summaries, ignoring events that are not AntiIdle events.
+     *
+     * @param event the recorded event
+     */
+    public void accept(RecordedEvent event) {
+        String name = event.getEventType().getName();
+        if (!name.startsWith(EVENT_PREFIX)) {
+            return;
+        }
+        String key = name;
+        if (event.hasField("action")) {
+            key = name + " [" + event.getString("action") + "]";
+        } else if (event.hasField("operation")) {
+            key = name + " [" + event.getString("operation") + "]";
+        }
+        boolean failed = event.hasField("succeeded") && !event.getBoolean("succeeded");
+        summaries.computeIfAbsent(key, k -> new Summary()).add(event.getDuration().toNanos(), failed);
+    }
+
+    /**
+     * Gets the summaries.
+     *
+     * @return an unmodifiable map from event type, qualified by action or operation, to its summary
+     */
+    public Map<String, Summary> getSummaries() {
+        return Collections.unmodifiableMap(summaries);
+    }
+
+    /**
+     * Prints the summaries as a table with durations in milliseconds.
+     *
+     * @param out the stream to print to
+     */
+    public void print(PrintStream out) {
+        if (summaries.isEmpty()) {
+            out.println("No AntiIdle events recorded; were they enabled with antiidle.jfc?");
+            return;
+        }
+        out.printf(HEADER_FORMAT, "Event", "Count", "Failed", "Total ms", "Mean ms", "p99 ms", "Max ms");
+        for (Map.Entry<String, Summary> entry : summaries.entrySet()) {
+            Summary summary = entry.getValue();
+            LatencyHistogram.Snapshot durations = summary.getDurations();
+            out.printf(ROW_FORMAT, entry.getKey(), durations.getCount(), summary.getFailures(),
+                millis(durations.getSum()), durations.getMean() / TimeUnit.MILLISECONDS.toNanos(1),
+                millis(durations.getPercentile(99)), millis(durations.getMax()));
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Prints a summary of a recording file.
+     *
+     * @param args the recording file
+     */
+    public static void main(String[] args) {
+        PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        if (args.length != 1) {
+            System.err.println("Usage: RecordingAnalyzer <recording.jfr>");
+            Runtime.getRuntime().exit(2);
+            return;
+        }
+        try {
+            analyze(Paths.get(args[0])).print(out);
+        } catch (IOException e) {
+            System.err.println("Failed to read recording " + args[0] + ": " + e.getMessage());
+            Runtime.getRuntime().exit(1);
+        }
+    }
+
+    /**
+     * Count and duration distribution of one group of events.
+     */
+    public static final class Summary {
+        private final LatencyHistogram durations = new LatencyHistogram();
+        private long failures;
+
+        private void add(long durationNanos, boolean failed) {
+            durations.record(durationNanos);
+            if (failed) {
+                failures++;
+            }
+        }
+
+        /**
+         * Gets the event durations.
+         *
+         * @return a snapshot of the duration histogram, whose count is the number of events
+         */
+        public LatencyHistogram.Snapshot getDurations() {
+            return durations.snapshot();
+        }
+
+        /**
+         * Gets the number of events reporting a failed operation.
+         *
+         * @return the failure count
+         */
+        public long getFailures() {
+            return failures;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.upp.idle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs short-lived helper commands and captures their output.
+ */
+final class CommandRunner {
+    private CommandRunner() {
+    }
+
+    /**
+     * Runs a command and returns its standard output.
+     *
+     * @param command the command and its arguments
+     * @param timeoutMillis how long to wait for the command to exit
+     * @return the standard output
+     * @throws IOException if the command cannot be started, times out or exits with an error
+     */
+    static String run(List<String> command, long timeoutMillis) throws IOException {
+        Process process = new ProcessBuilder(command)
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        try (InputStream output = process.getInputStream()) {
+            if (!process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("Command timed out: " + command);
+            }
+            if (process.exitValue() != 0) {
+                throw new IOException("Command exited with " + process.exitValue() + ": " + command);
+            }
+            return new String(output.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while running " + command);
+        }
+    }
+
+    /**
+     * Checks whether an executable is on the {@code PATH}.
+     *
+     * @param name the executable name
+     * @return true if a directory on the path contains it
+     */
+    static boolean isOnPath(String name) {
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return false;
+        }
+        for (String directory : path.split(File.pathSeparator)) {
+            if (!directory.isEmpty() && Files.isExecutable(Path.of(directory, name))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
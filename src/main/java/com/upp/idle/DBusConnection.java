@@ -0,0 +1,486 @@
+package com.upp.idle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Minimal D-Bus client over a Unix domain socket.
+ *
+ * <p>Supports exactly what the idle inhibitors need: EXTERNAL authentication, method calls and replies
+ * whose arguments are strings, object paths and 32-bit unsigned integers. Holding the connection open
+ * keeps name ownership and any inhibit cookies the peer ties to it.
+ */
+final class DBusConnection implements Closeable {
+    static final String BUS_NAME = "org.freedesktop.DBus";
+    static final String BUS_PATH = "/org/freedesktop/DBus";
+
+    static final int METHOD_CALL = 1;
+    static final int METHOD_RETURN = 2;
+    static final int ERROR = 3;
+
+    private static final byte LITTLE_ENDIAN = 'l';
+    private static final int HEADER_PATH = 1;
+    private static final int HEADER_INTERFACE = 2;
+    private static final int HEADER_MEMBER = 3;
+    private static final int HEADER_ERROR_NAME = 4;
+    private static final int HEADER_REPLY_SERIAL = 5;
+    private static final int HEADER_DESTINATION = 6;
+    private static final int HEADER_SENDER = 7;
+    private static final int HEADER_SIGNATURE = 8;
+    private static final int FIXED_HEADER_SIZE = 16;
+    private static final int MAX_MESSAGE_SIZE = 1 << 20;
+
+    private final SocketChannel channel;
+    private final Deque<Message> pendingCalls = new ArrayDeque<>();
+    private int serial;
+    private String uniqueName;
+
+    private DBusConnection(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Connects, authenticates and registers with a bus.
+     *
+     * @param address the bus address, e.g. the value of {@code DBUS_SESSION_BUS_ADDRESS}
+     * @return the open connection
+     * @throws IOException if the bus cannot be reached or rejects the connection
+     */
+    static DBusConnection open(String address) throws IOException {
+        SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath(address)));
+        DBusConnection connection = new DBusConnection(channel);
+        try {
+            connection.authenticate();
+            connection.uniqueName = connection.call(BUS_NAME, BUS_PATH, BUS_NAME, "Hello", "").getString();
+        } catch (IOException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    /**
+     * Extracts the socket path from the first {@code unix:path=} entry of a bus address.
+     */
+    static Path socketPath(String address) throws IOException {
+        if (address == null || address.isBlank()) {
+            throw new IOException("No D-Bus address");
+        }
+        for (String entry : address.split(";")) {
+            if (!entry.startsWith("unix:")) {
+                continue;
+            }
+            for (String key : entry.substring("unix:".length()).split(",")) {
+                if (key.startsWith("path=")) {
+                    return Path.of(unescape(key.substring("path=".length())));
+                }
+            }
+        }
+        throw new IOException("No unix:path= entry in D-Bus address " + address);
+    }
+
+    private static String unescape(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' && i + 2 < value.length()) {
+                result.append((char) Integer.parseInt(value.substring(i + 1, i + 3), 16));
+                i += 2;
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private void authenticate() throws IOException {
+        Object uid = Files.getAttribute(Path.of("/proc/self"), "unix:uid");
+        StringBuilder hexUid = new StringBuilder();
+        for (byte b : String.valueOf(uid).getBytes(StandardCharsets.US_ASCII)) {
+            hexUid.append(String.format("%02x", b));
+        }
+        writeAscii("\0AUTH EXTERNAL " + hexUid + "\r\n");
+        String response = readLine();
+        if (!response.startsWith("OK")) {
+            throw new IOException("D-Bus authentication rejected: " + response);
+        }
+        writeAscii("BEGIN\r\n");
+    }
+
+    private void writeAscii(String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        ByteBuffer single = ByteBuffer.allocate(1);
+        while (line.length() < 512) {
+            single.clear();
+            if (channel.read(single) < 0) {
+                throw new IOException("D-Bus connection closed during authentication");
+            }
+            char c = (char) single.get(0);
+            if (c == '\n') {
+                return line.toString().trim();
+            }
+            line.append(c);
+        }
+        throw new IOException("D-Bus authentication line too long");
+    }
+
+    /**
+     * Gets the unique name the bus assigned to this connection.
+     *
+     * @return the unique name, e.g. {@code :1.42}
+     */
+    String getUniqueName() {
+        return uniqueName;
+    }
+
+    /**
+     * Calls a method and waits for its reply.
+     *
+     * @param destination the bus name of the peer
+     * @param path the object path
+     * @param iface the interface name
+     * @param member the method name
+     * @param signature the argument signature, using only {@code s}, {@code o} and {@code u}
+     * @param args the arguments: strings, or integers for {@code u}
+     * @return the reply
+     * @throws IOException if the connection fails or the peer replies with an error
+     */
+    synchronized Message call(String destination, String path, String iface, String member,
+                              String signature, Object... args) throws IOException {
+        int callSerial = send(METHOD_CALL, 0, destination, path, iface, member, signature, args);
+        while (true) {
+            Message message = read();
+            if ((message.type == METHOD_RETURN || message.type == ERROR) && message.replySerial == callSerial) {
+                if (message.type == ERROR) {
+                    String detail = message.signature.startsWith("s") ? ": " + message.getString() : "";
+                    throw new IOException(message.errorName + detail);
+                }
+                return message;
+            }
+            if (message.type == METHOD_CALL) {
+                pendingCalls.add(message);
+            }
+        }
+    }
+
+    /**
+     * Waits for the next method call addressed to this connection.
+     *
+     * @return the call
+     * @throws IOException if the connection fails
+     */
+    synchronized Message receiveCall() throws IOException {
+        while (pendingCalls.isEmpty()) {
+            Message message = read();
+            if (message.type == METHOD_CALL) {
+                return message;
+            }
+        }
+        return pendingCalls.poll();
+    }
+
+    /**
+     * Replies to a method call.
+     *
+     * @param call the call being answered
+     * @param signature the reply signature
+     * @param args the reply arguments
+     * @throws IOException if the connection fails
+     */
+    synchronized void reply(Message call, String signature, Object... args) throws IOException {
+        send(METHOD_RETURN, call.serial, call.sender, null, null, null, signature, args);
+    }
+
+    private int send(int type, int replySerial, String destination, String path, String iface, String member,
+                     String signature, Object... args) throws IOException {
+        Writer body = new Writer();
+        for (int i = 0; i < signature.length(); i++) {
+            body.putValue(signature.charAt(i), args[i]);
+        }
+        int messageSerial = ++serial;
+
+        Writer fields = new Writer();
+        fields.putField(HEADER_PATH, 'o', path);
+        fields.putField(HEADER_INTERFACE, 's', iface);
+        fields.putField(HEADER_MEMBER, 's', member);
+        fields.putField(HEADER_REPLY_SERIAL, 'u', replySerial == 0 ? null : replySerial);
+        fields.putField(HEADER_DESTINATION, 's', destination);
+        fields.putField(HEADER_SIGNATURE, 'g', signature.isEmpty() ? null : signature);
+
+        Writer message = new Writer();
+        message.putByte(LITTLE_ENDIAN);
+        message.putByte(type);
+        message.putByte(0);
+        message.putByte(1);
+        message.putUint32(body.size());
+        message.putUint32(messageSerial);
+        message.putUint32(fields.size());
+        message.putBytes(fields.toArray());
+        message.align(8);
+        message.putBytes(body.toArray());
+
+        ByteBuffer buffer = ByteBuffer.wrap(message.toArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return messageSerial;
+    }
+
+    private Message read() throws IOException {
+        ByteBuffer fixed = readFully(ByteBuffer.allocate(FIXED_HEADER_SIZE));
+        if (fixed.get(0) != LITTLE_ENDIAN) {
+            throw new IOException("Unsupported D-Bus byte order: " + (char) fixed.get(0));
+        }
+        fixed.order(ByteOrder.LITTLE_ENDIAN);
+        int bodyLength = fixed.getInt(4);
+        int fieldsLength = fixed.getInt(12);
+        int headerEnd = align(FIXED_HEADER_SIZE + fieldsLength, 8);
+        if (bodyLength < 0 || fieldsLength < 0 || headerEnd + (long) bodyLength > MAX_MESSAGE_SIZE) {
+            throw new IOException("D-Bus message too large");
+        }
+        ByteBuffer rest = readFully(ByteBuffer.allocate(headerEnd - FIXED_HEADER_SIZE + bodyLength));
+        ByteBuffer data = ByteBuffer.allocate(headerEnd + bodyLength).order(ByteOrder.LITTLE_ENDIAN);
+        data.put(fixed.array()).put(rest.array());
+
+        Message message = new Message(fixed.get(1), fixed.getInt(8));
+        data.position(FIXED_HEADER_SIZE);
+        int fieldsEnd = FIXED_HEADER_SIZE + fieldsLength;
+        while (data.position() < fieldsEnd) {
+            data.position(align(data.position(), 8));
+            int code = data.get();
+            char type = (char) data.get(data.position() + 1);
+            data.position(data.position() + 3);
+            Object value = getValue(data, type);
+            switch (code) {
+                case HEADER_PATH:
+                    message.path = (String) value;
+                    break;
+                case HEADER_INTERFACE:
+                    message.iface = (String) value;
+                    break;
+                case HEADER_MEMBER:
+                    message.member = (String) value;
+                    break;
+                case HEADER_ERROR_NAME:
+                    message.errorName = (String) value;
+                    break;
+                case HEADER_REPLY_SERIAL:
+                    message.replySerial = (Integer) value;
+                    break;
+                case HEADER_SENDER:
+                    message.sender = (String) value;
+                    break;
+                case HEADER_SIGNATURE:
+                    message.signature = (String) value;
+                    break;
+                default:
+                    // Other fields are not needed
+                    break;
+            }
+        }
+        message.body = ByteBuffer.wrap(Arrays.copyOfRange(data.array(), headerEnd, headerEnd + bodyLength))
+            .order(ByteOrder.LITTLE_ENDIAN);
+        return message;
+    }
+
+    private ByteBuffer readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("D-Bus connection closed");
+            }
+        }
+        return buffer;
+    }
+
+    private static Object getValue(ByteBuffer data, char type) throws IOException {
+        switch (type) {
+            case 's', 'o' -> {
+                data.position(align(data.position(), 4));
+                int length = data.getInt();
+                String value = new String(data.array(), data.position(), length, StandardCharsets.UTF_8);
+                data.position(data.position() + length + 1);
+                return value;
+            }
+            case 'g' -> {
+                int length = data.get() & 0xFF;
+                String value = new String(data.array(), data.position(), length, StandardCharsets.US_ASCII);
+                data.position(data.position() + length + 1);
+                return value;
+            }
+            case 'u' -> {
+                data.position(align(data.position(), 4));
+                return data.getInt();
+            }
+            default -> throw new IOException("Unsupported D-Bus type: " + type);
+        }
+    }
+
+    private static int align(int position, int alignment) {
+        return (position + alignment - 1) & -alignment;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Checks whether the connection is still open.
+     *
+     * @return true until the connection is closed locally
+     */
+    boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    /**
+     * A received message.
+     */
+    static final class Message {
+        private final int type;
+        private final int serial;
+        private int replySerial;
+        private String path;
+        private String iface;
+        private String member;
+        private String errorName;
+        private String sender;
+        private String signature = "";
+        private ByteBuffer body;
+
+        private Message(int type, int serial) {
+            this.type = type;
+            this.serial = serial;
+        }
+
+        int getType() {
+            return type;
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        String getInterface() {
+            return iface;
+        }
+
+        String getMember() {
+            return member;
+        }
+
+        String getSender() {
+            return sender;
+        }
+
+        /**
+         * Reads the first argument as a string.
+         */
+        String getString() throws IOException {
+            return (String) getValue(body.duplicate().order(ByteOrder.LITTLE_ENDIAN), 's');
+        }
+
+        /**
+         * Reads the first argument as an unsigned 32-bit integer.
+         */
+        int getUint32() throws IOException {
+            return (Integer) getValue(body.duplicate().order(ByteOrder.LITTLE_ENDIAN), 'u');
+        }
+    }
+
+    /**
+     * Little-endian message writer with D-Bus alignment rules.
+     */
+    private static final class Writer {
+        private ByteBuffer buffer = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+
+        void align(int alignment) {
+            int padding = DBusConnection.align(buffer.position(), alignment) - buffer.position();
+            ensure(padding);
+            for (int i = 0; i < padding; i++) {
+                buffer.put((byte) 0);
+            }
+        }
+
+        void putByte(int value) {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        void putUint32(int value) {
+            align(4);
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putBytes(byte[] bytes) {
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void putValue(char type, Object value) {
+            switch (type) {
+                case 's', 'o' -> {
+                    byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+                    putUint32(bytes.length);
+                    putBytes(bytes);
+                    putByte(0);
+                }
+                case 'g' -> {
+                    byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.US_ASCII);
+                    putByte(bytes.length);
+                    putBytes(bytes);
+                    putByte(0);
+                }
+                case 'u' -> putUint32(((Number) value).intValue());
+                default -> throw new IllegalArgumentException("Unsupported D-Bus type: " + type);
+            }
+        }
+
+        /** Writes a header field as a (byte, variant) struct; null values are left out. */
+        void putField(int code, char type, Object value) {
+            if (value == null) {
+                return;
+            }
+            align(8);
+            putByte(code);
+            putValue('g', String.valueOf(type));
+            putValue(type, value);
+        }
+
+        int size() {
+            return buffer.position();
+        }
+
+        byte[] toArray() {
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.upp.idle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tracks user input by reading Linux evdev devices directly.
+ *
+ * <p>One daemon thread per device reads {@code struct input_event} records through a {@link FileChannel}
+ * into a reused direct buffer and publishes the newest key, relative or absolute event time. Reading the
+ * idle time is a single volatile read. Events injected through XTest do not pass through evdev, so only
+ * real hardware input counts. The devices must be readable, which usually means membership in the
+ * {@code input} group.
+ */
+public final class EvdevIdleTimeSource implements IdleTimeSource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EvdevIdleTimeSource.class);
+    /** Directory holding the evdev device nodes. */
+    public static final Path INPUT_DIRECTORY = Path.of("/dev/input");
+
+    /** Size of {@code struct input_event} on 64-bit Linux: timeval, type, code and value. */
+    static final int EVENT_SIZE = 24;
+    static final int EV_KEY = 1;
+    static final int EV_REL = 2;
+    static final int EV_ABS = 3;
+    private static final int EVENTS_PER_READ = 64;
+
+    private final List<FileChannel> channels = new CopyOnWriteArrayList<>();
+    private volatile long lastInputMillis = UNKNOWN;
+
+    /**
+     * Starts reading the given devices.
+     *
+     * @param devices the device nodes, or fixture files holding recorded events
+     */
+    public EvdevIdleTimeSource(List<Path> devices) {
+        for (Path device : devices) {
+            try {
+                FileChannel channel = FileChannel.open(device, StandardOpenOption.READ);
+                channels.add(channel);
+                Thread reader = new Thread(() -> readEvents(device, channel), "antiidle-evdev-" + device.getFileName());
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                LOGGER.debug("Cannot open input device {}: {}", device, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Lists the readable evdev devices.
+     *
+     * @return the readable {@code /dev/input/event*} nodes
+     */
+    public static List<Path> findDevices() {
+        List<Path> devices = new ArrayList<>();
+        if (!Files.isDirectory(INPUT_DIRECTORY)) {
+            return devices;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(INPUT_DIRECTORY, "event*")) {
+            for (Path device : stream) {
+                if (Files.isReadable(device)) {
+                    devices.add(device);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Cannot list input devices: {}", e.getMessage());
+        }
+        return devices;
+    }
+
+    /**
+     * Gets the number of devices being read.
+     *
+     * @return the number of open devices
+     */
+    public int getDeviceCount() {
+        return channels.size();
+    }
+
+    private void readEvents(Path device, FileChannel channel) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(EVENT_SIZE * EVENTS_PER_READ).order(ByteOrder.nativeOrder());
+        try {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.remaining() >= EVENT_SIZE) {
+                    int position = buffer.position();
+                    int type = buffer.getShort(position + 16) & 0xFFFF;
+                    if (type == EV_KEY || type == EV_REL || type == EV_ABS) {
+                        long millis = buffer.getLong(position) * 1000 + buffer.getLong(position + 8) / 1000;
+                        if (millis > lastInputMillis) {
+                            lastInputMillis = millis;
+                        }
+                    }
+                    buffer.position(position + EVENT_SIZE);
+                }
+                buffer.compact();
+            }
+        } catch (ClosedChannelException e) {
+            // Closed by close()
+        } catch (IOException e) {
+            LOGGER.warn("Stopped reading input device {}: {}", device, e.getMessage());
+        }
+    }
+
+    @Override
+    public long getIdleMillis() {
+        long last = lastInputMillis;
+        return last == UNKNOWN ? UNKNOWN : Math.max(0, System.currentTimeMillis() - last);
+    }
+
+    @Override
+    public String getName() {
+        return IdleTimeSources.EVDEV;
+    }
+
+    @Override
+    public void close() {
+        for (FileChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.debug("Failed to close input device", e);
+            }
+        }
+        channels.clear();
+    }
+}
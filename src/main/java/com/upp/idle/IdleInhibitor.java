@@ -0,0 +1,27 @@
+package com.upp.idle;
+
+/**
+ * Keeps the session from going idle without injecting input.
+ */
+public interface IdleInhibitor extends AutoCloseable {
+    /**
+     * Takes the inhibitor lock, or re-asserts it if already held.
+     *
+     * @param reason the reason shown to the user by tools listing inhibitors
+     * @return true if the lock is held after the call
+     */
+    boolean renew(String reason);
+
+    /**
+     * Gets the inhibitor name used in log messages.
+     *
+     * @return the inhibitor name
+     */
+    String getName();
+
+    /**
+     * Releases the lock if held.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,78 @@
+package com.upp.idle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the idle inhibitor for the current session.
+ */
+public final class IdleInhibitors {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdleInhibitors.class);
+
+    private IdleInhibitors() {
+    }
+
+    /**
+     * Creates an inhibitor trying the session's screen saver service first and logind second.
+     *
+     * @return the inhibitor; {@link IdleInhibitor#renew(String)} fails if neither is available
+     */
+    public static IdleInhibitor create() {
+        List<IdleInhibitor> candidates = new ArrayList<>();
+        String busAddress = System.getenv("DBUS_SESSION_BUS_ADDRESS");
+        if (busAddress != null && !busAddress.isBlank()) {
+            candidates.add(new ScreenSaverInhibitor(busAddress));
+        }
+        if (CommandRunner.isOnPath("systemd-inhibit")) {
+            candidates.add(new SystemdInhibitor());
+        }
+        return new FirstAvailable(candidates);
+    }
+
+    /**
+     * Uses the first candidate that can take the lock, sticking with it while it keeps working.
+     */
+    static final class FirstAvailable implements IdleInhibitor {
+        private final List<IdleInhibitor> candidates;
+        private IdleInhibitor active;
+
+        FirstAvailable(List<IdleInhibitor> candidates) {
+            this.candidates = List.copyOf(candidates);
+        }
+
+        @Override
+        public synchronized boolean renew(String reason) {
+            if (active != null && active.renew(reason)) {
+                return true;
+            }
+            for (IdleInhibitor candidate : candidates) {
+                if (candidate != active && candidate.renew(reason)) {
+                    if (active != null) {
+                        active.close();
+                    }
+                    active = candidate;
+                    LOGGER.info("Inhibiting idle through {}", candidate.getName());
+                    return true;
+                }
+            }
+            active = null;
+            return false;
+        }
+
+        @Override
+        public synchronized String getName() {
+            return active == null ? "none" : active.getName();
+        }
+
+        @Override
+        public synchronized void close() {
+            for (IdleInhibitor candidate : candidates) {
+                candidate.close();
+            }
+            active = null;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.upp.idle;
+
+/**
+ * Reports how long ago the user last produced input.
+ *
+ * <p>Sources are queried once per simulation cycle, so implementations should answer quickly;
+ * expensive ones can be wrapped in a {@link SampledIdleTimeSource}.
+ */
+public interface IdleTimeSource extends AutoCloseable {
+    /** Idle time returned when the source cannot tell. */
+    long UNKNOWN = -1;
+
+    /**
+     * Gets the time since the last user input.
+     *
+     * @return the idle time in milliseconds, or {@link #UNKNOWN}
+     */
+    long getIdleMillis();
+
+    /**
+     * Gets the source name used in the configuration and in log messages.
+     *
+     * @return the source name
+     */
+    String getName();
+
+    /**
+     * Releases threads or devices held by the source. Does nothing by default.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,100 @@
+package com.upp.idle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Creates idle time sources by their configuration name.
+ */
+public final class IdleTimeSources {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdleTimeSources.class);
+
+    /** Picks the first available of x11, evdev, logind and pointer. */
+    public static final String AUTO = "auto";
+    /** MIT-SCREEN-SAVER idle time of the X server. */
+    public static final String X11 = "x11";
+    /** systemd-logind session idle hint. */
+    public static final String LOGIND = "logind";
+    /** Linux evdev input devices. */
+    public static final String EVDEV = "evdev";
+    /** Pointer position changes between cycles. */
+    public static final String POINTER = "pointer";
+    /** Never reports an idle time, so no cycle is skipped. */
+    public static final String NONE = "none";
+
+    /** How long samples of process-based sources stay valid. */
+    private static final long COMMAND_SAMPLE_MILLIS = 1000;
+
+    private IdleTimeSources() {
+    }
+
+    /**
+     * Creates a source.
+     *
+     * @param name the source name, e.g. {@link #AUTO}
+     * @param pointerPosition supplies the packed pointer position for the {@link #POINTER} fallback
+     * @return the source; unknown names fall back to {@link #AUTO}
+     */
+    public static IdleTimeSource create(String name, LongSupplier pointerPosition) {
+        String key = name == null ? AUTO : name.trim().toLowerCase(Locale.ROOT);
+        switch (key) {
+            case X11:
+                return new SampledIdleTimeSource(new ScreenSaverIdleTimeSource(), COMMAND_SAMPLE_MILLIS);
+            case LOGIND:
+                return new SampledIdleTimeSource(new LogindIdleTimeSource(), COMMAND_SAMPLE_MILLIS);
+            case EVDEV:
+                return new EvdevIdleTimeSource(EvdevIdleTimeSource.findDevices());
+            case POINTER:
+                return new PointerIdleTimeSource(pointerPosition);
+            case NONE:
+                return none();
+            case AUTO:
+                return detect(pointerPosition);
+            default:
+                LOGGER.warn("Unknown idle source '{}', detecting one instead", name);
+                return detect(pointerPosition);
+        }
+    }
+
+    /**
+     * Creates a source that never knows the idle time.
+     *
+     * @return the source
+     */
+    public static IdleTimeSource none() {
+        return new IdleTimeSource() {
+            @Override
+            public long getIdleMillis() {
+                return UNKNOWN;
+            }
+
+            @Override
+            public String getName() {
+                return NONE;
+            }
+        };
+    }
+
+    private static IdleTimeSource detect(LongSupplier pointerPosition) {
+        IdleTimeSource source;
+        if (System.getenv("DISPLAY") != null && CommandRunner.isOnPath(ScreenSaverIdleTimeSource.DEFAULT_COMMAND)) {
+            source = create(X11, pointerPosition);
+        } else {
+            List<Path> devices = EvdevIdleTimeSource.findDevices();
+            if (!devices.isEmpty()) {
+                source = new EvdevIdleTimeSource(devices);
+            } else if (System.getenv("XDG_SESSION_ID") != null && CommandRunner.isOnPath("loginctl")) {
+                source = create(LOGIND, pointerPosition);
+            } else {
+                source = new PointerIdleTimeSource(pointerPosition);
+            }
+        }
+        LOGGER.info("Using {} idle source", source.getName());
+        return source;
+    }
+}
@@ -0,0 +1,34 @@
+package com.upp.idle;
+
+/**
+ * The shortest idle timeout the system is configured with.
+ *
+ * @param millis the timeout in milliseconds, or {@link IdleTimeSource#UNKNOWN} if no timeout is set
+ * @param source what sets the timeout, such as {@code gnome idle-delay}, or {@code none}
+ */
+public record IdleTimeout(long millis, String source) {
+    /** Timeout reported when nothing puts the session to sleep, or nothing could be read. */
+    public static final IdleTimeout UNKNOWN = new IdleTimeout(IdleTimeSource.UNKNOWN, "none");
+
+    /**
+     * Checks whether a timeout was found.
+     *
+     * @return true if {@link #millis()} is a timeout
+     */
+    public boolean isKnown() {
+        return millis > 0;
+    }
+
+    /**
+     * Keeps the shorter of two timeouts.
+     *
+     * @param other the other timeout
+     * @return whichever known timeout is shorter, or this one if neither is known
+     */
+    IdleTimeout shorter(IdleTimeout other) {
+        if (!other.isKnown()) {
+            return this;
+        }
+        return !isKnown() || other.millis < millis ? other : this;
+    }
+}
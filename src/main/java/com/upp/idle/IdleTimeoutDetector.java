@@ -0,0 +1,297 @@
+package com.upp.idle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the shortest idle timeout the system is configured with, so cycles can run just before it.
+ *
+ * <p>Four settings are read, and timeouts that are switched off are ignored:
+ * <ul>
+ *   <li>the X screen saver timeout and the DPMS standby, suspend and off times, from {@code xset q};</li>
+ *   <li>logind's {@code IdleActionSec}, from {@code logind.conf} and its drop-ins, unless {@code IdleAction}
+ *       is {@code ignore};</li>
+ *   <li>GNOME's {@code idle-delay}, from {@code gsettings}, or from the system dconf keyfiles when
+ *       {@code gsettings} is not available.</li>
+ * </ul>
+ * Files are looked up under a root directory and commands can be replaced, so the detector can be pointed
+ * at fixtures.
+ */
+public final class IdleTimeoutDetector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdleTimeoutDetector.class);
+    private static final long TIMEOUT_MILLIS = 2000;
+    private static final String LOGIND_CONF = "etc/systemd/logind.conf";
+    private static final String VENDOR_LOGIND_CONF = "usr/lib/systemd/logind.conf";
+    /** Drop-in directories of logind.conf, lowest priority first. */
+    private static final List<String> LOGIND_DROP_INS = List.of("usr/lib/systemd/logind.conf.d",
+        "usr/local/lib/systemd/logind.conf.d", "run/systemd/logind.conf.d", "etc/systemd/logind.conf.d");
+    /** logind's {@code IdleActionSec} when the files do not set it. */
+    private static final long DEFAULT_IDLE_ACTION_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final String GNOME_SESSION_PATH = "org/gnome/desktop/session";
+    private static final String IDLE_DELAY = "idle-delay";
+
+    private static final Pattern SCREEN_SAVER_TIMEOUT = Pattern.compile("\\btimeout:\\s*(\\d+)");
+    private static final Pattern DPMS_TIMES =
+        Pattern.compile("Standby:\\s*(\\d+)\\s+Suspend:\\s*(\\d+)\\s+Off:\\s*(\\d+)");
+    private static final Pattern TIME_SPAN_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)([a-zA-Z]*)");
+    private static final Pattern GVARIANT_NUMBER = Pattern.compile("(?:u?int\\d+\\s+)?(\\d+)");
+    private static final Map<String, Long> TIME_SPAN_UNITS = Map.ofEntries(
+        Map.entry("", 1000L), Map.entry("s", 1000L), Map.entry("sec", 1000L), Map.entry("second", 1000L),
+        Map.entry("seconds", 1000L), Map.entry("ms", 1L), Map.entry("msec", 1L),
+        Map.entry("m", 60_000L), Map.entry("min", 60_000L), Map.entry("minute", 60_000L),
+        Map.entry("minutes", 60_000L), Map.entry("h", 3_600_000L), Map.entry("hr", 3_600_000L),
+        Map.entry("hour", 3_600_000L), Map.entry("hours", 3_600_000L), Map.entry("d", 86_400_000L),
+        Map.entry("day", 86_400_000L), Map.entry("days", 86_400_000L));
+
+    private final Path root;
+    private final List<String> xsetCommand;
+    private final List<String> gsettingsCommand;
+    private final String dconfProfile;
+
+    /**
+     * Creates a detector for the running system. {@code xset} is only asked when a display is set.
+     *
+     * @return the detector
+     */
+    public static IdleTimeoutDetector create() {
+        return new IdleTimeoutDetector(Path.of("/"),
+            System.getenv("DISPLAY") != null && CommandRunner.isOnPath("xset") ? List.of("xset", "q") : List.of(),
+            CommandRunner.isOnPath("gsettings")
+                ? List.of("gsettings", "get", GNOME_SESSION_PATH.replace('/', '.'), IDLE_DELAY) : List.of(),
+            System.getenv("DCONF_PROFILE"));
+    }
+
+    /**
+     * Creates a detector reading the given files and commands.
+     *
+     * @param root the directory {@code /etc}, {@code /run} and {@code /usr} are looked up in
+     * @param xsetCommand a command printing {@code xset q} output, or an empty list to skip X11
+     * @param gsettingsCommand a command printing GNOME's {@code idle-delay}, or an empty list to read the
+     *        dconf keyfiles instead
+     * @param dconfProfile the dconf profile naming the system databases, or null for {@code user}
+     */
+    public IdleTimeoutDetector(Path root, List<String> xsetCommand, List<String> gsettingsCommand,
+                               String dconfProfile) {
+        this.root = root;
+        this.xsetCommand = List.copyOf(xsetCommand);
+        this.gsettingsCommand = List.copyOf(gsettingsCommand);
+        this.dconfProfile = dconfProfile == null || dconfProfile.isBlank() ? "user" : dconfProfile;
+    }
+
+    /**
+     * Reads every setting and picks the shortest timeout. Runs helper commands, so it may take a moment.
+     *
+     * @return the shortest timeout, or {@link IdleTimeout#UNKNOWN} if none is set
+     */
+    public IdleTimeout detect() {
+        IdleTimeout timeout = readX11().shorter(readLogind()).shorter(readGnome());
+        LOGGER.debug("Detected idle timeout: {}", timeout);
+        return timeout;
+    }
+
+    private IdleTimeout readX11() {
+        if (xsetCommand.isEmpty()) {
+            return IdleTimeout.UNKNOWN;
+        }
+        try {
+            return parseXset(CommandRunner.run(xsetCommand, TIMEOUT_MILLIS));
+        } catch (IOException e) {
+            LOGGER.debug("Cannot read X11 screen saver settings: {}", e.getMessage());
+            return IdleTimeout.UNKNOWN;
+        }
+    }
+
+    private IdleTimeout readLogind() {
+        List<Path> files = new ArrayList<>();
+        Path main = root.resolve(LOGIND_CONF);
+        files.add(Files.isRegularFile(main) ? main : root.resolve(VENDOR_LOGIND_CONF));
+        // A drop-in overrides one of the same name in a directory of lower priority; all apply in name order
+        Map<String, Path> dropIns = new TreeMap<>();
+        for (String directory : LOGIND_DROP_INS) {
+            for (Path file : listFiles(root.resolve(directory), "*.conf")) {
+                dropIns.put(String.valueOf(file.getFileName()), file);
+            }
+        }
+        files.addAll(dropIns.values());
+        List<String> lines = new ArrayList<>();
+        for (Path file : files) {
+            lines.addAll(readLines(file));
+        }
+        return parseLogind(lines);
+    }
+
+    private IdleTimeout readGnome() {
+        if (!gsettingsCommand.isEmpty()) {
+            try {
+                return gnomeTimeout(parseSeconds(CommandRunner.run(gsettingsCommand, TIMEOUT_MILLIS)));
+            } catch (IOException e) {
+                LOGGER.debug("Cannot read GNOME idle delay: {}", e.getMessage());
+            }
+        }
+        // The profile lists the system databases, and the first one setting the key wins
+        Path dconf = root.resolve("etc/dconf");
+        for (String line : readLines(dconf.resolve("profile").resolve(dconfProfile))) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("system-db:")) {
+                Path database = dconf.resolve("db").resolve(trimmed.substring("system-db:".length()) + ".d");
+                String value = null;
+                for (Path file : listFiles(database, "*")) {
+                    String found = findKey(readLines(file), GNOME_SESSION_PATH, IDLE_DELAY);
+                    value = found != null ? found : value;
+                }
+                if (value != null) {
+                    return gnomeTimeout(parseSeconds(value));
+                }
+            }
+        }
+        return IdleTimeout.UNKNOWN;
+    }
+
+    private static IdleTimeout gnomeTimeout(long seconds) {
+        return seconds > 0 ? new IdleTimeout(TimeUnit.SECONDS.toMillis(seconds), "gnome idle-delay")
+            : IdleTimeout.UNKNOWN;
+    }
+
+    /**
+     * Parses {@code xset q} output.
+     *
+     * @param output the command output
+     * @return the shorter of the screen saver timeout and the enabled DPMS times
+     */
+    static IdleTimeout parseXset(String output) {
+        IdleTimeout timeout = IdleTimeout.UNKNOWN;
+        Matcher screenSaver = SCREEN_SAVER_TIMEOUT.matcher(output);
+        if (screenSaver.find()) {
+            timeout = secondsTimeout(screenSaver.group(1), "x11 screen saver");
+        }
+        Matcher dpms = DPMS_TIMES.matcher(output);
+        if (output.contains("DPMS is Enabled") && dpms.find()) {
+            for (int group = 1; group <= 3; group++) {
+                timeout = timeout.shorter(secondsTimeout(dpms.group(group), "dpms"));
+            }
+        }
+        return timeout;
+    }
+
+    private static IdleTimeout secondsTimeout(String seconds, String source) {
+        long value = Long.parseLong(seconds);
+        return value > 0 ? new IdleTimeout(TimeUnit.SECONDS.toMillis(value), source) : IdleTimeout.UNKNOWN;
+    }
+
+    /**
+     * Parses the {@code [Login]} section of {@code logind.conf} lines, the last assignment of a key winning.
+     *
+     * @param lines the lines of the main file followed by those of its drop-ins
+     * @return the time after which logind acts on an idle session, or {@link IdleTimeout#UNKNOWN} if it
+     *         does nothing
+     */
+    static IdleTimeout parseLogind(List<String> lines) {
+        String action = findKey(lines, "Login", "IdleAction");
+        String delay = findKey(lines, "Login", "IdleActionSec");
+        if (action == null || action.isEmpty() || "ignore".equals(action)) {
+            return IdleTimeout.UNKNOWN;
+        }
+        long millis = delay == null || delay.isEmpty() ? DEFAULT_IDLE_ACTION_MILLIS : parseTimeSpan(delay);
+        return millis > 0 ? new IdleTimeout(millis, "logind IdleAction=" + action) : IdleTimeout.UNKNOWN;
+    }
+
+    /**
+     * Parses a systemd time span such as {@code 30min}, {@code 1h 30min} or {@code 90}, which is in seconds.
+     *
+     * @param text the time span
+     * @return the span in milliseconds, or {@link IdleTimeSource#UNKNOWN} for {@code infinity} or an invalid
+     *         span
+     */
+    static long parseTimeSpan(String text) {
+        String span = text.replaceAll("\\s+", "");
+        Matcher part = TIME_SPAN_PART.matcher(span);
+        double millis = 0;
+        int end = 0;
+        while (part.find() && part.start() == end) {
+            Long unit = TIME_SPAN_UNITS.get(part.group(2).toLowerCase(Locale.ROOT));
+            if (unit == null) {
+                return IdleTimeSource.UNKNOWN;
+            }
+            millis += Double.parseDouble(part.group(1)) * unit;
+            end = part.end();
+        }
+        return end == 0 || end != span.length() ? IdleTimeSource.UNKNOWN : Math.round(millis);
+    }
+
+    /**
+     * Parses a number of seconds printed by {@code gsettings} or stored in a dconf keyfile, with or without
+     * its type, such as {@code uint32 300}.
+     *
+     * @param value the value
+     * @return the seconds, or {@link IdleTimeSource#UNKNOWN} if the value is not a number
+     */
+    static long parseSeconds(String value) {
+        Matcher matcher = GVARIANT_NUMBER.matcher(value.trim());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : IdleTimeSource.UNKNOWN;
+    }
+
+    /**
+     * Finds the last value of a key in a section of an INI-style file.
+     */
+    private static String findKey(List<String> lines, String section, String key) {
+        String header = "[" + section + "]";
+        boolean inSection = false;
+        String value = null;
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("[")) {
+                inSection = trimmed.equals(header);
+            } else if (inSection && !trimmed.startsWith("#") && !trimmed.startsWith(";")) {
+                int equals = trimmed.indexOf('=');
+                if (equals > 0 && trimmed.substring(0, equals).trim().equals(key)) {
+                    value = trimmed.substring(equals + 1).trim();
+                }
+            }
+        }
+        return value;
+    }
+
+    private static List<Path> listFiles(Path directory, String glob) {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, glob)) {
+            for (Path entry : entries) {
+                if (Files.isRegularFile(entry)) {
+                    files.add(entry);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Cannot list {}: {}", directory, e.getMessage());
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private static List<String> readLines(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return List.of();
+        }
+        try {
+            return Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOGGER.debug("Cannot read {}: {}", file, e.getMessage());
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.upp.idle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reads the idle hint systemd-logind keeps for the login session.
+ *
+ * <p>Desktops set {@code IdleHint} once their own idle timeout passes, and {@code IdleSinceHint} records
+ * when it last changed. While the session is idle the source reports the time since then; while it is active
+ * it reports no idle time at all, as logind does not track input before the desktop's timeout. The source is
+ * therefore much coarser than the X11 or evdev sources.
+ */
+public final class LogindIdleTimeSource implements IdleTimeSource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogindIdleTimeSource.class);
+    private static final long TIMEOUT_MILLIS = 2000;
+
+    private final List<String> command;
+    private boolean warned;
+
+    /**
+     * Creates a source for the session the process runs in.
+     */
+    public LogindIdleTimeSource() {
+        this(sessionCommand(System.getenv("XDG_SESSION_ID")));
+    }
+
+    /**
+     * Creates a source that runs the given command.
+     *
+     * @param command a command printing the {@code IdleHint} and {@code IdleSinceHint} properties
+     */
+    public LogindIdleTimeSource(List<String> command) {
+        this.command = List.copyOf(command);
+    }
+
+    private static List<String> sessionCommand(String sessionId) {
+        String session = sessionId == null || sessionId.isBlank() ? "self" : sessionId;
+        return List.of("loginctl", "show-session", session, "-p", "IdleHint", "-p", "IdleSinceHint");
+    }
+
+    @Override
+    public synchronized long getIdleMillis() {
+        try {
+            return parseIdleMillis(CommandRunner.run(command, TIMEOUT_MILLIS), System.currentTimeMillis());
+        } catch (IOException e) {
+            if (!warned) {
+                warned = true;
+                LOGGER.warn("Cannot read logind idle hint: {}", e.getMessage());
+            }
+            return UNKNOWN;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return IdleTimeSources.LOGIND;
+    }
+
+    /**
+     * Parses {@code loginctl show-session} output.
+     *
+     * @param output the command output
+     * @param nowMillis the current wall-clock time
+     * @return the idle time in milliseconds, 0 while the session is active, or {@link #UNKNOWN} if the output
+     *         has no idle hint or an idle session has no valid time it went idle
+     */
+    static long parseIdleMillis(String output, long nowMillis) {
+        String idleHint = null;
+        long sinceMicros = -1;
+        for (String line : output.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("IdleHint=")) {
+                idleHint = trimmed.substring("IdleHint=".length());
+            } else if (trimmed.startsWith("IdleSinceHint=")) {
+                try {
+                    sinceMicros = Long.parseLong(trimmed.substring("IdleSinceHint=".length()));
+                } catch (NumberFormatException e) {
+                    return UNKNOWN;
+                }
+            }
+        }
+        if ("no".equals(idleHint)) {
+            // The hint changed when the user came back, so the time since then says nothing about idleness
+            return 0;
+        }
+        if (!"yes".equals(idleHint) || sinceMicros <= 0) {
+            return UNKNOWN;
+        }
+        return Math.max(0, nowMillis - sinceMicros / 1000);
+    }
+}
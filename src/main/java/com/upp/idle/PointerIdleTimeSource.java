@@ -0,0 +1,54 @@
+package com.upp.idle;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Infers user activity from pointer movement between queries.
+ *
+ * <p>Fallback for systems without a better source: the idle time is measured from the last query that
+ * saw the pointer at a new position, so its resolution is the query interval and keyboard input goes
+ * unnoticed. The simulator returns the pointer to where it found it, so its own movements do not count.
+ */
+public final class PointerIdleTimeSource implements IdleTimeSource {
+    private final LongSupplier pointerPosition;
+    private final LongSupplier clockMillis;
+    private boolean sampled;
+    private long lastPosition;
+    private long lastChangeMillis;
+
+    /**
+     * Creates a source reading the given pointer position.
+     *
+     * @param pointerPosition supplies the packed pointer position, e.g. {@code InputBackend::getPointerPosition}
+     */
+    public PointerIdleTimeSource(LongSupplier pointerPosition) {
+        this(pointerPosition, System::currentTimeMillis);
+    }
+
+    PointerIdleTimeSource(LongSupplier pointerPosition, LongSupplier clockMillis) {
+        this.pointerPosition = pointerPosition;
+        this.clockMillis = clockMillis;
+    }
+
+    @Override
+    public synchronized long getIdleMillis() {
+        long position = pointerPosition.getAsLong();
+        long now = clockMillis.getAsLong();
+        if (!sampled) {
+            sampled = true;
+            lastPosition = position;
+            lastChangeMillis = now;
+            return UNKNOWN;
+        }
+        if (position != lastPosition) {
+            lastPosition = position;
+            lastChangeMillis = now;
+        }
+        return Math.max(0, now - lastChangeMillis);
+    }
+
+    @Override
+    public String getName() {
+        return IdleTimeSources.POINTER;
+    }
+}
@@ -0,0 +1,55 @@
+package com.upp.idle;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Caches an expensive idle time source for a sampling period.
+ *
+ * <p>Between samples the cached idle time is extrapolated by the time elapsed since it was taken, so
+ * reads within the period cost two clock reads and no call into the delegate.
+ */
+public final class SampledIdleTimeSource implements IdleTimeSource {
+    private final IdleTimeSource delegate;
+    private final long periodMillis;
+    private final LongSupplier clockMillis;
+    private boolean sampled;
+    private long sampleMillis;
+    private long sampledIdleMillis;
+
+    /**
+     * Creates a sampling wrapper.
+     *
+     * @param delegate the source to sample
+     * @param periodMillis how long a sample stays valid
+     */
+    public SampledIdleTimeSource(IdleTimeSource delegate, long periodMillis) {
+        this(delegate, periodMillis, System::currentTimeMillis);
+    }
+
+    SampledIdleTimeSource(IdleTimeSource delegate, long periodMillis, LongSupplier clockMillis) {
+        this.delegate = delegate;
+        this.periodMillis = periodMillis;
+        this.clockMillis = clockMillis;
+    }
+
+    @Override
+    public synchronized long getIdleMillis() {
+        long now = clockMillis.getAsLong();
+        if (!sampled || now - sampleMillis >= periodMillis) {
+            sampled = true;
+            sampleMillis = now;
+            sampledIdleMillis = delegate.getIdleMillis();
+        }
+        return sampledIdleMillis == UNKNOWN ? UNKNOWN : sampledIdleMillis + (now - sampleMillis);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
@@ -0,0 +1,58 @@
+package com.upp.idle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reads the X server's idle time from the MIT-SCREEN-SAVER extension.
+ *
+ * <p>The extension is queried through {@code xprintidle}, which prints the milliseconds since the last
+ * input event. The X server counts synthetic XTest events as input, so the idle time also resets
+ * after every simulated cycle.
+ */
+public final class ScreenSaverIdleTimeSource implements IdleTimeSource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScreenSaverIdleTimeSource.class);
+    /** Command used when none is given. */
+    public static final String DEFAULT_COMMAND = "xprintidle";
+    private static final long TIMEOUT_MILLIS = 2000;
+
+    private final List<String> command;
+    private boolean warned;
+
+    /**
+     * Creates a source that runs {@code xprintidle}.
+     */
+    public ScreenSaverIdleTimeSource() {
+        this(List.of(DEFAULT_COMMAND));
+    }
+
+    /**
+     * Creates a source that runs the given command.
+     *
+     * @param command a command printing the idle time in milliseconds
+     */
+    public ScreenSaverIdleTimeSource(List<String> command) {
+        this.command = List.copyOf(command);
+    }
+
+    @Override
+    public synchronized long getIdleMillis() {
+        try {
+            return Long.parseLong(CommandRunner.run(command, TIMEOUT_MILLIS).trim());
+        } catch (IOException | NumberFormatException e) {
+            if (!warned) {
+                warned = true;
+                LOGGER.warn("Cannot read X11 idle time: {}", e.getMessage());
+            }
+            return UNKNOWN;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return IdleTimeSources.X11;
+    }
+}
@@ -0,0 +1,81 @@
+package com.upp.idle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * Inhibits idleness through the {@code org.freedesktop.ScreenSaver} D-Bus interface.
+ *
+ * <p>Desktops drop an inhibition when the connection that took it closes, so the connection is kept open
+ * while the lock is held. Each renewal takes a new cookie before releasing the previous one, which also
+ * restores the lock if the screen saver service restarted in between.
+ */
+public final class ScreenSaverInhibitor implements IdleInhibitor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScreenSaverInhibitor.class);
+    static final String SERVICE = "org.freedesktop.ScreenSaver";
+    static final String PATH = "/org/freedesktop/ScreenSaver";
+    private static final String APPLICATION = "AntiIdle";
+
+    private final String busAddress;
+    private DBusConnection connection;
+    private int cookie;
+
+    /**
+     * Creates an inhibitor on a bus.
+     *
+     * @param busAddress the session bus address
+     */
+    public ScreenSaverInhibitor(String busAddress) {
+        this.busAddress = busAddress;
+    }
+
+    @Override
+    public synchronized boolean renew(String reason) {
+        try {
+            if (connection == null) {
+                connection = DBusConnection.open(busAddress);
+            }
+            int previous = cookie;
+            cookie = connection.call(SERVICE, PATH, SERVICE, "Inhibit", "ss", APPLICATION, reason).getUint32();
+            if (previous != 0) {
+                connection.call(SERVICE, PATH, SERVICE, "UnInhibit", "u", previous);
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.debug("Screen saver inhibit failed: {}", e.getMessage());
+            disconnect();
+            return false;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "screensaver";
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection != null && cookie != 0) {
+            try {
+                connection.call(SERVICE, PATH, SERVICE, "UnInhibit", "u", cookie);
+            } catch (IOException e) {
+                LOGGER.debug("Screen saver uninhibit failed: {}", e.getMessage());
+            }
+        }
+        disconnect();
+    }
+
+    private void disconnect() {
+        cookie = 0;
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                LOGGER.debug("Failed to close D-Bus connection", e);
+            }
+            connection = null;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.upp.idle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes a systemd-logind idle inhibitor lock through {@code systemd-inhibit}.
+ *
+ * <p>logind hands out inhibitor locks as file descriptors that stay valid while a process holds them,
+ * so the lock is held by a {@code systemd-inhibit ... sleep infinity} child process. Renewing restarts
+ * the process if it died.
+ */
+public final class SystemdInhibitor implements IdleInhibitor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SystemdInhibitor.class);
+    /** How long a failing command gets to exit before the lock is considered held. */
+    private static final long STARTUP_CHECK_MILLIS = 200;
+
+    private final List<String> commandPrefix;
+    private Process process;
+
+    /**
+     * Creates an inhibitor using {@code systemd-inhibit}.
+     */
+    public SystemdInhibitor() {
+        this(List.of("systemd-inhibit", "--what=idle", "--who=AntiIdle", "--mode=block"));
+    }
+
+    /**
+     * Creates an inhibitor running the given command.
+     *
+     * @param commandPrefix the command up to the reason; {@code --why=<reason> sleep infinity} is appended
+     */
+    public SystemdInhibitor(List<String> commandPrefix) {
+        this.commandPrefix = List.copyOf(commandPrefix);
+    }
+
+    @Override
+    public synchronized boolean renew(String reason) {
+        if (process != null && process.isAlive()) {
+            return true;
+        }
+        List<String> command = new ArrayList<>(commandPrefix);
+        command.add("--why=" + reason);
+        command.add("sleep");
+        command.add("infinity");
+        try {
+            process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            if (process.waitFor(STARTUP_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                LOGGER.debug("{} exited with {}", command.get(0), process.exitValue());
+                process = null;
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.debug("Cannot start {}: {}", command.get(0), e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            return false;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "systemd-inhibit";
+    }
+
+    @Override
+    public synchronized void close() {
+        if (process != null) {
+            // The sleep child would outlive systemd-inhibit and keep the lock
+            process.descendants().forEach(ProcessHandle::destroy);
+            process.destroy();
+            process = null;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.upp.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.upp.config.ConfigurationManager;
+import com.upp.core.ActivitySimulator;
+import com.upp.core.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Embedded HTTP endpoint serving simulator metrics in the OpenMetrics text format.
+ *
+ * <p>Requests are handled on virtual threads. A scrape only reads {@link ActivitySimulator#getStats()}
+ * snapshots, which are built from atomic counters, so it never waits for or blocks a simulation
+ * thread. Scrapes are rendered one at a time into a reused byte buffer.
+ */
+public class MetricsServer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsServer.class);
+
+    /** Content type of the OpenMetrics text format. */
+    static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private static final String DEFAULT_SESSION = "default";
+
+    /** Histogram buckets exported as {@code le} boundaries, every second power of two from 1 us to 69 s. */
+    private static final int[] EXPORTED_BUCKETS = {9, 11, 13, 15, 17, 19, 21, 23, 25, 27, 29, 31, 33, 35};
+    private static final String[] BUCKET_LABELS = new String[EXPORTED_BUCKETS.length];
+
+    private static final List<Counter> COUNTERS = List.of(
+        new Counter("antiidle_cycles", "Completed activity cycles.", ActivitySimulator.ActivityStats::getCycles),
+        new Counter("antiidle_mouse_moves", "Injected mouse movements.",
+            ActivitySimulator.ActivityStats::getMouseMoves),
+        new Counter("antiidle_key_presses", "Injected key presses.", ActivitySimulator.ActivityStats::getKeyPresses),
+        new Counter("antiidle_failures", "Failed cycles and simulation steps.",
+            ActivitySimulator.ActivityStats::getFailures),
+        new Counter("antiidle_skipped_cycles", "Cycles skipped because the user was active.",
+            ActivitySimulator.ActivityStats::getSkippedCycles),
+        new Counter("antiidle_missed_ticks", "Fixed-rate ticks skipped instead of being caught up.",
+            ActivitySimulator.ActivityStats::getMissedTicks),
+        new Counter("antiidle_suspends", "Detected system suspends.", ActivitySimulator.ActivityStats::getSuspends));
+
+    private static final List<Histogram> HISTOGRAMS = List.of(
+        new Histogram("antiidle_tick_lateness_seconds", "Delay between a tick's deadline and the time it ran.",
+            ActivitySimulator.ActivityStats::getLateness),
+        new Histogram("antiidle_injection_latency_seconds", "Time taken by individual input injection calls.",
+            ActivitySimulator.ActivityStats::getInjectionLatency),
+        new Histogram("antiidle_cycle_duration_seconds", "Time taken by a complete activity cycle.",
+            ActivitySimulator.ActivityStats::getCycleDuration));
+
+    static {
+        for (int i = 0; i < EXPORTED_BUCKETS.length; i++) {
+            BUCKET_LABELS[i] = BigDecimal.valueOf(LatencyHistogram.bucketUpperBound(EXPORTED_BUCKETS[i]))
+                .movePointLeft(9).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    private final ConfigurationManager.MetricsSettings settings;
+    private final Supplier<? extends Collection<ActivitySimulator>> simulators;
+    private final ReentrantLock renderLock = new ReentrantLock();
+    private final OpenMetricsWriter writer = new OpenMetricsWriter();
+    private final List<ActivitySimulator.ActivityStats> stats = new ArrayList<>();
+    private final List<String> sessions = new ArrayList<>();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Creates a metrics server.
+     *
+     * @param settings the endpoint settings
+     * @param simulators supplies the simulators to report on each scrape
+     */
+    public MetricsServer(ConfigurationManager.MetricsSettings settings,
+                         Supplier<? extends Collection<ActivitySimulator>> simulators) {
+        this.settings = settings.copy();
+        this.simulators = simulators;
+    }
+
+    /**
+     * Binds the endpoint and starts serving scrapes.
+     *
+     * @throws IOException if the address cannot be bound
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            LOGGER.warn("Metrics server is already running");
+            return;
+        }
+        HttpServer created = HttpServer.create(new InetSocketAddress(settings.getBindAddress(), settings.getPort()), 0);
+        created.createContext(settings.getPath(), this::handle);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        created.setExecutor(executor);
+        created.start();
+        server = created;
+        LOGGER.info("Metrics endpoint listening on http://{}:{}{}", settings.getBindAddress(),
+            created.getAddress().getPort(), settings.getPath());
+    }
+
+    /**
+     * Stops the endpoint, abandoning scrapes still in progress.
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+        executor = null;
+        LOGGER.info("Metrics endpoint stopped");
+    }
+
+    /**
+     * Gets the address the endpoint is bound to.
+     *
+     * @return the bound address, or null if the server is not running
+     */
+    public synchronized InetSocketAddress getAddress() {
+        return server == null ? null : server.getAddress();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!settings.getPath().equals(exchange.getRequestURI().getPath())) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            String method = exchange.getRequestMethod();
+            boolean head = "HEAD".equals(method);
+            if (!head && !"GET".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            renderLock.lock();
+            try {
+                render(writer);
+                if (head) {
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    exchange.sendResponseHeaders(200, writer.size());
+                    writer.writeTo(exchange.getResponseBody());
+                }
+            } finally {
+                renderLock.unlock();
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Metrics scrape failed", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Renders the current metrics of all simulators, replacing the writer's contents.
+     *
+     * @param out the writer to render into
+     */
+    void render(OpenMetricsWriter out) {
+        stats.clear();
+        sessions.clear();
+        for (ActivitySimulator simulator : simulators.get()) {
+            stats.add(simulator.getStats());
+            sessions.add(simulator.getSessionId() == null ? DEFAULT_SESSION : simulator.getSessionId());
+        }
+        out.reset();
+        out.append("# TYPE antiidle_running gauge\n# HELP antiidle_running Whether the simulation is running.\n");
+        for (int i = 0; i < stats.size(); i++) {
+            sample(out, "antiidle_running", "", i).append(stats.get(i).isRunning() ? 1 : 0).append('\n');
+        }
+        out.append("# TYPE antiidle_start_time_seconds gauge\n# UNIT antiidle_start_time_seconds seconds\n"
+            + "# HELP antiidle_start_time_seconds Time the simulation was last started, 0 if never.\n");
+        for (int i = 0; i < stats.size(); i++) {
+            sample(out, "antiidle_start_time_seconds", "", i)
+                .appendSeconds(stats.get(i).getStartTime() * 1_000_000L).append('\n');
+        }
+        out.append("# TYPE antiidle_interval_seconds gauge\n# UNIT antiidle_interval_seconds seconds\n"
+            + "# HELP antiidle_interval_seconds Interval between cycles, adapted to the system idle timeout "
+            + "in adaptive mode.\n");
+        for (int i = 0; i < stats.size(); i++) {
+            sample(out, "antiidle_interval_seconds", "", i).append(stats.get(i).getIntervalSeconds()).append('\n');
+        }
+        for (Counter counter : COUNTERS) {
+            counter.render(out, this);
+        }
+        for (Histogram histogram : HISTOGRAMS) {
+            histogram.render(out, this);
+        }
+        out.append("# EOF\n");
+    }
+
+    /**
+     * Appends a sample's name and session label, leaving the writer positioned before the value.
+     */
+    private OpenMetricsWriter sample(OpenMetricsWriter out, String name, String suffix, int index) {
+        return out.append(name).append(suffix).append("{session=\"").appendLabelValue(sessions.get(index))
+            .append("\"} ");
+    }
+
+    private static void header(OpenMetricsWriter out, String name, String type, String help) {
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    }
+
+    private record Counter(String name, String help, ToLongFunction<ActivitySimulator.ActivityStats> value) {
+        void render(OpenMetricsWriter out, MetricsServer server) {
+            header(out, name, "counter", help);
+            for (int i = 0; i < server.stats.size(); i++) {
+                server.sample(out, name, "_total", i).append(value.applyAsLong(server.stats.get(i))).append('\n');
+            }
+        }
+    }
+
+    private record Histogram(String name, String help,
+                             Function<ActivitySimulator.ActivityStats, LatencyHistogram.Snapshot> value) {
+        void render(OpenMetricsWriter out, MetricsServer server) {
+            header(out, name, "histogram", help);
+            out.append("# UNIT ").append(name).append(" seconds\n");
+            for (int i = 0; i < server.stats.size(); i++) {
+                LatencyHistogram.Snapshot snapshot = value.apply(server.stats.get(i));
+                String session = server.sessions.get(i);
+                long cumulative = 0;
+                int exported = 0;
+                for (int bucket = 0; bucket < LatencyHistogram.BUCKET_COUNT; bucket++) {
+                    cumulative += snapshot.getBucketCount(bucket);
+                    if (exported < EXPORTED_BUCKETS.length && EXPORTED_BUCKETS[exported] == bucket) {
+                        bucket(out, session, BUCKET_LABELS[exported++], cumulative);
+                    }
+                }
+                // The bucket total is used for +Inf and _count so they agree even if a value was recorded
+                // while the snapshot was taken
+                bucket(out, session, "+Inf", cumulative);
+                server.sample(out, name, "_count", i).append(cumulative).append('\n');
+                server.sample(out, name, "_sum", i).appendSeconds(snapshot.getSum()).append('\n');
+            }
+        }
+
+        private void bucket(OpenMetricsWriter out, String session, String le, long count) {
+            out.append(name).append("_bucket{session=\"").appendLabelValue(session).append("\",le=\"").append(le)
+                .append("\"} ").append(count).append('\n');
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.upp.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reusable byte buffer for rendering the OpenMetrics text format.
+ *
+ * <p>Numbers are written digit by digit and ASCII text byte by byte, so rendering into a buffer that
+ * has already grown to the size of a scrape does not allocate. Not thread-safe.
+ */
+final class OpenMetricsWriter {
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int FRACTION_DIGITS = 9;
+
+    private byte[] buffer = new byte[DEFAULT_CAPACITY];
+    private int size;
+
+    /**
+     * Discards the buffered text while keeping the buffer.
+     */
+    void reset() {
+        size = 0;
+    }
+
+    /**
+     * Gets the number of buffered bytes.
+     *
+     * @return the buffered length
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Writes the buffered text.
+     *
+     * @param out the stream to write to
+     * @throws IOException if writing fails
+     */
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, size);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, size, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends ASCII text as is.
+     *
+     * @param text the text, which must not contain characters above U+007F
+     * @return this writer
+     */
+    OpenMetricsWriter append(String text) {
+        ensureCapacity(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            buffer[size++] = (byte) text.charAt(i);
+        }
+        return this;
+    }
+
+    /**
+     * Appends a single ASCII character.
+     *
+     * @param c the character
+     * @return this writer
+     */
+    OpenMetricsWriter append(char c) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * Appends a decimal integer.
+     *
+     * @param value the value
+     * @return this writer
+     */
+    OpenMetricsWriter append(long value) {
+        if (value == Long.MIN_VALUE) {
+            return append(Long.toString(value));
+        }
+        ensureCapacity(20);
+        long remaining = value;
+        if (remaining < 0) {
+            buffer[size++] = '-';
+            remaining = -remaining;
+        }
+        int start = size;
+        do {
+            buffer[size++] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        reverse(start, size - 1);
+        return this;
+    }
+
+    /**
+     * Appends a duration in seconds with nanosecond precision, such as {@code 1.500000000}.
+     *
+     * @param nanos the non-negative duration in nanoseconds
+     * @return this writer
+     */
+    OpenMetricsWriter appendSeconds(long nanos) {
+        append(nanos / NANOS_PER_SECOND).append('.');
+        ensureCapacity(FRACTION_DIGITS);
+        long fraction = nanos % NANOS_PER_SECOND;
+        for (int i = size + FRACTION_DIGITS - 1; i >= size; i--) {
+            buffer[i] = (byte) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        size += FRACTION_DIGITS;
+        return this;
+    }
+
+    /**
+     * Appends a label value, escaping backslashes, quotes and line feeds and encoding it as UTF-8.
+     *
+     * @param value the label value
+     * @return this writer
+     */
+    OpenMetricsWriter appendLabelValue(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                append('\\').append(c);
+            } else if (c == '\n') {
+                append("\\n");
+            } else if (c < 0x80) {
+                append(c);
+            } else {
+                int codePoint = value.codePointAt(i);
+                i += Character.charCount(codePoint) - 1;
+                appendUtf8(codePoint);
+            }
+        }
+        return this;
+    }
+
+    private void appendUtf8(int codePoint) {
+        ensureCapacity(4);
+        if (codePoint < 0x800) {
+            buffer[size++] = (byte) (0xC0 | (codePoint >> 6));
+        } else if (codePoint < 0x10000) {
+            buffer[size++] = (byte) (0xE0 | (codePoint >> 12));
+            buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        } else {
+            buffer[size++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        }
+        buffer[size++] = (byte) (0x80 | (codePoint & 0x3F));
+    }
+
+    private void reverse(int from, int to) {
+        for (int i = from, j = to; i < j; i++, j--) {
+            byte tmp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = tmp;
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.upp;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for ActivityEventCoalescer.
+ */
+class ActivityEventCoalescerTest {
+
+    @Test
+    void testBurstIsDeliveredInFramePacedBatches() throws Exception {
+        int threads = 4;
+        int eventsPerThread = 25_000;
+        List<Long> drains = new ArrayList<>();
+        AtomicInteger delivered = new AtomicInteger();
+        AtomicBoolean offEventThread = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+        ActivityEventCoalescer coalescer = new ActivityEventCoalescer(batch -> {
+            offEventThread.compareAndSet(false, !SwingUtilities.isEventDispatchThread());
+            drains.add(batch.drainNanos());
+            if (delivered.addAndGet(batch.cycles()) == threads * eventsPerThread) {
+                done.countDown();
+            }
+        });
+
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread producer = new Thread(() -> {
+                for (int j = 0; j < eventsPerThread; j++) {
+                    coalescer.cycleCompleted(null);
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS), "Delivered " + delivered.get());
+        assertFalse(offEventThread.get());
+        SwingUtilities.invokeAndWait(() -> {
+            assertTrue(drains.size() < threads * eventsPerThread / 100, "Drains: " + drains.size());
+            for (int i = 1; i < drains.size(); i++) {
+                // Each drain starts a frame after the previous one started, however long polling took;
+                // halved to allow for timer jitter
+                assertTrue(drains.get(i) - drains.get(i - 1) >= ActivityEventCoalescer.FRAME_NANOS / 2,
+                    "Drains " + (i - 1) + " and " + i + " within a frame");
+            }
+        });
+    }
+
+    @Test
+    void testEventsAreFoldedInOrder() throws Exception {
+        List<ActivityEventCoalescer.Batch> batches = new ArrayList<>();
+        ActivityEventCoalescer coalescer = new ActivityEventCoalescer(batches::add);
+        IllegalStateException failure = new IllegalStateException("no display");
+        InternalError crash = new InternalError("backend crashed");
+
+        // Hold the event dispatch thread so every event lands in the same batch
+        CountDownLatch release = new CountDownLatch(1);
+        SwingUtilities.invokeLater(() -> awaitQuietly(release));
+        coalescer.simulationStarted(null);
+        coalescer.cycleCompleted(null);
+        coalescer.injectionFailed(null, failure);
+        coalescer.simulationStopped(null, crash);
+        release.countDown();
+        awaitBatches(batches, 1);
+
+        CountDownLatch hold = new CountDownLatch(1);
+        SwingUtilities.invokeLater(() -> awaitQuietly(hold));
+        coalescer.simulationStopped(null, crash);
+        coalescer.simulationStarted(null);
+        hold.countDown();
+        awaitBatches(batches, 2);
+
+        SwingUtilities.invokeAndWait(() -> {
+            ActivityEventCoalescer.Batch first = batches.get(0);
+            assertEquals(4, first.events());
+            assertEquals(1, first.cycles());
+            assertEquals(1, first.failures());
+            assertSame(failure, first.lastFailure());
+            assertTrue(first.lifecycleChanged());
+            assertSame(crash, first.stopCause());
+
+            ActivityEventCoalescer.Batch second = batches.get(1);
+            assertEquals(2, second.events());
+            assertTrue(second.lifecycleChanged());
+            assertNull(second.stopCause());
+            assertNull(second.config());
+        });
+    }
+
+    private static void awaitBatches(List<ActivityEventCoalescer.Batch> batches, int count) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        int[] size = new int[1];
+        do {
+            SwingUtilities.invokeAndWait(() -> size[0] = batches.size());
+            if (size[0] < count) {
+                Thread.sleep(10);
+            }
+        } while (size[0] < count && System.nanoTime() < deadline);
+        assertEquals(count, size[0]);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.upp;
+
+import com.upp.config.ConfigurationManager;
+import com.upp.core.ActivitySimulator;
+import com.upp.core.NoOpInputBackend;
+import com.upp.core.RecordingInputBackend;
+import com.upp.core.RobotInputBackend;
+import com.upp.core.SessionManager;
+import com.upp.exception.AntiIdleException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.GraphicsEnvironment;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for AntiIdleDaemon.
+ */
+class AntiIdleDaemonTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private ConfigurationManager configManager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        configManager = new ConfigurationManager(tempDir.resolve("config.yml"));
+        ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
+        config.getActivity().setKeyPressDurationMs(0);
+        config.getActivity().setSkipWhenUserActive(false);
+        configManager.updateConfig(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        configManager.close();
+    }
+
+    @Test
+    void testRunsSimulationUntilStopped() throws Exception {
+        RecordingInputBackend backend = new RecordingInputBackend();
+        AntiIdleDaemon daemon = new AntiIdleDaemon(configManager, backend);
+
+        daemon.start();
+        await().atMost(Duration.ofSeconds(5)).until(() -> daemon.getSimulator().getStats().getCycles() > 0);
+        assertTrue(daemon.getSimulator().isRunning());
+
+        daemon.stop();
+        daemon.awaitStop();
+        assertFalse(daemon.getSimulator().isRunning());
+        // Stopping twice, as the shutdown hook does after an explicit stop, is harmless
+        daemon.stop();
+    }
+
+    @Test
+    void testRunsConfiguredSessions() throws Exception {
+        ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
+        ConfigurationManager.SessionSettings session = new ConfigurationManager.SessionSettings();
+        session.setId("kiosk");
+        session.setDisplay(":1");
+        config.setSessions(List.of(session));
+        configManager.updateConfig(config);
+        RecordingInputBackend backend = new RecordingInputBackend();
+        RecordingInputBackend sessionBackend = new RecordingInputBackend();
+        AntiIdleDaemon daemon = new AntiIdleDaemon(configManager,
+            new SessionManager(configManager, display -> display == null ? backend : sessionBackend));
+
+        daemon.start();
+        await().atMost(Duration.ofSeconds(5)).until(() -> backend.countEvents(RecordingInputBackend.KEY_PRESS) > 0
+            && sessionBackend.countEvents(RecordingInputBackend.KEY_PRESS) > 0);
+        List<ActivitySimulator> simulators = daemon.getSimulators();
+        assertEquals(2, simulators.size());
+        assertEquals("kiosk", simulators.get(1).getSessionId());
+
+        daemon.stop();
+        assertTrue(simulators.stream().noneMatch(ActivitySimulator::isRunning));
+    }
+
+    @Test
+    void testInhibitModeNeedsNoDisplay() throws Exception {
+        Assumptions.assumeTrue(GraphicsEnvironment.isHeadless());
+        ConfigurationManager.ActivitySettings activity = new ConfigurationManager.ActivitySettings();
+        activity.setEngineMode(ConfigurationManager.ActivitySettings.ENGINE_INHIBIT);
+
+        assertInstanceOf(NoOpInputBackend.class, AntiIdleDaemon.createBackend(activity));
+    }
+
+    @Test
+    void testInhibitModeKeepsInputFallbackWithDisplay() throws Exception {
+        Assumptions.assumeFalse(GraphicsEnvironment.isHeadless());
+        ConfigurationManager.ActivitySettings activity = new ConfigurationManager.ActivitySettings();
+        activity.setEngineMode(ConfigurationManager.ActivitySettings.ENGINE_INHIBIT);
+
+        assertInstanceOf(RobotInputBackend.class, AntiIdleDaemon.createBackend(activity));
+    }
+
+    @Test
+    void testParsesOverridesAndConfigPath() throws Exception {
+        AntiIdleDaemon.Options options = AntiIdleDaemon.Options.parse(new String[] {
+            "--interval-seconds=60", "--engine_mode", "inhibit", "--config", "/etc/antiidle.yml"});
+
+        assertEquals(Paths.get("/etc/antiidle.yml"), options.configPath());
+        assertEquals(Map.of("interval_seconds", "60", "engine_mode", "inhibit"), options.overrides().getValues());
+        assertFalse(options.help());
+        assertTrue(AntiIdleDaemon.Options.parse(new String[] {"--help"}).help());
+        assertNull(AntiIdleDaemon.Options.parse(new String[0]).configPath());
+    }
+
+    @Test
+    void testRejectsMalformedOptions() {
+        assertThrows(AntiIdleException.ConfigurationException.class,
+            () -> AntiIdleDaemon.Options.parse(new String[] {"inhibit"}));
+        assertThrows(AntiIdleException.ConfigurationException.class,
+            () -> AntiIdleDaemon.Options.parse(new String[] {"--interval-seconds"}));
+        assertThrows(AntiIdleException.ConfigurationException.class,
+            () -> AntiIdleDaemon.Options.parse(new String[] {"--no-such-setting=1"}));
+    }
+
+    @Test
+    void testDaemonProcessNeverLoadsSwing() throws Exception {
+        Path home = Files.createDirectories(tempDir.resolve("home"));
+        Path timings = tempDir.resolve("startup.txt");
+        Path classLog = tempDir.resolve("classes.log");
+        Process process = new ProcessBuilder(
+            Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+            "-Duser.home=" + home,
+            "-D" + StartupProbe.PROPERTY + "=" + timings,
+            "-Xlog:class+load=info:file=" + classLog,
+            "-cp", System.getProperty("java.class.path"),
+            AntiIdleDaemon.class.getName(), "--engine-mode=inhibit", "--skip-when-user-active=false")
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        try {
+            await().atMost(Duration.ofSeconds(60)).until(() -> Files.exists(timings) || !process.isAlive());
+            assertTrue(Files.exists(timings), "The daemon exited before its first tick");
+        } finally {
+            process.destroy();
+            assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+        }
+
+        assertTrue(StartupProbe.readTiming(timings, StartupProbe.FIRST_TICK) >= 0);
+        List<String> loaded = Files.readAllLines(classLog, StandardCharsets.UTF_8);
+        assertTrue(loaded.stream().anyMatch(line -> line.contains(" " + AntiIdleDaemon.class.getName() + " ")));
+        assertEquals(List.of(), loaded.stream().filter(line -> line.contains(" javax.swing.")).toList());
+    }
+}
@@ -0,0 +1,82 @@
+package com.upp;
+
+import com.upp.config.ConfigurationManager;
+import com.upp.core.ActivitySimulator;
+import com.upp.core.RecordingInputBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for StartupProbe.
+ */
+class StartupProbeTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private ConfigurationManager configManager;
+    private ActivitySimulator simulator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        configManager = new ConfigurationManager(tempDir.resolve("config.yml"));
+        ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
+        config.getActivity().setKeyPressDurationMs(0);
+        config.getActivity().setSkipWhenUserActive(false);
+        configManager.updateConfig(config);
+        simulator = new ActivitySimulator(configManager, new RecordingInputBackend());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (simulator.isRunning()) {
+            simulator.stopSimulation();
+        }
+        configManager.close();
+    }
+
+    @Test
+    void testReportsTimingsSinceJvmStart() throws Exception {
+        Path timings = tempDir.resolve("startup.txt");
+        StartupProbe probe = new StartupProbe(timings.toString());
+
+        probe.frameVisible();
+        simulator.startSimulation();
+        assertTrue(probe.awaitStartup(simulator, true, 5000));
+        probe.report();
+
+        long frameVisible = StartupProbe.readTiming(timings, StartupProbe.FRAME_VISIBLE);
+        long firstTick = StartupProbe.readTiming(timings, StartupProbe.FIRST_TICK);
+        assertTrue(frameVisible > 0);
+        assertTrue(firstTick >= frameVisible);
+        assertTrue(StartupProbe.readTiming(timings, StartupProbe.HEAP_USED) > 0);
+        assertTrue(StartupProbe.readTiming(timings, StartupProbe.LOADED_CLASSES) > 0);
+    }
+
+    @Test
+    void testTimesOutWithoutTick() throws Exception {
+        Path timings = tempDir.resolve("startup.txt");
+        StartupProbe probe = new StartupProbe(timings.toString());
+
+        assertFalse(probe.awaitStartup(simulator, false, 50));
+        probe.report();
+
+        assertEquals(-1, StartupProbe.readTiming(timings, StartupProbe.FRAME_VISIBLE));
+        assertEquals(-1, StartupProbe.readTiming(timings, StartupProbe.FIRST_TICK));
+    }
+
+    @Test
+    void testDisabledWithoutSystemProperty() {
+        assertNull(System.getProperty(StartupProbe.PROPERTY));
+        assertNull(StartupProbe.fromSystemProperties());
+    }
+}
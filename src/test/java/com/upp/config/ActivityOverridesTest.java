@@ -0,0 +1,53 @@
+package com.upp.config;
+
+import com.upp.exception.AntiIdleException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for ActivityOverrides.
+ */
+class ActivityOverridesTest {
+
+    @Test
+    void testAppliesValuesConvertedLikeTheFile() throws Exception {
+        ActivityOverrides overrides = ActivityOverrides.of(Map.of(
+            "interval_seconds", "60",
+            "skip_when_user_active", "false",
+            "simulation_key", "F15"));
+        ConfigurationManager.ActivitySettings activity = new ConfigurationManager.ActivitySettings();
+
+        overrides.applyTo(activity);
+
+        assertFalse(overrides.isEmpty());
+        assertEquals(60, activity.getIntervalSeconds());
+        assertFalse(activity.isSkipWhenUserActive());
+        assertEquals("F15", activity.getSimulationKey());
+    }
+
+    @Test
+    void testNoneChangesNothing() {
+        ConfigurationManager.ActivitySettings activity = new ConfigurationManager.ActivitySettings();
+
+        ActivityOverrides.NONE.applyTo(activity);
+
+        assertTrue(ActivityOverrides.NONE.isEmpty());
+        assertEquals(new ConfigurationManager.ActivitySettings().getIntervalSeconds(), activity.getIntervalSeconds());
+    }
+
+    @Test
+    void testRejectsUnknownSettingsAndUnconvertibleValues() {
+        AntiIdleException.ConfigurationException unknown = assertThrows(
+            AntiIdleException.ConfigurationException.class, () -> ActivityOverrides.of(Map.of("intervall", "60")));
+        assertEquals("Unknown activity setting: intervall", unknown.getMessage());
+
+        assertThrows(AntiIdleException.ConfigurationException.class,
+            () -> ActivityOverrides.of(Map.of("interval_seconds", "soon")));
+    }
+}
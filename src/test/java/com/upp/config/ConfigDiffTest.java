@@ -0,0 +1,60 @@
+package com.upp.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for ConfigDiff.
+ */
+class ConfigDiffTest {
+
+    @Test
+    void testEqualConfigurationsHaveNoChanges() {
+        ConfigurationManager.AntiIdleConfig config = new ConfigurationManager.AntiIdleConfig();
+
+        assertSame(ConfigDiff.EMPTY, ConfigDiff.between(config, config.copy()));
+        assertTrue(ConfigDiff.between(config, config.copy()).isEmpty());
+    }
+
+    @Test
+    void testReportsChangedFieldsByYamlPath() {
+        ConfigurationManager.AntiIdleConfig previous = new ConfigurationManager.AntiIdleConfig();
+        ConfigurationManager.AntiIdleConfig current = previous.copy();
+        current.getActivity().setIntervalSeconds(5);
+        current.getActivity().setSimulationKey("CTRL");
+        current.getMetrics().setPort(9000);
+
+        ConfigDiff diff = ConfigDiff.between(previous, current);
+
+        assertEquals(List.of("activity.interval_seconds", "activity.simulation_key", "metrics.port"),
+            List.copyOf(diff.getChangedPaths()));
+        assertTrue(diff.affects("activity"));
+        assertTrue(diff.affects("activity.simulation_key"));
+        assertFalse(diff.affects("activity.scheduling_mode"));
+        assertFalse(diff.affects("gui"));
+    }
+
+    @Test
+    void testReportsChangedListElements() {
+        ConfigurationManager.AntiIdleConfig previous = new ConfigurationManager.AntiIdleConfig();
+        ConfigurationManager.SessionSettings session = new ConfigurationManager.SessionSettings();
+        session.setId("first");
+        previous.setSessions(List.of(session));
+        ConfigurationManager.AntiIdleConfig current = previous.copy();
+        current.getSessions().get(0).setDisplay(":1");
+        ConfigurationManager.SessionSettings added = new ConfigurationManager.SessionSettings();
+        added.setId("second");
+        current.getSessions().add(added);
+
+        ConfigDiff diff = ConfigDiff.between(previous, current);
+
+        assertEquals(List.of("sessions[0].display", "sessions[1]"), List.copyOf(diff.getChangedPaths()));
+        assertTrue(diff.affects("sessions"));
+    }
+}
@@ -0,0 +1,118 @@
+package com.upp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for ConfigPersister.
+ */
+class ConfigPersisterTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private final ObjectMapper yaml = new ObjectMapper(new YAMLFactory());
+    private Path configDir;
+    private Path configFile;
+    private ConfigPersister persister;
+
+    @BeforeEach
+    void setUp() {
+        configDir = tempDir.resolve("config");
+        configFile = configDir.resolve("antiidle-config.yml");
+        // Long enough that a test's saves always land in the same write
+        persister = new ConfigPersister(configFile, yaml, 10_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        persister.close(1000);
+    }
+
+    private static ConfigurationManager.AntiIdleConfig config(int intervalSeconds) {
+        ConfigurationManager.AntiIdleConfig config = new ConfigurationManager.AntiIdleConfig();
+        config.getActivity().setIntervalSeconds(intervalSeconds);
+        return config;
+    }
+
+    private ConfigurationManager.AntiIdleConfig read() throws Exception {
+        return yaml.readValue(configFile.toFile(), ConfigurationManager.AntiIdleConfig.class);
+    }
+
+    @Test
+    void testCoalescesSavesIntoOneWrite() throws Exception {
+        for (int interval = 1; interval <= 20; interval++) {
+            persister.submit(config(interval), false);
+        }
+        assertTrue(persister.isPending());
+        assertFalse(Files.exists(configFile));
+
+        assertTrue(persister.flush(1000));
+
+        assertEquals(1, persister.getWriteCount());
+        assertEquals(20, read().getActivity().getIntervalSeconds());
+    }
+
+    @Test
+    void testSkipsWritesOfUnchangedBytes() throws Exception {
+        persister.submit(config(30), true);
+        persister.flush(1000);
+        long modified = Files.getLastModifiedTime(configFile).toMillis();
+
+        persister.submit(config(30), true);
+        persister.flush(1000);
+
+        assertEquals(1, persister.getWriteCount());
+        assertEquals(modified, Files.getLastModifiedTime(configFile).toMillis());
+        assertTrue(persister.isCurrent(Files.readAllBytes(configFile)));
+    }
+
+    @Test
+    void testSeededContentsAreNotRewritten() throws Exception {
+        persister.seed(yaml.writeValueAsBytes(config(30)));
+
+        persister.submit(config(30), false);
+        persister.flush(1000);
+
+        assertEquals(0, persister.getWriteCount());
+        assertFalse(Files.exists(configFile));
+    }
+
+    @Test
+    void testReplacesFileWithoutLeavingTemporaryFiles() throws Exception {
+        Files.createDirectories(configDir);
+        Files.writeString(configFile, "activity:\n  interval_seconds: 5\n", StandardCharsets.UTF_8);
+
+        persister.submit(config(45), true);
+        persister.flush(1000);
+
+        assertEquals(45, read().getActivity().getIntervalSeconds());
+        try (Stream<Path> files = Files.list(configDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testCloseFlushesPendingWriteAndLaterSavesStillLand() throws Exception {
+        persister.submit(config(40), false);
+        persister.close(1000);
+
+        assertEquals(40, read().getActivity().getIntervalSeconds());
+
+        persister.submit(config(50), false);
+        assertEquals(50, read().getActivity().getIntervalSeconds());
+    }
+}
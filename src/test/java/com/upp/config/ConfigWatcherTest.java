@@ -0,0 +1,92 @@
+package com.upp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for ConfigWatcher.
+ */
+class ConfigWatcherTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private final ObjectMapper yaml = new ObjectMapper(new YAMLFactory());
+    private final List<ConfigDiff> published = new CopyOnWriteArrayList<>();
+    private Path configFile;
+    private ConfigurationManager configManager;
+    private ConfigWatcher watcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        configFile = tempDir.resolve("antiidle").resolve("config.yml");
+        configManager = new ConfigurationManager(configFile);
+        configManager.addChangeListener((previous, current) -> published.add(current.getChanges()));
+        watcher = new ConfigWatcher(configManager, 50);
+        watcher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        watcher.close();
+        configManager.close();
+    }
+
+    private void writeExternally(int intervalSeconds) throws Exception {
+        ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
+        config.getActivity().setIntervalSeconds(intervalSeconds);
+        yaml.writeValue(configFile.toFile(), config);
+    }
+
+    @Test
+    void testDebouncesBurstIntoSinglePublish() throws Exception {
+        long version = configManager.getSnapshot().getVersion();
+        for (int interval = 41; interval <= 45; interval++) {
+            writeExternally(interval);
+        }
+
+        await().atMost(Duration.ofSeconds(10))
+            .until(() -> configManager.getSnapshot().getActivity().getIntervalSeconds() == 45);
+        // Give a late, redundant reload the chance to show up
+        Thread.sleep(300);
+
+        assertEquals(version + 1, configManager.getSnapshot().getVersion());
+        assertEquals(List.of("activity.interval_seconds"), List.copyOf(published.get(0).getChangedPaths()));
+    }
+
+    @Test
+    void testIgnoresUnchangedAndInvalidFiles() throws Exception {
+        writeExternally(50);
+        await().atMost(Duration.ofSeconds(10))
+            .until(() -> configManager.getSnapshot().getActivity().getIntervalSeconds() == 50);
+        long version = configManager.getSnapshot().getVersion();
+
+        // Saving identical settings and saving invalid ones must both keep the current snapshot
+        writeExternally(50);
+        Files.writeString(configFile, "activity:\n  interval_seconds: [", StandardCharsets.UTF_8);
+        Thread.sleep(300);
+        writeExternally(0);
+        Thread.sleep(300);
+
+        assertEquals(version, configManager.getSnapshot().getVersion());
+        assertEquals(1, published.size());
+
+        writeExternally(55);
+        await().atMost(Duration.ofSeconds(10))
+            .until(() -> configManager.getSnapshot().getActivity().getIntervalSeconds() == 55);
+    }
+}
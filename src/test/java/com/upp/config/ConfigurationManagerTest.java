@@ -1,15 +1,22 @@
 package com.upp.config;
 
+import com.upp.exception.AntiIdleException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -29,6 +36,11 @@ class ConfigurationManagerTest {
         configManager = new ConfigurationManager();
     }
 
+    @AfterEach
+    void tearDown() {
+        configManager.close();
+    }
+
     @Test
     void testDefaultConfiguration() {
         ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
@@ -48,24 +60,26 @@ class ConfigurationManagerTest {
     }
 
     @Test
-    void testConfigurationPersistence() throws IOException {
+    void testConfigurationPersistence() throws Exception {
         // Modify configuration
         ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
         config.getActivity().setIntervalSeconds(60);
         config.getActivity().setSimulationKey("CTRL");
         config.getGui().setStartMinimized(true);
         
-        // Save configuration
+        // Save configuration and wait for the background write
         configManager.updateConfig(config);
+        assertTrue(configManager.flush());
         
         // Create new configuration manager to test loading
-        ConfigurationManager newConfigManager = new ConfigurationManager();
-        ConfigurationManager.AntiIdleConfig loadedConfig = newConfigManager.getConfig();
-        
-        // Verify loaded configuration
-        assertEquals(60, loadedConfig.getActivity().getIntervalSeconds());
-        assertEquals("CTRL", loadedConfig.getActivity().getSimulationKey());
-        assertTrue(loadedConfig.getGui().isStartMinimized());
+        try (ConfigurationManager newConfigManager = new ConfigurationManager()) {
+            ConfigurationManager.AntiIdleConfig loadedConfig = newConfigManager.getConfig();
+            
+            // Verify loaded configuration
+            assertEquals(60, loadedConfig.getActivity().getIntervalSeconds());
+            assertEquals("CTRL", loadedConfig.getActivity().getSimulationKey());
+            assertTrue(loadedConfig.getGui().isStartMinimized());
+        }
     }
 
     @Test
@@ -75,7 +89,7 @@ class ConfigurationManagerTest {
     }
 
     @Test
-    void testReloadConfiguration() {
+    void testReloadConfiguration() throws Exception {
         // Modify and save configuration
         ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
         config.getActivity().setIntervalSeconds(45);
@@ -88,4 +102,160 @@ class ConfigurationManagerTest {
         configManager.reloadConfiguration();
         assertEquals(45, configManager.getConfig().getActivity().getIntervalSeconds());
     }
+
+    @Test
+    void testSnapshotIsSharedUntilChanged() throws Exception {
+        ConfigSnapshot first = configManager.getSnapshot();
+        assertSame(first, configManager.getSnapshot());
+        
+        ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
+        config.getActivity().setIntervalSeconds(15);
+        configManager.updateConfig(config);
+        
+        ConfigSnapshot second = configManager.getSnapshot();
+        assertNotSame(first, second);
+        assertEquals(first.getVersion() + 1, second.getVersion());
+        assertEquals(30, first.getActivity().getIntervalSeconds());
+        assertEquals(15, second.getActivity().getIntervalSeconds());
+        
+        configManager.reloadConfiguration();
+        assertEquals(second.getVersion() + 1, configManager.getSnapshot().getVersion());
+    }
+
+    @Test
+    void testSnapshotIsReadOnly() {
+        ConfigSnapshot snapshot = configManager.getSnapshot();
+        
+        assertThrows(UnsupportedOperationException.class,
+            () -> snapshot.getActivity().setIntervalSeconds(5));
+        assertThrows(UnsupportedOperationException.class,
+            () -> snapshot.getConfig().getGui().setDarkMode(true));
+        
+        // Editable copies are detached from the published snapshot
+        ConfigurationManager.AntiIdleConfig copy = configManager.getConfig();
+        copy.getActivity().setIntervalSeconds(5);
+        assertEquals(30, configManager.getSnapshot().getActivity().getIntervalSeconds());
+    }
+
+    @Test
+    void testChangeListenersAreNotified() {
+        List<ConfigSnapshot> seen = new ArrayList<>();
+        ConfigChangeListener listener = (previous, current) -> {
+            seen.add(previous);
+            seen.add(current);
+        };
+        ConfigSnapshot before = configManager.getSnapshot();
+        configManager.addChangeListener(listener);
+        
+        configManager.reloadConfiguration();
+        
+        assertEquals(2, seen.size());
+        assertSame(before, seen.get(0));
+        assertSame(configManager.getSnapshot(), seen.get(1));
+        
+        configManager.removeChangeListener(listener);
+        configManager.reloadConfiguration();
+        assertEquals(2, seen.size());
+    }
+
+    @Test
+    void testReloadIfChangedPublishesOnlyDifferences() throws Exception {
+        ConfigSnapshot before = configManager.getSnapshot();
+        
+        assertTrue(configManager.reloadIfChanged().isEmpty());
+        assertSame(before, configManager.getSnapshot());
+        
+        String yaml = Files.readString(configManager.getConfigPath());
+        Files.writeString(configManager.getConfigPath(), yaml.replace("interval_seconds: 30", "interval_seconds: 20"));
+        
+        ConfigDiff changes = configManager.reloadIfChanged();
+        assertEquals(List.of("activity.interval_seconds"), List.copyOf(changes.getChangedPaths()));
+        assertEquals(before.getVersion() + 1, configManager.getSnapshot().getVersion());
+        assertEquals(20, configManager.getSnapshot().getActivity().getIntervalSeconds());
+        assertSame(changes, configManager.getSnapshot().getChanges());
+    }
+
+    @Test
+    void testReloadIfChangedKeepsConfigurationOnInvalidFile() throws Exception {
+        ConfigSnapshot before = configManager.getSnapshot();
+        String yaml = Files.readString(configManager.getConfigPath());
+        Files.writeString(configManager.getConfigPath(), yaml.replace("interval_seconds: 30", "interval_seconds: -1"));
+        
+        assertThrows(AntiIdleException.ConfigurationException.class, () -> configManager.reloadIfChanged());
+        assertSame(before, configManager.getSnapshot());
+    }
+
+    @Test
+    void testActivityOverridesSurviveReloadWithoutChangingTheFile() throws Exception {
+        String yaml = Files.readString(configManager.getConfigPath());
+        
+        configManager.setActivityOverrides(ActivityOverrides.of(Map.of("interval_seconds", "60")));
+        assertEquals(60, configManager.getSnapshot().getActivity().getIntervalSeconds());
+        
+        Files.writeString(configManager.getConfigPath(), yaml.replace("simulation_key: \"SHIFT\"",
+            "simulation_key: \"F15\""));
+        ConfigDiff changes = configManager.reloadIfChanged();
+        assertEquals(List.of("activity.simulation_key"), List.copyOf(changes.getChangedPaths()));
+        assertEquals(60, configManager.getSnapshot().getActivity().getIntervalSeconds());
+        
+        configManager.reloadConfiguration();
+        assertEquals(60, configManager.getSnapshot().getActivity().getIntervalSeconds());
+        assertTrue(Files.readString(configManager.getConfigPath()).contains("interval_seconds: 30"));
+    }
+    
+    @Test
+    void testInvalidActivityOverridesAreRejected() throws Exception {
+        ConfigSnapshot before = configManager.getSnapshot();
+        ActivityOverrides overrides = ActivityOverrides.of(Map.of("interval_seconds", "0"));
+        
+        assertThrows(AntiIdleException.ConfigurationException.class,
+            () -> configManager.setActivityOverrides(overrides));
+        assertSame(before, configManager.getSnapshot());
+    }
+
+    @Test
+    void testInvalidSimulationKeyIsRejected() throws Exception {
+        ConfigSnapshot before = configManager.getSnapshot();
+        ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
+        config.getActivity().setSimulationKey("CTRL+F99");
+        
+        assertThrows(AntiIdleException.ConfigurationException.class, () -> configManager.updateConfig(config));
+        assertThrows(AntiIdleException.ConfigurationException.class,
+            () -> configManager.setActivityOverrides(ActivityOverrides.of(Map.of("simulation_key", "SHFIT"))));
+        assertSame(before, configManager.getSnapshot());
+        
+        String yaml = Files.readString(configManager.getConfigPath());
+        Files.writeString(configManager.getConfigPath(), yaml.replace("simulation_key: \"SHIFT\"",
+            "simulation_key: \"SHFIT\""));
+        assertThrows(AntiIdleException.ConfigurationException.class, () -> configManager.reloadIfChanged());
+        assertSame(before, configManager.getSnapshot());
+    }
+    
+    @Test
+    void testInvalidPatternIsRejected() throws Exception {
+        ConfigSnapshot before = configManager.getSnapshot();
+        ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
+        config.getActivity().setPattern("move 1; wiggle");
+        
+        assertThrows(AntiIdleException.ConfigurationException.class, () -> configManager.updateConfig(config));
+        assertThrows(AntiIdleException.ConfigurationException.class,
+            () -> configManager.setActivityOverrides(ActivityOverrides.of(Map.of("pattern", "repeat 0 {"))));
+        assertSame(before, configManager.getSnapshot());
+        
+        config.getActivity().setPattern("move -9..9 5; back; key F15 0");
+        configManager.updateConfig(config);
+        assertEquals("move -9..9 5; back; key F15 0", configManager.getSnapshot().getActivity().getPattern());
+    }
+    
+    @Test
+    void testInvalidFileIsMovedAsideOnLoad() throws Exception {
+        Path configPath = configManager.getConfigPath();
+        String yaml = Files.readString(configPath).replace("simulation_key: \"SHIFT\"", "simulation_key: \"SHFIT\"");
+        Files.writeString(configPath, yaml);
+        
+        try (ConfigurationManager loaded = new ConfigurationManager()) {
+            assertEquals("SHIFT", loaded.getSnapshot().getActivity().getSimulationKey());
+        }
+        assertEquals(yaml, Files.readString(configPath.resolveSibling(configPath.getFileName() + ".corrupt")));
+    }
 }
@@ -0,0 +1,78 @@
+package com.upp.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.upp.exception.AntiIdleException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for LogLevelUpdater.
+ */
+class LogLevelUpdaterTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private Logger logger;
+    private Level originalLevel;
+    private ConfigurationManager configManager;
+
+    @BeforeEach
+    void setUp() {
+        logger = (Logger) LoggerFactory.getLogger(LogLevelUpdater.LOGGER_NAME);
+        originalLevel = logger.getLevel();
+        configManager = new ConfigurationManager(tempDir.resolve("config.yml"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.setLevel(originalLevel);
+        configManager.close();
+    }
+
+    @Test
+    void testFollowsConfiguredLevelUntilClosed() throws Exception {
+        setLogLevel("debug");
+        LogLevelUpdater updater = LogLevelUpdater.install(configManager);
+        try {
+            assertEquals(Level.DEBUG, logger.getLevel());
+            assertTrue(LoggerFactory.getLogger("com.upp.core.ActivitySimulator").isDebugEnabled());
+
+            setLogLevel("WARN");
+            assertEquals(Level.WARN, logger.getLevel());
+            assertFalse(LoggerFactory.getLogger("com.upp.core.ActivitySimulator").isInfoEnabled());
+        } finally {
+            updater.close();
+        }
+
+        setLogLevel("ERROR");
+        assertEquals(Level.WARN, logger.getLevel());
+    }
+
+    @Test
+    void testUnknownLevelIsRejected() {
+        ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
+        config.getLogging().setLogLevel("VERBOSE");
+
+        assertThrows(AntiIdleException.ConfigurationException.class, () -> ConfigurationManager.validate(config));
+        assertTrue(LogLevelUpdater.isLevel("trace"));
+        assertFalse(LogLevelUpdater.isLevel(null));
+    }
+
+    private void setLogLevel(String level) throws AntiIdleException.ConfigurationException {
+        ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
+        config.getLogging().setLogLevel(level);
+        configManager.updateConfig(config);
+    }
+}
@@ -0,0 +1,83 @@
+package com.upp.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.event.KeyEvent;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for ActivityPattern.
+ */
+class ActivityPatternTest {
+
+    @Test
+    void testCompilesStepsToOpcodes() {
+        ActivityPattern pattern = ActivityPattern.compile("move 2..5 -1; wait 250; back; scroll -1; key CTRL+F15 40");
+
+        assertArrayEquals(new int[] {
+            ActivityPattern.MOVE, 2, 5, -1, -1,
+            ActivityPattern.WAIT, 250, 250,
+            ActivityPattern.BACK,
+            ActivityPattern.SCROLL, -1, -1,
+            ActivityPattern.PRESS, 2, KeyEvent.VK_CONTROL, KeyEvent.VK_F15,
+            ActivityPattern.WAIT, 40, 40,
+            ActivityPattern.RELEASE, 2, KeyEvent.VK_F15, KeyEvent.VK_CONTROL,
+        }, pattern.code());
+        assertEquals(290, pattern.getMaxDurationMillis());
+        assertEquals("move 2..5 -1; wait 250; back; scroll -1; key CTRL+F15 40", pattern.toString());
+    }
+
+    @Test
+    void testCompilesBlocks() {
+        ActivityPattern pattern = ActivityPattern.compile(
+            "repeat 2..3 { oneof { wait 10 | wait 30; alternate { scroll 1 | scroll -1 } } };");
+
+        int[] code = pattern.code();
+        assertEquals(ActivityPattern.REPEAT, code[0]);
+        assertEquals(code.length, code[3]);
+        assertEquals(ActivityPattern.ONE_OF, code[4]);
+        assertEquals(2, code[5]);
+        assertEquals(ActivityPattern.LOOP, code[code.length - 2]);
+        assertEquals(4, code[code.length - 1]);
+        assertEquals(1, pattern.getRepeatDepth());
+        assertEquals(1, pattern.getAlternations());
+        // The longer alternative, three times
+        assertEquals(90, pattern.getMaxDurationMillis());
+    }
+
+    @Test
+    void testKeyHoldDefaultsAndSequences() {
+        ActivityPattern pattern = ActivityPattern.compile("KEY shift,f15");
+
+        assertEquals(2 * ActivityPattern.DEFAULT_HOLD_MILLIS, pattern.getMaxDurationMillis());
+        assertEquals(ActivityPattern.PRESS, pattern.code()[0]);
+        assertEquals(KeyEvent.VK_SHIFT, pattern.code()[2]);
+        assertEquals(KeyEvent.VK_F15, pattern.code()[pattern.code().length - 1]);
+    }
+
+    @Test
+    void testRejectsInvalidPatterns() {
+        assertRejected("", "empty");
+        assertRejected("jump 3", "Unknown step 'jump'");
+        assertRejected("key NOPE", "Unknown key name 'NOPE'");
+        assertRejected("move 3", "Expected a number after 'move' at the end");
+        assertRejected("wait 5..1", "Range 5..1 of 'wait' is empty");
+        assertRejected("scroll 1000", "outside");
+        assertRejected("repeat 2 { back", "Expected '}' at the end");
+        assertRejected("oneof { back | scroll 1", "Expected '}' at the end");
+        assertRejected("back }", "Unexpected '}'");
+        assertRejected("back back", "Expected ';' but found 'back'");
+        assertRejected("repeat 100 { repeat 100 { wait 100 } }", "longer than");
+        assertRejected("repeat 1 { ".repeat(9) + "back" + " }".repeat(9), "nested more than");
+    }
+
+    private static void assertRejected(String text, String message) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> ActivityPattern.compile(text));
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+}
@@ -1,25 +1,53 @@
 package com.upp.core;
 
+import com.upp.config.ConfigSnapshot;
 import com.upp.config.ConfigurationManager;
 import com.upp.exception.AntiIdleException;
+import com.upp.idle.IdleInhibitor;
+import com.upp.idle.IdleTimeSource;
+import com.upp.idle.IdleTimeoutDetector;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockMakers;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import java.awt.GraphicsEnvironment;
+import java.awt.event.KeyEvent;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 /**
  * Unit tests for ActivitySimulator.
  */
 class ActivitySimulatorTest {
 
+    @TempDir
+    private Path tempDir;
+
     private ConfigurationManager configManager;
     private ActivitySimulator activitySimulator;
 
@@ -30,6 +58,7 @@ class ActivitySimulatorTest {
         ConfigurationManager.AntiIdleConfig config = new ConfigurationManager.AntiIdleConfig();
         config.getActivity().setIntervalSeconds(1); // Short interval for testing
         when(configManager.getConfig()).thenReturn(config);
+        when(configManager.getSnapshot()).thenReturn(new ConfigSnapshot(1, config));
     }
 
     @Test
@@ -133,6 +162,7 @@ class ActivitySimulatorTest {
             ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
             config.getActivity().setMouseMovementEnabled(false);
             config.getActivity().setKeyboardSimulationEnabled(false);
+            when(configManager.getSnapshot()).thenReturn(new ConfigSnapshot(2, config));
             
             activitySimulator.startSimulation();
             assertTrue(activitySimulator.isRunning());
@@ -145,4 +175,533 @@ class ActivitySimulatorTest {
             Assumptions.assumeTrue(false, "Robot initialization failed: " + e.getMessage());
         }
     }
+
+    @Test
+    void testActivityCycleWithRecordingBackend() throws Exception {
+        RecordingInputBackend backend = new RecordingInputBackend();
+        backend.setPointerPosition(100, 200);
+        activitySimulator = new ActivitySimulator(configManager, backend);
+        activitySimulator.setMouseSettleDelayMs(0);
+        
+        activitySimulator.performActivity();
+        // The key is released once the key press duration has passed, and the cycle flushed by this thread
+        await().atMost(Duration.ofSeconds(5))
+            .until(() -> backend.countEvents(RecordingInputBackend.KEY_RELEASE) >= 1);
+        assertEquals(0, backend.countEvents(RecordingInputBackend.FLUSH));
+        activitySimulator.finishCycle();
+        
+        assertEquals(5, backend.size());
+        assertEquals(RecordingInputBackend.MOUSE_MOVE, backend.getType(0));
+        assertEquals(101, backend.getFirstArg(0));
+        assertEquals(200, backend.getSecondArg(0));
+        assertEquals(RecordingInputBackend.MOUSE_MOVE, backend.getType(1));
+        assertEquals(100, backend.getFirstArg(1));
+        assertEquals(RecordingInputBackend.KEY_PRESS, backend.getType(2));
+        assertEquals(KeyEvent.VK_SHIFT, backend.getFirstArg(2));
+        assertEquals(RecordingInputBackend.KEY_RELEASE, backend.getType(3));
+        assertEquals(RecordingInputBackend.FLUSH, backend.getType(4));
+    }
+
+    @Test
+    void testChordIsReleasedInReverseOrder() throws Exception {
+        ConfigurationManager.AntiIdleConfig config = new ConfigurationManager.AntiIdleConfig();
+        config.getActivity().setMouseMovementEnabled(false);
+        config.getActivity().setKeyPressDurationMs(0);
+        config.getActivity().setSimulationKey("CTRL+F15");
+        when(configManager.getSnapshot()).thenReturn(new ConfigSnapshot(2, config));
+        RecordingInputBackend backend = new RecordingInputBackend();
+        activitySimulator = new ActivitySimulator(configManager, backend);
+        
+        activitySimulator.performActivity();
+        
+        assertEquals(KeyEvent.VK_CONTROL, backend.getFirstArg(0));
+        assertEquals(KeyEvent.VK_F15, backend.getFirstArg(1));
+        assertEquals(RecordingInputBackend.KEY_RELEASE, backend.getType(2));
+        assertEquals(KeyEvent.VK_F15, backend.getFirstArg(2));
+        assertEquals(KeyEvent.VK_CONTROL, backend.getFirstArg(3));
+    }
+
+    @Test
+    void testStartStopSimulationWithRecordingBackend() throws Exception {
+        RecordingInputBackend backend = new RecordingInputBackend();
+        activitySimulator = new ActivitySimulator(configManager, backend);
+        activitySimulator.setMouseSettleDelayMs(0);
+        
+        activitySimulator.startSimulation();
+        assertTrue(activitySimulator.isRunning());
+        await().atMost(Duration.ofSeconds(5))
+            .until(() -> backend.countEvents(RecordingInputBackend.FLUSH) >= 1);
+        
+        activitySimulator.stopSimulation();
+        assertFalse(activitySimulator.isRunning());
+    }
+
+    @Test
+    void testStopWakesWaitingThreadImmediately() throws Exception {
+        ConfigurationManager.AntiIdleConfig config = new ConfigurationManager.AntiIdleConfig();
+        config.getActivity().setIntervalSeconds(30);
+        config.getActivity().setKeyPressDurationMs(0);
+        when(configManager.getSnapshot()).thenReturn(new ConfigSnapshot(2, config));
+        RecordingInputBackend backend = new RecordingInputBackend();
+        activitySimulator = new ActivitySimulator(configManager, backend);
+        activitySimulator.setMouseSettleDelayMs(0);
+        
+        activitySimulator.startSimulation();
+        await().atMost(Duration.ofSeconds(5))
+            .until(() -> backend.countEvents(RecordingInputBackend.FLUSH) >= 1);
+        
+        long start = System.nanoTime();
+        activitySimulator.stopSimulation();
+        long stopMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        assertFalse(activitySimulator.isRunning());
+        assertTrue(stopMillis < 500, "Stopping took " + stopMillis + "ms");
+    }
+
+    @Test
+    void testShorterIntervalWakesWaitingThread() throws Exception {
+        try (ConfigurationManager realConfigManager = new ConfigurationManager(tempDir.resolve("config.yml"))) {
+            ConfigurationManager.AntiIdleConfig config = realConfigManager.getConfig();
+            config.getActivity().setIntervalSeconds(30);
+            config.getActivity().setKeyPressDurationMs(0);
+            realConfigManager.updateConfig(config);
+            RecordingInputBackend backend = new RecordingInputBackend();
+            activitySimulator = new ActivitySimulator(realConfigManager, backend);
+            activitySimulator.setMouseSettleDelayMs(0);
+            
+            activitySimulator.startSimulation();
+            await().atMost(Duration.ofSeconds(5))
+                .until(() -> backend.countEvents(RecordingInputBackend.FLUSH) >= 1);
+            
+            // Without the wakeup the next cycle would only run after 30 seconds
+            config.getActivity().setIntervalSeconds(1);
+            realConfigManager.updateConfig(config);
+            await().atMost(Duration.ofSeconds(5))
+                .until(() -> backend.countEvents(RecordingInputBackend.FLUSH) >= 2);
+            
+            activitySimulator.stopSimulation();
+        }
+    }
+
+    @Test
+    void testAdaptiveIntervalEndsBeforeIdleTimeout() throws Exception {
+        try (ConfigurationManager realConfigManager = new ConfigurationManager(tempDir.resolve("config.yml"))) {
+            ConfigurationManager.AntiIdleConfig config = realConfigManager.getConfig();
+            config.getActivity().setIntervalSeconds(30);
+            config.getActivity().setKeyPressDurationMs(0);
+            config.getActivity().setIntervalMode(ConfigurationManager.ActivitySettings.INTERVAL_ADAPTIVE);
+            config.getActivity().setAdaptiveMarginSeconds(45);
+            realConfigManager.updateConfig(config);
+            activitySimulator = new ActivitySimulator(realConfigManager, new RecordingInputBackend());
+            activitySimulator.setMouseSettleDelayMs(0);
+            activitySimulator.setIdleTimeoutDetector(new IdleTimeoutDetector(tempDir, List.of(),
+                List.of("sh", "-c", "echo 'uint32 300'"), null));
+            
+            activitySimulator.startSimulation();
+            await().atMost(Duration.ofSeconds(5)).until(() -> activitySimulator.getStats().getCycles() >= 1);
+            
+            ActivitySimulator.ActivityStats stats = activitySimulator.getStats();
+            assertEquals(255, stats.getIntervalSeconds());
+            assertEquals("gnome idle-delay", stats.getIdleTimeout().source());
+            
+            // Never less than half the timeout, however large the margin
+            config.getActivity().setAdaptiveMarginSeconds(280);
+            realConfigManager.updateConfig(config);
+            assertEquals(150, activitySimulator.getStats().getIntervalSeconds());
+            
+            config.getActivity().setIntervalMode(ConfigurationManager.ActivitySettings.INTERVAL_FIXED);
+            realConfigManager.updateConfig(config);
+            stats = activitySimulator.getStats();
+            assertEquals(30, stats.getIntervalSeconds());
+            assertFalse(stats.getIdleTimeout().isKnown());
+            activitySimulator.stopSimulation();
+        }
+    }
+    
+    @Test
+    void testIntervalModeChangeReadsIdleTimeoutOnSimulationThread() throws Exception {
+        try (ConfigurationManager realConfigManager = new ConfigurationManager(tempDir.resolve("config.yml"))) {
+            ConfigurationManager.AntiIdleConfig config = realConfigManager.getConfig();
+            config.getActivity().setIntervalSeconds(30);
+            realConfigManager.updateConfig(config);
+            activitySimulator = new ActivitySimulator(realConfigManager, new RecordingInputBackend());
+            activitySimulator.setMouseSettleDelayMs(0);
+            activitySimulator.setIdleTimeoutDetector(new IdleTimeoutDetector(tempDir, List.of(),
+                List.of("sh", "-c", "sleep 1; echo 'uint32 300'"), null));
+            activitySimulator.startSimulation();
+            await().atMost(Duration.ofSeconds(5)).until(() -> activitySimulator.getStats().getCycles() >= 1);
+            
+            // The slow helper command must not hold up the thread publishing the change
+            long start = System.nanoTime();
+            config.getActivity().setIntervalMode(ConfigurationManager.ActivitySettings.INTERVAL_ADAPTIVE);
+            realConfigManager.updateConfig(config);
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+            
+            await().atMost(Duration.ofSeconds(5))
+                .until(() -> activitySimulator.getStats().getIntervalSeconds() == 270);
+            activitySimulator.stopSimulation();
+        }
+    }
+    
+    @Test
+    void testLoweredIdleTimeoutIsSeenDuringWait() throws Exception {
+        Path timeoutFile = tempDir.resolve("idle-delay");
+        Files.writeString(timeoutFile, "uint32 300");
+        ConfigurationManager.AntiIdleConfig config = new ConfigurationManager.AntiIdleConfig();
+        config.getActivity().setIntervalSeconds(30);
+        config.getActivity().setKeyPressDurationMs(0);
+        config.getActivity().setIntervalMode(ConfigurationManager.ActivitySettings.INTERVAL_ADAPTIVE);
+        config.getActivity().setAdaptiveMarginSeconds(0);
+        when(configManager.getSnapshot()).thenReturn(new ConfigSnapshot(2, config));
+        activitySimulator = new ActivitySimulator(configManager, new RecordingInputBackend());
+        activitySimulator.setMouseSettleDelayMs(0);
+        activitySimulator.setIdleTimeoutRefreshMillis(100);
+        activitySimulator.setIdleTimeoutDetector(new IdleTimeoutDetector(tempDir, List.of(),
+            List.of("cat", timeoutFile.toString()), null));
+        
+        activitySimulator.startSimulation();
+        await().atMost(Duration.ofSeconds(5)).until(() -> activitySimulator.getStats().getCycles() >= 1);
+        assertEquals(300, activitySimulator.getStats().getIntervalSeconds());
+        
+        // Lowered while the simulation waits out the 300 s interval
+        Files.writeString(timeoutFile, "uint32 2");
+        await().atMost(Duration.ofSeconds(6)).until(() -> activitySimulator.getStats().getCycles() >= 2);
+        activitySimulator.stopSimulation();
+        
+        assertEquals(2, activitySimulator.getStats().getIntervalSeconds());
+    }
+    
+    @Test
+    void testAdaptiveIntervalFallsBackWithoutIdleTimeout() throws Exception {
+        ConfigurationManager.AntiIdleConfig config = new ConfigurationManager.AntiIdleConfig();
+        config.getActivity().setIntervalSeconds(40);
+        config.getActivity().setIntervalMode(ConfigurationManager.ActivitySettings.INTERVAL_ADAPTIVE);
+        when(configManager.getSnapshot()).thenReturn(new ConfigSnapshot(2, config));
+        activitySimulator = new ActivitySimulator(configManager, new RecordingInputBackend());
+        activitySimulator.setMouseSettleDelayMs(0);
+        activitySimulator.setIdleTimeoutDetector(new IdleTimeoutDetector(tempDir, List.of(), List.of(), null));
+        
+        activitySimulator.startSimulation();
+        await().atMost(Duration.ofSeconds(5)).until(() -> activitySimulator.getStats().getCycles() >= 1);
+        activitySimulator.stopSimulation();
+        
+        assertEquals(40, activitySimulator.getStats().getIntervalSeconds());
+    }
+    
+    @Test
+    void testFixedRateRecordsLateness() throws Exception {
+        ConfigurationManager.AntiIdleConfig config = new ConfigurationManager.AntiIdleConfig();
+        config.getActivity().setIntervalSeconds(1);
+        config.getActivity().setKeyPressDurationMs(300);
+        config.getActivity().setSchedulingMode(ConfigurationManager.ActivitySettings.SCHEDULING_FIXED_RATE);
+        when(configManager.getSnapshot()).thenReturn(new ConfigSnapshot(2, config));
+        RecordingInputBackend backend = new RecordingInputBackend();
+        activitySimulator = new ActivitySimulator(configManager, backend);
+        activitySimulator.setMouseSettleDelayMs(0);
+        
+        activitySimulator.startSimulation();
+        await().atMost(Duration.ofSeconds(5))
+            .until(() -> backend.countEvents(RecordingInputBackend.FLUSH) >= 2);
+        activitySimulator.stopSimulation();
+        
+        ActivitySimulator.ActivityStats stats = activitySimulator.getStats();
+        assertTrue(stats.getLateness().getCount() >= 2);
+        assertTrue(stats.getLateness().getMax() < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, stats.getSuspends());
+        
+        // Cycles start on a one-second grid, not one second after the 300 ms cycle ended
+        long period = backend.getTimestamp(5) - backend.getTimestamp(0);
+        assertEquals(RecordingInputBackend.MOUSE_MOVE, backend.getType(5));
+        assertTrue(period < TimeUnit.MILLISECONDS.toNanos(1200), "Period was " + period + "ns");
+    }
+
+    @Test
+    void testSkipsCyclesWhileUserIsActive() throws Exception {
+        AtomicLong idleMillis = new AtomicLong();
+        RecordingInputBackend backend = new RecordingInputBackend();
+        activitySimulator = new ActivitySimulator(configManager, backend);
+        activitySimulator.setMouseSettleDelayMs(0);
+        activitySimulator.setIdleTimeSource(new IdleTimeSource() {
+            @Override
+            public long getIdleMillis() {
+                return idleMillis.get();
+            }
+
+            @Override
+            public String getName() {
+                return "test";
+            }
+        });
+        
+        activitySimulator.startSimulation();
+        await().atMost(Duration.ofSeconds(5))
+            .until(() -> activitySimulator.getStats().getSkippedCycles() >= 2);
+        assertEquals(0, backend.getEventCount());
+        
+        // Once the user has been idle for longer than the interval, cycles run again
+        idleMillis.set(60_000);
+        await().atMost(Duration.ofSeconds(5))
+            .until(() -> backend.countEvents(RecordingInputBackend.FLUSH) >= 1);
+        activitySimulator.stopSimulation();
+    }
+
+    @Test
+    void testInhibitModeInjectsNothing() throws Exception {
+        ConfigurationManager.AntiIdleConfig config = new ConfigurationManager.AntiIdleConfig();
+        config.getActivity().setIntervalSeconds(1);
+        config.getActivity().setEngineMode(ConfigurationManager.ActivitySettings.ENGINE_INHIBIT);
+        when(configManager.getSnapshot()).thenReturn(new ConfigSnapshot(2, config));
+        AtomicInteger renewals = new AtomicInteger();
+        AtomicBoolean released = new AtomicBoolean();
+        RecordingInputBackend backend = new RecordingInputBackend();
+        activitySimulator = new ActivitySimulator(configManager, backend);
+        activitySimulator.setIdleInhibitor(new IdleInhibitor() {
+            @Override
+            public boolean renew(String reason) {
+                renewals.incrementAndGet();
+                return true;
+            }
+
+            @Override
+            public String getName() {
+                return "test";
+            }
+
+            @Override
+            public void close() {
+                released.set(true);
+            }
+        });
+        
+        activitySimulator.startSimulation();
+        await().atMost(Duration.ofSeconds(5)).until(() -> renewals.get() >= 2);
+        activitySimulator.stopSimulation();
+        
+        assertEquals(0, backend.getEventCount());
+        assertTrue(released.get());
+    }
+
+    @Test
+    void testStatisticsCountInjectedEvents() throws Exception {
+        RecordingInputBackend backend = new RecordingInputBackend();
+        activitySimulator = new ActivitySimulator(configManager, backend);
+        activitySimulator.setMouseSettleDelayMs(0);
+        assertEquals(0, activitySimulator.getStats().getStartTime());
+        
+        long before = System.currentTimeMillis();
+        activitySimulator.startSimulation();
+        await().atMost(Duration.ofSeconds(5)).until(() -> activitySimulator.getStats().getCycles() >= 2);
+        
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("com.upp:type=ActivitySimulator,session=default");
+        assertTrue((Long) server.getAttribute(name, "Cycles") >= 2);
+        activitySimulator.stopSimulation();
+        assertFalse(server.isRegistered(name));
+        
+        ActivitySimulator.ActivityStats stats = activitySimulator.getStats();
+        assertTrue(stats.getStartTime() >= before);
+        assertEquals(stats.getCycles() * 2, stats.getMouseMoves());
+        assertEquals(stats.getCycles(), stats.getKeyPresses());
+        assertEquals(0, stats.getFailures());
+        assertEquals(stats.getCycles(), stats.getCycleDuration().getCount());
+        // Two moves, a press, a release and a flush per cycle
+        assertEquals(stats.getCycles() * 5, stats.getInjectionLatency().getCount());
+        assertTrue(stats.getCycleDuration().getMax() >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void testJournalRecordsInjectedEvents() throws Exception {
+        ConfigurationManager.AntiIdleConfig config = new ConfigurationManager.AntiIdleConfig();
+        config.getActivity().setKeyPressDurationMs(0);
+        config.getJournal().setEnabled(true);
+        config.getJournal().setDirectory(tempDir.resolve("journal").toString());
+        when(configManager.getSnapshot()).thenReturn(new ConfigSnapshot(2, config));
+        RecordingInputBackend backend = new RecordingInputBackend();
+        backend.setPointerPosition(100, 200);
+        activitySimulator = new ActivitySimulator(configManager, backend);
+        activitySimulator.setMouseSettleDelayMs(0);
+        
+        long before = System.currentTimeMillis();
+        activitySimulator.startSimulation();
+        await().atMost(Duration.ofSeconds(5)).until(() -> activitySimulator.getStats().getCycles() >= 1);
+        activitySimulator.stopSimulation();
+        
+        List<Path> segments = InjectionJournal.listSegments(tempDir.resolve("journal"));
+        assertEquals(1, segments.size());
+        try (InjectionJournalReader reader = InjectionJournalReader.open(segments.get(0))) {
+            assertTrue(reader.next());
+            assertEquals(InjectionJournal.MOUSE_MOVE, reader.getType());
+            assertEquals(101, reader.getX());
+            assertEquals(200, reader.getY());
+            assertTrue(reader.getWallMillis() >= before);
+            assertTrue(reader.next());
+            assertEquals(100, reader.getX());
+            assertTrue(reader.next());
+            assertEquals(InjectionJournal.KEY_PRESS, reader.getType());
+            assertEquals(KeyEvent.VK_SHIFT, reader.getKeyCode());
+            assertTrue(reader.next());
+            assertEquals(InjectionJournal.KEY_RELEASE, reader.getType());
+        }
+    }
+
+    @Test
+    void testPatternReplacesMouseAndKeySettings() throws Exception {
+        ConfigurationManager.AntiIdleConfig config = new ConfigurationManager.AntiIdleConfig();
+        config.getActivity().setPattern("move -9..9 5; scroll -3..3; back; key F15 0");
+        when(configManager.getSnapshot()).thenReturn(new ConfigSnapshot(2, config));
+        RecordingInputBackend first = new RecordingInputBackend();
+        RecordingInputBackend second = new RecordingInputBackend();
+        for (RecordingInputBackend backend : List.of(first, second)) {
+            backend.setPointerPosition(100, 200);
+            activitySimulator = new ActivitySimulator(configManager, backend);
+            activitySimulator.setRandomSeed(7);
+            for (int i = 0; i < 3; i++) {
+                activitySimulator.performActivity();
+            }
+        }
+        
+        // Move, wheel, move back, press, release and flush per cycle, the same for the same seed
+        assertEquals(18, first.size());
+        assertEquals(RecordingInputBackend.MOUSE_MOVE, first.getType(0));
+        assertEquals(205, first.getSecondArg(0));
+        assertEquals(RecordingInputBackend.MOUSE_WHEEL, first.getType(1));
+        assertEquals(100, first.getFirstArg(2));
+        assertEquals(KeyEvent.VK_F15, first.getFirstArg(3));
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.getType(i), second.getType(i));
+            assertEquals(first.getFirstArg(i), second.getFirstArg(i));
+            assertEquals(first.getSecondArg(i), second.getSecondArg(i));
+        }
+        assertEquals(3, activitySimulator.getStats().getKeyPresses());
+    }
+
+    @Test
+    void testTrajectoryGlidesAwayAndBackOnScreen() throws Exception {
+        ConfigurationManager.AntiIdleConfig config = new ConfigurationManager.AntiIdleConfig();
+        config.getActivity().setMouseMovementStyle(ConfigurationManager.ActivitySettings.MOUSE_STYLE_TRAJECTORY);
+        config.getActivity().setMouseMovementDistance(40);
+        config.getActivity().setMouseMovementDurationMs(50);
+        config.getActivity().setKeyboardSimulationEnabled(false);
+        when(configManager.getSnapshot()).thenReturn(new ConfigSnapshot(2, config));
+        RecordingInputBackend backend = new RecordingInputBackend();
+        backend.setScreenSize(800, 600);
+        backend.setPointerPosition(790, 300);
+        activitySimulator = new ActivitySimulator(configManager, backend);
+        activitySimulator.setRandomSeed(7);
+
+        activitySimulator.performActivity();
+
+        // Three frames out to the left, as the right edge is near, three back and a flush
+        assertEquals(7, backend.size());
+        assertEquals(750, backend.getFirstArg(2));
+        assertEquals(790, backend.getFirstArg(5));
+        assertEquals(300, backend.getSecondArg(5));
+        assertEquals(RecordingInputBackend.FLUSH, backend.getType(6));
+        assertEquals(6, activitySimulator.getStats().getMouseMoves());
+    }
+
+    @Test
+    void testInvalidPatternFallsBackToMouseAndKeySettings() throws Exception {
+        ConfigurationManager.AntiIdleConfig config = new ConfigurationManager.AntiIdleConfig();
+        config.getActivity().setPattern("move 1; wiggle");
+        when(configManager.getSnapshot()).thenReturn(new ConfigSnapshot(2, config));
+        RecordingInputBackend backend = new RecordingInputBackend();
+        activitySimulator = new ActivitySimulator(configManager, backend);
+        activitySimulator.setMouseSettleDelayMs(0);
+        
+        activitySimulator.performActivity();
+        await().atMost(Duration.ofSeconds(5))
+            .until(() -> backend.countEvents(RecordingInputBackend.KEY_RELEASE) >= 1);
+        activitySimulator.finishCycle();
+        
+        assertEquals(5, backend.size());
+        assertEquals(RecordingInputBackend.FLUSH, backend.getType(4));
+    }
+
+    @Test
+    void testListenersFollowLifecycleAndFailures() throws Exception {
+        InputBackend backend = mockBackend();
+        doThrow(new IllegalStateException("no display")).when(backend).mouseMove(anyInt(), anyInt());
+        activitySimulator = new ActivitySimulator(configManager, backend);
+        activitySimulator.setMouseSettleDelayMs(0);
+        List<String> events = new CopyOnWriteArrayList<>();
+        activitySimulator.addActivityListener(new ActivityListener() {
+            @Override
+            public void simulationStarted(ActivitySimulator simulator) {
+                events.add("started");
+            }
+
+            @Override
+            public void cycleCompleted(ActivitySimulator simulator) {
+                events.add("cycle");
+            }
+
+            @Override
+            public void injectionFailed(ActivitySimulator simulator, Exception error) {
+                events.add("failed: " + error.getMessage());
+            }
+
+            @Override
+            public void simulationStopped(ActivitySimulator simulator, Throwable cause) {
+                events.add("stopped: " + cause);
+            }
+        });
+        
+        activitySimulator.startSimulation();
+        await().atMost(Duration.ofSeconds(5)).until(() -> events.contains("cycle"));
+        activitySimulator.stopSimulation();
+        
+        assertEquals(List.of("started", "failed: no display", "cycle"), events.subList(0, 3));
+        assertEquals("stopped: null", events.get(events.size() - 1));
+    }
+
+    @Test
+    void testTimedCycleCompletesOnSimulationThread() throws Exception {
+        InputBackend backend = mockBackend();
+        List<String> events = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> events.add("flush on " + Thread.currentThread().getName())).when(backend).flush();
+        activitySimulator = new ActivitySimulator(configManager, backend);
+        activitySimulator.setMouseSettleDelayMs(50);
+        activitySimulator.addActivityListener(new ActivityListener() {
+            @Override
+            public void cycleCompleted(ActivitySimulator simulator) {
+                events.add("cycle on " + Thread.currentThread().getName());
+            }
+        });
+        
+        activitySimulator.startSimulation();
+        await().atMost(Duration.ofSeconds(5)).until(() -> events.size() >= 2);
+        activitySimulator.stopSimulation();
+        
+        // The key is released on the injection scheduler, which hands the flush back
+        assertEquals(List.of("flush on ActivitySimulator", "cycle on ActivitySimulator"), events.subList(0, 2));
+    }
+
+    @Test
+    void testListenersSeeSimulationDie() throws Exception {
+        InputBackend backend = mockBackend();
+        doThrow(new InternalError("backend crashed")).when(backend).flush();
+        activitySimulator = new ActivitySimulator(configManager, backend, "crashing",
+            Thread.ofPlatform().daemon().uncaughtExceptionHandler((t, e) -> { }).factory());
+        activitySimulator.setMouseSettleDelayMs(0);
+        List<Throwable> causes = new CopyOnWriteArrayList<>();
+        activitySimulator.addActivityListener(new ActivityListener() {
+            @Override
+            public void simulationStopped(ActivitySimulator simulator, Throwable cause) {
+                causes.add(cause);
+            }
+        });
+        
+        activitySimulator.startSimulation();
+        await().atMost(Duration.ofSeconds(5)).until(() -> !causes.isEmpty());
+        
+        assertFalse(activitySimulator.isRunning());
+        assertEquals("backend crashed", causes.get(0).getMessage());
+    }
+
+    private static InputBackend mockBackend() {
+        // Inline mocks instrument the static helpers of the interface, which would then allocate in the
+        // allocation tests of other classes run later in the same JVM; subclass mocks leave them alone
+        return mock(InputBackend.class, withSettings().mockMaker(MockMakers.SUBCLASS));
+    }
 }
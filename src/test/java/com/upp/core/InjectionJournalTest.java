@@ -0,0 +1,151 @@
+package com.upp.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for InjectionJournal and InjectionJournalReader.
+ */
+class InjectionJournalTest {
+
+    private static final int ENTRIES_PER_SEGMENT = 4;
+    private static final long SEGMENT_BYTES =
+        InjectionJournal.HEADER_SIZE + ENTRIES_PER_SEGMENT * InjectionJournal.ENTRY_SIZE;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void testEntriesAreReadBackAcrossSegments() throws Exception {
+        try (InjectionJournal journal = InjectionJournal.open(tempDir, "kiosk", SEGMENT_BYTES)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(InjectionJournal.KEY_PRESS, 1000 + i, 50 + i, 16, i, -i);
+            }
+        }
+
+        List<Path> segments = InjectionJournal.listSegments(tempDir);
+        assertEquals(3, segments.size());
+        int count = 0;
+        for (Path segment : segments) {
+            assertTrue(InjectionJournal.segmentStartMillis(segment) > 0);
+            try (InjectionJournalReader reader = InjectionJournalReader.open(segment)) {
+                while (reader.next()) {
+                    assertEquals(InjectionJournal.KEY_PRESS, reader.getType());
+                    assertEquals("keyPress", reader.getTypeName());
+                    assertEquals(1000 + count, reader.getMonotonicNanos());
+                    assertEquals(50 + count, reader.getLatencyNanos());
+                    assertEquals(16, reader.getKeyCode());
+                    assertEquals(count, reader.getX());
+                    assertEquals(-count, reader.getY());
+                    assertEquals("kiosk", reader.getSession());
+                    assertTrue(reader.getWallMillis() > 0);
+                    count++;
+                }
+            }
+        }
+        assertEquals(10, count);
+    }
+
+    @Test
+    void testReaderStopsAtEntriesWrittenSoFar() throws Exception {
+        try (InjectionJournal journal = InjectionJournal.open(tempDir, null, 1 << 20)) {
+            journal.append(InjectionJournal.MOUSE_MOVE, 1, 2, 0, 10, 20);
+            Path segment = InjectionJournal.listSegments(tempDir).get(0);
+            try (InjectionJournalReader reader = InjectionJournalReader.open(segment)) {
+                assertTrue(reader.next());
+                assertNull(reader.getSession());
+                assertFalse(reader.next());
+            }
+        }
+    }
+
+    @Test
+    void testStagedEntriesAreWrittenOnCommit() throws Exception {
+        try (InjectionJournal journal = InjectionJournal.open(tempDir, null, 1 << 20)) {
+            long injectedAt = System.nanoTime() - TimeUnit.SECONDS.toNanos(2);
+            for (int i = 0; i < 20; i++) {
+                journal.add(InjectionJournal.KEY_PRESS, injectedAt, 5, i, 0, 0);
+            }
+            Path segment = InjectionJournal.listSegments(tempDir).get(0);
+            try (InjectionJournalReader reader = InjectionJournalReader.open(segment)) {
+                assertFalse(reader.next());
+            }
+
+            long committedAt = System.currentTimeMillis();
+            journal.commit();
+            try (InjectionJournalReader reader = InjectionJournalReader.open(segment)) {
+                for (int i = 0; i < 20; i++) {
+                    assertTrue(reader.next());
+                    assertEquals(i, reader.getKeyCode());
+                    // The wall-clock time is that of the injection, not of the commit
+                    long age = committedAt - reader.getWallMillis();
+                    assertTrue(age >= 1900 && age < 3000, "Entry is " + age + " ms old");
+                }
+                assertFalse(reader.next());
+            }
+        }
+    }
+
+    @Test
+    void testLongSessionIsTruncatedAtCharacterBoundary() throws Exception {
+        String session = "display-" + "\u00e9".repeat(20);
+        try (InjectionJournal journal = InjectionJournal.open(tempDir, session, SEGMENT_BYTES)) {
+            journal.append(InjectionJournal.MOUSE_MOVE, 1, 2, 0, 10, 20);
+        }
+
+        Path segment = InjectionJournal.listSegments(tempDir).get(0);
+        assertTrue(segment.getFileName().toString().endsWith("-display-____________________.aij"));
+        try (InjectionJournalReader reader = InjectionJournalReader.open(segment)) {
+            assertTrue(reader.next());
+            assertEquals("display-" + "\u00e9".repeat(8), reader.getSession());
+        }
+    }
+
+    @Test
+    void testAppendAllocatesNothing() throws Exception {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        try (InjectionJournal journal = InjectionJournal.open(tempDir, "kiosk", 1 << 20)) {
+            for (int i = 0; i < 1000; i++) {
+                journal.append(InjectionJournal.KEY_RELEASE, i, i, 16, 0, 0);
+            }
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < 10_000; i++) {
+                journal.append(InjectionJournal.KEY_RELEASE, i, i, 16, 0, 0);
+            }
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            // Allow for the measurement itself, not for anything per entry
+            assertTrue(allocated < 1024, "Allocated " + allocated + " bytes for 10000 entries");
+        }
+    }
+
+    @Test
+    void testClosedJournalRejectsAppends() throws Exception {
+        InjectionJournal journal = InjectionJournal.open(tempDir, null, SEGMENT_BYTES);
+        journal.close();
+
+        assertThrows(IOException.class, () -> journal.append(InjectionJournal.MOUSE_MOVE, 1, 2, 0, 10, 20));
+    }
+
+    @Test
+    void testReaderRejectsOtherFiles() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("injections-0000000000000000001-x.aij"),
+            "not a journal segment, just some text long enough to hold a header of sixty-four bytes");
+
+        assertThrows(IOException.class, () -> InjectionJournalReader.open(file));
+        assertEquals(1, InjectionJournal.segmentStartMillis(file));
+    }
+}
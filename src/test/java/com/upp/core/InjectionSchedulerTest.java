@@ -0,0 +1,80 @@
+package com.upp.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for InjectionScheduler.
+ */
+class InjectionSchedulerTest {
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void testRunsStepsInDeadlineOrderOnOneThread() {
+        InjectionScheduler scheduler = InjectionScheduler.shared();
+        List<String> steps = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        long start = System.nanoTime();
+        long[] ranAt = new long[3];
+        for (int i : new int[] {2, 0, 1}) {
+            scheduler.scheduleAt(() -> {
+                ranAt[i] = System.nanoTime();
+                steps.add("step " + i);
+                threads.add(Thread.currentThread());
+            }, start + (i + 1) * 20 * MILLIS);
+        }
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> steps.size() == 3);
+
+        assertEquals(List.of("step 0", "step 1", "step 2"), steps);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(ranAt[i] - start >= (i + 1) * 20 * MILLIS, "Step " + i + " ran early");
+        }
+        assertSame(threads.get(0), threads.get(2));
+        assertEquals("antiidle-injection", threads.get(0).getName());
+        assertTrue(threads.get(0).isDaemon());
+    }
+
+    @Test
+    void testEarlierStepWakesSleepingDriver() {
+        InjectionScheduler scheduler = InjectionScheduler.shared();
+        AtomicBoolean late = new AtomicBoolean();
+        AtomicBoolean early = new AtomicBoolean();
+        long lateHandle = scheduler.scheduleAt(() -> late.set(true), System.nanoTime() + 60_000 * MILLIS);
+        long start = System.nanoTime();
+
+        scheduler.scheduleAt(() -> early.set(true), start + 10 * MILLIS);
+
+        await().atMost(Duration.ofSeconds(5)).untilTrue(early);
+        assertTrue(System.nanoTime() - start < 2000 * MILLIS);
+        assertTrue(scheduler.cancel(lateHandle));
+        assertFalse(late.get());
+    }
+
+    @Test
+    void testCancelledStepDoesNotRun() {
+        InjectionScheduler scheduler = InjectionScheduler.shared();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicBoolean marker = new AtomicBoolean();
+        long start = System.nanoTime();
+        long handle = scheduler.scheduleAt(() -> cancelled.set(true), start + 20 * MILLIS);
+        scheduler.scheduleAt(() -> marker.set(true), start + 40 * MILLIS);
+
+        assertTrue(scheduler.cancel(handle));
+        await().atMost(Duration.ofSeconds(5)).untilTrue(marker);
+
+        assertFalse(cancelled.get());
+        assertFalse(scheduler.cancel(handle));
+    }
+}
@@ -0,0 +1,223 @@
+package com.upp.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.event.KeyEvent;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for InjectionSequence.
+ */
+class InjectionSequenceTest {
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void testStepsDueNowRunOnCallingThread() {
+        RecordingTarget target = new RecordingTarget();
+        target.backend.setPointerPosition(100, 200);
+        InjectionSequence sequence = new InjectionSequence(InjectionScheduler.shared(), target);
+
+        sequence.start(true, 5, 0, KeySequence.parse("CTRL+F15"), 0);
+
+        RecordingInputBackend backend = target.backend;
+        assertEquals(6, backend.size());
+        assertEquals(105, backend.getFirstArg(0));
+        assertEquals(100, backend.getFirstArg(1));
+        assertEquals(200, backend.getSecondArg(1));
+        assertEquals(KeyEvent.VK_CONTROL, backend.getFirstArg(2));
+        assertEquals(KeyEvent.VK_F15, backend.getFirstArg(3));
+        assertEquals(RecordingInputBackend.KEY_RELEASE, backend.getType(4));
+        assertEquals(KeyEvent.VK_F15, backend.getFirstArg(4));
+        assertEquals(KeyEvent.VK_CONTROL, backend.getFirstArg(5));
+        assertEquals(1, target.completed.get());
+        assertFalse(sequence.isActive());
+    }
+
+    @Test
+    void testMoveBackAndReleaseAreTimedOnScheduler() {
+        RecordingTarget target = new RecordingTarget();
+        target.backend.setPointerPosition(100, 200);
+        InjectionSequence sequence = new InjectionSequence(InjectionScheduler.shared(), target);
+
+        sequence.start(true, 5, 300, KeySequence.parse("F15"), 150);
+
+        // Moved away and pressed without waiting for either
+        RecordingInputBackend backend = target.backend;
+        assertTrue(sequence.isActive());
+        await().atMost(Duration.ofSeconds(5)).until(() -> target.completed.get() == 1);
+        assertEquals(4, backend.size());
+        assertEquals(RecordingInputBackend.MOUSE_MOVE, backend.getType(0));
+        assertEquals(RecordingInputBackend.KEY_PRESS, backend.getType(1));
+        assertEquals(RecordingInputBackend.KEY_RELEASE, backend.getType(2));
+        assertEquals(RecordingInputBackend.MOUSE_MOVE, backend.getType(3));
+        assertEquals(100, backend.getFirstArg(3));
+        assertTrue(backend.getTimestamp(2) - backend.getTimestamp(1) >= 150 * MILLIS);
+        assertTrue(backend.getTimestamp(3) - backend.getTimestamp(0) >= 300 * MILLIS);
+        assertFalse(sequence.isActive());
+    }
+
+    @Test
+    void testEachReleasePressesNextChord() {
+        RecordingTarget target = new RecordingTarget();
+        InjectionSequence sequence = new InjectionSequence(InjectionScheduler.shared(), target);
+
+        sequence.start(false, 0, 0, KeySequence.parse("F13, SHIFT+F14"), 10);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> target.completed.get() == 1);
+        RecordingInputBackend backend = target.backend;
+        assertEquals(6, backend.size());
+        assertEquals(KeyEvent.VK_F13, backend.getFirstArg(0));
+        assertEquals(RecordingInputBackend.KEY_RELEASE, backend.getType(1));
+        assertEquals(KeyEvent.VK_SHIFT, backend.getFirstArg(2));
+        assertEquals(KeyEvent.VK_F14, backend.getFirstArg(3));
+        assertEquals(KeyEvent.VK_F14, backend.getFirstArg(4));
+        assertEquals(KeyEvent.VK_SHIFT, backend.getFirstArg(5));
+        assertTrue(backend.getTimestamp(2) - backend.getTimestamp(1) < 10 * MILLIS);
+    }
+
+    @Test
+    void testFinishRunsPendingStepsAtOnce() {
+        RecordingTarget target = new RecordingTarget();
+        target.backend.setPointerPosition(100, 200);
+        InjectionSequence sequence = new InjectionSequence(InjectionScheduler.shared(), target);
+        sequence.start(true, 5, 60_000, KeySequence.parse("F13 F14"), 60_000);
+
+        sequence.finish();
+
+        // Moved back and released, without pressing the chord that was still to come
+        RecordingInputBackend backend = target.backend;
+        assertEquals(4, backend.size());
+        assertEquals(100, backend.getFirstArg(2));
+        assertEquals(RecordingInputBackend.KEY_RELEASE, backend.getType(3));
+        assertEquals(KeyEvent.VK_F13, backend.getFirstArg(3));
+        assertEquals(1, target.completed.get());
+        sequence.finish();
+        assertEquals(1, target.completed.get());
+    }
+
+    @Test
+    void testFailedStepIsReportedAndSkipped() {
+        RecordingTarget target = new RecordingTarget();
+        target.failMoves = true;
+        InjectionSequence sequence = new InjectionSequence(InjectionScheduler.shared(), target);
+
+        sequence.start(true, 5, 50, KeySequence.parse("F15"), 0);
+
+        assertEquals(List.of("mouse movement: no display"), target.failures);
+        // The failed move away is recorded, no move back is tried
+        assertEquals(3, target.backend.size());
+        assertEquals(RecordingInputBackend.KEY_PRESS, target.backend.getType(1));
+        assertEquals(1, target.completed.get());
+    }
+
+    @Test
+    void testErrorInTimedStepIsHandedToTarget() {
+        RecordingTarget target = new RecordingTarget();
+        target.completionError = new InternalError("backend crashed");
+        InjectionSequence sequence = new InjectionSequence(InjectionScheduler.shared(), target);
+
+        sequence.start(false, 0, 0, KeySequence.parse("F15"), 10);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> !target.crashes.isEmpty());
+        assertEquals("backend crashed", target.crashes.get(0).getMessage());
+        assertFalse(sequence.isActive());
+
+        // The shared scheduler thread survived the error
+        target.completionError = null;
+        sequence.start(false, 0, 0, KeySequence.parse("F15"), 10);
+        await().atMost(Duration.ofSeconds(5)).until(() -> target.completed.get() == 1);
+    }
+
+    @Test
+    void testImmediateCycleAllocatesNothing() {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        RecordingTarget target = new RecordingTarget();
+        InjectionSequence sequence = new InjectionSequence(InjectionScheduler.shared(), target);
+        KeySequence keys = KeySequence.parse("CTRL+F15");
+        for (int i = 0; i < 10_000; i++) {
+            sequence.start(true, 1, 0, keys, 0);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            sequence.start(true, 1, 0, keys, 0);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(allocated < 1024, "Allocated " + allocated + " bytes for 10000 cycles");
+    }
+
+    /**
+     * Target that records steps into a backend and counts completions.
+     */
+    private static final class RecordingTarget implements InjectionSequence.Target {
+        private final RecordingInputBackend backend = new RecordingInputBackend(1 << 17);
+        private final AtomicInteger completed = new AtomicInteger();
+        private final List<String> failures = new CopyOnWriteArrayList<>();
+        private final List<Error> crashes = new CopyOnWriteArrayList<>();
+        private volatile boolean failMoves;
+        private volatile Error completionError;
+
+        @Override
+        public long getPointerPosition() {
+            return backend.getPointerPosition();
+        }
+
+        @Override
+        public void mouseMove(int x, int y) {
+            backend.mouseMove(x, y);
+            if (failMoves) {
+                throw new IllegalStateException("no display");
+            }
+        }
+
+        @Override
+        public void mouseWheel(int ticks) {
+            backend.mouseWheel(ticks);
+        }
+
+        @Override
+        public void keyPress(int keyCode) {
+            backend.keyPress(keyCode);
+        }
+
+        @Override
+        public void keyRelease(int keyCode) {
+            backend.keyRelease(keyCode);
+        }
+
+        @Override
+        public void pause(int millis) {
+            // Sequences never pause
+        }
+
+        @Override
+        public void completed() {
+            Error error = completionError;
+            if (error != null) {
+                throw error;
+            }
+            completed.incrementAndGet();
+        }
+
+        @Override
+        public void failed(String step, Exception error) {
+            failures.add(step + ": " + error.getMessage());
+        }
+
+        @Override
+        public void crashed(Error error) {
+            crashes.add(error);
+        }
+    }
+}
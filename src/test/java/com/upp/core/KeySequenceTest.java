@@ -0,0 +1,55 @@
+package com.upp.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.event.KeyEvent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for KeySequence and KeyCodeTable.
+ */
+class KeySequenceTest {
+
+    @Test
+    void testSingleKey() {
+        KeySequence keys = KeySequence.parse("shift");
+        
+        assertEquals(1, keys.getStepCount());
+        assertEquals(0, keys.getStepStart(0));
+        assertEquals(1, keys.getStepEnd(0));
+        assertEquals(KeyEvent.VK_SHIFT, keys.getKeyCode(0));
+    }
+
+    @Test
+    void testChordAndSequence() {
+        KeySequence keys = KeySequence.parse("CTRL+F15, SHIFT");
+        
+        assertEquals(2, keys.getStepCount());
+        assertEquals(KeyEvent.VK_CONTROL, keys.getKeyCode(keys.getStepStart(0)));
+        assertEquals(KeyEvent.VK_F15, keys.getKeyCode(keys.getStepStart(0) + 1));
+        assertEquals(2, keys.getStepEnd(0));
+        assertEquals(2, keys.getStepStart(1));
+        assertEquals(KeyEvent.VK_SHIFT, keys.getKeyCode(2));
+        assertEquals("CTRL+F15, SHIFT", keys.toString());
+    }
+
+    @Test
+    void testKeyCodeTableAliases() {
+        assertEquals(KeyEvent.VK_CONTROL, KeyCodeTable.lookup("ctrl"));
+        assertEquals(KeyEvent.VK_ESCAPE, KeyCodeTable.lookup("Esc"));
+        assertEquals(KeyEvent.VK_F15, KeyCodeTable.lookup("VK_F15"));
+        assertEquals(KeyEvent.VK_UNDEFINED, KeyCodeTable.lookup("NO_SUCH_KEY"));
+        assertEquals(KeyEvent.VK_UNDEFINED, KeyCodeTable.lookup("UNDEFINED"));
+    }
+
+    @Test
+    void testInvalidSequences() {
+        assertThrows(IllegalArgumentException.class, () -> KeySequence.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> KeySequence.parse("SHIFT+NO_SUCH_KEY"));
+        assertThrows(IllegalArgumentException.class, () -> KeySequence.parse("CTRL+"));
+        assertThrows(IllegalArgumentException.class, () -> KeySequence.parse("A+B+C+D+E"));
+        assertThrows(IllegalArgumentException.class, () -> KeySequence.parse("A B C D E F G H I"));
+    }
+}
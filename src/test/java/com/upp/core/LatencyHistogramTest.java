@@ -0,0 +1,52 @@
+package com.upp.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for LatencyHistogram.
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void testBucketIndex() {
+        assertEquals(0, LatencyHistogram.bucketIndex(-5));
+        assertEquals(0, LatencyHistogram.bucketIndex(1));
+        assertEquals(1, LatencyHistogram.bucketIndex(2));
+        assertEquals(1, LatencyHistogram.bucketIndex(3));
+        assertEquals(10, LatencyHistogram.bucketIndex(1024));
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testSnapshotStatistics() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_000);
+        }
+        histogram.record(1_000_000);
+        
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(1_099_000, snapshot.getSum());
+        assertEquals(1_000_000, snapshot.getMax());
+        assertEquals(10_990.0, snapshot.getMean());
+        assertEquals(99, snapshot.getBucketCount(9));
+        // 1000 ns falls in [512, 1024), 1 ms in [2^19, 2^20)
+        assertEquals(1023, snapshot.getPercentile(50));
+        assertEquals(1023, snapshot.getPercentile(99));
+        assertEquals(1_000_000, snapshot.getPercentile(100));
+    }
+
+    @Test
+    void testResetAndEmptySnapshot() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+        histogram.reset();
+        
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getPercentile(99));
+        assertEquals(0, LatencyHistogram.Snapshot.EMPTY.getMean());
+    }
+}
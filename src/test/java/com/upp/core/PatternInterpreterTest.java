@@ -0,0 +1,193 @@
+package com.upp.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.event.KeyEvent;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for PatternInterpreter.
+ */
+class PatternInterpreterTest {
+
+    @Test
+    void testRunsStepsAgainstBackend() {
+        RecordingTarget target = new RecordingTarget();
+        target.backend.setPointerPosition(100, 200);
+
+        PatternInterpreter.seeded(1)
+            .run(ActivityPattern.compile("move 3 -2; move 1 1; wait 20; back; scroll -2; key CTRL+F15 5"), target);
+
+        RecordingInputBackend backend = target.backend;
+        assertEquals(8, backend.size());
+        assertEvent(backend, 0, RecordingInputBackend.MOUSE_MOVE, 103, 198);
+        assertEvent(backend, 1, RecordingInputBackend.MOUSE_MOVE, 104, 199);
+        assertEvent(backend, 2, RecordingInputBackend.MOUSE_MOVE, 100, 200);
+        assertEvent(backend, 3, RecordingInputBackend.MOUSE_WHEEL, -2, 0);
+        assertEvent(backend, 4, RecordingInputBackend.KEY_PRESS, KeyEvent.VK_CONTROL, 0);
+        assertEvent(backend, 5, RecordingInputBackend.KEY_PRESS, KeyEvent.VK_F15, 0);
+        assertEvent(backend, 6, RecordingInputBackend.KEY_RELEASE, KeyEvent.VK_F15, 0);
+        assertEvent(backend, 7, RecordingInputBackend.KEY_RELEASE, KeyEvent.VK_CONTROL, 0);
+        assertEquals(List.of(20, 5), target.pauses);
+    }
+
+    @Test
+    void testSeedMakesRunsReproducible() {
+        ActivityPattern pattern = ActivityPattern.compile(
+            "repeat 1..5 { move -50..50 -50..50; wait 0..1000; oneof { scroll -3..3 | key SHIFT 0..9 } }");
+
+        List<Long> first = runs(pattern, 42);
+        assertEquals(first, runs(pattern, 42));
+        assertNotEquals(first, runs(pattern, 43));
+    }
+
+    @Test
+    void testAlternatesBranchesAcrossRuns() {
+        ActivityPattern pattern = ActivityPattern.compile("alternate { scroll 1 | scroll 2 | scroll 3 }");
+        RecordingTarget target = new RecordingTarget();
+        PatternInterpreter interpreter = PatternInterpreter.seeded(1);
+
+        for (int i = 0; i < 5; i++) {
+            interpreter.run(pattern, target);
+        }
+        // Another pattern starts over at the first branch
+        interpreter.run(ActivityPattern.compile("alternate { scroll 1 | scroll 2 | scroll 3 }"), target);
+
+        int[] ticks = {1, 2, 3, 1, 2, 1};
+        for (int i = 0; i < ticks.length; i++) {
+            assertEquals(ticks[i], target.backend.getFirstArg(i));
+        }
+    }
+
+    @Test
+    void testRepeatsNestedBlocks() {
+        RecordingTarget target = new RecordingTarget();
+
+        ActivityPattern pattern =
+            ActivityPattern.compile("repeat 3 { repeat 2 { scroll 1 }; repeat 0 { scroll 9 }; scroll -1 }");
+        PatternInterpreter.seeded(1).run(pattern, target);
+
+        int[] ticks = new int[3];
+        for (int i = 0; i < target.backend.size(); i++) {
+            ticks[target.backend.getFirstArg(i) + 1]++;
+        }
+        assertEquals(9, target.backend.size());
+        assertEquals(3, ticks[0]);
+        assertEquals(6, ticks[2]);
+    }
+
+    @Test
+    void testInterruptedRunReleasesHeldKeys() {
+        RecordingTarget target = new RecordingTarget();
+        target.interruptOnPause = true;
+
+        try {
+            PatternInterpreter.seeded(1)
+                .run(ActivityPattern.compile("key CTRL+SHIFT 500; scroll 1"), target);
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+
+        RecordingInputBackend backend = target.backend;
+        assertEquals(4, backend.size());
+        assertEvent(backend, 2, RecordingInputBackend.KEY_RELEASE, KeyEvent.VK_SHIFT, 0);
+        assertEvent(backend, 3, RecordingInputBackend.KEY_RELEASE, KeyEvent.VK_CONTROL, 0);
+        assertFalse(backend.countEvents(RecordingInputBackend.MOUSE_WHEEL) > 0);
+    }
+
+    @Test
+    void testRunAllocatesNothing() {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        ActivityPattern pattern = ActivityPattern.compile(
+            "repeat 2..4 { move -5..5 -5..5; oneof { scroll -1..1 | key SHIFT 0 }; alternate { back | wait 0 } }");
+        RecordingTarget target = new RecordingTarget();
+        PatternInterpreter interpreter = PatternInterpreter.seeded(7);
+        for (int i = 0; i < 10_000; i++) {
+            interpreter.run(pattern, target);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            interpreter.run(pattern, target);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        // Allow for the measurement itself, not for anything per run or step
+        assertTrue(allocated < 1024, "Allocated " + allocated + " bytes for 10000 runs");
+    }
+
+    private static List<Long> runs(ActivityPattern pattern, long seed) {
+        RecordingTarget target = new RecordingTarget();
+        PatternInterpreter interpreter = PatternInterpreter.seeded(seed);
+        for (int i = 0; i < 20; i++) {
+            interpreter.run(pattern, target);
+        }
+        List<Long> events = new ArrayList<>();
+        for (int i = 0; i < target.backend.size(); i++) {
+            events.add(((long) target.backend.getType(i) << 48) ^ ((long) target.backend.getFirstArg(i) << 24)
+                ^ target.backend.getSecondArg(i));
+        }
+        for (int pause : target.pauses) {
+            events.add((long) pause);
+        }
+        return events;
+    }
+
+    private static void assertEvent(RecordingInputBackend backend, int index, int type, int first, int second) {
+        assertEquals(type, backend.getType(index));
+        assertEquals(first, backend.getFirstArg(index));
+        assertEquals(second, backend.getSecondArg(index));
+    }
+
+    /**
+     * Target that records actions into a backend and pauses without sleeping.
+     */
+    private static final class RecordingTarget implements PatternInterpreter.Target {
+        private final RecordingInputBackend backend = new RecordingInputBackend(1 << 16);
+        private final List<Integer> pauses = new ArrayList<>();
+        private boolean interruptOnPause;
+
+        @Override
+        public long getPointerPosition() {
+            return backend.getPointerPosition();
+        }
+
+        @Override
+        public void mouseMove(int x, int y) {
+            backend.mouseMove(x, y);
+        }
+
+        @Override
+        public void mouseWheel(int ticks) {
+            backend.mouseWheel(ticks);
+        }
+
+        @Override
+        public void keyPress(int keyCode) {
+            backend.keyPress(keyCode);
+        }
+
+        @Override
+        public void keyRelease(int keyCode) {
+            backend.keyRelease(keyCode);
+        }
+
+        @Override
+        public void pause(int millis) {
+            if (interruptOnPause) {
+                Thread.currentThread().interrupt();
+            } else if (pauses.size() < 1000) {
+                // Bounded, so warmed-up runs record nothing that allocates
+                pauses.add(millis);
+            }
+        }
+    }
+}
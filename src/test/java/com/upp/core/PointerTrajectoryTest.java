@@ -0,0 +1,64 @@
+package com.upp.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for PointerTrajectory.
+ */
+class PointerTrajectoryTest {
+
+    @Test
+    void testPathRunsSmoothlyFromStartToEnd() {
+        PointerTrajectory trajectory = PointerTrajectory.of(100, 500);
+
+        assertEquals(30, trajectory.getFrames());
+        assertEquals(0, trajectory.getX(0));
+        assertEquals(0, trajectory.getY(0));
+        assertEquals(100, trajectory.getX(30));
+        assertEquals(0, trajectory.getY(30));
+        assertEquals(50, trajectory.getX(15));
+        assertEquals(trajectory.getBow(), trajectory.getY(15));
+        int maxStep = 0;
+        for (int frame = 1; frame <= trajectory.getFrames(); frame++) {
+            int step = trajectory.getX(frame) - trajectory.getX(frame - 1);
+            assertTrue(step >= 0, "Frame " + frame + " moves back");
+            assertTrue(trajectory.getY(frame) <= trajectory.getBow());
+            maxStep = Math.max(maxStep, step);
+        }
+        // Slow at the ends and fastest halfway
+        assertTrue(trajectory.getX(1) - trajectory.getX(0) < maxStep);
+        assertEquals(maxStep, trajectory.getX(16) - trajectory.getX(15));
+    }
+
+    @Test
+    void testTablesAreSharedByDistanceAndFrames() {
+        PointerTrajectory trajectory = PointerTrajectory.of(40, 300);
+
+        assertSame(trajectory, PointerTrajectory.of(40, 300));
+        // 305 ms rounds to the same 18 frames
+        assertSame(trajectory, PointerTrajectory.of(40, 305));
+        assertNotSame(trajectory, PointerTrajectory.of(41, 300));
+        assertNotSame(trajectory, PointerTrajectory.of(40, 400));
+    }
+
+    @Test
+    void testShortMovementsTakeAFrame() {
+        PointerTrajectory trajectory = PointerTrajectory.of(1, 0);
+
+        assertEquals(1, trajectory.getFrames());
+        assertEquals(1, trajectory.getX(1));
+        assertEquals(0, trajectory.getBow());
+    }
+
+    @Test
+    void testRejectsNegativeValues() {
+        assertThrows(IllegalArgumentException.class, () -> PointerTrajectory.of(-1, 300));
+        assertThrows(IllegalArgumentException.class, () -> PointerTrajectory.of(10, -1));
+    }
+}
@@ -0,0 +1,60 @@
+package com.upp.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for RecordingInputBackend.
+ */
+class RecordingInputBackendTest {
+
+    @Test
+    void testRecordsEventsInOrder() {
+        RecordingInputBackend backend = new RecordingInputBackend();
+        backend.mouseMove(10, -20);
+        backend.keyPress(16);
+        backend.keyRelease(16);
+        backend.mouseWheel(-2);
+        
+        assertEquals(4, backend.size());
+        assertEquals(RecordingInputBackend.MOUSE_MOVE, backend.getType(0));
+        assertEquals(10, backend.getFirstArg(0));
+        assertEquals(-20, backend.getSecondArg(0));
+        assertEquals(RecordingInputBackend.KEY_PRESS, backend.getType(1));
+        assertEquals(RecordingInputBackend.KEY_RELEASE, backend.getType(2));
+        assertEquals(RecordingInputBackend.MOUSE_WHEEL, backend.getType(3));
+        assertEquals(-2, backend.getFirstArg(3));
+        assertTrue(backend.getTimestamp(2) >= backend.getTimestamp(0));
+        assertEquals(InputBackend.packPosition(10, -20), backend.getPointerPosition());
+    }
+
+    @Test
+    void testRingBufferKeepsMostRecentEvents() {
+        RecordingInputBackend backend = new RecordingInputBackend(3);
+        for (int i = 0; i < 10; i++) {
+            backend.keyPress(i);
+        }
+        
+        // Capacity is rounded up to a power of two
+        assertEquals(10, backend.getEventCount());
+        assertEquals(4, backend.size());
+        assertEquals(6, backend.getFirstArg(0));
+        assertEquals(9, backend.getFirstArg(3));
+        assertEquals(4, backend.countEvents(RecordingInputBackend.KEY_PRESS));
+        assertThrows(IndexOutOfBoundsException.class, () -> backend.getType(4));
+        
+        backend.clear();
+        assertEquals(0, backend.size());
+    }
+
+    @Test
+    void testPackedPositions() {
+        long position = InputBackend.packPosition(-5, 1080);
+        
+        assertEquals(-5, InputBackend.positionX(position));
+        assertEquals(1080, InputBackend.positionY(position));
+    }
+}
@@ -0,0 +1,134 @@
+package com.upp.core;
+
+import com.upp.config.ConfigurationManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for SessionManager.
+ */
+class SessionManagerTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private final Map<String, RecordingInputBackend> backends = new HashMap<>();
+    private ConfigurationManager configManager;
+    private SessionManager sessionManager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        configManager = new ConfigurationManager(tempDir.resolve("config.yml"));
+        ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
+        config.getActivity().setIntervalSeconds(1);
+        config.getActivity().setKeyPressDurationMs(0);
+        config.getActivity().setMouseMovementEnabled(false);
+        
+        ConfigurationManager.ActivitySettings keyboardOnly = config.getActivity().copy();
+        ConfigurationManager.ActivitySettings mouseOnly = config.getActivity().copy();
+        mouseOnly.setKeyboardSimulationEnabled(false);
+        mouseOnly.setMouseMovementEnabled(true);
+        
+        List<ConfigurationManager.SessionSettings> sessions = new ArrayList<>();
+        sessions.add(session("first", ":1", keyboardOnly));
+        sessions.add(session("second", ":1", null));
+        sessions.add(session("third", ":2", mouseOnly));
+        config.setSessions(sessions);
+        configManager.updateConfig(config);
+        
+        sessionManager = new SessionManager(configManager, display -> {
+            RecordingInputBackend backend = new RecordingInputBackend();
+            backends.put(display, backend);
+            return backend;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionManager.stopAll();
+        configManager.close();
+    }
+
+    private static ConfigurationManager.SessionSettings session(String id, String display,
+                                                               ConfigurationManager.ActivitySettings activity) {
+        ConfigurationManager.SessionSettings session = new ConfigurationManager.SessionSettings();
+        session.setId(id);
+        session.setDisplay(display);
+        session.setActivity(activity);
+        return session;
+    }
+
+    @Test
+    void testStartsAllSessionsWithSharedBackends() throws Exception {
+        sessionManager.startAll();
+        
+        assertEquals(3, sessionManager.getSessions().size());
+        assertEquals(2, sessionManager.getBackendCount());
+        assertTrue(sessionManager.getSessions().values().stream().allMatch(ActivitySimulator::isRunning));
+        
+        // Each display only sees the input of its own sessions' profiles
+        RecordingInputBackend keyboardDisplay = backends.get(":1");
+        RecordingInputBackend mouseDisplay = backends.get(":2");
+        await().atMost(Duration.ofSeconds(5)).until(() ->
+            keyboardDisplay.countEvents(RecordingInputBackend.KEY_PRESS) >= 2
+                && mouseDisplay.countEvents(RecordingInputBackend.MOUSE_MOVE) >= 2);
+        assertEquals(0, keyboardDisplay.countEvents(RecordingInputBackend.MOUSE_MOVE));
+        assertEquals(0, mouseDisplay.countEvents(RecordingInputBackend.KEY_PRESS));
+    }
+
+    @Test
+    void testSessionsOnOneDisplayTakeTurns() throws Exception {
+        ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
+        config.getActivity().setKeyPressDurationMs(100);
+        config.getSessions().get(0).getActivity().setKeyPressDurationMs(100);
+        configManager.updateConfig(config);
+        sessionManager.startSession("first");
+        sessionManager.startSession("second");
+        
+        RecordingInputBackend display = backends.get(":1");
+        await().atMost(Duration.ofSeconds(5)).until(() -> display.countEvents(RecordingInputBackend.KEY_RELEASE) >= 4);
+        sessionManager.stopAll();
+        
+        // A key is never pressed while the other session still holds one
+        int held = 0;
+        for (int i = 0; i < display.size(); i++) {
+            if (display.getType(i) == RecordingInputBackend.KEY_PRESS) {
+                held++;
+                assertEquals(1, held);
+            } else if (display.getType(i) == RecordingInputBackend.KEY_RELEASE) {
+                held--;
+            }
+        }
+    }
+
+    @Test
+    void testStopSession() throws Exception {
+        ActivitySimulator simulator = sessionManager.startSession("second");
+        assertTrue(simulator.isRunning());
+        assertEquals("second", simulator.getSessionId());
+        
+        sessionManager.stopSession("second");
+        assertFalse(simulator.isRunning());
+        assertTrue(sessionManager.getSessions().isEmpty());
+    }
+
+    @Test
+    void testUnknownSession() {
+        assertThrows(IllegalArgumentException.class, () -> sessionManager.startSession("missing"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.upp.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for TickTracker.
+ */
+class TickTrackerTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long INTERVAL = 30 * SECOND;
+
+    @Test
+    void testOnTimeTicksKeepTheirDeadline() {
+        TickTracker tracker = new TickTracker();
+        
+        assertEquals(0, tracker.onTick(0, INTERVAL, true, 1_000, 10_000));
+        assertEquals(INTERVAL, tracker.onTick(INTERVAL, INTERVAL, true, INTERVAL + 1_000, 40_000));
+        assertEquals(0, tracker.getMissedTicks());
+        assertEquals(0, tracker.getSuspends());
+    }
+
+    @Test
+    void testMissedFixedRateTicksAreSkipped() {
+        TickTracker tracker = new TickTracker();
+        tracker.onTick(0, INTERVAL, true, 0, 0);
+        
+        // Woke up 2.5 intervals late without a suspend: skip two ticks, stay on the grid
+        long now = INTERVAL * 7 / 2;
+        assertEquals(3 * INTERVAL, tracker.onTick(INTERVAL, INTERVAL, true, now, TimeUnit.NANOSECONDS.toMillis(now)));
+        assertEquals(2, tracker.getMissedTicks());
+        assertEquals(0, tracker.getSuspends());
+    }
+
+    @Test
+    void testFixedDelayTicksAreNeverSkipped() {
+        TickTracker tracker = new TickTracker();
+        tracker.onTick(0, INTERVAL, false, 0, 0);
+        
+        long now = 3 * INTERVAL;
+        assertEquals(INTERVAL, tracker.onTick(INTERVAL, INTERVAL, false, now, TimeUnit.NANOSECONDS.toMillis(now)));
+        assertEquals(0, tracker.getMissedTicks());
+    }
+
+    @Test
+    void testSuspendRestartsSchedule() {
+        TickTracker tracker = new TickTracker();
+        tracker.onTick(0, INTERVAL, true, 0, 0);
+        
+        // Monotonic clock advanced one interval, wall clock two hours
+        long now = INTERVAL + 5_000;
+        long wall = TimeUnit.HOURS.toMillis(2);
+        assertEquals(now, tracker.onTick(INTERVAL, INTERVAL, true, now, wall));
+        assertEquals(1, tracker.getSuspends());
+        assertEquals((wall - 30_000) / 30_000, tracker.getMissedTicks());
+    }
+}
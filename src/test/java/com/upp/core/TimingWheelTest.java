@@ -0,0 +1,163 @@
+package com.upp.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for TimingWheel.
+ */
+class TimingWheelTest {
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void testTimersFireAtTheirTickAcrossLevels() {
+        TimingWheel wheel = new TimingWheel(TICK, 0, 4);
+        long[] delays = {1, 63, 64, 65, 4095, 4096, 4097, 300_000, 20_000_000};
+        long[] firedAt = new long[delays.length];
+        long[] now = new long[1];
+        for (int i = 0; i < delays.length; i++) {
+            int timer = i;
+            wheel.scheduleAt(() -> firedAt[timer] = now[0], delays[i] * TICK);
+        }
+        assertEquals(delays.length, wheel.size());
+        
+        for (long tick = 1; tick <= 20_000_000; tick++) {
+            now[0] = tick;
+            wheel.advance(tick * TICK);
+        }
+        
+        for (int i = 0; i < delays.length; i++) {
+            assertEquals(delays[i], firedAt[i], "timer due at tick " + delays[i]);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testAdvanceOverManyTicksAtOnce() {
+        TimingWheel wheel = new TimingWheel(TICK, 0, 16);
+        AtomicInteger fired = new AtomicInteger();
+        for (int i = 1; i <= 100; i++) {
+            wheel.scheduleAt(fired::incrementAndGet, i * 97L * TICK);
+        }
+        
+        assertEquals(0, wheel.advance(96 * TICK));
+        assertEquals(50, wheel.advance(50 * 97L * TICK));
+        assertEquals(50, wheel.advance(100 * 97L * TICK));
+        assertEquals(100, fired.get());
+    }
+
+    @Test
+    void testCancel() {
+        TimingWheel wheel = new TimingWheel(TICK, 0, 1);
+        List<String> fired = new ArrayList<>();
+        long first = wheel.scheduleAt(() -> fired.add("first"), 10 * TICK);
+        wheel.scheduleAt(() -> fired.add("second"), 10 * TICK);
+        long third = wheel.scheduleAt(() -> fired.add("third"), 5000 * TICK);
+        
+        assertTrue(wheel.cancel(first));
+        assertFalse(wheel.cancel(first));
+        assertTrue(wheel.cancel(third));
+        assertFalse(wheel.cancel(TimingWheel.INVALID_HANDLE));
+        wheel.advance(10_000 * TICK);
+        
+        assertEquals(List.of("second"), fired);
+    }
+
+    @Test
+    void testStaleHandleDoesNotCancelReusedSlot() {
+        TimingWheel wheel = new TimingWheel(TICK, 0, 1);
+        AtomicInteger fired = new AtomicInteger();
+        long stale = wheel.scheduleAt(fired::incrementAndGet, TICK);
+        wheel.advance(TICK);
+        wheel.scheduleAt(fired::incrementAndGet, 2 * TICK);
+        
+        assertFalse(wheel.cancel(stale));
+        wheel.advance(2 * TICK);
+        assertEquals(2, fired.get());
+    }
+
+    @Test
+    void testPastDeadlineFiresOnNextTick() {
+        TimingWheel wheel = new TimingWheel(TICK, 0, 1);
+        wheel.advance(100 * TICK);
+        AtomicInteger fired = new AtomicInteger();
+        wheel.scheduleAt(fired::incrementAndGet, 0);
+        
+        assertEquals(0, wheel.advance(100 * TICK));
+        assertEquals(1, wheel.advance(101 * TICK));
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    void testJitterStaysWithinBound() {
+        long start = System.nanoTime();
+        TimingWheel wheel = new TimingWheel(TICK, start, 8);
+        AtomicInteger fired = new AtomicInteger();
+        for (int i = 0; i < 200; i++) {
+            wheel.schedule(fired::incrementAndGet, 10 * TICK, 10 * TICK);
+        }
+        
+        wheel.advance(start + 9 * TICK);
+        assertEquals(0, fired.get());
+        wheel.advance(System.nanoTime() + 21 * TICK);
+        assertEquals(200, fired.get());
+    }
+
+    @Test
+    void testNextDeadlineLetsDriverSkipIdleTicks() {
+        TimingWheel wheel = new TimingWheel(TICK, 0, 4);
+        AtomicInteger fired = new AtomicInteger();
+        assertEquals(Long.MAX_VALUE, wheel.nextDeadlineNanos());
+        
+        wheel.scheduleAt(fired::incrementAndGet, 10 * TICK);
+        wheel.scheduleAt(fired::incrementAndGet, 1000 * TICK);
+        assertEquals(10 * TICK, wheel.nextDeadlineNanos());
+        
+        int advances = 0;
+        while (wheel.size() > 0) {
+            wheel.advance(wheel.nextDeadlineNanos());
+            advances++;
+        }
+        
+        assertEquals(2, fired.get());
+        // The first timer, then every cascade of level 1 up to tick 1000 and the timer itself
+        assertTrue(advances <= 2 + 1000 / 64, advances + " advances");
+    }
+
+    @Test
+    void testEmptyWheelCatchesUpWithClockOnSchedule() {
+        long start = System.nanoTime() - TimeUnit.HOURS.toNanos(1);
+        TimingWheel wheel = new TimingWheel(TICK, start, 4);
+        
+        long before = System.nanoTime();
+        wheel.schedule(() -> { }, 5 * TICK);
+        
+        // Scheduled relative to now, not to the hour-old tick the wheel was last advanced to
+        long next = wheel.nextDeadlineNanos();
+        assertTrue(next >= before + 5 * TICK - TICK && next <= System.nanoTime() + 6 * TICK);
+    }
+
+    @Test
+    void testEmptyWheelCatchesUpWithClockOnScheduleAt() {
+        long start = System.nanoTime() - TimeUnit.HOURS.toNanos(1);
+        TimingWheel wheel = new TimingWheel(TICK, start, 4);
+        AtomicInteger fired = new AtomicInteger();
+        long now = System.nanoTime();
+        
+        wheel.scheduleAt(fired::incrementAndGet, now + 5 * TICK);
+        
+        // The hour of idle ticks is skipped, so the driver wakes for the timer itself
+        long next = wheel.nextDeadlineNanos();
+        assertTrue(next > now - TICK && next <= now + 6 * TICK);
+        assertEquals(1, wheel.advance(now + 6 * TICK));
+        assertEquals(1, fired.get());
+    }
+}
@@ -0,0 +1,164 @@
+package com.upp.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for TrajectoryPlayer.
+ */
+class TrajectoryPlayerTest {
+    private static final int[] SCREEN = {0, 0, 1920, 1080};
+
+    @Test
+    void testMovesOutAndBackFrameByFrame() {
+        RecordingTarget target = new RecordingTarget();
+        target.backend.setPointerPosition(500, 500);
+        PointerTrajectory trajectory = PointerTrajectory.of(100, 500);
+
+        TrajectoryPlayer.seeded(1).play(trajectory, SCREEN, target);
+
+        RecordingInputBackend backend = target.backend;
+        assertEquals(60, backend.size());
+        assertEquals(59, target.pauses);
+        // The far end and the start are reached exactly, without shake
+        assertEquals(600, backend.getFirstArg(29));
+        assertEquals(500, backend.getSecondArg(29));
+        assertEquals(500, backend.getFirstArg(59));
+        assertEquals(500, backend.getSecondArg(59));
+        // Out on one side of the straight line, back on the other
+        int outSide = Integer.signum(backend.getSecondArg(14) - 500);
+        int backSide = Integer.signum(backend.getSecondArg(44) - 500);
+        assertNotEquals(0, outSide);
+        assertEquals(-outSide, backSide);
+        for (int i = 0; i < backend.size(); i++) {
+            assertEquals(RecordingInputBackend.MOUSE_MOVE, backend.getType(i));
+            assertTrue(Math.abs(backend.getSecondArg(i) - 500) <= trajectory.getBow() + 1);
+        }
+    }
+
+    @Test
+    void testStaysOnScreen() {
+        RecordingTarget target = new RecordingTarget();
+        target.backend.setPointerPosition(1915, 0);
+
+        TrajectoryPlayer.seeded(3).play(PointerTrajectory.of(200, 300), SCREEN, target);
+
+        RecordingInputBackend backend = target.backend;
+        // Heads left, as there is no room on the right
+        assertEquals(1715, backend.getFirstArg(17));
+        for (int i = 0; i < backend.size(); i++) {
+            int x = backend.getFirstArg(i);
+            int y = backend.getSecondArg(i);
+            assertTrue(x >= 0 && x < 1920 && y >= 0 && y < 1080, "Frame " + i + " at " + x + ", " + y);
+        }
+    }
+
+    @Test
+    void testSeedMakesMovementsReproducible() {
+        PointerTrajectory trajectory = PointerTrajectory.of(60, 250);
+
+        assertEquals(moves(trajectory, 5), moves(trajectory, 5));
+        assertNotEquals(moves(trajectory, 5), moves(trajectory, 6));
+    }
+
+    @Test
+    void testInterruptedMovementReturnsToStart() {
+        RecordingTarget target = new RecordingTarget();
+        target.backend.setPointerPosition(300, 300);
+        target.interruptOnPause = true;
+
+        try {
+            TrajectoryPlayer.seeded(1).play(PointerTrajectory.of(100, 500), SCREEN, target);
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+
+        RecordingInputBackend backend = target.backend;
+        assertEquals(2, backend.size());
+        assertEquals(300, backend.getFirstArg(1));
+        assertEquals(300, backend.getSecondArg(1));
+    }
+
+    @Test
+    void testPlayAllocatesNothing() {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        PointerTrajectory trajectory = PointerTrajectory.of(50, 300);
+        RecordingTarget target = new RecordingTarget();
+        TrajectoryPlayer player = TrajectoryPlayer.seeded(7);
+        for (int i = 0; i < 10_000; i++) {
+            player.play(trajectory, SCREEN, target);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            player.play(trajectory, SCREEN, target);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        // Allow for the measurement itself, not for anything per movement or frame
+        assertTrue(allocated < 1024, "Allocated " + allocated + " bytes for 10000 movements");
+    }
+
+    private static String moves(PointerTrajectory trajectory, long seed) {
+        RecordingTarget target = new RecordingTarget();
+        target.backend.setPointerPosition(800, 600);
+        TrajectoryPlayer player = TrajectoryPlayer.seeded(seed);
+        for (int i = 0; i < 10; i++) {
+            player.play(trajectory, SCREEN, target);
+        }
+        StringBuilder moves = new StringBuilder();
+        for (int i = 0; i < target.backend.size(); i++) {
+            moves.append(target.backend.getFirstArg(i)).append(',')
+                .append(target.backend.getSecondArg(i)).append(' ');
+        }
+        return moves.toString();
+    }
+
+    /**
+     * Target that records moves into a backend and counts pauses without sleeping.
+     */
+    private static final class RecordingTarget implements PatternInterpreter.Target {
+        private final RecordingInputBackend backend = new RecordingInputBackend(1 << 16);
+        private int pauses;
+        private boolean interruptOnPause;
+
+        @Override
+        public long getPointerPosition() {
+            return backend.getPointerPosition();
+        }
+
+        @Override
+        public void mouseMove(int x, int y) {
+            backend.mouseMove(x, y);
+        }
+
+        @Override
+        public void mouseWheel(int ticks) {
+            backend.mouseWheel(ticks);
+        }
+
+        @Override
+        public void keyPress(int keyCode) {
+            backend.keyPress(keyCode);
+        }
+
+        @Override
+        public void keyRelease(int keyCode) {
+            backend.keyRelease(keyCode);
+        }
+
+        @Override
+        public void pause(int millis) {
+            pauses++;
+            if (interruptOnPause) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
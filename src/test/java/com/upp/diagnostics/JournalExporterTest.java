@@ -0,0 +1,71 @@
+package com.upp.diagnostics;
+
+import com.upp.core.InjectionJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for JournalExporter.
+ */
+class JournalExporterTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void testExportsEntriesAsCsv() throws Exception {
+        long t = System.nanoTime();
+        try (InjectionJournal journal = InjectionJournal.open(tempDir, "kiosk,1", 1 << 16)) {
+            journal.append(InjectionJournal.MOUSE_MOVE, t, 4500, 0, 11, 22);
+            journal.append(InjectionJournal.KEY_PRESS, t + 1, 800, 16, 0, 0);
+        }
+        try (InjectionJournal journal = InjectionJournal.open(tempDir, null, 1 << 16)) {
+            journal.append(InjectionJournal.KEY_RELEASE, t + 2, 900, 16, 0, 0);
+        }
+
+        StringWriter out = new StringWriter();
+        List<Path> segments = JournalExporter.segments(List.of(tempDir));
+        long rows = new JournalExporter(Long.MIN_VALUE, Long.MAX_VALUE).export(segments, out);
+
+        assertEquals(3, rows);
+        String[] lines = out.toString().split("\n");
+        assertEquals(4, lines.length);
+        assertEquals(JournalExporter.HEADER, lines[0]);
+        String[] first = lines[1].split(",", 3);
+        assertTrue(Instant.parse(first[0]).toEpochMilli() > 0);
+        assertEquals(Long.toString(t), first[1]);
+        assertEquals("\"kiosk,1\",mouseMove,0,11,22,4500", first[2]);
+        assertTrue(lines[2].endsWith("," + (t + 1) + ",\"kiosk,1\",keyPress,16,0,0,800"));
+        assertTrue(lines[3].endsWith("," + (t + 2) + ",,keyRelease,16,0,0,900"));
+    }
+
+    @Test
+    void testExportsOnlyTheRequestedRange() throws Exception {
+        try (InjectionJournal journal = InjectionJournal.open(tempDir, null, 1 << 16)) {
+            journal.append(InjectionJournal.MOUSE_MOVE, System.nanoTime(), 1, 0, 1, 1);
+        }
+        List<Path> segments = JournalExporter.segments(List.of(tempDir));
+        long now = System.currentTimeMillis();
+
+        assertEquals(0, new JournalExporter(now + 60_000, Long.MAX_VALUE).export(segments, new StringWriter()));
+        assertEquals(0, new JournalExporter(Long.MIN_VALUE, now - 60_000).export(segments, new StringWriter()));
+        assertEquals(1, new JournalExporter(now - 60_000, now + 60_000).export(segments, new StringWriter()));
+    }
+
+    @Test
+    void testParsesInstantsAndLocalDates() {
+        assertEquals(86_400_000L, JournalExporter.parseTime("1970-01-02T00:00:00Z"));
+        assertEquals(LocalDate.of(2026, 10, 1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+            JournalExporter.parseTime("2026-10-01"));
+    }
+}
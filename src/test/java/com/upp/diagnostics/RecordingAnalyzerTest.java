@@ -0,0 +1,120 @@
+package com.upp.diagnostics;
+
+import com.upp.config.ConfigurationManager;
+import com.upp.core.ActivitySimulator;
+import com.upp.core.RecordingInputBackend;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for RecordingAnalyzer and the AntiIdle Flight Recorder events.
+ */
+class RecordingAnalyzerTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private ConfigurationManager configManager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        configManager = new ConfigurationManager(tempDir.resolve("config.yml"));
+        ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
+        config.getActivity().setIntervalSeconds(1);
+        config.getActivity().setKeyPressDurationMs(0);
+        config.getActivity().setMouseMovementEnabled(false);
+        config.getActivity().setSkipWhenUserActive(false);
+        configManager.updateConfig(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        configManager.close();
+    }
+
+    private static Configuration bundledProfile() throws Exception {
+        try (InputStream in = RecordingAnalyzer.class.getResourceAsStream("/antiidle.jfc")) {
+            assertNotNull(in, "antiidle.jfc must be bundled");
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                return Configuration.create(reader);
+            }
+        }
+    }
+
+    private Path record(Recording recording) throws Exception {
+        ActivitySimulator simulator = new ActivitySimulator(configManager, new RecordingInputBackend());
+        recording.start();
+        try {
+            simulator.startSimulation();
+            await().atMost(Duration.ofSeconds(5)).until(() -> simulator.getStats().getCycles() > 0);
+            configManager.reloadConfiguration();
+        } finally {
+            simulator.stopSimulation();
+            recording.stop();
+        }
+        Path file = tempDir.resolve("recording.jfr");
+        recording.dump(file);
+        return file;
+    }
+
+    @Test
+    void testBundledProfileEnablesEvents() throws Exception {
+        Map<String, String> settings = bundledProfile().getSettings();
+
+        assertEquals("true", settings.get("com.upp.ActivityCycle#enabled"));
+        assertEquals("true", settings.get("com.upp.InputInjection#enabled"));
+        assertEquals("true", settings.get("com.upp.ConfigOperation#enabled"));
+    }
+
+    @Test
+    void testSummarizesRecordedEvents() throws Exception {
+        Path file;
+        try (Recording recording = new Recording(bundledProfile())) {
+            // Injections into the recording backend are far below the profile's threshold
+            recording.enable("com.upp.InputInjection").withThreshold(Duration.ZERO);
+            file = record(recording);
+        }
+
+        RecordingAnalyzer analyzer = RecordingAnalyzer.analyze(file);
+        Map<String, RecordingAnalyzer.Summary> summaries = analyzer.getSummaries();
+
+        assertTrue(summaries.get("com.upp.ActivityCycle").getDurations().getCount() > 0);
+        assertTrue(summaries.get("com.upp.InputInjection [keyPress]").getDurations().getCount() > 0);
+        assertTrue(summaries.get("com.upp.InputInjection [keyRelease]").getDurations().getCount() > 0);
+        assertTrue(summaries.get("com.upp.ConfigOperation [reload]").getDurations().getCount() > 0);
+        assertEquals(0, summaries.get("com.upp.ConfigOperation [load]").getFailures());
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        analyzer.print(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+        assertTrue(buffer.toString(StandardCharsets.UTF_8).contains("com.upp.ActivityCycle"));
+    }
+
+    @Test
+    void testEventsAreDisabledByDefault() throws Exception {
+        Path file;
+        try (Recording recording = new Recording(Configuration.getConfiguration("default"))) {
+            file = record(recording);
+        }
+
+        assertTrue(RecordingAnalyzer.analyze(file).getSummaries().isEmpty());
+    }
+}
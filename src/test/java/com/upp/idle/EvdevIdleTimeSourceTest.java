@@ -0,0 +1,79 @@
+package com.upp.idle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for EvdevIdleTimeSource, reading recorded events from fixture files.
+ */
+class EvdevIdleTimeSourceTest {
+    private static final int EV_SYN = 0;
+
+    @TempDir
+    private Path tempDir;
+
+    private static void putEvent(ByteBuffer buffer, long millis, int type) {
+        buffer.putLong(millis / 1000);
+        buffer.putLong((millis % 1000) * 1000);
+        buffer.putShort((short) type);
+        buffer.putShort((short) 0);
+        buffer.putInt(1);
+    }
+
+    private Path writeFixture(String name, long... eventMillisAndTypes) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(eventMillisAndTypes.length / 2 * EvdevIdleTimeSource.EVENT_SIZE)
+            .order(ByteOrder.nativeOrder());
+        for (int i = 0; i < eventMillisAndTypes.length; i += 2) {
+            putEvent(buffer, eventMillisAndTypes[i], (int) eventMillisAndTypes[i + 1]);
+        }
+        Path fixture = tempDir.resolve(name);
+        Files.write(fixture, buffer.array());
+        return fixture;
+    }
+
+    @Test
+    void testTracksNewestInputEvent() throws Exception {
+        long now = System.currentTimeMillis();
+        Path keyboard = writeFixture("keyboard",
+            now - 30_000, EvdevIdleTimeSource.EV_KEY,
+            now - 20_000, EvdevIdleTimeSource.EV_KEY,
+            // Synchronization reports are not input
+            now - 1_000, EV_SYN);
+        Path mouse = writeFixture("mouse", now - 25_000, EvdevIdleTimeSource.EV_REL);
+        
+        try (EvdevIdleTimeSource source = new EvdevIdleTimeSource(List.of(keyboard, mouse))) {
+            assertEquals(2, source.getDeviceCount());
+            await().atMost(Duration.ofSeconds(5)).until(() -> source.getIdleMillis() >= 20_000
+                && source.getIdleMillis() < 25_000);
+        }
+    }
+
+    @Test
+    void testUnknownWithoutInput() throws Exception {
+        Path idle = writeFixture("idle", System.currentTimeMillis(), EV_SYN);
+        
+        try (EvdevIdleTimeSource source = new EvdevIdleTimeSource(List.of(idle, tempDir.resolve("missing")))) {
+            assertEquals(1, source.getDeviceCount());
+            Thread.sleep(100);
+            assertEquals(IdleTimeSource.UNKNOWN, source.getIdleMillis());
+        }
+    }
+
+    @Test
+    void testFindDevicesOnlyListsReadableNodes() {
+        for (Path device : EvdevIdleTimeSource.findDevices()) {
+            assertTrue(Files.isReadable(device));
+        }
+    }
+}
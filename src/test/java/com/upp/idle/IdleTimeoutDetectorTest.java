@@ -0,0 +1,146 @@
+package com.upp.idle;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Unit tests for IdleTimeoutDetector.
+ */
+class IdleTimeoutDetectorTest {
+    private static final String XSET_OUTPUT = """
+        Keyboard Control:
+          auto repeat:  on    key click percent:  0    LED mask:  00000000
+        Screen Saver:
+          prefer blanking:  yes    allow exposures:  yes
+          timeout:  600    cycle:  600
+        DPMS (Energy Star):
+          Standby: 900    Suspend: 480    Off: 0
+          DPMS is Enabled
+          Monitor is On
+        """;
+
+    @TempDir
+    private Path root;
+
+    @Test
+    void testParsesScreenSaverAndEnabledDpmsTimes() {
+        assertEquals(new IdleTimeout(480_000, "dpms"), IdleTimeoutDetector.parseXset(XSET_OUTPUT));
+        assertEquals(new IdleTimeout(600_000, "x11 screen saver"),
+            IdleTimeoutDetector.parseXset(XSET_OUTPUT.replace("DPMS is Enabled", "DPMS is Disabled")));
+        assertEquals(IdleTimeout.UNKNOWN, IdleTimeoutDetector.parseXset(
+            "Screen Saver:\n  timeout:  0    cycle:  600\nServer does not have the DPMS Extension\n"));
+    }
+
+    @Test
+    void testParsesTimeSpans() {
+        assertEquals(TimeUnit.MINUTES.toMillis(30), IdleTimeoutDetector.parseTimeSpan("30min"));
+        assertEquals(TimeUnit.MINUTES.toMillis(90), IdleTimeoutDetector.parseTimeSpan("1h 30min"));
+        assertEquals(TimeUnit.MINUTES.toMillis(90), IdleTimeoutDetector.parseTimeSpan("1.5h"));
+        assertEquals(90_000, IdleTimeoutDetector.parseTimeSpan("90"));
+        assertEquals(500, IdleTimeoutDetector.parseTimeSpan("500ms"));
+        assertEquals(IdleTimeSource.UNKNOWN, IdleTimeoutDetector.parseTimeSpan("infinity"));
+        assertEquals(IdleTimeSource.UNKNOWN, IdleTimeoutDetector.parseTimeSpan("5 fortnights"));
+        assertEquals(IdleTimeSource.UNKNOWN, IdleTimeoutDetector.parseTimeSpan(""));
+    }
+
+    @Test
+    void testLogindDropInsOverrideMainFile() throws IOException {
+        write("etc/systemd/logind.conf", "[Login]\n#IdleAction=ignore\nIdleAction=lock\nIdleActionSec=20min\n");
+        write("usr/lib/systemd/logind.conf.d/50-idle.conf", "[Login]\nIdleActionSec=5min\n");
+        // Same name in /etc wins over /usr/lib, and 60- applies after 50-
+        write("etc/systemd/logind.conf.d/50-idle.conf", "[Login]\nIdleActionSec=10min\n");
+        write("run/systemd/logind.conf.d/60-action.conf", "[Login]\nIdleAction=suspend\n");
+
+        assertEquals(new IdleTimeout(TimeUnit.MINUTES.toMillis(10), "logind IdleAction=suspend"), detector().detect());
+    }
+
+    @Test
+    void testLogindWithoutIdleActionSetsNoTimeout() throws IOException {
+        write("usr/lib/systemd/logind.conf", "[Login]\nIdleActionSec=1min\n");
+        assertEquals(IdleTimeout.UNKNOWN, detector().detect());
+
+        write("etc/systemd/logind.conf", "[Login]\nIdleAction=ignore\nIdleActionSec=1min\n");
+        assertEquals(IdleTimeout.UNKNOWN, detector().detect());
+
+        write("etc/systemd/logind.conf", "[Login]\nIdleAction=lock\n");
+        assertEquals(TimeUnit.MINUTES.toMillis(30), detector().detect().millis());
+    }
+
+    @Test
+    void testReadsGnomeIdleDelayFromGsettings() {
+        IdleTimeoutDetector detector = new IdleTimeoutDetector(root, List.of(),
+            List.of("sh", "-c", "echo 'uint32 300'"), null);
+
+        assertEquals(new IdleTimeout(300_000, "gnome idle-delay"), detector.detect());
+    }
+
+    @Test
+    void testFallsBackToDconfKeyfiles() throws IOException {
+        write("etc/dconf/profile/user", "user-db:user\nsystem-db:local\nsystem-db:site\n");
+        write("etc/dconf/db/local.d/00-defaults", "[org/gnome/desktop/session]\nidle-delay=uint32 600\n");
+        write("etc/dconf/db/local.d/10-office", "[org/gnome/desktop/screensaver]\nlock-delay=uint32 0\n"
+            + "[org/gnome/desktop/session]\nidle-delay=uint32 420\n");
+        // Databases listed earlier in the profile take precedence
+        write("etc/dconf/db/site.d/00-site", "[org/gnome/desktop/session]\nidle-delay=uint32 60\n");
+        IdleTimeoutDetector detector = new IdleTimeoutDetector(root, List.of(), List.of("sh", "-c", "exit 1"), null);
+
+        assertEquals(new IdleTimeout(420_000, "gnome idle-delay"), detector.detect());
+        write("etc/dconf/db/local.d/10-office", "[org/gnome/desktop/session]\nidle-delay=uint32 0\n");
+        assertFalse(detector.detect().isKnown());
+    }
+
+    @Test
+    void testPicksShortestTimeout() throws IOException {
+        write("etc/systemd/logind.conf", "[Login]\nIdleAction=lock\nIdleActionSec=7min\n");
+        IdleTimeoutDetector detector = new IdleTimeoutDetector(root, List.of("printf", XSET_OUTPUT),
+            List.of("sh", "-c", "echo 'uint32 900'"), null);
+
+        assertEquals(new IdleTimeout(TimeUnit.MINUTES.toMillis(7), "logind IdleAction=lock"), detector.detect());
+    }
+
+    @Test
+    void testReadsScreenSaverTimeoutOfXvfb() throws Exception {
+        Assumptions.assumeTrue(CommandRunner.isOnPath("Xvfb") && CommandRunner.isOnPath("xset"),
+            "Xvfb and xset are needed");
+        String display = ":" + (90 + ProcessHandle.current().pid() % 100);
+        // Xvfb takes the screen saver timeout in minutes
+        Process server = new ProcessBuilder("Xvfb", display, "-s", "7", "-nolisten", "tcp")
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        try {
+            List<String> xset = List.of("xset", "-display", display, "q");
+            await().atMost(Duration.ofSeconds(10)).ignoreExceptions()
+                .until(() -> !CommandRunner.run(xset, 2000).isEmpty());
+            IdleTimeoutDetector detector = new IdleTimeoutDetector(root, xset, List.of(), null);
+
+            assertEquals(new IdleTimeout(420_000, "x11 screen saver"), detector.detect());
+        } finally {
+            server.destroy();
+            server.waitFor(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private IdleTimeoutDetector detector() {
+        return new IdleTimeoutDetector(root, List.of(), List.of(), null);
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = root.resolve(path);
+        Files.createDirectories(file.resolveSibling(""));
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+}
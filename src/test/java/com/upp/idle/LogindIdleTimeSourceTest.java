@@ -0,0 +1,50 @@
+package com.upp.idle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for LogindIdleTimeSource.
+ */
+class LogindIdleTimeSourceTest {
+
+    @Test
+    void testParseIdleSinceHint() {
+        String output = "IdleHint=yes\nIdleSinceHint=1700000000000000\n";
+        
+        assertEquals(90_000, LogindIdleTimeSource.parseIdleMillis(output, 1_700_000_090_000L));
+    }
+
+    @Test
+    void testParseActiveSession() {
+        // An hour after the user came back, the session is still not idle
+        String output = "IdleHint=no\nIdleSinceHint=1700000000000000\n";
+        
+        assertEquals(0, LogindIdleTimeSource.parseIdleMillis(output, 1_700_003_600_000L));
+    }
+
+    @Test
+    void testParseMissingHint() {
+        assertEquals(IdleTimeSource.UNKNOWN,
+            LogindIdleTimeSource.parseIdleMillis("IdleSinceHint=1700000000000000\n", 1_700_000_090_000L));
+        assertEquals(IdleTimeSource.UNKNOWN, LogindIdleTimeSource.parseIdleMillis("IdleHint=yes\n", 0));
+        assertEquals(IdleTimeSource.UNKNOWN,
+            LogindIdleTimeSource.parseIdleMillis("IdleHint=yes\nIdleSinceHint=0\n", 1_000));
+        assertEquals(IdleTimeSource.UNKNOWN,
+            LogindIdleTimeSource.parseIdleMillis("IdleHint=yes\nIdleSinceHint=n/a\n", 1_000));
+    }
+
+    @Test
+    void testReadsCommandOutput() {
+        long sinceMicros = (System.currentTimeMillis() - 5_000) * 1000;
+        IdleTimeSource source = new LogindIdleTimeSource(
+            List.of("sh", "-c", "printf 'IdleHint=yes\\nIdleSinceHint=" + sinceMicros + "\\n'"));
+        
+        long idleMillis = source.getIdleMillis();
+        assertTrue(idleMillis >= 5_000 && idleMillis < 10_000, "Idle time was " + idleMillis);
+    }
+}
@@ -0,0 +1,58 @@
+package com.upp.idle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for PointerIdleTimeSource and SampledIdleTimeSource.
+ */
+class PointerIdleTimeSourceTest {
+
+    @Test
+    void testIdleSinceLastPointerChange() {
+        AtomicLong position = new AtomicLong(10);
+        AtomicLong clock = new AtomicLong(1_000);
+        PointerIdleTimeSource source = new PointerIdleTimeSource(position::get, clock::get);
+        
+        assertEquals(IdleTimeSource.UNKNOWN, source.getIdleMillis());
+        clock.set(31_000);
+        assertEquals(30_000, source.getIdleMillis());
+        
+        position.set(11);
+        clock.set(61_000);
+        assertEquals(0, source.getIdleMillis());
+        clock.set(91_000);
+        assertEquals(30_000, source.getIdleMillis());
+    }
+
+    @Test
+    void testSampledSourceExtrapolatesBetweenSamples() {
+        AtomicLong queries = new AtomicLong();
+        AtomicLong clock = new AtomicLong(0);
+        IdleTimeSource delegate = new IdleTimeSource() {
+            @Override
+            public long getIdleMillis() {
+                queries.incrementAndGet();
+                return 5_000;
+            }
+
+            @Override
+            public String getName() {
+                return "test";
+            }
+        };
+        SampledIdleTimeSource source = new SampledIdleTimeSource(delegate, 1_000, clock::get);
+        
+        assertEquals(5_000, source.getIdleMillis());
+        clock.set(400);
+        assertEquals(5_400, source.getIdleMillis());
+        assertEquals(1, queries.get());
+        
+        clock.set(1_000);
+        assertEquals(5_000, source.getIdleMillis());
+        assertEquals(2, queries.get());
+    }
+}
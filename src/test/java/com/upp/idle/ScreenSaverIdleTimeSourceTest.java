@@ -0,0 +1,31 @@
+package com.upp.idle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for ScreenSaverIdleTimeSource.
+ */
+class ScreenSaverIdleTimeSourceTest {
+
+    @Test
+    void testReadsIdleTimeFromCommand() {
+        IdleTimeSource source = new ScreenSaverIdleTimeSource(List.of("sh", "-c", "echo 1234"));
+        
+        assertEquals(1234, source.getIdleMillis());
+        assertEquals(IdleTimeSources.X11, source.getName());
+    }
+
+    @Test
+    void testUnknownWhenCommandFails() {
+        assertEquals(IdleTimeSource.UNKNOWN,
+            new ScreenSaverIdleTimeSource(List.of("sh", "-c", "exit 1")).getIdleMillis());
+        assertEquals(IdleTimeSource.UNKNOWN,
+            new ScreenSaverIdleTimeSource(List.of("sh", "-c", "echo 'couldn't open display'")).getIdleMillis());
+        assertEquals(IdleTimeSource.UNKNOWN,
+            new ScreenSaverIdleTimeSource(List.of("antiidle-no-such-command")).getIdleMillis());
+    }
+}
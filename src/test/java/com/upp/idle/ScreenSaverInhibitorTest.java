@@ -0,0 +1,121 @@
+package com.upp.idle;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests ScreenSaverInhibitor against a private dbus-daemon hosting a fake screen saver service.
+ */
+@Timeout(30)
+class ScreenSaverInhibitorTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private Process daemon;
+    private String address;
+    private final Set<Integer> activeCookies = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inhibitCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Assumptions.assumeTrue(CommandRunner.isOnPath("dbus-daemon"), "dbus-daemon is not installed");
+        Path config = tempDir.resolve("bus.conf");
+        Files.writeString(config, "<!DOCTYPE busconfig PUBLIC \"-//freedesktop//DTD D-Bus Bus Configuration 1.0//EN\"\n"
+            + " \"http://www.freedesktop.org/standards/dbus/1.0/busconfig.dtd\">\n"
+            + "<busconfig><type>session</type>"
+            + "<listen>unix:path=" + tempDir.resolve("bus") + "</listen><auth>EXTERNAL</auth>"
+            + "<policy context=\"default\"><allow send_destination=\"*\"/>"
+            + "<allow receive_sender=\"*\"/><allow own=\"*\"/></policy>"
+            + "</busconfig>\n");
+        daemon = new ProcessBuilder("dbus-daemon", "--config-file=" + config, "--nofork", "--print-address")
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        address = daemon.inputReader(StandardCharsets.UTF_8).readLine();
+        Assumptions.assumeTrue(address != null, "dbus-daemon did not start");
+        startFakeScreenSaver();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (daemon != null) {
+            daemon.destroyForcibly();
+        }
+    }
+
+    private void startFakeScreenSaver() throws IOException {
+        DBusConnection service = DBusConnection.open(address);
+        DBusConnection.Message owner = service.call(DBusConnection.BUS_NAME, DBusConnection.BUS_PATH,
+            DBusConnection.BUS_NAME, "RequestName", "su", ScreenSaverInhibitor.SERVICE, 4);
+        assertEquals(1, owner.getUint32());
+        Thread thread = new Thread(() -> {
+            AtomicInteger nextCookie = new AtomicInteger(100);
+            try {
+                while (true) {
+                    DBusConnection.Message call = service.receiveCall();
+                    if ("Inhibit".equals(call.getMember())) {
+                        int cookie = nextCookie.incrementAndGet();
+                        activeCookies.add(cookie);
+                        inhibitCalls.incrementAndGet();
+                        service.reply(call, "u", cookie);
+                    } else if ("UnInhibit".equals(call.getMember())) {
+                        activeCookies.remove(call.getUint32());
+                        service.reply(call, "");
+                    }
+                }
+            } catch (IOException e) {
+                // Bus stopped
+            }
+        }, "fake-screensaver");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Test
+    void testRenewKeepsExactlyOneInhibition() {
+        try (ScreenSaverInhibitor inhibitor = new ScreenSaverInhibitor(address)) {
+            assertTrue(inhibitor.renew("test"));
+            assertEquals(1, activeCookies.size());
+            
+            assertTrue(inhibitor.renew("test"));
+            assertEquals(2, inhibitCalls.get());
+            await().atMost(Duration.ofSeconds(5)).until(() -> activeCookies.size() == 1);
+        }
+        await().atMost(Duration.ofSeconds(5)).until(activeCookies::isEmpty);
+    }
+
+    @Test
+    void testFailsWithoutService() throws Exception {
+        daemon.destroy();
+        daemon.waitFor();
+        
+        try (ScreenSaverInhibitor inhibitor = new ScreenSaverInhibitor(address)) {
+            assertFalse(inhibitor.renew("test"));
+        }
+    }
+
+    @Test
+    void testSocketPathFromAddress() throws Exception {
+        assertEquals(Path.of("/run/user/1000/bus"),
+            DBusConnection.socketPath("unix:abstract=/tmp/x;unix:path=/run/user/1000/bus,guid=1234"));
+        assertEquals(Path.of("/tmp/a b"), DBusConnection.socketPath("unix:path=/tmp/a%20b"));
+    }
+}
@@ -0,0 +1,53 @@
+package com.upp.idle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for SystemdInhibitor and the inhibitor fallback chain, using stand-in commands.
+ */
+class SystemdInhibitorTest {
+    // Extra arguments become positional parameters that the scripts ignore
+    private static final List<String> HOLDING = List.of("sh", "-c", "sleep 30", "sh");
+    private static final List<String> FAILING = List.of("sh", "-c", "exit 1", "sh");
+
+    @Test
+    void testHoldsLockWhileProcessRuns() {
+        SystemdInhibitor inhibitor = new SystemdInhibitor(HOLDING);
+        try {
+            assertTrue(inhibitor.renew("test"));
+            long holders = ProcessHandle.current().descendants().count();
+            assertTrue(holders >= 1);
+            
+            // Renewing a live lock does not start another process
+            assertTrue(inhibitor.renew("test"));
+            assertEquals(holders, ProcessHandle.current().descendants().count());
+        } finally {
+            inhibitor.close();
+        }
+    }
+
+    @Test
+    void testFailsWhenCommandExits() {
+        assertFalse(new SystemdInhibitor(FAILING).renew("test"));
+        assertFalse(new SystemdInhibitor(List.of("antiidle-no-such-command")).renew("test"));
+    }
+
+    @Test
+    void testFallsBackToNextInhibitor() {
+        IdleInhibitor inhibitor = new IdleInhibitors.FirstAvailable(
+            List.of(new SystemdInhibitor(FAILING), new SystemdInhibitor(HOLDING)));
+        try {
+            assertTrue(inhibitor.renew("test"));
+            assertEquals("systemd-inhibit", inhibitor.getName());
+        } finally {
+            inhibitor.close();
+        }
+        assertEquals("none", inhibitor.getName());
+    }
+}
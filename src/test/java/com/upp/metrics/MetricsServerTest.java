@@ -0,0 +1,130 @@
+package com.upp.metrics;
+
+import com.upp.config.ConfigurationManager;
+import com.upp.core.ActivitySimulator;
+import com.upp.core.RecordingInputBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for MetricsServer.
+ */
+class MetricsServerTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private ConfigurationManager configManager;
+    private ActivitySimulator global;
+    private ActivitySimulator session;
+    private MetricsServer metricsServer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        configManager = new ConfigurationManager(tempDir.resolve("config.yml"));
+        ConfigurationManager.AntiIdleConfig config = configManager.getConfig();
+        config.getActivity().setIntervalSeconds(1);
+        config.getActivity().setKeyPressDurationMs(0);
+        config.getActivity().setMouseMovementEnabled(false);
+        config.getActivity().setSkipWhenUserActive(false);
+        configManager.updateConfig(config);
+
+        global = new ActivitySimulator(configManager, new RecordingInputBackend());
+        session = new ActivitySimulator(configManager, new RecordingInputBackend(), "desk \"2\"",
+            Thread.ofVirtual().factory());
+
+        ConfigurationManager.MetricsSettings settings = new ConfigurationManager.MetricsSettings();
+        settings.setPort(0);
+        metricsServer = new MetricsServer(settings, () -> List.of(global, session));
+        metricsServer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        metricsServer.stop();
+        global.stopSimulation();
+        configManager.close();
+    }
+
+    private HttpResponse<String> scrape(String method) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://127.0.0.1:" + metricsServer.getAddress().getPort() + "/metrics"))
+            .method(method, HttpRequest.BodyPublishers.noBody())
+            .build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void testBindsToLoopbackByDefault() {
+        assertTrue(metricsServer.getAddress().getAddress().isLoopbackAddress());
+    }
+
+    @Test
+    void testServesOpenMetrics() throws Exception {
+        global.startSimulation();
+        await().atMost(Duration.ofSeconds(5)).until(() -> global.getStats().getCycles() > 0);
+
+        HttpResponse<String> response = scrape("GET");
+
+        assertEquals(200, response.statusCode());
+        assertEquals(MetricsServer.CONTENT_TYPE, response.headers().firstValue("Content-Type").orElse(null));
+        String body = response.body();
+        assertTrue(body.endsWith("# EOF\n"));
+        assertTrue(body.contains("# TYPE antiidle_cycles counter\n"));
+        assertTrue(body.contains("antiidle_running{session=\"default\"} 1\n"));
+        assertTrue(body.contains("antiidle_running{session=\"desk \\\"2\\\"\"} 0\n"));
+        assertTrue(body.contains("antiidle_cycles_total{session=\"desk \\\"2\\\"\"} 0\n"));
+        assertTrue(body.contains("# TYPE antiidle_injection_latency_seconds histogram\n"));
+        assertTrue(body.contains("antiidle_tick_lateness_seconds_bucket{session=\"default\",le=\"0.000001024\"} "));
+
+        long cycles = sampleValue(body, "antiidle_cycles_total{session=\"default\"}");
+        long cycleCount = sampleValue(body, "antiidle_cycle_duration_seconds_count{session=\"default\"}");
+        long infBucket = sampleValue(body, "antiidle_cycle_duration_seconds_bucket{session=\"default\",le=\"+Inf\"}");
+        assertTrue(cycles > 0);
+        assertEquals(cycleCount, infBucket);
+    }
+
+    @Test
+    void testRejectsOtherMethodsAndPaths() throws Exception {
+        assertEquals(405, scrape("POST").statusCode());
+        assertEquals(200, scrape("HEAD").statusCode());
+
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://127.0.0.1:" + metricsServer.getAddress().getPort() + "/metrics/extra"))
+            .build();
+        assertEquals(404, HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.discarding())
+            .statusCode());
+    }
+
+    @Test
+    void testFormatsSecondsAndLabels() {
+        OpenMetricsWriter writer = new OpenMetricsWriter();
+        writer.appendSeconds(1_500_000_000L).append(' ').appendSeconds(42).append(' ').append(-12L).append(' ')
+            .appendLabelValue("a\\b\ncé");
+
+        assertEquals("1.500000000 0.000000042 -12 a\\\\b\\ncé", writer.toString());
+    }
+
+    private static long sampleValue(String body, String sample) {
+        for (String line : body.split("\n")) {
+            if (line.startsWith(sample + " ")) {
+                return Long.parseLong(line.substring(sample.length() + 1));
+            }
+        }
+        throw new AssertionError("Missing sample " + sample);
+    }
+}